@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * A realm that queues the runnables given to {@link #asyncExec(Runnable)} and
+ * runs them in batches, called frames, within another realm such as the
+ * display realm. A frame runs queued runnables until its time budget is used
+ * up, and frames are at least a frame interval apart, so that the time spent
+ * in the other realm is bounded no matter how fast runnables are queued.
+ * <p>
+ * Runnables can be queued with a key using {@link #asyncExec(Object, Runnable)}.
+ * A runnable replaces the queued runnable with the same key, so that only the
+ * last update of, for example, an observable is run per frame.
+ * {@link #asyncSetValue(IObservableValue, Object)} uses the observable as the
+ * key, so that an observable value that is set many times per frame fires a
+ * single value change event. Runnables run in the order in which they were
+ * queued; a runnable that replaces another one takes its place at the end of
+ * the queue.
+ * </p>
+ * <p>
+ * The realm records the number of queued runnables, the number of runnables
+ * that were replaced before they ran, and the time between queueing a
+ * runnable and running it. These metrics can be used to tune the frame budget
+ * and interval.
+ * </p>
+ * <p>
+ * This realm is current whenever the other realm is current.
+ * </p>
+ *
+ * @since 1.5
+ */
+public class CoalescingRealm extends Realm {
+
+	/**
+	 * The default frame budget in milliseconds.
+	 */
+	public static final int DEFAULT_FRAME_BUDGET = 10;
+
+	/**
+	 * The default frame interval in milliseconds.
+	 */
+	public static final int DEFAULT_FRAME_INTERVAL = 16;
+
+	private static final class Entry {
+		Runnable runnable;
+		final long queueTime;
+
+		Entry(Runnable runnable, long queueTime) {
+			this.runnable = runnable;
+			this.queueTime = queueTime;
+		}
+	}
+
+	private final Realm realm;
+
+	private final long frameBudget;
+
+	private final int frameInterval;
+
+	/**
+	 * Maps keys onto the queued entries, in the order in which they will run.
+	 * Runnables queued without a key get a key of their own.
+	 */
+	private final LinkedHashMap queue = new LinkedHashMap();
+
+	private boolean scheduled;
+
+	private long lastFrameEnd;
+
+	private long runCount;
+
+	private long coalescedCount;
+
+	private long totalLatency;
+
+	private long maxLatency;
+
+	private int maxQueueSize;
+
+	private final Runnable frame = new Runnable() {
+		@Override
+		public void run() {
+			runFrame();
+		}
+	};
+
+	/**
+	 * Creates a realm that runs the queued runnables within the given realm,
+	 * using the default frame budget and interval.
+	 *
+	 * @param realm
+	 *            the realm in which the runnables are run
+	 */
+	public CoalescingRealm(Realm realm) {
+		this(realm, DEFAULT_FRAME_BUDGET, DEFAULT_FRAME_INTERVAL);
+	}
+
+	/**
+	 * Creates a realm that runs the queued runnables within the given realm.
+	 *
+	 * @param realm
+	 *            the realm in which the runnables are run
+	 * @param frameBudget
+	 *            the number of milliseconds after which a frame stops running
+	 *            queued runnables; at least one runnable is run per frame
+	 * @param frameInterval
+	 *            the minimum number of milliseconds between the end of a frame
+	 *            and the start of the next frame
+	 */
+	public CoalescingRealm(Realm realm, int frameBudget, int frameInterval) {
+		Assert.isNotNull(realm);
+		Assert.isTrue(frameBudget >= 0 && frameInterval >= 0);
+		this.realm = realm;
+		this.frameBudget = frameBudget * 1000000L;
+		this.frameInterval = frameInterval;
+		this.lastFrameEnd = System.nanoTime() - frameInterval * 1000000L;
+	}
+
+	/**
+	 * Returns the realm in which the queued runnables are run.
+	 *
+	 * @return the realm in which the queued runnables are run
+	 */
+	public Realm getRealm() {
+		return realm;
+	}
+
+	@Override
+	public boolean isCurrent() {
+		return realm.isCurrent();
+	}
+
+	/**
+	 * Queues the runnable to be run in the next frame.
+	 */
+	@Override
+	public void asyncExec(Runnable runnable) {
+		asyncExec(null, runnable);
+	}
+
+	/**
+	 * Queues the runnable to be run in the next frame. If a runnable with the
+	 * same key is queued, it is replaced by the given runnable and will not
+	 * run.
+	 * <p>
+	 * If the given runnable is an instance of
+	 * {@link org.eclipse.core.runtime.ISafeRunnable}, its exception handler
+	 * method will be called if any exceptions occur while running it.
+	 * Otherwise, the exception will be logged.
+	 * </p>
+	 *
+	 * @param key
+	 *            the key of the runnable, or <code>null</code> if the runnable
+	 *            must not be replaced
+	 * @param runnable
+	 *            the runnable to run
+	 */
+	public void asyncExec(Object key, Runnable runnable) {
+		Assert.isNotNull(runnable);
+		long now = System.nanoTime();
+		long delay;
+		synchronized (queue) {
+			Entry entry = key == null ? null : (Entry) queue.remove(key);
+			if (entry != null) {
+				coalescedCount++;
+				entry.runnable = runnable;
+			} else {
+				entry = new Entry(runnable, now);
+			}
+			queue.put(key == null ? new Object() : key, entry);
+			maxQueueSize = Math.max(maxQueueSize, queue.size());
+			if (scheduled) {
+				return;
+			}
+			scheduled = true;
+			delay = (lastFrameEnd - now) / 1000000L + frameInterval;
+		}
+		if (delay > 0) {
+			realm.timerExec((int) Math.min(delay, frameInterval), frame);
+		} else {
+			realm.asyncExec(frame);
+		}
+	}
+
+	/**
+	 * Sets the value of the given observable in the next frame. If the value
+	 * of the observable is set more than once before the next frame, only the
+	 * last value is set.
+	 *
+	 * @param observable
+	 *            the observable value, which must belong to the realm in which
+	 *            the queued runnables are run
+	 * @param value
+	 *            the new value
+	 */
+	public void asyncSetValue(final IObservableValue observable,
+			final Object value) {
+		asyncExec(observable, new Runnable() {
+			@Override
+			public void run() {
+				if (!observable.isDisposed()) {
+					observable.setValue(value);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs the given runnable immediately if this realm is current; otherwise
+	 * queues it and blocks until it has run.
+	 */
+	@Override
+	protected void syncExec(Runnable runnable) {
+		if (isCurrent()) {
+			safeRun(runnable);
+		} else {
+			super.syncExec(runnable);
+		}
+	}
+
+	private void runFrame() {
+		long start = System.nanoTime();
+		int count = 0;
+		while (true) {
+			Entry entry;
+			synchronized (queue) {
+				long now = System.nanoTime();
+				if (queue.isEmpty() || (count > 0 && now - start >= frameBudget)) {
+					break;
+				}
+				Iterator iterator = queue.values().iterator();
+				entry = (Entry) iterator.next();
+				iterator.remove();
+				long latency = now - entry.queueTime;
+				runCount++;
+				totalLatency += latency;
+				maxLatency = Math.max(maxLatency, latency);
+			}
+			count++;
+			safeRun(entry.runnable);
+		}
+		boolean more;
+		synchronized (queue) {
+			lastFrameEnd = System.nanoTime();
+			more = !queue.isEmpty();
+			scheduled = more;
+		}
+		if (more) {
+			if (frameInterval > 0) {
+				realm.timerExec(frameInterval, frame);
+			} else {
+				realm.asyncExec(frame);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of runnables that are queued.
+	 *
+	 * @return the number of queued runnables
+	 */
+	public int getQueueSize() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	/**
+	 * Returns the largest number of runnables that were queued at the same
+	 * time since the statistics were last reset.
+	 *
+	 * @return the largest number of queued runnables
+	 */
+	public int getMaxQueueSize() {
+		synchronized (queue) {
+			return maxQueueSize;
+		}
+	}
+
+	/**
+	 * Returns the number of runnables that were run since the statistics were
+	 * last reset.
+	 *
+	 * @return the number of runnables that were run
+	 */
+	public long getRunCount() {
+		synchronized (queue) {
+			return runCount;
+		}
+	}
+
+	/**
+	 * Returns the number of runnables that were replaced by a runnable with
+	 * the same key since the statistics were last reset.
+	 *
+	 * @return the number of replaced runnables
+	 */
+	public long getCoalescedCount() {
+		synchronized (queue) {
+			return coalescedCount;
+		}
+	}
+
+	/**
+	 * Returns the average time in milliseconds between queueing a runnable and
+	 * running it, since the statistics were last reset. The time of a
+	 * runnable that replaced another one is measured from the time the
+	 * replaced runnable was queued.
+	 *
+	 * @return the average latency in milliseconds
+	 */
+	public double getAverageLatency() {
+		synchronized (queue) {
+			return runCount == 0 ? 0 : totalLatency / (runCount * 1000000d);
+		}
+	}
+
+	/**
+	 * Returns the longest time in milliseconds between queueing a runnable and
+	 * running it, since the statistics were last reset.
+	 *
+	 * @return the maximum latency in milliseconds
+	 */
+	public double getMaxLatency() {
+		synchronized (queue) {
+			return maxLatency / 1000000d;
+		}
+	}
+
+	/**
+	 * Resets the statistics of this realm.
+	 */
+	public void resetStatistics() {
+		synchronized (queue) {
+			runCount = 0;
+			coalescedCount = 0;
+			totalLatency = 0;
+			maxLatency = 0;
+			maxQueueSize = queue.size();
+		}
+	}
+}
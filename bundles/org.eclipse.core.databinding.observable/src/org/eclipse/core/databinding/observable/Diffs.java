@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,6 @@
 
 package org.eclipse.core.databinding.observable;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,6 +26,7 @@ import org.eclipse.core.databinding.observable.list.ListDiffEntry;
 import org.eclipse.core.databinding.observable.map.MapDiff;
 import org.eclipse.core.databinding.observable.set.SetDiff;
 import org.eclipse.core.databinding.observable.value.ValueDiff;
+import org.eclipse.core.internal.databinding.observable.ListDiffs;
 import org.eclipse.core.internal.databinding.observable.Util;
 
 /**
@@ -38,6 +38,12 @@ public class Diffs {
 	/**
 	 * Returns a {@link ListDiff} describing the change between the specified
 	 * old and new list states.
+	 * <p>
+	 * The diff takes O(n log n) time for lists of n elements. Elements that
+	 * change their position are reported as a removal directly followed by an
+	 * addition, and the number of these moves is minimal for lists without
+	 * duplicate elements.
+	 * </p>
 	 * 
 	 * @param oldList
 	 *            the old list state
@@ -46,11 +52,7 @@ public class Diffs {
 	 * @return the differences between oldList and newList
 	 */
 	public static ListDiff computeListDiff(List oldList, List newList) {
-		List diffEntries = new ArrayList();
-		createListDiffs(new ArrayList(oldList), newList, diffEntries);
-		ListDiff listDiff = createListDiff((ListDiffEntry[]) diffEntries
-				.toArray(new ListDiffEntry[diffEntries.size()]));
-		return listDiff;
+		return createListDiff(ListDiffs.computeDiffEntries(oldList, newList));
 	}
 
 	/**
@@ -80,99 +82,6 @@ public class Diffs {
 		};
 	}
 
-	/**
-	 * adapted from EMF's ListDifferenceAnalyzer
-	 */
-	private static void createListDiffs(List oldList, List newList,
-			List listDiffs) {
-		int index = 0;
-		for (Iterator it = newList.iterator(); it.hasNext();) {
-			Object newValue = it.next();
-			if (oldList.size() <= index) {
-				// append newValue to newList
-				listDiffs.add(createListDiffEntry(index, true, newValue));
-			} else {
-				boolean done;
-				do {
-					done = true;
-					Object oldValue = oldList.get(index);
-					if (oldValue == null ? newValue != null : !oldValue
-							.equals(newValue)) {
-						int oldIndexOfNewValue = listIndexOf(oldList, newValue,
-								index);
-						if (oldIndexOfNewValue != -1) {
-							int newIndexOfOldValue = listIndexOf(newList,
-									oldValue, index);
-							if (newIndexOfOldValue == -1) {
-								// removing oldValue from list[index]
-								listDiffs.add(createListDiffEntry(index, false,
-										oldValue));
-								oldList.remove(index);
-								done = false;
-							} else if (newIndexOfOldValue > oldIndexOfNewValue) {
-								// moving oldValue from list[index] to
-								// [newIndexOfOldValue]
-								if (oldList.size() <= newIndexOfOldValue) {
-									// The element cannot be moved to the
-									// correct index
-									// now, however later iterations will insert
-									// elements
-									// in front of it, eventually moving it into
-									// the
-									// correct spot.
-									newIndexOfOldValue = oldList.size() - 1;
-								}
-								listDiffs.add(createListDiffEntry(index, false,
-										oldValue));
-								oldList.remove(index);
-								listDiffs.add(createListDiffEntry(
-										newIndexOfOldValue, true, oldValue));
-								oldList.add(newIndexOfOldValue, oldValue);
-								done = false;
-							} else {
-								// move newValue from list[oldIndexOfNewValue]
-								// to [index]
-								listDiffs.add(createListDiffEntry(
-										oldIndexOfNewValue, false, newValue));
-								oldList.remove(oldIndexOfNewValue);
-								listDiffs.add(createListDiffEntry(index, true,
-										newValue));
-								oldList.add(index, newValue);
-							}
-						} else {
-							// add newValue at list[index]
-							oldList.add(index, newValue);
-							listDiffs.add(createListDiffEntry(index, true,
-									newValue));
-						}
-					}
-				} while (!done);
-			}
-			++index;
-		}
-		for (int i = oldList.size(); i > index;) {
-			// remove excess trailing elements not present in newList
-			listDiffs.add(createListDiffEntry(--i, false, oldList.get(i)));
-		}
-	}
-
-	/**
-	 * @param list
-	 * @param object
-	 * @param index
-	 * @return the index, or -1 if not found
-	 */
-	private static int listIndexOf(List list, Object object, int index) {
-		int size = list.size();
-		for (int i = index; i < size; i++) {
-			Object candidate = list.get(i);
-			if (candidate == null ? object == null : candidate.equals(object)) {
-				return i;
-			}
-		}
-		return -1;
-	}
-
 	/**
 	 * Checks whether the two objects are <code>null</code> -- allowing for
 	 * <code>null</code>.
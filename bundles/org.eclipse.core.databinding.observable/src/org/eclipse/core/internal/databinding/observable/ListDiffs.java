@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+
+/**
+ * The algorithms behind {@link Diffs#computeListDiff(List, List)}.
+ */
+public class ListDiffs {
+
+	/**
+	 * Computes the differences between two list states in O(n log n) time.
+	 * <p>
+	 * After stripping the common prefix and suffix, the k-th occurrence of an
+	 * element in the new list is matched with its k-th occurrence in the old
+	 * list through a hash map. The matched elements whose old positions form
+	 * a longest increasing subsequence in new list order stay in place. The
+	 * other matched elements are moved, each move being a removal directly
+	 * followed by an addition of the element, and the unmatched elements are
+	 * added or removed. For lists without duplicates the result has the
+	 * least possible number of moves. Positions in the list being edited are
+	 * tracked with a binary indexed tree.
+	 * </p>
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @return the entries that turn oldList into newList when applied in order
+	 */
+	public static ListDiffEntry[] computeDiffEntries(List oldList, List newList) {
+		Object[] oldElements = oldList.toArray();
+		Object[] newElements = newList.toArray();
+		int minSize = Math.min(oldElements.length, newElements.length);
+		int prefix = 0;
+		while (prefix < minSize
+				&& Util.equals(oldElements[prefix], newElements[prefix])) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < minSize - prefix
+				&& Util.equals(oldElements[oldElements.length - 1 - suffix],
+						newElements[newElements.length - 1 - suffix])) {
+			suffix++;
+		}
+		int oldCount = oldElements.length - prefix - suffix;
+		int newCount = newElements.length - prefix - suffix;
+		if (oldCount == 0 && newCount == 0) {
+			return new ListDiffEntry[0];
+		}
+
+		// match[j] is the old index matched with new index j, or -1
+		Map occurrences = new HashMap();
+		for (int i = 0; i < oldCount; i++) {
+			Object element = oldElements[prefix + i];
+			Occurrences indices = (Occurrences) occurrences.get(element);
+			if (indices == null) {
+				indices = new Occurrences();
+				occurrences.put(element, indices);
+			}
+			indices.add(i);
+		}
+		int[] match = new int[newCount];
+		boolean[] oldMatched = new boolean[oldCount];
+		for (int j = 0; j < newCount; j++) {
+			Occurrences indices = (Occurrences) occurrences
+					.get(newElements[prefix + j]);
+			match[j] = indices == null ? -1 : indices.next();
+			if (match[j] != -1) {
+				oldMatched[match[j]] = true;
+			}
+		}
+
+		boolean[] kept = keptElements(match);
+
+		// Slots in final list order: the gap before the first old element,
+		// then each old element followed by the gap after it. A gap receives
+		// the added and moved elements that follow the kept element before it.
+		int[] gapSizes = new int[oldCount + 1];
+		int anchor = -1;
+		for (int j = 0; j < newCount; j++) {
+			if (kept[j]) {
+				anchor = match[j];
+			} else {
+				gapSizes[anchor + 1]++;
+			}
+		}
+		int[] gapStarts = new int[oldCount + 1];
+		int[] oldSlots = new int[oldCount];
+		int slotCount = gapSizes[0];
+		for (int i = 0; i < oldCount; i++) {
+			oldSlots[i] = slotCount++;
+			gapStarts[i + 1] = slotCount;
+			slotCount += gapSizes[i + 1];
+		}
+		int[] slotToOld = new int[slotCount];
+		for (int slot = 0; slot < slotCount; slot++) {
+			slotToOld[slot] = -1;
+		}
+		for (int i = 0; i < oldCount; i++) {
+			slotToOld[oldSlots[i]] = i;
+		}
+		PositionTree positions = new PositionTree(slotCount, oldSlots);
+		boolean[] oldPresent = new boolean[oldCount];
+		for (int i = 0; i < oldCount; i++) {
+			oldPresent[i] = true;
+		}
+		int[] gapFill = new int[oldCount + 1];
+
+		List entries = new ArrayList();
+		anchor = -1;
+		for (int j = 0; j < newCount; j++) {
+			Object element = newElements[prefix + j];
+			int gap = anchor + 1;
+			int position = positions.countBefore(gapStarts[gap] + gapFill[gap]);
+			if (match[j] != -1) {
+				// drop the unmatched old elements in front of the insertion
+				// point before placing an element taken from the old list
+				int slot;
+				while ((slot = positions.find(position)) != -1
+						&& slotToOld[slot] != -1
+						&& !oldMatched[slotToOld[slot]]) {
+					int i = slotToOld[slot];
+					entries.add(Diffs.createListDiffEntry(prefix + position,
+							false, oldElements[prefix + i]));
+					positions.remove(slot);
+					oldPresent[i] = false;
+				}
+			}
+			if (kept[j]) {
+				anchor = match[j];
+				continue;
+			}
+			if (match[j] != -1) {
+				int i = match[j];
+				entries.add(Diffs.createListDiffEntry(prefix
+						+ positions.countBefore(oldSlots[i]), false,
+						oldElements[prefix + i]));
+				positions.remove(oldSlots[i]);
+				oldPresent[i] = false;
+				position = positions.countBefore(gapStarts[gap] + gapFill[gap]);
+			}
+			entries.add(Diffs.createListDiffEntry(prefix + position, true,
+					element));
+			positions.add(gapStarts[gap] + gapFill[gap]);
+			gapFill[gap]++;
+		}
+
+		for (int i = oldCount - 1; i >= 0; i--) {
+			if (oldPresent[i] && !oldMatched[i]) {
+				entries.add(Diffs.createListDiffEntry(prefix
+						+ positions.countBefore(oldSlots[i]), false,
+						oldElements[prefix + i]));
+			}
+		}
+		return (ListDiffEntry[]) entries.toArray(new ListDiffEntry[entries
+				.size()]);
+	}
+
+	/**
+	 * Returns which of the matched new elements form a longest increasing
+	 * subsequence of old indices and can therefore stay in place.
+	 */
+	private static boolean[] keptElements(int[] match) {
+		int[] tails = new int[match.length];
+		int[] previous = new int[match.length];
+		int length = 0;
+		for (int j = 0; j < match.length; j++) {
+			if (match[j] == -1) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (match[tails[middle]] < match[j]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) {
+				length++;
+			}
+		}
+		boolean[] kept = new boolean[match.length];
+		for (int j = length > 0 ? tails[length - 1] : -1; j != -1; j = previous[j]) {
+			kept[j] = true;
+		}
+		return kept;
+	}
+
+	/**
+	 * The indices of the occurrences of an element in the old list, handed
+	 * out in ascending order.
+	 */
+	private static class Occurrences {
+		private int[] indices = new int[1];
+		private int size;
+		private int next;
+
+		void add(int index) {
+			if (size == indices.length) {
+				int[] grown = new int[size * 2];
+				System.arraycopy(indices, 0, grown, 0, size);
+				indices = grown;
+			}
+			indices[size++] = index;
+		}
+
+		int next() {
+			return next < size ? indices[next++] : -1;
+		}
+	}
+
+	/**
+	 * A binary indexed tree over the slots, counting the occupied ones.
+	 */
+	private static class PositionTree {
+		private final int[] tree;
+
+		PositionTree(int size, int[] occupied) {
+			tree = new int[size + 1];
+			for (int k = 0; k < occupied.length; k++) {
+				tree[occupied[k] + 1] = 1;
+			}
+			for (int i = 1; i <= size; i++) {
+				int parent = i + (i & -i);
+				if (parent <= size) {
+					tree[parent] += tree[i];
+				}
+			}
+		}
+
+		void add(int slot) {
+			update(slot, 1);
+		}
+
+		void remove(int slot) {
+			update(slot, -1);
+		}
+
+		private void update(int slot, int delta) {
+			for (int i = slot + 1; i < tree.length; i += i & -i) {
+				tree[i] += delta;
+			}
+		}
+
+		/**
+		 * Returns the number of occupied slots before the given slot.
+		 */
+		int countBefore(int slot) {
+			int count = 0;
+			for (int i = slot; i > 0; i -= i & -i) {
+				count += tree[i];
+			}
+			return count;
+		}
+
+		/**
+		 * Returns the occupied slot at the given position, or -1 if there are
+		 * not that many occupied slots.
+		 */
+		int find(int position) {
+			int size = tree.length - 1;
+			int slot = 0;
+			int remaining = position + 1;
+			for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+				if (slot + step <= size && tree[slot + step] < remaining) {
+					slot += step;
+					remaining -= tree[slot];
+				}
+			}
+			return slot < size ? slot : -1;
+		}
+	}
+}
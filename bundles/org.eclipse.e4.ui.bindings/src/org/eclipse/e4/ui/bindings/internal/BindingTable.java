@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 IBM Corporation and others.
+ * Copyright (c) 2010, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -190,6 +190,7 @@ public class BindingTable {
 		}
 
 		evaluateOrderedBindings(binding.getTriggerSequence(), binding);
+		BindingTableManager.bindingsChanged();
 	}
 
 	private void addBindingSimple(Binding binding) {
@@ -257,6 +258,7 @@ public class BindingTable {
 				evaluateOrderedBindings(binding.getTriggerSequence(), null);
 			}
 		}
+		BindingTableManager.bindingsChanged();
 	}
 
 	/**
@@ -336,6 +338,13 @@ public class BindingTable {
 		return bindingsByPrefix.get(sequence);
 	}
 
+	/**
+	 * @return the sequences that are a partial match in this table
+	 */
+	Collection<TriggerSequence> getPrefixes() {
+		return bindingsByPrefix.keySet();
+	}
+
 	public boolean isPartialMatch(TriggerSequence seq) {
 		return bindingsByPrefix.get(seq) != null;
 	}
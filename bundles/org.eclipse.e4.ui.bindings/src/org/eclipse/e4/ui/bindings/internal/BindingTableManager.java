@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 IBM Corporation and others.
+ * Copyright (c) 2010, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.contexts.Context;
@@ -29,6 +30,13 @@ import org.eclipse.jface.bindings.TriggerSequence;
 public class BindingTableManager {
 	private static final String BINDING_TABLE_PREFIX = "bindingTable:"; //$NON-NLS-1$
 
+	/**
+	 * Changes whenever a table is added or removed, a binding is added to or
+	 * removed from a table, or the active schemes change. The tries of the
+	 * context sets are rebuilt when it has changed.
+	 */
+	private static final AtomicInteger REVISION = new AtomicInteger();
+
 	@Inject
 	private IEclipseContext eclipseContext;
 
@@ -43,6 +51,7 @@ public class BindingTableManager {
 			//			throw new IllegalArgumentException("Already contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.set(contextId, table);
+		bindingsChanged();
 		final List<Context> contexts = definedTables.getContexts();
 		if (!contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -61,6 +70,7 @@ public class BindingTableManager {
 			throw new IllegalArgumentException("Does not contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.remove(contextId);
+		bindingsChanged();
 		final List<Context> contexts = definedTables.getContexts();
 		if (contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -120,31 +130,8 @@ public class BindingTableManager {
 	}
 
 	public Binding getPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
-		Binding result = null;
-		Binding currentResult = null;
-		List<Context> contexts = contextSet.getContexts();
-		ListIterator<Context> it = contexts.listIterator(contexts.size());
-		while (it.hasPrevious()) {
-			Context c = it.previous();
-			BindingTable table = getTable(c.getId());
-			if (table != null) {
-				currentResult = table.getPerfectMatch(triggerSequence);
-			}
-			if (currentResult != null) {
-				if (isMostActiveScheme(currentResult)) {
-					return currentResult;
-				}
-				if (result == null) {
-					result = currentResult;
-				} else {
-					int rc = compareSchemes(result.getSchemeId(), currentResult.getSchemeId());
-					if (rc < 0) {
-						result = currentResult;
-					}
-				}
-			}
-		}
-		return result;
+		BindingTrie.Node node = getTrie(contextSet).getNode(triggerSequence);
+		return node == null ? null : node.perfectMatch;
 	}
 
 	/**
@@ -203,35 +190,62 @@ public class BindingTableManager {
 	}
 
 	public boolean isPartialMatch(ContextSet contextSet, TriggerSequence sequence) {
-		List<Context> contexts = contextSet.getContexts();
-		ListIterator<Context> it = contexts.listIterator(contexts.size());
-		while (it.hasPrevious()) {
-			Context c = it.previous();
-			BindingTable table = getTable(c.getId());
-			if (table != null) {
-				if (table.isPartialMatch(sequence)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		BindingTrie.Node node = getTrie(contextSet).getNode(sequence);
+		return node != null && node.partialMatches != null;
 	}
 
 	public Collection<Binding> getPartialMatches(ContextSet contextSet, TriggerSequence sequence) {
-		ArrayList<Binding> bindings = new ArrayList<Binding>();
+		BindingTrie.Node node = getTrie(contextSet).getNode(sequence);
+		if (node == null || node.partialMatches == null) {
+			return new ArrayList<Binding>();
+		}
+		return new ArrayList<Binding>(node.partialMatches);
+	}
+
+	/**
+	 * Returns the trie of the bindings of the context set, building it if the
+	 * bindings have changed since it was built.
+	 */
+	private BindingTrie getTrie(ContextSet contextSet) {
+		int currentRevision = REVISION.get();
+		BindingTrie trie = contextSet.getTrie();
+		if (trie != null && trie.isValid(this, currentRevision)) {
+			return trie;
+		}
+
+		// merge the tables from the most to the least specific context
+		trie = new BindingTrie(this, currentRevision);
 		List<Context> contexts = contextSet.getContexts();
 		ListIterator<Context> it = contexts.listIterator(contexts.size());
 		while (it.hasPrevious()) {
 			Context c = it.previous();
 			BindingTable table = getTable(c.getId());
-			if (table != null) {
-				Collection<Binding> partialMatches = table.getPartialMatches(sequence);
-				if (partialMatches != null) {
-					bindings.addAll(partialMatches);
+			if (table == null) {
+				continue;
+			}
+			for (Binding binding : table.getBindings()) {
+				BindingTrie.Node node = trie.addNode(binding.getTriggerSequence());
+				if (node.mostActive) {
+					continue;
+				}
+				if (isMostActiveScheme(binding)) {
+					node.perfectMatch = binding;
+					node.mostActive = true;
+				} else if (node.perfectMatch == null
+						|| compareSchemes(node.perfectMatch.getSchemeId(), binding.getSchemeId()) < 0) {
+					node.perfectMatch = binding;
 				}
 			}
+			for (TriggerSequence prefix : table.getPrefixes()) {
+				trie.addNode(prefix).addPartialMatches(table.getPartialMatches(prefix));
+			}
 		}
-		return bindings;
+		contextSet.setTrie(trie);
+		return trie;
+	}
+
+	static void bindingsChanged() {
+		REVISION.incrementAndGet();
 	}
 
 	/**
@@ -240,6 +254,7 @@ public class BindingTableManager {
 	public void setActiveSchemes(String[] activeSchemeIds) {
 		this.activeSchemeIds = activeSchemeIds;
 		BindingTable.BEST_SEQUENCE.setActiveSchemes(activeSchemeIds);
+		bindingsChanged();
 	}
 
 	/*
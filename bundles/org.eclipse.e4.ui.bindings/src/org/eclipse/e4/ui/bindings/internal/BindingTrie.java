@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.bindings.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.jface.bindings.Binding;
+import org.eclipse.jface.bindings.Trigger;
+import org.eclipse.jface.bindings.TriggerSequence;
+
+/**
+ * The bindings of all tables of a {@link ContextSet}, merged into a tree with
+ * one level per trigger. The node of a trigger sequence holds its perfect
+ * match and its partial matches, so that a lookup only walks the triggers of
+ * the sequence. It is built by the {@link BindingTableManager} and is valid
+ * until a table, a binding or the active schemes change.
+ */
+final class BindingTrie {
+
+	static final class Node {
+		private Map<Trigger, Node> children;
+
+		/**
+		 * The perfect match for the sequence of this node; may be null.
+		 */
+		Binding perfectMatch;
+
+		/**
+		 * Whether the perfect match is in the most active scheme, so that the
+		 * bindings of less specific contexts cannot replace it.
+		 */
+		boolean mostActive;
+
+		/**
+		 * The bindings for which the sequence of this node is a prefix, from
+		 * the most to the least specific context, or <code>null</code> if it
+		 * is not a partial match.
+		 */
+		ArrayList<Binding> partialMatches;
+
+		void addPartialMatches(Collection<Binding> bindings) {
+			if (partialMatches == null) {
+				partialMatches = new ArrayList<Binding>();
+			}
+			if (bindings != null) {
+				partialMatches.addAll(bindings);
+			}
+		}
+	}
+
+	private final BindingTableManager manager;
+	private final int revision;
+	private final Node root = new Node();
+
+	BindingTrie(BindingTableManager manager, int revision) {
+		this.manager = manager;
+		this.revision = revision;
+	}
+
+	/**
+	 * Returns whether this trie was built by the given manager at the given
+	 * revision of the bindings.
+	 */
+	boolean isValid(BindingTableManager manager, int revision) {
+		return this.manager == manager && this.revision == revision;
+	}
+
+	/**
+	 * Returns the node for the given sequence, or <code>null</code> if no
+	 * binding starts with the sequence.
+	 */
+	Node getNode(TriggerSequence sequence) {
+		Node node = root;
+		for (Trigger trigger : sequence.getTriggers()) {
+			if (node.children == null) {
+				return null;
+			}
+			node = node.children.get(trigger);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the node for the given sequence, creating it if needed.
+	 */
+	Node addNode(TriggerSequence sequence) {
+		Node node = root;
+		for (Trigger trigger : sequence.getTriggers()) {
+			if (node.children == null) {
+				node.children = new HashMap<Trigger, Node>(4);
+			}
+			Node child = node.children.get(trigger);
+			if (child == null) {
+				child = new Node();
+				node.children.put(trigger, child);
+			}
+			node = child;
+		}
+		return node;
+	}
+}
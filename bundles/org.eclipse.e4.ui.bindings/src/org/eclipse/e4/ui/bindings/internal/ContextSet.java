@@ -72,6 +72,8 @@ public class ContextSet {
 
 	private List<Context> contexts;
 
+	private BindingTrie trie;
+
 	public ContextSet(Collection<Context> c) {
 		contexts = new ArrayList<Context>(c);
 		Collections.sort(contexts, CONTEXT_COMP);
@@ -81,6 +83,14 @@ public class ContextSet {
 		return contexts;
 	}
 
+	BindingTrie getTrie() {
+		return trie;
+	}
+
+	void setTrie(BindingTrie trie) {
+		this.trie = trie;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (o == this) {
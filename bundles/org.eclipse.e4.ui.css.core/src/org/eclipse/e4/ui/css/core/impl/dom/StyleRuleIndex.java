@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSAndConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSElementSelectorImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSIdConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSPseudoClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleRule;
+
+/**
+ * The selectors of the style rules of a style sheet, indexed by the rightmost
+ * simple selector: by id, else by class, else by element name, else by
+ * pseudo-class. Only the selectors found under the id, the classes, the name
+ * and the pseudo-classes of an element can match the element. Candidates are
+ * returned in style sheet order, so that matching them gives the same cascade
+ * as matching every selector of the style sheet.
+ */
+final class StyleRuleIndex {
+
+	/**
+	 * A selector of a style rule, with its position among all selectors of
+	 * the style sheet.
+	 */
+	static final class Entry implements Comparable<Entry> {
+		final int order;
+		final ExtendedSelector selector;
+		final CSSStyleRule rule;
+
+		Entry(int order, ExtendedSelector selector, CSSStyleRule rule) {
+			this.order = order;
+			this.selector = selector;
+			this.rule = rule;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return order - other.order;
+		}
+	}
+
+	private final CSSRuleList ruleList;
+	private final int ruleCount;
+
+	private final Map<String, List<Entry>> byId = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> byClass = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> byName = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> byPseudoClass = new HashMap<String, List<Entry>>();
+	private final List<Entry> pseudoClassEntries = new ArrayList<Entry>();
+	private final List<Entry> universalEntries = new ArrayList<Entry>();
+
+	StyleRuleIndex(CSSRuleList ruleList) {
+		this.ruleList = ruleList;
+		this.ruleCount = ruleList.getLength();
+		int order = 0;
+		for (int i = 0; i < ruleCount; i++) {
+			CSSRule rule = ruleList.item(i);
+			if (rule.getType() != CSSRule.STYLE_RULE
+					|| !(rule instanceof ExtendedCSSRule)) {
+				continue;
+			}
+			SelectorList selectorList = ((ExtendedCSSRule) rule).getSelectorList();
+			int l = selectorList.getLength();
+			for (int j = 0; j < l; j++) {
+				Selector selector = selectorList.item(j);
+				if (selector instanceof ExtendedSelector) {
+					add(new Entry(order++, (ExtendedSelector) selector,
+							(CSSStyleRule) rule));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether this index still describes the given rule list.
+	 */
+	boolean isValid(CSSRuleList rules) {
+		return rules == ruleList && rules.getLength() == ruleCount;
+	}
+
+	/**
+	 * Returns the selectors that may match the given element, in style sheet
+	 * order.
+	 */
+	List<Entry> getCandidates(Element elt, String pseudoElt) {
+		List<Entry> candidates = new ArrayList<Entry>();
+		candidates.addAll(universalEntries);
+		if (pseudoElt == null) {
+			candidates.addAll(pseudoClassEntries);
+		} else {
+			addAll(candidates, byPseudoClass, pseudoElt);
+		}
+		String name = elt.getPrefix() == null ? elt.getNodeName() : elt
+				.getLocalName();
+		addAll(candidates, byName, name);
+		String id;
+		String classes;
+		if (elt instanceof CSSStylableElement) {
+			id = ((CSSStylableElement) elt).getCSSId();
+			classes = ((CSSStylableElement) elt).getCSSClass();
+		} else {
+			id = elt.getAttribute("id");
+			classes = elt.getAttribute("class");
+		}
+		addAll(candidates, byId, id);
+		if (classes != null && !byClass.isEmpty()) {
+			List<String> seen = null;
+			int length = classes.length();
+			int start = 0;
+			while (start < length) {
+				while (start < length && Character.isSpaceChar(classes.charAt(start))) {
+					start++;
+				}
+				int end = start;
+				while (end < length && !Character.isSpaceChar(classes.charAt(end))) {
+					end++;
+				}
+				if (end > start) {
+					String className = classes.substring(start, end);
+					if (seen == null) {
+						seen = new ArrayList<String>(2);
+					}
+					if (!seen.contains(className)) {
+						seen.add(className);
+						addAll(candidates, byClass, className);
+					}
+				}
+				start = end;
+			}
+		}
+		Collections.sort(candidates);
+		return candidates;
+	}
+
+	private static void addAll(List<Entry> candidates,
+			Map<String, List<Entry>> map, String key) {
+		if (key != null) {
+			List<Entry> entries = map.get(key);
+			if (entries != null) {
+				candidates.addAll(entries);
+			}
+		}
+	}
+
+	private void add(Entry entry) {
+		Selector selector = entry.selector;
+		// the rightmost simple selector is the one the element must match
+		while (true) {
+			if (selector instanceof DescendantSelector) {
+				selector = ((DescendantSelector) selector).getSimpleSelector();
+			} else if (selector instanceof SiblingSelector) {
+				selector = ((SiblingSelector) selector).getSiblingSelector();
+			} else {
+				break;
+			}
+		}
+		String[] keys = new String[3];
+		if (selector instanceof ConditionalSelector) {
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			collectKeys(conditional.getCondition(), keys);
+			selector = conditional.getSimpleSelector();
+		}
+		String name = null;
+		if (selector instanceof CSSElementSelectorImpl) {
+			name = ((CSSElementSelectorImpl) selector).getLocalName();
+		}
+		if (keys[0] != null) {
+			put(byId, keys[0], entry);
+		} else if (keys[1] != null) {
+			put(byClass, keys[1], entry);
+		} else if (name != null) {
+			put(byName, name, entry);
+		} else if (keys[2] != null) {
+			put(byPseudoClass, keys[2], entry);
+			pseudoClassEntries.add(entry);
+		} else {
+			universalEntries.add(entry);
+		}
+	}
+
+	/**
+	 * Fills the id, a class and a pseudo-class that an element must have for
+	 * the given condition to match into the given array.
+	 */
+	private static void collectKeys(Condition condition, String[] keys) {
+		if (condition instanceof CSSAndConditionImpl) {
+			CSSAndConditionImpl and = (CSSAndConditionImpl) condition;
+			collectKeys(and.getFirstCondition(), keys);
+			collectKeys(and.getSecondCondition(), keys);
+		} else if (condition instanceof CSSIdConditionImpl) {
+			keys[0] = ((CSSIdConditionImpl) condition).getValue();
+		} else if (condition instanceof CSSClassConditionImpl) {
+			String className = ((CSSClassConditionImpl) condition).getValue();
+			if (className != null && className.length() > 0
+					&& !containsSpaceChar(className)) {
+				keys[1] = className;
+			}
+		} else if (condition instanceof CSSPseudoClassConditionImpl) {
+			keys[2] = ((CSSPseudoClassConditionImpl) condition).getValue();
+		}
+	}
+
+	private static boolean containsSpaceChar(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (Character.isSpaceChar(value.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void put(Map<String, List<Entry>> map, String key,
+			Entry entry) {
+		List<Entry> entries = map.get(key);
+		if (entries == null) {
+			entries = new ArrayList<Entry>(2);
+			map.put(key, entries);
+		}
+		entries.add(entry);
+	}
+}
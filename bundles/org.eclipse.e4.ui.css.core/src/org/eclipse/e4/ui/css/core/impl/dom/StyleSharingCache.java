@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSAndConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSAttributeConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSElementSelectorImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSIdConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSLangConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSPseudoClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSPseudoElementSelectorImpl;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Shares computed styles between elements that no selector of the style
+ * sheets can tell apart, such as the items of a table or a tool bar.
+ * <p>
+ * The fingerprint of an element consists of its name, namespace, id and
+ * classes, the values of the attributes and the states of the pseudo-classes
+ * that the selectors test and, if a selector has a descendant or child
+ * combinator, the fingerprint of its parent. Elements with the same
+ * fingerprint match the same selectors and get the same computed style. Since
+ * classes and attributes are part of the fingerprint, changing them leads to
+ * a different entry. The cache is cleared when the style sheets or their rules
+ * change. Sharing is disabled for style sheets with sibling selectors or
+ * selectors that are unknown here.
+ * </p>
+ */
+final class StyleSharingCache {
+
+	private static final int MAX_ENTRIES = 2048;
+
+	private static final char SEPARATOR = '\u0000';
+
+	private static final char NULL = '\u0001';
+
+	/**
+	 * Marks a cached element without style.
+	 */
+	private static final Object NO_STYLE = new Object();
+
+	private final Map<String, Object> styles = new HashMap<String, Object>();
+
+	/**
+	 * The style sheets and rule lists the cache was filled for, with the number
+	 * of rules of each.
+	 */
+	private List<Object> snapshot = new ArrayList<Object>();
+
+	private boolean shareable;
+	private boolean usesAncestors;
+	private String[] attributes;
+	private String[] pseudoClasses;
+
+	/**
+	 * Returns the fingerprint of the given element, or <code>null</code> if
+	 * its style cannot be shared. Clears the cache if the style sheets have
+	 * changed since the last call.
+	 */
+	synchronized String getFingerprint(StyleSheetList styleSheets,
+			Element elt, String pseudoElt) {
+		validate(styleSheets);
+		if (!shareable) {
+			return null;
+		}
+		StringBuilder fingerprint = new StringBuilder();
+		append(fingerprint, pseudoElt);
+		if (!appendElement(fingerprint, elt)) {
+			return null;
+		}
+		return fingerprint.toString();
+	}
+
+	/**
+	 * Returns whether a style was stored for the fingerprint.
+	 */
+	synchronized boolean contains(String fingerprint) {
+		return styles.containsKey(fingerprint);
+	}
+
+	/**
+	 * Returns the style stored for the fingerprint, which may be
+	 * <code>null</code>.
+	 */
+	synchronized CSSStyleDeclaration get(String fingerprint) {
+		Object style = styles.get(fingerprint);
+		return style == NO_STYLE ? null : (CSSStyleDeclaration) style;
+	}
+
+	synchronized void put(String fingerprint, CSSStyleDeclaration style) {
+		if (styles.size() >= MAX_ENTRIES) {
+			styles.clear();
+		}
+		styles.put(fingerprint, style == null ? NO_STYLE : style);
+	}
+
+	private boolean appendElement(StringBuilder fingerprint, Element elt) {
+		if (!(elt instanceof CSSStylableElement)) {
+			return false;
+		}
+		CSSStylableElement element = (CSSStylableElement) elt;
+		fingerprint.append(SEPARATOR);
+		append(fingerprint, elt.getPrefix() == null ? elt.getNodeName() : elt
+				.getLocalName());
+		append(fingerprint, elt.getNamespaceURI());
+		append(fingerprint, element.getCSSId());
+		append(fingerprint, element.getCSSClass());
+		for (String attribute : attributes) {
+			append(fingerprint, elt.getAttribute(attribute));
+		}
+		for (String pseudoClass : pseudoClasses) {
+			int state = element.isPseudoInstanceOf(pseudoClass) ? 1 : 0;
+			if (element.isStaticPseudoInstance(pseudoClass)) {
+				state += 2;
+			}
+			fingerprint.append((char) ('0' + state));
+		}
+		if (usesAncestors) {
+			Node parent = elt.getParentNode();
+			while (parent != null && parent.getNodeType() != Node.ELEMENT_NODE) {
+				parent = parent.getParentNode();
+			}
+			if (parent != null) {
+				return appendElement(fingerprint, (Element) parent);
+			}
+		}
+		return true;
+	}
+
+	private static void append(StringBuilder fingerprint, String value) {
+		if (value == null) {
+			fingerprint.append(NULL);
+		} else {
+			fingerprint.append(value);
+		}
+		fingerprint.append(SEPARATOR);
+	}
+
+	private void validate(StyleSheetList styleSheets) {
+		List<Object> current = new ArrayList<Object>();
+		int l = styleSheets.getLength();
+		for (int i = 0; i < l; i++) {
+			CSSStyleSheet styleSheet = (CSSStyleSheet) styleSheets.item(i);
+			CSSRuleList ruleList = styleSheet.getCssRules();
+			current.add(styleSheet);
+			current.add(ruleList);
+			current.add(Integer.valueOf(ruleList.getLength()));
+		}
+		if (sameItems(current, snapshot)) {
+			return;
+		}
+		snapshot = current;
+		styles.clear();
+		analyze(styleSheets);
+	}
+
+	private static boolean sameItems(List<Object> list1, List<Object> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		for (int i = 0; i < list1.size(); i++) {
+			Object item1 = list1.get(i);
+			Object item2 = list2.get(i);
+			if (item1 instanceof Integer ? !item1.equals(item2) : item1 != item2) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the attributes and pseudo-classes that the selectors of the
+	 * style sheets test.
+	 */
+	private void analyze(StyleSheetList styleSheets) {
+		Set<String> attributeSet = new TreeSet<String>();
+		Set<String> pseudoClassSet = new TreeSet<String>();
+		shareable = true;
+		usesAncestors = false;
+		int l = styleSheets.getLength();
+		for (int i = 0; i < l && shareable; i++) {
+			CSSRuleList ruleList = ((CSSStyleSheet) styleSheets.item(i))
+					.getCssRules();
+			int length = ruleList.getLength();
+			for (int j = 0; j < length && shareable; j++) {
+				CSSRule rule = ruleList.item(j);
+				if (rule.getType() == CSSRule.STYLE_RULE
+						&& rule instanceof ExtendedCSSRule) {
+					SelectorList selectorList = ((ExtendedCSSRule) rule)
+							.getSelectorList();
+					for (int k = 0; k < selectorList.getLength(); k++) {
+						analyze(selectorList.item(k), attributeSet,
+								pseudoClassSet);
+					}
+				}
+			}
+		}
+		attributes = attributeSet.toArray(new String[attributeSet.size()]);
+		pseudoClasses = pseudoClassSet.toArray(new String[pseudoClassSet
+				.size()]);
+	}
+
+	private void analyze(Selector selector, Set<String> attributeSet,
+			Set<String> pseudoClassSet) {
+		if (selector instanceof ConditionalSelector) {
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			analyze(conditional.getSimpleSelector(), attributeSet,
+					pseudoClassSet);
+			analyze(conditional.getCondition(), attributeSet, pseudoClassSet);
+		} else if (selector instanceof DescendantSelector) {
+			DescendantSelector descendant = (DescendantSelector) selector;
+			usesAncestors = true;
+			analyze(descendant.getAncestorSelector(), attributeSet,
+					pseudoClassSet);
+			analyze(descendant.getSimpleSelector(), attributeSet,
+					pseudoClassSet);
+		} else if (!(selector instanceof CSSElementSelectorImpl)
+				&& !(selector instanceof CSSPseudoElementSelectorImpl)) {
+			// sibling selectors and selectors of other implementations
+			shareable = false;
+		}
+	}
+
+	private void analyze(Condition condition, Set<String> attributeSet,
+			Set<String> pseudoClassSet) {
+		if (condition instanceof CSSAndConditionImpl) {
+			CSSAndConditionImpl and = (CSSAndConditionImpl) condition;
+			analyze(and.getFirstCondition(), attributeSet, pseudoClassSet);
+			analyze(and.getSecondCondition(), attributeSet, pseudoClassSet);
+		} else if (condition instanceof CSSClassConditionImpl
+				|| condition instanceof CSSIdConditionImpl) {
+			// always part of the fingerprint
+		} else if (condition instanceof CSSAttributeConditionImpl) {
+			add(attributeSet,
+					((CSSAttributeConditionImpl) condition).getLocalName());
+		} else if (condition instanceof CSSLangConditionImpl) {
+			attributeSet.add("lang");
+		} else if (condition instanceof CSSPseudoClassConditionImpl) {
+			add(pseudoClassSet,
+					((CSSPseudoClassConditionImpl) condition).getValue());
+		} else {
+			shareable = false;
+		}
+	}
+
+	private void add(Set<String> set, String value) {
+		if (value == null) {
+			shareable = false;
+		} else {
+			set.add(value);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2013 Angelo Zerr and others.
+ * Copyright (c) 2008, 2014 Angelo Zerr and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,16 +13,14 @@
 package org.eclipse.e4.ui.css.core.impl.dom;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import java.util.Map;
 import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
-import org.w3c.css.sac.Selector;
-import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
-import org.w3c.dom.css.CSSRule;
 import org.w3c.dom.css.CSSRuleList;
 import org.w3c.dom.css.CSSStyleDeclaration;
-import org.w3c.dom.css.CSSStyleRule;
 import org.w3c.dom.css.CSSStyleSheet;
 import org.w3c.dom.css.DocumentCSS;
 import org.w3c.dom.css.ViewCSS;
@@ -37,6 +35,15 @@ public class ViewCSSImpl implements ViewCSS {
 
 	protected DocumentCSS documentCSS;
 
+	/**
+	 * The rule indexes of the style sheets, built on their first use. The
+	 * indexes of style sheets that are no longer in the document are dropped
+	 * when the next style is computed.
+	 */
+	private final Map<CSSStyleSheet, StyleRuleIndex> ruleIndexes = new IdentityHashMap<CSSStyleSheet, StyleRuleIndex>();
+
+	private final StyleSharingCache styleSharingCache = new StyleSharingCache();
+
 	/**
 	 * Creates a new ViewCSS.
 	 */
@@ -59,8 +66,24 @@ public class ViewCSSImpl implements ViewCSS {
 	 */
 	@Override
 	public CSSStyleDeclaration getComputedStyle(Element elt, String pseudoElt) {
-		// Loop for CSS StyleSheet list parsed
 		StyleSheetList styleSheetList = documentCSS.getStyleSheets();
+		String fingerprint = styleSharingCache.getFingerprint(styleSheetList,
+				elt, pseudoElt);
+		if (fingerprint != null && styleSharingCache.contains(fingerprint)) {
+			return styleSharingCache.get(fingerprint);
+		}
+		CSSStyleDeclaration styleDeclaration = computeStyle(styleSheetList,
+				elt, pseudoElt);
+		if (fingerprint != null) {
+			styleSharingCache.put(fingerprint, styleDeclaration);
+		}
+		return styleDeclaration;
+	}
+
+	private CSSStyleDeclaration computeStyle(StyleSheetList styleSheetList,
+			Element elt, String pseudoElt) {
+		removeRuleIndexes(styleSheetList);
+		// Loop for CSS StyleSheet list parsed
 		int l = styleSheetList.getLength();
 		for (int i = 0; i < l; i++) {
 			CSSStyleSheet styleSheet = (CSSStyleSheet) styleSheetList.item(i);
@@ -74,51 +97,28 @@ public class ViewCSSImpl implements ViewCSS {
 	}
 
 	public CSSStyleDeclaration getComputedStyle(CSSStyleSheet styleSheet, Element elt, String pseudoElt) {
-		List styleDeclarations = null;
+		List<StyleWrapper> styleDeclarations = null;
 		StyleWrapper firstStyleDeclaration = null;
-		CSSRuleList ruleList = styleSheet.getCssRules();
-		int length = ruleList.getLength();
+		List<StyleRuleIndex.Entry> candidates = getRuleIndex(styleSheet)
+				.getCandidates(elt, pseudoElt);
 		int position = 0;
-		for (int i = 0; i < length; i++) {
-			CSSRule rule = ruleList.item(i);
-			if (rule.getType() == CSSRule.STYLE_RULE) {
-				CSSStyleRule styleRule = (CSSStyleRule) rule;
-				if (rule instanceof ExtendedCSSRule) {
-					ExtendedCSSRule r = (ExtendedCSSRule) rule;
-					SelectorList selectorList = r.getSelectorList();
-					// Loop for SelectorList
-					int l = selectorList.getLength();
-					for (int j = 0; j < l; j++) {
-						Selector selector = selectorList.item(j);
-						if (selector instanceof ExtendedSelector) {
-							ExtendedSelector extendedSelector = (ExtendedSelector) selector;
-							if (extendedSelector.match(elt, pseudoElt)) {
-								CSSStyleDeclaration style = styleRule
-										.getStyle();
-								int specificity = extendedSelector
-										.getSpecificity();
-								StyleWrapper wrapper = new StyleWrapper(style,
-										specificity, position++);
-								if (firstStyleDeclaration == null) {
-									firstStyleDeclaration = wrapper;
-								} else {
-									// There is several Style Declarations which
-									// match the current element
-									if (styleDeclarations == null) {
-										styleDeclarations = new ArrayList();
-										styleDeclarations.add(firstStyleDeclaration);
-									}
-									styleDeclarations.add(wrapper);
-								}
-							}
-						} else {
-							// TODO : selector is not batik ExtendedSelector,
-							// Manage this case...
-						}
-					}
+		for (StyleRuleIndex.Entry candidate : candidates) {
+			ExtendedSelector extendedSelector = candidate.selector;
+			if (extendedSelector.match(elt, pseudoElt)) {
+				CSSStyleDeclaration style = candidate.rule.getStyle();
+				int specificity = extendedSelector.getSpecificity();
+				StyleWrapper wrapper = new StyleWrapper(style, specificity,
+						position++);
+				if (firstStyleDeclaration == null) {
+					firstStyleDeclaration = wrapper;
 				} else {
-					// TODO : CSS rule is not ExtendedCSSRule,
-					// Manage this case...
+					// There is several Style Declarations which
+					// match the current element
+					if (styleDeclarations == null) {
+						styleDeclarations = new ArrayList<StyleWrapper>();
+						styleDeclarations.add(firstStyleDeclaration);
+					}
+					styleDeclarations.add(wrapper);
 				}
 			}
 		}
@@ -132,4 +132,46 @@ public class ViewCSSImpl implements ViewCSS {
 		}
 		return null;
 	}
+
+	/**
+	 * Returns the index of the selectors of the given style sheet, building
+	 * it when the style sheet is first used or its rules have changed.
+	 */
+	private StyleRuleIndex getRuleIndex(CSSStyleSheet styleSheet) {
+		CSSRuleList ruleList = styleSheet.getCssRules();
+		synchronized (ruleIndexes) {
+			StyleRuleIndex index = ruleIndexes.get(styleSheet);
+			if (index == null || !index.isValid(ruleList)) {
+				index = new StyleRuleIndex(ruleList);
+				ruleIndexes.put(styleSheet, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Removes the indexes of the style sheets that are not in the given list,
+	 * such as those removed from the document.
+	 */
+	private void removeRuleIndexes(StyleSheetList styleSheetList) {
+		synchronized (ruleIndexes) {
+			Iterator<CSSStyleSheet> iterator = ruleIndexes.keySet().iterator();
+			while (iterator.hasNext()) {
+				if (!contains(styleSheetList, iterator.next())) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private static boolean contains(StyleSheetList styleSheetList,
+			CSSStyleSheet styleSheet) {
+		int l = styleSheetList.getLength();
+		for (int i = 0; i < l; i++) {
+			if (styleSheetList.item(i) == styleSheet) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
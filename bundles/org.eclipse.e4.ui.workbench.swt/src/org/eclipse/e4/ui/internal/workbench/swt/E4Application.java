@@ -376,6 +376,21 @@ public class E4Application implements IApplication {
 		eclipseContext.set(E4Workbench.DELTA_RESTORE,
 				Boolean.valueOf(deltaRestore));
 
+		// Binary save and restore
+		value = getArgValue(E4Workbench.BINARY_MODEL, appContext, false);
+		eclipseContext.set(E4Workbench.BINARY_MODEL,
+				Boolean.valueOf(value != null && Boolean.parseBoolean(value)));
+
+		// Parallel loading of the model fragments
+		value = getArgValue(E4Workbench.PARALLEL_MODEL_ASSEMBLY, appContext, false);
+		eclipseContext.set(E4Workbench.PARALLEL_MODEL_ASSEMBLY,
+				Boolean.valueOf(value != null && Boolean.parseBoolean(value)));
+
+		// Caching of the assembled initial model
+		value = getArgValue(E4Workbench.MODEL_ASSEMBLY_CACHE, appContext, false);
+		eclipseContext.set(E4Workbench.MODEL_ASSEMBLY_CACHE,
+				Boolean.valueOf(value != null && Boolean.parseBoolean(value)));
+
 		String resourceHandler = getArgValue(IWorkbench.MODEL_RESOURCE_HANDLER,
 				appContext, false);
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -151,10 +151,22 @@ public class Activator implements BundleActivator {
 		return trace;
 	}
 
-	public static void trace(String option, String msg, Throwable error) {
+	/**
+	 * Returns whether messages traced with the given option are written. Callers that build
+	 * expensive messages check this before calling {@link #trace(String, String, Throwable)}.
+	 *
+	 * @param option
+	 *            the option, one of the <code>DEBUG</code> constants of {@link Policy}
+	 * @return <code>true</code> if the option is enabled
+	 */
+	public static boolean isTracing(String option) {
 		final DebugOptions debugOptions = activator.getDebugOptions();
-		if (debugOptions.isDebugEnabled()
-				&& debugOptions.getBooleanOption(PI_WORKBENCH + option, false)) {
+		return debugOptions.isDebugEnabled()
+				&& debugOptions.getBooleanOption(PI_WORKBENCH + option, false);
+	}
+
+	public static void trace(String option, String msg, Throwable error) {
+		if (isTracing(option)) {
 			System.out.println(msg);
 			if (error != null) {
 				error.printStackTrace(System.out);
@@ -66,6 +66,24 @@ public class E4Workbench implements IWorkbench {
 	 */
 	@Deprecated
 	public static final String DELTA_RESTORE = "deltaRestore"; //$NON-NLS-1$
+	/**
+	 * The argument for saving the model in a binary format instead of XMI <br>
+	 * <br>
+	 * Value is: <code>binaryModel</code>
+	 */
+	public static final String BINARY_MODEL = "binaryModel"; //$NON-NLS-1$
+	/**
+	 * The argument for loading the model fragments in parallel <br>
+	 * <br>
+	 * Value is: <code>parallelModelAssembly</code>
+	 */
+	public static final String PARALLEL_MODEL_ASSEMBLY = "parallelModelAssembly"; //$NON-NLS-1$
+	/**
+	 * The argument for caching the assembled initial model across restarts <br>
+	 * <br>
+	 * Value is: <code>modelAssemblyCache</code>
+	 */
+	public static final String MODEL_ASSEMBLY_CACHE = "modelAssemblyCache"; //$NON-NLS-1$
 	/**
 	 * The argument for setting RTL mode <br>
 	 * <br>
@@ -185,6 +203,7 @@ public class E4Workbench implements IWorkbench {
 		}
 		if (uiEventPublisher != null && appModel != null) {
 			((Notifier) appModel).eAdapters().remove(uiEventPublisher);
+			uiEventPublisher.dispose();
 			uiEventPublisher = null;
 		}
 		if (osgiRegistration != null) {
@@ -11,6 +11,10 @@
 
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -19,19 +23,36 @@ import java.util.Set;
 import java.util.WeakHashMap;
 import org.eclipse.e4.ui.model.application.MApplicationElement;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuFactory;
+import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectInputStream;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectOutputStream;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.ecore.xmi.XMLHelper;
 import org.eclipse.emf.ecore.xmi.impl.XMIHelperImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 
+/**
+ * The resource the application model is stored in. Besides XMI the model can be saved in the
+ * compact binary format of EMF, see {@link #OPTION_BINARY_FORMAT}. Loading detects the format.
+ */
 public class E4XMIResource extends XMIResourceImpl {
 
+	/**
+	 * Save option: if {@link Boolean#TRUE} the model is saved in the binary format of
+	 * {@link org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl} instead of XMI. The option
+	 * may also be set in the default save options of the resource.
+	 */
+	public static final String OPTION_BINARY_FORMAT = "E4_BINARY_FORMAT"; //$NON-NLS-1$
+
+	// The first byte of the signature of the binary format, never the start of an XML document
+	private static final int BINARY_SIGNATURE_START = 0x89;
+
 	private Map<EObject, String> objectMap = new WeakHashMap<EObject, String>();
 	private Set<String> knownIds = new HashSet<String>();
 
@@ -102,6 +123,60 @@ public class E4XMIResource extends XMIResourceImpl {
 		return id;
 	}
 
+	@Override
+	public void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		if (isBinaryFormat(options)) {
+			saveBinary(outputStream, options);
+		} else {
+			super.doSave(outputStream, options);
+		}
+	}
+
+	@Override
+	public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(
+				inputStream);
+		in.mark(1);
+		int first = in.read();
+		in.reset();
+		if (first == BINARY_SIGNATURE_START) {
+			loadBinary(in, options);
+		} else {
+			super.doLoad(in, options);
+		}
+	}
+
+	private boolean isBinaryFormat(Map<?, ?> options) {
+		Object binary = options == null ? null : options.get(OPTION_BINARY_FORMAT);
+		if (binary == null) {
+			binary = getDefaultSaveOptions().get(OPTION_BINARY_FORMAT);
+		}
+		return Boolean.TRUE.equals(binary);
+	}
+
+	private void saveBinary(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		EObjectOutputStream out = new EObjectOutputStream(outputStream, options);
+		out.saveResource(this);
+		// The binary format has no ids, but they are needed to merge model fragments. They are
+		// written in the order of the contents, which is the same when loading.
+		for (TreeIterator<EObject> it = getAllContents(); it.hasNext();) {
+			out.writeString(getID(it.next()));
+		}
+		out.flush();
+	}
+
+	private void loadBinary(InputStream inputStream, Map<?, ?> options) throws IOException {
+		EObjectInputStream in = new EObjectInputStream(inputStream, options);
+		in.loadResource(this);
+		for (TreeIterator<EObject> it = getAllContents(); it.hasNext();) {
+			EObject eObject = it.next();
+			String id = in.readString();
+			if (id != null) {
+				setID(eObject, id);
+			}
+		}
+	}
+
 	/**
 	 * Functional interface for creating objects
 	 */
@@ -16,9 +16,17 @@ package org.eclipse.e4.ui.internal.workbench;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IContributor;
 import org.eclipse.core.runtime.IExtension;
@@ -28,6 +36,7 @@ import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.services.contributions.IContributionFactory;
 import org.eclipse.e4.core.services.log.Logger;
 import org.eclipse.e4.ui.model.application.MApplication;
@@ -47,9 +56,32 @@ import org.eclipse.emf.ecore.util.EContentsEList;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
- *
+ * Assembles the application model from the fragments and processors contributed through the
+ * <code>org.eclipse.e4.workbench.model</code> extension point.
+ * <p>
+ * If {@link E4Workbench#PARALLEL_MODEL_ASSEMBLY} is set the fragment resources are parsed in
+ * parallel before they are merged. Merging and the processors always run on the calling thread in
+ * the order of the extensions. The time spent on each fragment is traced with the
+ * {@link Policy#DEBUG_MODEL_ASSEMBLY} option.
+ * </p>
  */
 public class ModelAssembler {
+
+	/**
+	 * A fragment resource that is parsed ahead of merging.
+	 */
+	private static class FragmentLoad {
+		final URI uri;
+		final Resource resource;
+		volatile long parseTime;
+		volatile boolean loaded;
+
+		FragmentLoad(URI uri, Resource resource) {
+			this.uri = uri;
+			this.resource = resource;
+		}
+	}
+
 	@Inject
 	private Logger logger;
 
@@ -62,12 +94,22 @@ public class ModelAssembler {
 	@Inject
 	private IExtensionRegistry registry;
 
-	final private static String extensionPointID = "org.eclipse.e4.workbench.model"; //$NON-NLS-1$
+	@Inject
+	@Optional
+	@Named(E4Workbench.PARALLEL_MODEL_ASSEMBLY)
+	private Boolean parallelModelAssembly;
+
+	final static String extensionPointID = "org.eclipse.e4.workbench.model"; //$NON-NLS-1$
 
 	//	private static final String ALWAYS = "always"; //$NON-NLS-1$
 	private static final String INITIAL = "initial"; //$NON-NLS-1$ 
 	private static final String NOTEXISTS = "notexists"; //$NON-NLS-1$ 
 
+	private static final int MAX_WORKERS = 4;
+
+	// The parse times of the fragments parsed ahead, in nanoseconds
+	private Map<URI, Long> parseTimes = new HashMap<URI, Long>();
+
 	/**
 	 * Process the model
 	 */
@@ -95,52 +137,177 @@ public class ModelAssembler {
 	private void processFragments(IExtension[] extensions, List<MApplicationElement> imports,
 			List<MApplicationElement> addedElements, boolean initial) {
 
+		List<IConfigurationElement> fragments = new ArrayList<IConfigurationElement>();
 		for (IExtension extension : extensions) {
 			IConfigurationElement[] ces = extension.getConfigurationElements();
 			for (IConfigurationElement ce : ces) {
 				if ("fragment".equals(ce.getName())) { //$NON-NLS-1$
 					if (initial || !INITIAL.equals(ce.getAttribute("apply"))) { //$NON-NLS-1$ 
-						processFragment(ce, imports, addedElements, initial);
+						fragments.add(ce);
 					}
 				}
 			}
 		}
+
+		if (parallelModelAssembly != null && parallelModelAssembly.booleanValue()) {
+			loadFragments(fragments);
+		}
+
+		for (IConfigurationElement ce : fragments) {
+			processFragment(ce, imports, addedElements, initial);
+		}
+		parseTimes.clear();
 	}
 
-	private void processFragment(IConfigurationElement ce, List<MApplicationElement> imports,
-			List<MApplicationElement> addedElements, boolean initial) {
-		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
-		ResourceSet resourceSet = applicationResource.getResourceSet();
-		IContributor contributor = ce.getContributor();
+	/**
+	 * Parses the fragment resources on a pool of worker threads and adds them to the resource set
+	 * of the application in the order of the fragments. A fragment that fails to parse is left
+	 * out, it is read again and reported by {@link #processFragment}.
+	 */
+	private void loadFragments(List<IConfigurationElement> fragments) {
+		ResourceSet resourceSet = ((EObject) application).eResource().getResourceSet();
+		final List<FragmentLoad> loads = new ArrayList<FragmentLoad>();
+		Set<URI> uris = new HashSet<URI>();
+		for (IConfigurationElement ce : fragments) {
+			URI uri = getFragmentURI(ce, false);
+			if (uri == null || !uris.add(uri) || resourceSet.getResource(uri, false) != null) {
+				continue;
+			}
+			Resource.Factory factory = resourceSet.getResourceFactoryRegistry().getFactory(uri);
+			if (factory != null) {
+				loads.add(new FragmentLoad(uri, factory.createResource(uri)));
+			}
+		}
+		if (loads.isEmpty()) {
+			return;
+		}
+
+		// The resources are parsed outside of the resource set, which is not thread safe, so
+		// they resolve packages through the global registry. Make sure it is initialized.
+		FragmentPackageImpl.eINSTANCE.getEClassifiers();
+
+		final Map<Object, Object> loadOptions = new HashMap<Object, Object>(
+				resourceSet.getLoadOptions());
+		final AtomicInteger next = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int index;
+				while ((index = next.getAndIncrement()) < loads.size()) {
+					FragmentLoad load = loads.get(index);
+					long start = System.nanoTime();
+					try {
+						load.resource.load(loadOptions);
+						load.loaded = true;
+					} catch (Exception e) {
+						// reported when the fragment is processed
+					}
+					load.parseTime = System.nanoTime() - start;
+				}
+			}
+		};
+
+		int workers = Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS),
+				loads.size());
+		ExecutorService executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+			private int count;
+
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Model Assembler Worker-" + count++); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		for (int i = 0; i < workers; i++) {
+			executor.execute(worker);
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			// the workers may still be using the resources, read the fragments one by one
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		for (FragmentLoad load : loads) {
+			if (load.loaded) {
+				resourceSet.getResources().add(load.resource);
+				parseTimes.put(load.uri, Long.valueOf(load.parseTime));
+			}
+		}
+	}
+
+	/**
+	 * Returns the location of the fragment contributed by the configuration element or
+	 * <code>null</code> if it has none or it is invalid.
+	 */
+	private URI getFragmentURI(IConfigurationElement ce, boolean log) {
 		String attrURI = ce.getAttribute("uri"); //$NON-NLS-1$
-		String bundleName = contributor.getName();
+		String bundleName = ce.getContributor().getName();
 		if (attrURI == null) {
-			logger.warn("Unable to find location for the model extension \"{0}\"", bundleName); //$NON-NLS-1$
-			return;
+			if (log) {
+				logger.warn("Unable to find location for the model extension \"{0}\"", bundleName); //$NON-NLS-1$
+			}
+			return null;
 		}
 
-		URI uri;
 		try {
 			// check if the attrURI is already a platform URI
 			if (URIHelper.isPlatformURI(attrURI)) {
-				uri = URI.createURI(attrURI);
-			} else {
-				String path = bundleName + '/' + attrURI;
-				uri = URI.createPlatformPluginURI(path, false);
+				return URI.createURI(attrURI);
 			}
+			String path = bundleName + '/' + attrURI;
+			return URI.createPlatformPluginURI(path, false);
 		} catch (RuntimeException e) {
-			logger.warn(e, "Invalid location \"" + attrURI + "\" of model extension \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (log) {
+				logger.warn(e, "Invalid location \"" + attrURI + "\" of model extension \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			return null;
+		}
+	}
+
+	private void processFragment(IConfigurationElement ce, List<MApplicationElement> imports,
+			List<MApplicationElement> addedElements, boolean initial) {
+		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
+		ResourceSet resourceSet = applicationResource.getResourceSet();
+		IContributor contributor = ce.getContributor();
+		String bundleName = contributor.getName();
+		URI uri = getFragmentURI(ce, true);
+		if (uri == null) {
 			return;
 		}
 
 		String contributorURI = URIHelper.constructPlatformURI(contributor);
 		Resource resource;
+		long start = System.nanoTime();
 		try {
 			resource = resourceSet.getResource(uri, true);
 		} catch (RuntimeException e) {
 			logger.warn(e, "Unable to read model extension from \"" + uri.toString() +"\" of \"" + bundleName + "\""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			return;
 		}
+		Long parsedAhead = parseTimes.get(uri);
+		long parseTime = parsedAhead != null ? parsedAhead.longValue() : System.nanoTime() - start;
+
+		start = System.nanoTime();
+		mergeFragment(ce, resource, uri, contributorURI, imports, addedElements, initial);
+		long mergeTime = System.nanoTime() - start;
+
+		if (Activator.isTracing(Policy.DEBUG_MODEL_ASSEMBLY)) {
+			Activator.trace(Policy.DEBUG_MODEL_ASSEMBLY, "Fragment " + uri + " of " + bundleName //$NON-NLS-1$ //$NON-NLS-2$
+					+ ": parsed in " + TimeUnit.NANOSECONDS.toMillis(parseTime) //$NON-NLS-1$
+					+ " ms, merged in " + TimeUnit.NANOSECONDS.toMillis(mergeTime) + " ms", null); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void mergeFragment(IConfigurationElement ce, Resource resource, URI uri,
+			String contributorURI, List<MApplicationElement> imports,
+			List<MApplicationElement> addedElements, boolean initial) {
+		E4XMIResource applicationResource = (E4XMIResource) ((EObject) application).eResource();
+		String bundleName = ce.getContributor().getName();
 
 		EList<?> contents = resource.getContents();
 		if (contents.isEmpty()) {
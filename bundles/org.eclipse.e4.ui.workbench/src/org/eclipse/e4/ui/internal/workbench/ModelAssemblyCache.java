@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.osgi.framework.Bundle;
+
+/**
+ * A cache of the initial application model after the {@link ModelAssembler} has merged the
+ * fragments and run the processors, so that an unchanged installation can skip assembling it.
+ * <p>
+ * The cache is keyed by the application model and by the version and modification time of every
+ * bundle that contributes to the <code>org.eclipse.e4.workbench.model</code> extension point. A
+ * cache whose key does not match is deleted. The model is stored in the binary format of
+ * {@link E4XMIResource} in the data area of this bundle.
+ * </p>
+ */
+class ModelAssemblyCache {
+
+	private static final String CACHE_FILE = "modelAssembly.cache"; //$NON-NLS-1$
+
+	// Increment when the format of the cache changes
+	private static final int CACHE_VERSION = 1;
+
+	// Guards against reading a corrupt cache
+	private static final int MAX_KEY_LENGTH = 1 << 20;
+
+	private final File cacheFile;
+
+	private final String key;
+
+	/**
+	 * @param registry
+	 *            the registry with the model contributions
+	 * @param applicationModel
+	 *            the location of the application model the cache is for
+	 */
+	ModelAssemblyCache(IExtensionRegistry registry, URI applicationModel) {
+		Activator activator = Activator.getDefault();
+		this.cacheFile = activator == null || activator.getContext() == null ? null : activator
+				.getContext().getDataFile(CACHE_FILE);
+		this.key = cacheFile == null ? null : computeKey(registry, applicationModel);
+	}
+
+	/**
+	 * Loads the cached model into the given resource.
+	 *
+	 * @param resource
+	 *            an empty resource
+	 * @return <code>true</code> if the resource now holds the cached model, <code>false</code> if
+	 *         there is no valid cache
+	 */
+	boolean load(Resource resource) {
+		if (cacheFile == null || !cacheFile.exists()) {
+			return false;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			if (in.readInt() != CACHE_VERSION || !key.equals(readString(in))) {
+				in.close();
+				in = null;
+				invalidate();
+				return false;
+			}
+			resource.load(in, null);
+			return !resource.getContents().isEmpty();
+		} catch (IOException e) {
+			Activator.log(IStatus.WARNING, "Unable to read the model assembly cache", e); //$NON-NLS-1$
+		} catch (RuntimeException e) {
+			Activator.log(IStatus.WARNING, "Unable to read the model assembly cache", e); //$NON-NLS-1$
+		} finally {
+			close(in);
+		}
+		resource.unload();
+		invalidate();
+		return false;
+	}
+
+	/**
+	 * Stores the assembled model in the cache, replacing the previous one.
+	 *
+	 * @param resource
+	 *            the resource with the assembled model
+	 */
+	void store(Resource resource) {
+		if (cacheFile == null) {
+			return;
+		}
+		File tempFile = new File(cacheFile.getParentFile(), CACHE_FILE + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(CACHE_VERSION);
+			writeString(out, key);
+			Map<Object, Object> options = new HashMap<Object, Object>();
+			options.put(E4XMIResource.OPTION_BINARY_FORMAT, Boolean.TRUE);
+			resource.save(out, options);
+			out.close();
+			out = null;
+			cacheFile.delete();
+			if (!tempFile.renameTo(cacheFile)) {
+				tempFile.delete();
+			}
+		} catch (IOException e) {
+			Activator.log(IStatus.WARNING, "Unable to write the model assembly cache", e); //$NON-NLS-1$
+			close(out);
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Deletes the cache.
+	 */
+	void invalidate() {
+		if (cacheFile != null) {
+			cacheFile.delete();
+		}
+	}
+
+	private static String computeKey(IExtensionRegistry registry, URI applicationModel) {
+		StringBuilder key = new StringBuilder();
+		key.append(applicationModel);
+		if (applicationModel.isPlatformPlugin() && applicationModel.segmentCount() > 1) {
+			appendBundle(key, applicationModel.segment(1));
+		}
+		IExtensionPoint extPoint = registry.getExtensionPoint(ModelAssembler.extensionPointID);
+		if (extPoint != null) {
+			for (IExtension extension : extPoint.getExtensions()) {
+				key.append('|').append(extension.getUniqueIdentifier());
+				appendBundle(key, extension.getContributor().getName());
+			}
+		}
+		return key.toString();
+	}
+
+	private static void appendBundle(StringBuilder key, String bundleName) {
+		key.append('|').append(bundleName);
+		Bundle bundle = Activator.getDefault().getBundleForName(bundleName);
+		if (bundle != null) {
+			key.append('_').append(bundle.getVersion()).append('@')
+					.append(bundle.getLastModified());
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_KEY_LENGTH) {
+			throw new IOException("Invalid key length " + length); //$NON-NLS-1$
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8"); //$NON-NLS-1$
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
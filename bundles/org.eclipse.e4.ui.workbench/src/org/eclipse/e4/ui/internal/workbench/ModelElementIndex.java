@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.workbench.modeling.ElementMatcher;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * An index of the model elements contained in the application an {@link UIEventPublisher} is
+ * attached to, keyed by elementId, tag and {@link EClass}. It also records which placeholders refer
+ * to an element.
+ * <p>
+ * The index is kept up to date by the {@link UIEventPublisher} as elements are added to and
+ * removed from the application and as their id, tags or placeholder reference change. It is used by
+ * {@link ModelServiceImpl} to answer <code>findElements</code> queries without walking the whole
+ * model. Like the model itself it must only be accessed from the UI thread.
+ * </p>
+ */
+public class ModelElementIndex {
+
+	/**
+	 * The keys an element is currently indexed under, needed to remove it again after its id,
+	 * tags or reference have changed.
+	 */
+	private static class IndexEntry {
+		String id;
+		List<String> tags;
+		MUIElement ref;
+	}
+
+	private Map<MApplicationElement, IndexEntry> entries = new HashMap<MApplicationElement, IndexEntry>();
+
+	private Map<String, Set<MApplicationElement>> elementsById = new HashMap<String, Set<MApplicationElement>>();
+
+	private Map<String, Set<MApplicationElement>> elementsByTag = new HashMap<String, Set<MApplicationElement>>();
+
+	private Map<EClass, Set<MApplicationElement>> elementsByClass = new HashMap<EClass, Set<MApplicationElement>>();
+
+	private Map<MUIElement, Set<MPlaceholder>> placeholdersByRef = new HashMap<MUIElement, Set<MPlaceholder>>();
+
+	/**
+	 * The number of indexed placeholders whose reference is not indexed.
+	 */
+	private int unresolvedRefs;
+
+	/**
+	 * Adds the element to the index. Does nothing if it is already indexed.
+	 *
+	 * @param element
+	 *            the element to add
+	 */
+	public void add(MApplicationElement element) {
+		if (entries.containsKey(element)) {
+			return;
+		}
+
+		IndexEntry entry = new IndexEntry();
+		entry.id = element.getElementId();
+		entry.tags = new ArrayList<String>(element.getTags());
+		if (element instanceof MPlaceholder) {
+			entry.ref = ((MPlaceholder) element).getRef();
+		}
+		entries.put(element, entry);
+
+		if (entry.id != null) {
+			addTo(elementsById, entry.id, element);
+		}
+		for (String tag : entry.tags) {
+			addTo(elementsByTag, tag, element);
+		}
+		addTo(elementsByClass, ((EObject) element).eClass(), element);
+		// the placeholders that refer to the element are resolved now
+		unresolvedRefs -= countPlaceholders(element);
+		if (entry.ref != null) {
+			addTo(placeholdersByRef, entry.ref, (MPlaceholder) element);
+			if (!entries.containsKey(entry.ref)) {
+				unresolvedRefs++;
+			}
+		}
+	}
+
+	/**
+	 * Removes the element from the index. Does nothing if it is not indexed.
+	 *
+	 * @param element
+	 *            the element to remove
+	 */
+	public void remove(MApplicationElement element) {
+		IndexEntry entry = entries.get(element);
+		if (entry == null) {
+			return;
+		}
+
+		if (entry.ref != null) {
+			removeFrom(placeholdersByRef, entry.ref, element);
+			if (!entries.containsKey(entry.ref)) {
+				unresolvedRefs--;
+			}
+		}
+		entries.remove(element);
+		if (entry.id != null) {
+			removeFrom(elementsById, entry.id, element);
+		}
+		for (String tag : entry.tags) {
+			removeFrom(elementsByTag, tag, element);
+		}
+		removeFrom(elementsByClass, ((EObject) element).eClass(), element);
+		// the placeholders that refer to the element are unresolved now
+		unresolvedRefs += countPlaceholders(element);
+	}
+
+	/**
+	 * Re-indexes an element after its id, tags or placeholder reference have changed.
+	 *
+	 * @param element
+	 *            the changed element
+	 */
+	public void update(MApplicationElement element) {
+		if (!entries.containsKey(element)) {
+			return;
+		}
+		remove(element);
+		add(element);
+	}
+
+	/**
+	 * @param element
+	 *            the element to check
+	 * @return whether the element is in the index
+	 */
+	public boolean contains(Object element) {
+		return entries.containsKey(element);
+	}
+
+	/**
+	 * Returns whether the index holds every element that can be reached from the given root,
+	 * either through containment or through placeholder references.
+	 *
+	 * @param root
+	 *            the root of a search
+	 * @return <code>true</code> if the index is complete for searches starting at root
+	 */
+	public boolean isComplete(MApplicationElement root) {
+		// The contents of indexed elements are always indexed; only placeholders can lead out
+		return unresolvedRefs == 0 && contains(root);
+	}
+
+	/**
+	 * Returns the indexed placeholders whose reference is the given element.
+	 *
+	 * @param ref
+	 *            the referenced element
+	 * @return the placeholders, never <code>null</code>
+	 */
+	public Collection<MPlaceholder> getPlaceholders(MUIElement ref) {
+		Set<MPlaceholder> placeholders = placeholdersByRef.get(ref);
+		if (placeholders == null) {
+			return Collections.emptySet();
+		}
+		return placeholders;
+	}
+
+	private int countPlaceholders(MApplicationElement ref) {
+		Set<MPlaceholder> placeholders = placeholdersByRef.get(ref);
+		return placeholders == null ? 0 : placeholders.size();
+	}
+
+	/**
+	 * Returns all the indexed elements that have the given id, are instances of the given class and
+	 * have all of the given tags. The elements are returned in no particular order.
+	 *
+	 * @param id
+	 *            the elementId to match, or <code>null</code>
+	 * @param clazz
+	 *            the class to match, or <code>null</code>
+	 * @param tagsToMatch
+	 *            the tags to match, or <code>null</code>
+	 * @return the matching elements or <code>null</code> if no criteria are given and the index
+	 *         can not narrow the search down
+	 */
+	public List<MApplicationElement> getElements(String id, Class<?> clazz,
+			List<String> tagsToMatch) {
+		Collection<MApplicationElement> candidates = null;
+		if (id != null) {
+			candidates = getSet(elementsById, id);
+		}
+		if (tagsToMatch != null) {
+			for (String tag : tagsToMatch) {
+				Set<MApplicationElement> tagged = getSet(elementsByTag, tag);
+				if (candidates == null || tagged.size() < candidates.size()) {
+					candidates = tagged;
+				}
+			}
+		}
+		if (candidates == null && clazz != null) {
+			candidates = new ArrayList<MApplicationElement>();
+			for (Map.Entry<EClass, Set<MApplicationElement>> entry : elementsByClass.entrySet()) {
+				Class<?> instanceClass = entry.getKey().getInstanceClass();
+				if (instanceClass != null && clazz.isAssignableFrom(instanceClass)) {
+					candidates.addAll(entry.getValue());
+				}
+			}
+		}
+		if (candidates == null) {
+			return null;
+		}
+
+		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
+		List<MApplicationElement> elements = new ArrayList<MApplicationElement>();
+		for (MApplicationElement candidate : candidates) {
+			if (matcher.select(candidate)) {
+				elements.add(candidate);
+			}
+		}
+		return elements;
+	}
+
+	private static <K, V> void addTo(Map<K, Set<V>> map, K key, V value) {
+		Set<V> values = map.get(key);
+		if (values == null) {
+			values = new HashSet<V>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static <K, V> void removeFrom(Map<K, Set<V>> map, K key, Object value) {
+		Set<V> values = map.get(key);
+		if (values != null) {
+			values.remove(value);
+			if (values.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+	private static <K, V> Set<V> getSet(Map<K, Set<V>> map, K key) {
+		Set<V> values = map.get(key);
+		if (values == null) {
+			return Collections.emptySet();
+		}
+		return values;
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.runtime.IStatus;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * Tracks the topics of the registered {@link EventHandler} services so that the
+ * {@link UIEventPublisher} can skip building and sending events no handler is subscribed to.
+ * <p>
+ * Handlers are tracked through the service registry rather than the event broker, as they may
+ * register with the EventAdmin directly. Event filters are not evaluated: a handler subscribed to
+ * a topic counts as a subscriber even if its filter would reject every event.
+ * </p>
+ */
+class ModelEventSubscriptions implements ServiceListener {
+
+	private static final String[] NO_TOPICS = new String[0];
+
+	private final BundleContext bundleContext;
+
+	// The topics of all registered handlers, null if they have to be collected again
+	private String[] subscribedTopics;
+
+	// Whether a topic has subscribers, cleared when handlers come and go
+	private final Map<String, Boolean> topicCache = new HashMap<String, Boolean>();
+
+	/**
+	 * @param bundleContext
+	 *            the context to track the handler services with
+	 */
+	ModelEventSubscriptions(BundleContext bundleContext) {
+		this.bundleContext = bundleContext;
+		try {
+			bundleContext.addServiceListener(this,
+					"(" + Constants.OBJECTCLASS + "=" //$NON-NLS-1$ //$NON-NLS-2$
+							+ EventHandler.class.getName() + ")"); //$NON-NLS-1$
+		} catch (InvalidSyntaxException e) {
+			// not possible, the filter is constant
+			Activator.log(IStatus.ERROR, e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public synchronized void serviceChanged(ServiceEvent event) {
+		subscribedTopics = null;
+		topicCache.clear();
+	}
+
+	/**
+	 * Returns whether there is a handler that would receive an event on the given topic.
+	 *
+	 * @param topic
+	 *            the topic of the event
+	 * @return <code>true</code> if the event has to be sent
+	 */
+	synchronized boolean hasSubscribers(String topic) {
+		Boolean subscribed = topicCache.get(topic);
+		if (subscribed == null) {
+			subscribed = Boolean.valueOf(computeHasSubscribers(topic));
+			topicCache.put(topic, subscribed);
+		}
+		return subscribed.booleanValue();
+	}
+
+	/**
+	 * Stops tracking the handlers.
+	 */
+	void dispose() {
+		bundleContext.removeServiceListener(this);
+	}
+
+	private boolean computeHasSubscribers(String topic) {
+		for (String subscribedTopic : getSubscribedTopics()) {
+			if (subscribedTopic.equals("*")) { //$NON-NLS-1$
+				return true;
+			}
+			if (subscribedTopic.endsWith("/*")) { //$NON-NLS-1$
+				if (topic.startsWith(subscribedTopic.substring(0, subscribedTopic.length() - 1))) {
+					return true;
+				}
+			} else if (subscribedTopic.equals(topic)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String[] getSubscribedTopics() {
+		if (subscribedTopics != null) {
+			return subscribedTopics;
+		}
+
+		ServiceReference<?>[] references = null;
+		try {
+			references = bundleContext.getAllServiceReferences(EventHandler.class.getName(), null);
+		} catch (InvalidSyntaxException e) {
+			// not possible, there is no filter
+		}
+		if (references == null) {
+			subscribedTopics = NO_TOPICS;
+			return subscribedTopics;
+		}
+
+		List<String> topics = new ArrayList<String>();
+		for (ServiceReference<?> reference : references) {
+			Object property = reference.getProperty(EventConstants.EVENT_TOPIC);
+			if (property instanceof String) {
+				topics.add((String) property);
+			} else if (property instanceof String[]) {
+				for (String topic : (String[]) property) {
+					topics.add(topic);
+				}
+			} else if (property instanceof Collection<?>) {
+				for (Object topic : (Collection<?>) property) {
+					if (topic instanceof String) {
+						topics.add((String) topic);
+					}
+				}
+			}
+		}
+		subscribedTopics = topics.toArray(new String[topics.size()]);
+		return subscribedTopics;
+	}
+}
@@ -35,6 +35,7 @@ import org.eclipse.e4.ui.model.application.ui.advanced.MArea;
 import org.eclipse.e4.ui.model.application.ui.advanced.MPerspective;
 import org.eclipse.e4.ui.model.application.ui.advanced.MPerspectiveStack;
 import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedPackageImpl;
 import org.eclipse.e4.ui.model.application.ui.basic.MBasicFactory;
 import org.eclipse.e4.ui.model.application.ui.basic.MPart;
 import org.eclipse.e4.ui.model.application.ui.basic.MPartSashContainer;
@@ -45,6 +46,8 @@ import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
 import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
 import org.eclipse.e4.ui.model.application.ui.basic.MWindowElement;
 import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.impl.UiPackageImpl;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolControl;
@@ -58,6 +61,7 @@ import org.eclipse.e4.ui.workbench.modeling.EPartService;
 import org.eclipse.e4.ui.workbench.modeling.EPlaceholderResolver;
 import org.eclipse.e4.ui.workbench.modeling.ElementMatcher;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
@@ -68,6 +72,14 @@ import org.osgi.service.event.EventHandler;
 public class ModelServiceImpl implements EModelService {
 	private static String HOSTED_ELEMENT = "HostedElement"; //$NON-NLS-1$
 
+	// Results of checking whether a search visits an element
+	private static final int UNREACHABLE = 0;
+	private static final int REACHABLE = 1;
+	private static final int UNKNOWN = 2;
+
+	// Guards against placeholder cycles when checking reachability
+	private static final int MAX_REACHABILITY_DEPTH = 100;
+
 	private IEclipseContext appContext;
 
 	/** Factory which is able to create {@link MApplicationElement}s in a generic way. */
@@ -288,16 +300,176 @@ public class ModelServiceImpl implements EModelService {
 		}
 	}
 
+	/**
+	 * Returns the index of the model elements if it can answer searches starting at the given root.
+	 *
+	 * @param searchRoot
+	 *            the root of the search
+	 * @return the index or <code>null</code> if the model must be walked
+	 */
+	private ModelElementIndex getIndex(MApplicationElement searchRoot) {
+		UIEventPublisher publisher = appContext.get(UIEventPublisher.class);
+		if (publisher == null) {
+			return null;
+		}
+		ModelElementIndex index = publisher.getModelElementIndex();
+		return index.isComplete(searchRoot) ? index : null;
+	}
+
+	/**
+	 * Answers a search from the model element index instead of walking the model. This is only
+	 * done if at most one element matches; the order of several matches is determined by the
+	 * walk, so they are found by walking the model without checking their reachability first.
+	 *
+	 * @return the elements found or <code>null</code> if the model must be walked
+	 */
+	private <T> List<T> findIndexedElements(MUIElement searchRoot, String id, Class<T> clazz,
+			List<String> tagsToMatch, int searchFlags) {
+		if (searchRoot == null || searchFlags == 0) {
+			return null;
+		}
+		ModelElementIndex index = getIndex(searchRoot);
+		if (index == null) {
+			return null;
+		}
+		List<MApplicationElement> candidates = index.getElements(id, clazz, tagsToMatch);
+		if (candidates == null || candidates.size() > 1) {
+			return null;
+		}
+
+		List<T> elements = new ArrayList<T>(1);
+		if (candidates.isEmpty()) {
+			return elements;
+		}
+		MApplicationElement candidate = candidates.get(0);
+		int reachability = getReachability(index, candidate, searchRoot, searchFlags, 0);
+		if (reachability == UNKNOWN) {
+			return null;
+		}
+		if (reachability == REACHABLE) {
+			elements.add((T) candidate);
+		}
+		return elements;
+	}
+
+	/**
+	 * Determines whether {@link #findElementsRecursive} visits the element when it starts at the
+	 * search root, by walking up from the element instead of down from the root. Placeholders
+	 * referring to the element are taken into account.
+	 *
+	 * @return one of {@link #REACHABLE}, {@link #UNREACHABLE} or {@link #UNKNOWN}
+	 */
+	private int getReachability(ModelElementIndex index, MApplicationElement element,
+			MApplicationElement searchRoot, int searchFlags, int depth) {
+		if (element == searchRoot) {
+			return REACHABLE;
+		}
+		if (depth > MAX_REACHABILITY_DEPTH) {
+			return UNKNOWN;
+		}
+
+		int result = UNREACHABLE;
+
+		// Reached through a placeholder?
+		if (element instanceof MUIElement
+				&& (!(element instanceof MArea) || (searchFlags & IN_SHARED_AREA) != 0)) {
+			for (MPlaceholder ph : index.getPlaceholders((MUIElement) element)) {
+				result = combineReachability(result,
+						getReachability(index, ph, searchRoot, searchFlags, depth + 1));
+				if (result == REACHABLE) {
+					return REACHABLE;
+				}
+			}
+		}
+
+		// Reached through its container?
+		EObject container = ((EObject) element).eContainer();
+		if (!(container instanceof MApplicationElement)) {
+			return result;
+		}
+		int step = getContainmentReachability(element, container, searchFlags);
+		if (step == UNREACHABLE) {
+			return result;
+		}
+		int containerReachability = getReachability(index, (MApplicationElement) container,
+				searchRoot, searchFlags, depth + 1);
+		if (containerReachability == UNREACHABLE) {
+			return result;
+		}
+		return combineReachability(result, step == REACHABLE ? containerReachability : UNKNOWN);
+	}
+
+	/**
+	 * Determines whether {@link #findElementsRecursive} descends from the container into the
+	 * element.
+	 */
+	private int getContainmentReachability(MApplicationElement element, EObject container,
+			int searchFlags) {
+		if (element instanceof MHandler || element instanceof MCommand
+				|| element instanceof MBindingContext || element instanceof MBindingTable
+				|| element instanceof MKeyBinding) {
+			// Whether these are searched depends on the class being searched for
+			return UNKNOWN;
+		}
+
+		EStructuralFeature feature = ((EObject) element).eContainmentFeature();
+		if (feature == UiPackageImpl.Literals.ELEMENT_CONTAINER__CHILDREN) {
+			if (container instanceof MPerspectiveStack) {
+				if ((searchFlags & IN_ANY_PERSPECTIVE) != 0) {
+					return REACHABLE;
+				} else if ((searchFlags & IN_ACTIVE_PERSPECTIVE) != 0) {
+					return ((MPerspectiveStack) container).getSelectedElement() == element ? REACHABLE
+							: UNREACHABLE;
+				} else if ((searchFlags & IN_SHARED_AREA) != 0) {
+					return UNKNOWN;
+				}
+				return UNREACHABLE;
+			}
+			return REACHABLE;
+		}
+		if (feature == BasicPackageImpl.Literals.WINDOW__WINDOWS
+				|| feature == AdvancedPackageImpl.Literals.PERSPECTIVE__WINDOWS) {
+			return REACHABLE;
+		}
+		if (feature == BasicPackageImpl.Literals.TRIMMED_WINDOW__TRIM_BARS) {
+			return (searchFlags & IN_TRIM) != 0 ? REACHABLE : UNREACHABLE;
+		}
+		if (feature == BasicPackageImpl.Literals.WINDOW__MAIN_MENU) {
+			return (searchFlags & IN_MAIN_MENU) != 0 ? REACHABLE : UNREACHABLE;
+		}
+		if (feature == BasicPackageImpl.Literals.PART__MENUS
+				|| feature == BasicPackageImpl.Literals.PART__TOOLBAR) {
+			return (searchFlags & IN_PART) != 0 ? REACHABLE : UNREACHABLE;
+		}
+
+		// The walk does not descend into any other feature. In particular shared elements and
+		// snippets are only visited through placeholders.
+		return UNREACHABLE;
+	}
+
+	private static int combineReachability(int first, int second) {
+		if (first == REACHABLE || second == REACHABLE) {
+			return REACHABLE;
+		}
+		if (first == UNKNOWN || second == UNKNOWN) {
+			return UNKNOWN;
+		}
+		return UNREACHABLE;
+	}
+
 	@Override
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch) {
-		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
-		return findElements(searchRoot, clazz, ANYWHERE, matcher);
+		return findElements(searchRoot, id, clazz, tagsToMatch, ANYWHERE);
 	}
 
 	@Override
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch, int searchFlags) {
+		List<T> elements = findIndexedElements(searchRoot, id, clazz, tagsToMatch, searchFlags);
+		if (elements != null) {
+			return elements;
+		}
 		ElementMatcher matcher = new ElementMatcher(id, clazz, tagsToMatch);
 		return findElements(searchRoot, clazz, searchFlags, matcher);
 	}
@@ -494,11 +666,15 @@ public class ModelServiceImpl implements EModelService {
 
 	@Override
 	public MPlaceholder findPlaceholderFor(MWindow window, MUIElement element) {
-		List<MPlaceholder> phList = findPerspectiveElements(window, null, MPlaceholder.class, null);
-		List<MPlaceholder> elementRefs = new ArrayList<MPlaceholder>();
-		for (MPlaceholder ph : phList) {
-			if (ph.getRef() == element) {
-				elementRefs.add(ph);
+		List<MPlaceholder> elementRefs = findIndexedPlaceholders(window, element);
+		if (elementRefs == null) {
+			List<MPlaceholder> phList = findPerspectiveElements(window, null, MPlaceholder.class,
+					null);
+			elementRefs = new ArrayList<MPlaceholder>();
+			for (MPlaceholder ph : phList) {
+				if (ph.getRef() == element) {
+					elementRefs.add(ph);
+				}
 			}
 		}
 
@@ -522,6 +698,31 @@ public class ModelServiceImpl implements EModelService {
 		return elementRefs.get(0);
 	}
 
+	/**
+	 * Finds the placeholders referring to the element that are visible in the window using the
+	 * model element index.
+	 *
+	 * @return the placeholders or <code>null</code> if the model must be walked
+	 */
+	private List<MPlaceholder> findIndexedPlaceholders(MWindow window, MUIElement element) {
+		ModelElementIndex index = getIndex(window);
+		if (index == null) {
+			return null;
+		}
+		List<MPlaceholder> elementRefs = new ArrayList<MPlaceholder>();
+		for (MPlaceholder ph : index.getPlaceholders(element)) {
+			int reachability = getReachability(index, ph, window, PRESENTATION, 0);
+			if (reachability == UNKNOWN) {
+				return null;
+			}
+			if (reachability == REACHABLE) {
+				elementRefs.add(ph);
+			}
+		}
+		// The order of several placeholders is determined by the walk
+		return elementRefs.size() > 1 ? null : elementRefs;
+	}
+
 	@Override
 	public void move(MUIElement element, MElementContainer<MUIElement> newParent) {
 		move(element, newParent, -1, false);
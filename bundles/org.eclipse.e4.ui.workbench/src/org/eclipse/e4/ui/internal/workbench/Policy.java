@@ -23,4 +23,5 @@ public class Policy {
 	public static final String DEBUG_CONTEXTS_VERBOSE = "/trace/eclipse.context.verbose"; //$NON-NLS-1$
 	public static final String DEBUG_WORKBENCH = "/trace/workbench"; //$NON-NLS-1$
 	public static final String DEBUG_RENDERER = "/trace/renderer"; //$NON-NLS-1$
+	public static final String DEBUG_MODEL_ASSEMBLY = "/trace/modelassembly"; //$NON-NLS-1$
 }
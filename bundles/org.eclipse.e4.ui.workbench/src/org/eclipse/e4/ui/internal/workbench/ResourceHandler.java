@@ -28,6 +28,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.xml.parsers.DocumentBuilderFactory;
 import org.eclipse.core.internal.runtime.PlatformURLPluginConnection;
+import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
@@ -80,6 +81,23 @@ public class ResourceHandler implements IModelResourceHandler {
 	@Named(E4Workbench.INSTANCE_LOCATION)
 	private Location instanceLocation;
 
+	/**
+	 * Whether the model is saved in the binary format instead of XMI. Either format is restored.
+	 */
+	@Inject
+	@Optional
+	@Named(E4Workbench.BINARY_MODEL)
+	private Boolean binaryModel;
+
+	/**
+	 * Whether the initial model is cached after it has been assembled, see
+	 * {@link ModelAssemblyCache}.
+	 */
+	@Inject
+	@Optional
+	@Named(E4Workbench.MODEL_ASSEMBLY_CACHE)
+	private Boolean modelAssemblyCache;
+
 	/**
 	 * Dictates whether the model should be stored using EMF or with the merging algorithm.
 	 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=295524
@@ -162,7 +180,8 @@ public class ResourceHandler implements IModelResourceHandler {
 					// create new resource in case code below fails somewhere
 					File workbenchData = getWorkbenchSaveLocation();
 					URI restoreLocationNew = URI.createFileURI(workbenchData.getAbsolutePath());
-					resource = resourceSetImpl.createResource(restoreLocationNew);
+					resource = configureSaveFormat(resourceSetImpl
+							.createResource(restoreLocationNew));
 
 					Resource oldResource = loadResource(applicationDefinitionInstance);
 					appElement = (MApplication) oldResource.getContents().get(0);
@@ -208,12 +227,13 @@ public class ResourceHandler implements IModelResourceHandler {
 		URI restoreLocation = null;
 
 		if (saveAndRestore) {
-			workbenchData = getWorkbenchSaveLocation();
+			workbenchData = getWorkbenchRestoreLocation();
 			restoreLocation = URI.createFileURI(workbenchData.getAbsolutePath());
 		}
 
-		if (clearPersistedState && workbenchData != null && workbenchData.exists()) {
-			workbenchData.delete();
+		if (clearPersistedState && workbenchData != null) {
+			getXMISaveLocation().delete();
+			getBinarySaveLocation().delete();
 		}
 
 		// last stored time-stamp
@@ -229,6 +249,14 @@ public class ResourceHandler implements IModelResourceHandler {
 		resource = null;
 		if (restore && saveAndRestore) {
 			resource = loadResource(restoreLocation);
+			if (resource != null) {
+				// The model may have been saved in the other format
+				if (!workbenchData.equals(getWorkbenchSaveLocation())) {
+					resource.setURI(URI.createFileURI(getWorkbenchSaveLocation()
+							.getAbsolutePath()));
+				}
+				configureSaveFormat(resource);
+			}
 			// If the saved model does not have any top-level windows, Eclipse will exit
 			// immediately, so throw out the persisted state and reinitialize with the defaults.
 			if (!hasTopLevelWindows(resource)) {
@@ -239,30 +267,60 @@ public class ResourceHandler implements IModelResourceHandler {
 				resource = null;
 			}
 		}
+		ModelAssemblyCache assemblyCache = null;
+		boolean assembled = false;
 		if (resource == null) {
-			Resource applicationResource = loadResource(applicationDefinitionInstance);
-			if (!hasTopLevelWindows(applicationResource) && logger != null) {
-				logger.error(
-						new Exception(), // log a stack trace to help debug the corruption
-						"Initializing from the application definition instance yields no top-level windows! " //$NON-NLS-1$
-								+ "Continuing execution, but the missing windows may cause other initialization failures."); //$NON-NLS-1$
+			if (modelAssemblyCache != null && modelAssemblyCache.booleanValue()) {
+				assemblyCache = new ModelAssemblyCache(context.get(IExtensionRegistry.class),
+						applicationDefinitionInstance);
+				if (clearPersistedState) {
+					assemblyCache.invalidate();
+				}
+				Resource cachedResource = createResource();
+				if (assemblyCache.load(cachedResource)) {
+					resource = cachedResource;
+					assembled = true;
+				} else {
+					resourceSetImpl.getResources().remove(cachedResource);
+				}
+			}
+			if (resource == null) {
+				Resource applicationResource = loadResource(applicationDefinitionInstance);
+				if (!hasTopLevelWindows(applicationResource) && logger != null) {
+					logger.error(
+							new Exception(), // log a stack trace to help debug the corruption
+							"Initializing from the application definition instance yields no top-level windows! " //$NON-NLS-1$
+									+ "Continuing execution, but the missing windows may cause other initialization failures."); //$NON-NLS-1$
+				}
+				MApplication theApp = (MApplication) applicationResource.getContents().get(0);
+				resource = createResourceWithApp(theApp);
 			}
-			MApplication theApp = (MApplication) applicationResource.getContents().get(0);
-			resource = createResourceWithApp(theApp);
 			context.set(E4Workbench.NO_SAVED_MODEL_FOUND, Boolean.TRUE);
 			initialModel = true;
 		} else {
 			initialModel = false;
 		}
 
+		// Track changes so that auto-saving an unchanged model can be skipped
+		resource.setTrackingModification(true);
+
 		// Add model items described in the model extension point
 		// This has to be done before commands are put into the context
 		MApplication appElement = (MApplication) resource.getContents().get(0);
 
 		this.context.set(MApplication.class, appElement);
-		ModelAssembler contribProcessor = ContextInjectionFactory.make(ModelAssembler.class,
-				context);
-		contribProcessor.processModel(initialModel);
+		if (!assembled) {
+			ModelAssembler contribProcessor = ContextInjectionFactory.make(ModelAssembler.class,
+					context);
+			contribProcessor.processModel(initialModel);
+			if (assemblyCache != null) {
+				assemblyCache.store(resource);
+			}
+		}
+		if (assemblyCache != null) {
+			// neither reading nor writing the cache saves the workbench state
+			resource.setModified(true);
+		}
 
 		if (!clearPersistedState) {
 			CommandLineOptionModelProcessor processor = ContextInjectionFactory.make(
@@ -275,6 +333,8 @@ public class ResourceHandler implements IModelResourceHandler {
 
 	@Override
 	public void save() throws IOException {
+		// Always write the model: the modified flag only tells whether the model changed since
+		// the last auto-save snapshot, which may not have been written
 		if (saveAndRestore)
 			resource.save(null);
 	}
@@ -296,16 +356,53 @@ public class ResourceHandler implements IModelResourceHandler {
 	private Resource createResource() {
 		if (saveAndRestore) {
 			URI saveLocation = URI.createFileURI(getWorkbenchSaveLocation().getAbsolutePath());
-			return resourceSetImpl.createResource(saveLocation);
+			return configureSaveFormat(resourceSetImpl.createResource(saveLocation));
 		}
 		return resourceSetImpl.createResource(URI.createURI("workbench.xmi")); //$NON-NLS-1$
 	}
 
+	private Resource configureSaveFormat(Resource resource) {
+		if (resource instanceof E4XMIResource) {
+			Map<Object, Object> saveOptions = ((E4XMIResource) resource).getDefaultSaveOptions();
+			if (isBinaryModel()) {
+				saveOptions.put(E4XMIResource.OPTION_BINARY_FORMAT, Boolean.TRUE);
+			} else {
+				saveOptions.remove(E4XMIResource.OPTION_BINARY_FORMAT);
+			}
+		}
+		return resource;
+	}
+
+	private boolean isBinaryModel() {
+		return binaryModel != null && binaryModel.booleanValue();
+	}
+
 	private File getWorkbenchSaveLocation() {
+		return isBinaryModel() ? getBinarySaveLocation() : getXMISaveLocation();
+	}
+
+	/**
+	 * Returns the most recently saved model, whatever its format, so that switching the format
+	 * keeps the state.
+	 */
+	private File getWorkbenchRestoreLocation() {
+		File xmi = getXMISaveLocation();
+		File binary = getBinarySaveLocation();
+		if (binary.lastModified() > xmi.lastModified()) {
+			return binary;
+		}
+		return xmi;
+	}
+
+	private File getXMISaveLocation() {
 		File workbenchData = new File(getBaseLocation(), "workbench.xmi"); //$NON-NLS-1$
 		return workbenchData;
 	}
 
+	private File getBinarySaveLocation() {
+		return new File(getBaseLocation(), "workbench.bin"); //$NON-NLS-1$
+	}
+
 	private File getBaseLocation() {
 		File baseLocation;
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,30 +10,54 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.MApplication;
 import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.impl.ApplicationPackageImpl;
 import org.eclipse.e4.ui.model.application.impl.StringToObjectMapImpl;
 import org.eclipse.e4.ui.model.application.impl.StringToStringMapImpl;
 import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedPackageImpl;
 import org.eclipse.e4.ui.workbench.UIEvents;
 import org.eclipse.e4.ui.workbench.UIEvents.EventTags;
 import org.eclipse.e4.ui.workbench.UIEvents.EventTypes;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
- * Transforms E4 MPart events into 3.x legacy events.
+ * Transforms E4 MPart events into 3.x legacy events. Also maintains a {@link ModelElementIndex} of
+ * the elements it is attached to that are contained in an {@link MApplication}.
+ * <p>
+ * Events on topics no handler is subscribed to are not built nor sent, see
+ * {@link #setFilterUnsubscribedTopics(boolean)}.
+ * </p>
  */
 public class UIEventPublisher extends EContentAdapter {
 
+	// The topics of a feature, indexed by the EMF notification event type
+	private static final int TOPIC_CACHE_SIZE = Notification.MOVE + 1;
+
 	private IEclipseContext context;
 
+	private ModelElementIndex index = new ModelElementIndex();
+
+	private boolean filterUnsubscribedTopics = true;
+
+	private ModelEventSubscriptions subscriptions;
+
+	private Map<Object, String[]> topicCache = new HashMap<Object, String[]>();
+
 	/**
 	 * @param e4Context
 	 */
@@ -41,6 +65,53 @@ public class UIEventPublisher extends EContentAdapter {
 		this.context = e4Context;
 	}
 
+	/**
+	 * Sets whether events on topics no handler is subscribed to are dropped before they are built.
+	 * Enabled by default.
+	 *
+	 * @param filter
+	 *            <code>true</code> to drop events without subscribers
+	 */
+	public void setFilterUnsubscribedTopics(boolean filter) {
+		filterUnsubscribedTopics = filter;
+	}
+
+	/**
+	 * Stops tracking event subscriptions.
+	 */
+	public void dispose() {
+		if (subscriptions != null) {
+			subscriptions.dispose();
+			subscriptions = null;
+		}
+	}
+
+	/**
+	 * @return the index of the application elements this publisher is attached to
+	 */
+	public ModelElementIndex getModelElementIndex() {
+		return index;
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		// The publisher is also attached to menus and tool bars outside of the application, they
+		// are indexed once they are added to it
+		if (target instanceof MApplicationElement
+				&& EcoreUtil.getRootContainer(target) instanceof MApplication) {
+			index.add((MApplicationElement) target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		if (target instanceof MApplicationElement) {
+			index.remove((MApplicationElement) target);
+		}
+	}
+
 	@Override
 	public void notifyChanged(Notification notification) {
 		super.notifyChanged(notification);
@@ -49,6 +120,23 @@ public class UIEventPublisher extends EContentAdapter {
 		if (notification.isTouch())
 			return;
 
+		// Keep the index up to date with the keys it uses
+		Object feature = notification.getFeature();
+		if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__ELEMENT_ID
+				|| feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__TAGS
+				|| feature == AdvancedPackageImpl.Literals.PLACEHOLDER__REF) {
+			if (notification.getNotifier() instanceof MApplicationElement) {
+				index.update((MApplicationElement) notification.getNotifier());
+			}
+		} else if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			indexAdded(notification);
+		}
+
+		// Don't build events nobody listens to
+		if (filterUnsubscribedTopics && !hasSubscribers(notification)) {
+			return;
+		}
+
 		// Format the EMF event as an E4 UIEvent
 		Map<String, Object> argMap = new HashMap<String, Object>();
 
@@ -60,6 +148,66 @@ public class UIEventPublisher extends EContentAdapter {
 		}
 	}
 
+	/**
+	 * Indexes the elements added to the application that this publisher was already attached to,
+	 * as their target is not set again.
+	 */
+	private void indexAdded(Notification notification) {
+		switch (notification.getEventType()) {
+		case Notification.ADD:
+		case Notification.SET:
+			indexContents(notification.getNewValue());
+			break;
+		case Notification.ADD_MANY:
+			for (Object value : (Collection<?>) notification.getNewValue()) {
+				indexContents(value);
+			}
+			break;
+		}
+	}
+
+	private void indexContents(Object value) {
+		if (!(value instanceof MApplicationElement) || index.contains(value)
+				|| !(EcoreUtil.getRootContainer((EObject) value) instanceof MApplication)) {
+			return;
+		}
+		index.add((MApplicationElement) value);
+		for (Iterator<EObject> contents = ((EObject) value).eAllContents(); contents.hasNext();) {
+			EObject child = contents.next();
+			if (child instanceof MApplicationElement) {
+				index.add((MApplicationElement) child);
+			}
+		}
+	}
+
+	private boolean hasSubscribers(Notification notification) {
+		String topic;
+		Object notifier = notification.getNotifier();
+		if (notifier instanceof MApplicationElement) {
+			topic = getTopic((EStructuralFeature) notification.getFeature(),
+					getEventType(notification));
+		} else if (notifier instanceof StringToObjectMapImpl) {
+			topic = getTopic(UIEvents.ApplicationElement.TRANSIENTDATA,
+					getEventType(notification));
+		} else if (notifier instanceof StringToStringMapImpl) {
+			topic = getTopic(UIEvents.ApplicationElement.PERSISTEDSTATE,
+					getEventType(notification));
+		} else {
+			// Ignored by formatData anyway
+			return false;
+		}
+
+		if (subscriptions == null) {
+			Activator activator = Activator.getDefault();
+			if (activator == null || activator.getContext() == null) {
+				// Can't tell, send everything
+				return true;
+			}
+			subscriptions = new ModelEventSubscriptions(activator.getContext());
+		}
+		return subscriptions.hasSubscribers(topic);
+	}
+
 	/**
 	 * Large hack here. Open to better suggestions
 	 * 
@@ -269,15 +417,63 @@ public class UIEventPublisher extends EContentAdapter {
 	}
 
 	private String getTopic(EStructuralFeature eFeature, String type) {
+		String[] topics = getCachedTopics(eFeature);
+		int index = getTopicIndex(type);
+		if (index >= 0 && topics[index] != null) {
+			return topics[index];
+		}
 		EClass eContainingClass = eFeature.getEContainingClass();
-		return UIEvents.UIModelTopicBase + UIEvents.TOPIC_SEP
+		String topic = UIEvents.UIModelTopicBase + UIEvents.TOPIC_SEP
 				+ eContainingClass.getEPackage().getName() + UIEvents.TOPIC_SEP
 				+ eContainingClass.getName() + UIEvents.TOPIC_SEP + eFeature.getName()
 				+ UIEvents.TOPIC_SEP + type;
+		if (index >= 0) {
+			topics[index] = topic;
+		}
+		return topic;
 	}
 
 	private String getTopic(String attributeName, String type) {
+		String[] topics = getCachedTopics(attributeName);
+		int index = getTopicIndex(type);
+		if (index >= 0 && topics[index] != null) {
+			return topics[index];
+		}
 		String topicBase = "org/eclipse/e4/ui/model/application/ApplicationElement/"; //$NON-NLS-1$
-		return topicBase + attributeName + UIEvents.TOPIC_SEP + type;
+		String topic = topicBase + attributeName + UIEvents.TOPIC_SEP + type;
+		if (index >= 0) {
+			topics[index] = topic;
+		}
+		return topic;
+	}
+
+	/**
+	 * Topics are cached per feature or attribute name, indexed by event type.
+	 */
+	private String[] getCachedTopics(Object key) {
+		String[] topics = topicCache.get(key);
+		if (topics == null) {
+			topics = new String[TOPIC_CACHE_SIZE];
+			topicCache.put(key, topics);
+		}
+		return topics;
+	}
+
+	private int getTopicIndex(String type) {
+		// The event types are constants, compare by identity
+		if (type == EventTypes.SET) {
+			return Notification.SET;
+		} else if (type == EventTypes.ADD) {
+			return Notification.ADD;
+		} else if (type == EventTypes.REMOVE) {
+			return Notification.REMOVE;
+		} else if (type == EventTypes.ADD_MANY) {
+			return Notification.ADD_MANY;
+		} else if (type == EventTypes.REMOVE_MANY) {
+			return Notification.REMOVE_MANY;
+		} else if (type == EventTypes.MOVE) {
+			return Notification.MOVE;
+		}
+		return -1;
 	}
 }
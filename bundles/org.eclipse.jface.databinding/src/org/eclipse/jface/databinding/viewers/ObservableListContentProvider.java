@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,11 +23,13 @@ import org.eclipse.core.databinding.observable.list.ListChangeEvent;
 import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
 import org.eclipse.core.databinding.observable.set.IObservableSet;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.internal.databinding.viewers.BatchingListDiffVisitor;
 import org.eclipse.jface.internal.databinding.viewers.ObservableCollectionContentProvider;
 import org.eclipse.jface.internal.databinding.viewers.ViewerElementSet;
 import org.eclipse.jface.viewers.AbstractListViewer;
 import org.eclipse.jface.viewers.AbstractTableViewer;
 import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.Viewer;
 
 /**
@@ -120,32 +122,52 @@ public class ObservableListContentProvider implements
 				realizedElements.removeAll(knownElementRemovals);
 			}
 
+			int changeCount = event.diff.getDifferences().length;
+			if (changeCount > 1)
+				suspendRedraw[0] = true;
 			if (suspendRedraw[0])
 				viewer.getControl().setRedraw(false);
 			try {
-				event.diff.accept(new ListDiffVisitor() {
-					@Override
-					public void handleAdd(int index, Object element) {
-						viewerUpdater.insert(element, index);
-					}
-
-					@Override
-					public void handleRemove(int index, Object element) {
-						viewerUpdater.remove(element, index);
-					}
-
-					@Override
-					public void handleReplace(int index, Object oldElement,
-							Object newElement) {
-						viewerUpdater.replace(oldElement, newElement, index);
-					}
-
-					@Override
-					public void handleMove(int oldIndex, int newIndex,
-							Object element) {
-						viewerUpdater.move(element, oldIndex, newIndex);
-					}
-				});
+				if (isRefreshPreferred(changeCount)) {
+					((StructuredViewer) viewer).refresh();
+				} else {
+					new BatchingListDiffVisitor(knownElementRemovals, comparer,
+							areInsertPositionsIgnored()) {
+						@Override
+						protected void insert(Object element, int position) {
+							viewerUpdater.insert(element, position);
+						}
+
+						@Override
+						protected void remove(Object element, int position) {
+							viewerUpdater.remove(element, position);
+						}
+
+						@Override
+						protected void replace(Object oldElement,
+								Object newElement, int position) {
+							viewerUpdater.replace(oldElement, newElement,
+									position);
+						}
+
+						@Override
+						protected void move(Object element, int oldPosition,
+								int newPosition) {
+							viewerUpdater.move(element, oldPosition,
+									newPosition);
+						}
+
+						@Override
+						protected void add(Object[] elements) {
+							viewerUpdater.add(elements);
+						}
+
+						@Override
+						protected void remove(Object[] elements) {
+							viewerUpdater.remove(elements);
+						}
+					}.apply(event.diff, event.getObservableList().size());
+				}
 			} finally {
 				if (suspendRedraw[0])
 					viewer.getControl().setRedraw(true);
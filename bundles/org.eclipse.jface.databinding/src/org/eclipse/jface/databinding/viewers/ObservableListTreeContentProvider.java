@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Matthew Hall and others.
+ * Copyright (c) 2007, 2014 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.core.databinding.observable.list.ListChangeEvent;
 import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
 import org.eclipse.core.databinding.observable.masterdetail.IObservableFactory;
 import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.jface.internal.databinding.viewers.BatchingListDiffVisitor;
 import org.eclipse.jface.internal.databinding.viewers.ObservableCollectionTreeContentProvider;
 import org.eclipse.jface.internal.databinding.viewers.ViewerElementSet;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
@@ -120,34 +121,54 @@ public class ObservableListTreeContentProvider implements ITreeContentProvider {
 					getOrCreateNode(it.next()).addParent(parentElement);
 				}
 
+				int changeCount = event.diff.getDifferences().length;
+				if (changeCount > 1)
+					suspendRedraw[0] = true;
 				if (suspendRedraw[0])
 					viewer.getControl().setRedraw(false);
 				try {
-					event.diff.accept(new ListDiffVisitor() {
-						@Override
-						public void handleAdd(int index, Object child) {
-							viewerUpdater.insert(parentElement, child, index);
-						}
-
-						@Override
-						public void handleRemove(int index, Object child) {
-							viewerUpdater.remove(parentElement, child, index);
-						}
-
-						@Override
-						public void handleReplace(int index, Object oldChild,
-								Object newChild) {
-							viewerUpdater.replace(parentElement, oldChild,
-									newChild, index);
-						}
-
-						@Override
-						public void handleMove(int oldIndex, int newIndex,
-								Object child) {
-							viewerUpdater.move(parentElement, child, oldIndex,
-									newIndex);
-						}
-					});
+					if (isRefreshPreferred(changeCount)) {
+						((AbstractTreeViewer) viewer).refresh(parentElement);
+					} else {
+						new BatchingListDiffVisitor(localKnownElementRemovals,
+								comparer, areInsertPositionsIgnored()) {
+							@Override
+							protected void insert(Object child, int position) {
+								viewerUpdater.insert(parentElement, child,
+										position);
+							}
+
+							@Override
+							protected void remove(Object child, int position) {
+								viewerUpdater.remove(parentElement, child,
+										position);
+							}
+
+							@Override
+							protected void replace(Object oldChild,
+									Object newChild, int position) {
+								viewerUpdater.replace(parentElement, oldChild,
+										newChild, position);
+							}
+
+							@Override
+							protected void move(Object child, int oldPosition,
+									int newPosition) {
+								viewerUpdater.move(parentElement, child,
+										oldPosition, newPosition);
+							}
+
+							@Override
+							protected void add(Object[] children) {
+								viewerUpdater.add(parentElement, children);
+							}
+
+							@Override
+							protected void remove(Object[] children) {
+								viewerUpdater.remove(parentElement, children);
+							}
+						}.apply(event.diff, event.getObservableList().size());
+					}
 				} finally {
 					if (suspendRedraw[0])
 						viewer.getControl().setRedraw(true);
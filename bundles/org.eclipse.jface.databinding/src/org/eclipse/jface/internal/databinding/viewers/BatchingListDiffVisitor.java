@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.internal.databinding.viewers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
+import org.eclipse.jface.viewers.IElementComparer;
+
+/**
+ * NON-API - A {@link ListDiffVisitor} that sends a list diff to a viewer,
+ * grouping runs of additions and removals into bulk updates.
+ * <p>
+ * Consecutive additions are sent with a single {@link #add(Object[])} if they
+ * append to the end of the list, or if the viewer ignores the positions of
+ * inserted elements because it is sorted or filtered. Consecutive removals of
+ * elements that occurred once in the list and no longer occur in it are sent
+ * with a single {@link #remove(Object[])}, which removes elements wherever
+ * they appear. All other entries, and runs of a single element, are sent one
+ * at a time, in the order of the diff.
+ * </p>
+ *
+ * @since 1.7
+ */
+public abstract class BatchingListDiffVisitor extends ListDiffVisitor {
+
+	/**
+	 * The number of diff entries above which refreshing the viewer is cheaper
+	 * than sending the entries.
+	 */
+	static final int REFRESH_THRESHOLD = 1000;
+
+	private final Set removedElements;
+
+	private final IElementComparer comparer;
+
+	private final boolean positionsIgnored;
+
+	/**
+	 * Maps the elements of the diff onto {@link Boolean#TRUE} if they are
+	 * removed once and not added.
+	 */
+	private Map removedOnce;
+
+	private int size;
+
+	private final List additions = new ArrayList();
+
+	private int additionsIndex;
+
+	private final List removals = new ArrayList();
+
+	private int removalsIndex;
+
+	/**
+	 * Constructs a BatchingListDiffVisitor.
+	 *
+	 * @param removedElements
+	 *            the removed elements that no longer occur in the list
+	 * @param comparer
+	 *            the element comparer used by the viewer (may be null)
+	 * @param positionsIgnored
+	 *            whether the viewer ignores the positions of inserted elements
+	 */
+	protected BatchingListDiffVisitor(Set removedElements,
+			IElementComparer comparer, boolean positionsIgnored) {
+		this.removedElements = removedElements;
+		this.comparer = comparer;
+		this.positionsIgnored = positionsIgnored;
+	}
+
+	/**
+	 * Sends the given diff to the viewer.
+	 *
+	 * @param diff
+	 *            the diff of the list
+	 * @param newSize
+	 *            the size of the list after the change
+	 */
+	public void apply(ListDiff diff, int newSize) {
+		ListDiffEntry[] differences = diff.getDifferences();
+		size = newSize;
+		removedOnce = ViewerElementMap.withComparer(comparer);
+		for (int i = 0; i < differences.length; i++) {
+			ListDiffEntry entry = differences[i];
+			Object element = entry.getElement();
+			if (entry.isAddition()) {
+				size--;
+				removedOnce.put(element, Boolean.FALSE);
+			} else {
+				size++;
+				removedOnce.put(element,
+						removedOnce.containsKey(element) ? Boolean.FALSE
+								: Boolean.TRUE);
+			}
+		}
+		diff.accept(this);
+		flush();
+	}
+
+	@Override
+	public final void handleAdd(int index, Object element) {
+		flushRemovals();
+		if (positionsIgnored || index == size) {
+			if (additions.isEmpty()) {
+				additionsIndex = index;
+			}
+			additions.add(element);
+		} else {
+			flushAdditions();
+			insert(element, index);
+		}
+		size++;
+	}
+
+	@Override
+	public final void handleRemove(int index, Object element) {
+		flushAdditions();
+		if (removedOnce.get(element) == Boolean.TRUE
+				&& removedElements.contains(element)) {
+			if (removals.isEmpty()) {
+				removalsIndex = index;
+			}
+			removals.add(element);
+		} else {
+			flushRemovals();
+			remove(element, index);
+		}
+		size--;
+	}
+
+	@Override
+	public final void handleReplace(int index, Object oldElement,
+			Object newElement) {
+		flush();
+		replace(oldElement, newElement, index);
+	}
+
+	@Override
+	public final void handleMove(int oldIndex, int newIndex, Object element) {
+		flush();
+		move(element, oldIndex, newIndex);
+	}
+
+	private void flush() {
+		flushRemovals();
+		flushAdditions();
+	}
+
+	private void flushAdditions() {
+		if (additions.size() == 1) {
+			insert(additions.get(0), additionsIndex);
+		} else if (!additions.isEmpty()) {
+			add(additions.toArray());
+		}
+		additions.clear();
+	}
+
+	private void flushRemovals() {
+		if (removals.size() == 1) {
+			remove(removals.get(0), removalsIndex);
+		} else if (!removals.isEmpty()) {
+			remove(removals.toArray());
+		}
+		removals.clear();
+	}
+
+	/**
+	 * Inserts the element at the given position.
+	 *
+	 * @param element
+	 *            the element to insert
+	 * @param position
+	 *            the position of the element
+	 */
+	protected abstract void insert(Object element, int position);
+
+	/**
+	 * Removes the element at the given position.
+	 *
+	 * @param element
+	 *            the element to remove
+	 * @param position
+	 *            the position of the element
+	 */
+	protected abstract void remove(Object element, int position);
+
+	/**
+	 * Replaces the element at the given position.
+	 *
+	 * @param oldElement
+	 *            the element being replaced
+	 * @param newElement
+	 *            the element that replaces <code>oldElement</code>
+	 * @param position
+	 *            the position of the element
+	 */
+	protected abstract void replace(Object oldElement, Object newElement,
+			int position);
+
+	/**
+	 * Moves the element from the old position to the new position.
+	 *
+	 * @param element
+	 *            the element being moved
+	 * @param oldPosition
+	 *            the position of the element before it is moved
+	 * @param newPosition
+	 *            the position of the element after it is moved
+	 */
+	protected abstract void move(Object element, int oldPosition,
+			int newPosition);
+
+	/**
+	 * Adds the elements at the end of the list, or at their sorted positions.
+	 *
+	 * @param elements
+	 *            the elements to add
+	 */
+	protected abstract void add(Object[] elements);
+
+	/**
+	 * Removes the elements, which occurred once in the list and no longer
+	 * occur in it.
+	 *
+	 * @param elements
+	 *            the elements to remove
+	 */
+	protected abstract void remove(Object[] elements);
+}
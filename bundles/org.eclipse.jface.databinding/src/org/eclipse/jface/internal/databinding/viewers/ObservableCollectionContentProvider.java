@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Matthew Hall and others.
+ * Copyright (c) 2008, 2014 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -244,6 +244,35 @@ public abstract class ObservableCollectionContentProvider implements
 				|| viewer.getControl().isDisposed();
 	}
 
+	/**
+	 * Returns whether a change with the given number of diff entries should be
+	 * shown by refreshing the viewer rather than by sending the entries to the
+	 * {@link #viewerUpdater viewer updater}. Entries are always sent to an
+	 * explicit viewer updater.
+	 * 
+	 * @param changeCount
+	 *            the number of diff entries
+	 * @return whether the viewer should be refreshed
+	 * @since 1.7
+	 */
+	protected boolean isRefreshPreferred(int changeCount) {
+		return explicitViewerUpdater == null
+				&& changeCount > BatchingListDiffVisitor.REFRESH_THRESHOLD;
+	}
+
+	/**
+	 * Returns whether the viewer ignores the positions of inserted elements
+	 * because it is sorted or filtered. This is never assumed for an explicit
+	 * viewer updater.
+	 * 
+	 * @return whether the viewer ignores the positions of inserted elements
+	 * @since 1.7
+	 */
+	protected boolean areInsertPositionsIgnored() {
+		return viewerUpdater instanceof ViewerUpdater
+				&& !((ViewerUpdater) viewerUpdater).isElementOrderPreserved();
+	}
+
 	/**
 	 * Returns the set of elements known to this content provider. Label
 	 * providers may track this set if they need to be notified about additions
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Matthew Hall and others.
+ * Copyright (c) 2008, 2014 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -267,6 +267,31 @@ public abstract class ObservableCollectionTreeContentProvider implements
 				|| viewer.getControl().isDisposed();
 	}
 
+	/**
+	 * Returns whether a change with the given number of diff entries should be
+	 * shown by refreshing the children of the parent element rather than by
+	 * sending the entries to the {@link #viewerUpdater viewer updater}.
+	 * 
+	 * @param changeCount
+	 *            the number of diff entries
+	 * @return whether the parent element should be refreshed
+	 * @since 1.7
+	 */
+	protected boolean isRefreshPreferred(int changeCount) {
+		return changeCount > BatchingListDiffVisitor.REFRESH_THRESHOLD;
+	}
+
+	/**
+	 * Returns whether the viewer ignores the positions of inserted elements
+	 * because it is sorted or filtered.
+	 * 
+	 * @return whether the viewer ignores the positions of inserted elements
+	 * @since 1.7
+	 */
+	protected boolean areInsertPositionsIgnored() {
+		return viewerUpdater != null && !viewerUpdater.isElementOrderPreserved();
+	}
+
 	@Override
 	public void dispose() {
 		if (elementNodes != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -83,6 +84,13 @@ public final class BindingManager extends HandleObjectManager implements
 	 */
 	private static final String LOCALE_SEPARATOR = "_"; //$NON-NLS-1$
 
+	/**
+	 * The maximum number of binding sets kept in <code>cachedBindings</code>.
+	 * When this number is exceeded, the least recently used binding set is
+	 * discarded.
+	 */
+	private static final int MAX_CACHED_BINDING_SETS = 32;
+
 	private Map currentConflicts = null;
 
 	/**
@@ -222,9 +230,55 @@ public final class BindingManager extends HandleObjectManager implements
 	/**
 	 * A cache of the bindings previously computed by this manager. This value
 	 * may be empty, but it is never <code>null</code>. This is a map of
-	 * <code>CachedBindingSet</code> to <code>CachedBindingSet</code>.
+	 * <code>CachedBindingSet</code> to <code>CachedBindingSet</code>, in
+	 * order of access. At most <code>MAX_CACHED_BINDING_SETS</code> binding
+	 * sets are kept.
+	 */
+	private Map cachedBindings = new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry eldest) {
+			return size() > MAX_CACHED_BINDING_SETS;
+		}
+	};
+
+	/**
+	 * The bindings that match the current locale, platform and schemes, with
+	 * the deletions removed. This is a map of trigger (
+	 * <code>TriggerSequence</code>) to a <code>List</code> of the bindings (
+	 * <code>Binding</code>) for that trigger in any context, in the order in
+	 * which they appear in <code>bindings</code>. This value is
+	 * <code>null</code> if it has not been computed yet, or if it has been
+	 * discarded.
 	 */
-	private Map cachedBindings = new HashMap();
+	private Map bindingLayersByTrigger = null;
+
+	/**
+	 * The triggers bound in each context, for the bindings in
+	 * <code>bindingLayersByTrigger</code>. This is a map of context identifier (
+	 * <code>String</code>) to a <code>Set</code> of triggers (
+	 * <code>TriggerSequence</code>). This value is <code>null</code> if
+	 * <code>bindingLayersByTrigger</code> is <code>null</code>.
+	 */
+	private Map bindingLayersByContextId = null;
+
+	/**
+	 * The locales, platforms and schemes for which the binding layers were
+	 * computed. This value is <code>null</code> if
+	 * <code>bindingLayersByTrigger</code> is <code>null</code>.
+	 */
+	private CachedBindingSet bindingLayersState = null;
+
+	/**
+	 * The binding set that was last made active by
+	 * <code>recomputeBindings</code>. When the active contexts change, the new
+	 * binding set is derived from this one by only resolving the triggers of
+	 * the contexts that were activated or deactivated. This value is
+	 * <code>null</code> if there is no binding set that was computed from the
+	 * current binding layers.
+	 */
+	private CachedBindingSet lastBindingSet = null;
 
 	/**
 	 * The command manager for this binding manager. This manager is only needed
@@ -428,6 +482,10 @@ public final class BindingManager extends HandleObjectManager implements
 			Tracing.printTrace("BINDINGS", "Clearing cache"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		cachedBindings.clear();
+		bindingLayersByTrigger = null;
+		bindingLayersByContextId = null;
+		bindingLayersState = null;
+		lastBindingSet = null;
 		clearSolution();
 	}
 
@@ -527,7 +585,6 @@ public final class BindingManager extends HandleObjectManager implements
 		final int length = trimmedBindings.length;
 		for (int i = 0; i < length; i++) {
 			final Binding binding = trimmedBindings[i];
-			boolean found;
 
 			// Check the context.
 			final String contextId = binding.getContextId();
@@ -536,28 +593,8 @@ public final class BindingManager extends HandleObjectManager implements
 				continue;
 			}
 
-			// Check the locale.
-			if (!localeMatches(binding)) {
-				continue;
-			}
-
-			// Check the platform.
-			if (!platformMatches(binding)) {
-				continue;
-			}
-
-			// Check the scheme ids.
-			final String schemeId = binding.getSchemeId();
-			found = false;
-			if (activeSchemeIds != null) {
-				for (int j = 0; j < activeSchemeIds.length; j++) {
-					if (Util.equals(schemeId, activeSchemeIds[j])) {
-						found = true;
-						break;
-					}
-				}
-			}
-			if (!found) {
+			// Check the locale, the platform and the scheme ids.
+			if (!matchesState(binding)) {
 				continue;
 			}
 
@@ -580,9 +617,7 @@ public final class BindingManager extends HandleObjectManager implements
 			}
 		}
 
-		MultiStatus conflicts = new MultiStatus("org.eclipse.jface", 0, //$NON-NLS-1$
-				"Keybinding conflicts occurred.  They may interfere with normal accelerator operation.", //$NON-NLS-1$
-				null);
+		final MultiStatus conflicts = createConflictStatus();
 		/*
 		 * THIRD PASS: In this pass, we move any non-conflicting bindings
 		 * directly into the map. In the case of conflicts, we apply some
@@ -623,54 +658,512 @@ public final class BindingManager extends HandleObjectManager implements
 
 			} else {
 				// We are building the flat map of trigger to commands.
-				if (match instanceof Binding) {
-					final Binding binding = (Binding) match;
-					bindingsByTrigger.put(trigger, binding);
-					addReverseLookup(triggersByCommandId, binding
+				final Binding winner = resolveTrigger(trigger, match,
+						activeContextTree, conflictsByTrigger, conflicts);
+				if (winner != null) {
+					bindingsByTrigger.put(trigger, winner);
+					addReverseLookup(triggersByCommandId, winner
 							.getParameterizedCommand(), trigger);
+				}
+			}
+		}
+		if (conflicts.getSeverity() != IStatus.OK) {
+			Policy.getLog().log(conflicts);
+		}
+	}
 
-				} else if (match instanceof Collection) {
-					final Binding winner = resolveConflicts((Collection) match,
-							activeContextTree);
-					if (winner == null) {
-						// warn once ... so as not to flood the logs
-						conflictsByTrigger.put(trigger, match);
-						if (triggerConflicts.add(trigger)) {
-							final StringWriter sw = new StringWriter();
-							final BufferedWriter buffer = new BufferedWriter(sw);
-							try {
-								buffer.write("A conflict occurred for "); //$NON-NLS-1$
-								buffer.write(trigger.toString());
-								buffer.write(':');
-								Iterator i = ((Collection) match).iterator();
-								while (i.hasNext()) {
-									buffer.newLine();
-									buffer.write(i.next().toString());
-								}
-								buffer.flush();
-							} catch (IOException e) {
-								// we should not get this
-							}
-							conflicts.add(new Status(IStatus.WARNING,
-									"org.eclipse.jface", //$NON-NLS-1$
-									sw.toString()));
-						}
-						if (DEBUG) {
-							Tracing.printTrace("BINDINGS", //$NON-NLS-1$
-									"A conflict occurred for " + trigger); //$NON-NLS-1$
-							Tracing.printTrace("BINDINGS", "    " + match); //$NON-NLS-1$ //$NON-NLS-2$
-						}
-					} else {
-						bindingsByTrigger.put(trigger, winner);
-						addReverseLookup(triggersByCommandId, winner
-								.getParameterizedCommand(), trigger);
-					}
+	/**
+	 * <p>
+	 * Computes the bindings for the given active contexts from the binding
+	 * layers. If the last active binding set was computed from the same
+	 * layers, then only the triggers bound in the contexts that were activated
+	 * or deactivated since then are resolved again. Otherwise, all triggers
+	 * are resolved. The results are stored in the given binding set.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(n)</code>, where <code>n</code> is
+	 * the number of bindings. If only a few contexts have changed, it
+	 * completes in <code>O(m+pk)</code>, where <code>m</code> is the number
+	 * of active triggers, <code>k</code> is the number of triggers bound in
+	 * the changed contexts, and <code>p</code> is the average number of
+	 * triggers in a trigger sequence.
+	 * </p>
+	 * 
+	 * @param activeContextTree
+	 *            The map representing the tree of active contexts; must not be
+	 *            <code>null</code>.
+	 * @param bindingSet
+	 *            The binding set to fill in; must not be <code>null</code>.
+	 */
+	private final void computeBindingsFromLayers(final Map activeContextTree,
+			final CachedBindingSet bindingSet) {
+		if (bindingLayersByTrigger == null) {
+			buildBindingLayers();
+		}
+
+		final Set changedTriggers = getChangedTriggers(activeContextTree);
+		if (changedTriggers == null) {
+			// Resolve every trigger.
+			final Map bindingsByTrigger = new HashMap();
+			final Map triggersByCommandId = new HashMap();
+			final Map conflictsByTrigger = new HashMap();
+			final MultiStatus conflicts = createConflictStatus();
+			final Iterator layerItr = bindingLayersByTrigger.entrySet()
+					.iterator();
+			while (layerItr.hasNext()) {
+				final Map.Entry entry = (Map.Entry) layerItr.next();
+				final TriggerSequence trigger = (TriggerSequence) entry
+						.getKey();
+				final Object match = selectActiveBindings(
+						(Collection) entry.getValue(), activeContextTree);
+				if (match == null) {
+					continue;
+				}
+				final Binding winner = resolveTrigger(trigger, match,
+						activeContextTree, conflictsByTrigger, conflicts);
+				if (winner != null) {
+					bindingsByTrigger.put(trigger, winner);
+					addReverseLookup(triggersByCommandId, winner
+							.getParameterizedCommand(), trigger);
 				}
 			}
+			if (conflicts.getSeverity() != IStatus.OK) {
+				Policy.getLog().log(conflicts);
+			}
+			bindingSet.setBindingsByTrigger(bindingsByTrigger);
+			bindingSet.setTriggersByCommandId(triggersByCommandId);
+			bindingSet.setConflictsByTrigger(conflictsByTrigger);
+			bindingSet.setPrefixTable(buildPrefixTable(bindingsByTrigger));
+			return;
+		}
+
+		if (DEBUG) {
+			Tracing.printTrace("BINDINGS", "Incremental update of " //$NON-NLS-1$ //$NON-NLS-2$
+					+ changedTriggers.size() + " triggers"); //$NON-NLS-1$
+		}
+
+		/*
+		 * The maps of the last binding set may be shared with the cache, so
+		 * they are copied. The collections and maps inside of them are copied
+		 * the first time they are modified.
+		 */
+		final Map bindingsByTrigger = new HashMap(lastBindingSet
+				.getBindingsByTrigger());
+		final Map triggersByCommandId = new HashMap(lastBindingSet
+				.getTriggersByCommandId());
+		final Map conflictsByTrigger = new HashMap(lastBindingSet
+				.getConflictsByTrigger());
+		final Map prefixTable = new HashMap(lastBindingSet.getPrefixTable());
+		final Set copiedCommands = new HashSet();
+		final Set copiedPrefixes = new HashSet();
+
+		// Remove the old solution for the changed triggers.
+		Iterator triggerItr = changedTriggers.iterator();
+		while (triggerItr.hasNext()) {
+			final TriggerSequence trigger = (TriggerSequence) triggerItr
+					.next();
+			conflictsByTrigger.remove(trigger);
+			final Binding binding = (Binding) bindingsByTrigger
+					.remove(trigger);
+			if (binding == null) {
+				continue;
+			}
+			final Object command = binding.getParameterizedCommand();
+			final Collection triggers = (Collection) getCopy(
+					triggersByCommandId, command, copiedCommands);
+			if (triggers != null) {
+				triggers.remove(trigger);
+				if (triggers.isEmpty()) {
+					triggersByCommandId.remove(command);
+				}
+			}
+			removeFromPrefixTable(prefixTable, trigger, bindingsByTrigger,
+					copiedPrefixes);
+		}
+
+		// Resolve the changed triggers for the new contexts.
+		final MultiStatus conflicts = createConflictStatus();
+		triggerItr = changedTriggers.iterator();
+		while (triggerItr.hasNext()) {
+			final TriggerSequence trigger = (TriggerSequence) triggerItr
+					.next();
+			final Object match = selectActiveBindings(
+					(Collection) bindingLayersByTrigger.get(trigger),
+					activeContextTree);
+			if (match == null) {
+				continue;
+			}
+			final Binding winner = resolveTrigger(trigger, match,
+					activeContextTree, conflictsByTrigger, conflicts);
+			if (winner == null) {
+				continue;
+			}
+			bindingsByTrigger.put(trigger, winner);
+			final Object command = winner.getParameterizedCommand();
+			final Collection triggers = (Collection) getCopy(
+					triggersByCommandId, command, copiedCommands);
+			if (triggers == null) {
+				addReverseLookup(triggersByCommandId, command, trigger);
+				copiedCommands.add(command);
+			} else {
+				triggers.add(trigger);
+			}
+			addToPrefixTable(prefixTable, trigger, winner, copiedPrefixes);
 		}
 		if (conflicts.getSeverity() != IStatus.OK) {
 			Policy.getLog().log(conflicts);
 		}
+
+		bindingSet.setBindingsByTrigger(bindingsByTrigger);
+		bindingSet.setTriggersByCommandId(triggersByCommandId);
+		bindingSet.setConflictsByTrigger(conflictsByTrigger);
+		bindingSet.setPrefixTable(prefixTable);
+	}
+
+	/**
+	 * <p>
+	 * Splits the bindings matching the current locale, platform and schemes
+	 * into layers: one for each trigger, and one for each context. Deletion
+	 * markers are applied first.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(n)</code>, where <code>n</code> is
+	 * the number of bindings.
+	 * </p>
+	 */
+	private final void buildBindingLayers() {
+		final Binding[] trimmedBindings = removeDeletions(bindings);
+		final Map layersByTrigger = new HashMap();
+		final Map layersByContextId = new HashMap();
+		for (int i = 0; i < trimmedBindings.length; i++) {
+			final Binding binding = trimmedBindings[i];
+			if (!matchesState(binding)) {
+				continue;
+			}
+
+			final TriggerSequence trigger = binding.getTriggerSequence();
+			addReverseLookup(layersByTrigger, trigger, binding);
+			final String contextId = binding.getContextId();
+			Set triggers = (Set) layersByContextId.get(contextId);
+			if (triggers == null) {
+				triggers = new HashSet();
+				layersByContextId.put(contextId, triggers);
+			}
+			triggers.add(trigger);
+		}
+
+		bindingLayersByTrigger = layersByTrigger;
+		bindingLayersByContextId = layersByContextId;
+		bindingLayersState = new CachedBindingSet(null, locales, platforms,
+				activeSchemeIds);
+		lastBindingSet = null;
+	}
+
+	/**
+	 * <p>
+	 * Returns the triggers that need to be resolved again to go from the last
+	 * active binding set to the given active contexts. These are the triggers
+	 * bound in the contexts that were activated or deactivated.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(c+k)</code>, where <code>c</code> is
+	 * the number of active contexts, and <code>k</code> is the number of
+	 * triggers bound in the changed contexts.
+	 * </p>
+	 * 
+	 * @param activeContextTree
+	 *            The map representing the tree of active contexts; must not be
+	 *            <code>null</code>.
+	 * @return The triggers (<code>TriggerSequence</code>) to resolve again;
+	 *         <code>null</code> if all triggers should be resolved, because
+	 *         there is no usable last binding set or because most of the
+	 *         triggers have changed.
+	 */
+	private final Set getChangedTriggers(final Map activeContextTree) {
+		if ((lastBindingSet == null)
+				|| (lastBindingSet.getBindingsByTrigger() == null)
+				|| (lastBindingSet.getActiveContextTree() == null)) {
+			return null;
+		}
+
+		final Map lastContextTree = lastBindingSet.getActiveContextTree();
+		final Set changedContextIds = new HashSet();
+		Iterator contextItr = activeContextTree.entrySet().iterator();
+		while (contextItr.hasNext()) {
+			final Map.Entry entry = (Map.Entry) contextItr.next();
+			final Object contextId = entry.getKey();
+			if (!lastContextTree.containsKey(contextId)) {
+				changedContextIds.add(contextId);
+			} else if (!Util.equals(entry.getValue(), lastContextTree
+					.get(contextId))) {
+				// The context hierarchy has changed.
+				return null;
+			}
+		}
+		contextItr = lastContextTree.keySet().iterator();
+		while (contextItr.hasNext()) {
+			final Object contextId = contextItr.next();
+			if (!activeContextTree.containsKey(contextId)) {
+				changedContextIds.add(contextId);
+			}
+		}
+
+		final Set changedTriggers = new HashSet();
+		contextItr = changedContextIds.iterator();
+		while (contextItr.hasNext()) {
+			final Set triggers = (Set) bindingLayersByContextId.get(contextItr
+					.next());
+			if (triggers != null) {
+				changedTriggers.addAll(triggers);
+			}
+		}
+		if (changedTriggers.size() * 2 > bindingLayersByTrigger.size()) {
+			return null;
+		}
+		return changedTriggers;
+	}
+
+	/**
+	 * <p>
+	 * Selects the bindings whose context is active.
+	 * </p>
+	 * 
+	 * @param bindings
+	 *            The bindings for a trigger; may be <code>null</code>.
+	 * @param activeContextTree
+	 *            The map representing the tree of active contexts; must not be
+	 *            <code>null</code>.
+	 * @return <code>null</code> if no binding is active; the
+	 *         <code>Binding</code> if one binding is active; otherwise, a
+	 *         <code>Collection</code> of the active bindings.
+	 */
+	private static final Object selectActiveBindings(
+			final Collection bindings, final Map activeContextTree) {
+		if (bindings == null) {
+			return null;
+		}
+
+		Object match = null;
+		final Iterator bindingItr = bindings.iterator();
+		while (bindingItr.hasNext()) {
+			final Binding binding = (Binding) bindingItr.next();
+			if (!activeContextTree.containsKey(binding.getContextId())) {
+				continue;
+			}
+			if (match == null) {
+				match = binding;
+			} else if (match instanceof Binding) {
+				final Collection matches = new ArrayList();
+				matches.add(match);
+				matches.add(binding);
+				match = matches;
+			} else {
+				((Collection) match).add(binding);
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * <p>
+	 * Resolves the active bindings for a trigger. If the conflict between
+	 * several bindings cannot be resolved, then it is recorded, and it is
+	 * logged the first time it occurs.
+	 * </p>
+	 * 
+	 * @param trigger
+	 *            The trigger; must not be <code>null</code>.
+	 * @param match
+	 *            The active <code>Binding</code>, or a
+	 *            <code>Collection</code> of the active bindings, for the
+	 *            trigger; must not be <code>null</code>.
+	 * @param activeContextTree
+	 *            The map representing the tree of active contexts; must not be
+	 *            <code>null</code>.
+	 * @param conflictsByTrigger
+	 *            The map of triggers to unresolved conflicts to add to; must
+	 *            not be <code>null</code>.
+	 * @param conflicts
+	 *            The status to add a warning to for new conflicts; must not be
+	 *            <code>null</code>.
+	 * @return The winning binding; <code>null</code> if there is a conflict.
+	 */
+	private final Binding resolveTrigger(final TriggerSequence trigger,
+			final Object match, final Map activeContextTree,
+			final Map conflictsByTrigger, final MultiStatus conflicts) {
+		if (match instanceof Binding) {
+			return (Binding) match;
+		}
+
+		final Binding winner = resolveConflicts((Collection) match,
+				activeContextTree);
+		if (winner == null) {
+			// warn once ... so as not to flood the logs
+			conflictsByTrigger.put(trigger, match);
+			if (triggerConflicts.add(trigger)) {
+				final StringWriter sw = new StringWriter();
+				final BufferedWriter buffer = new BufferedWriter(sw);
+				try {
+					buffer.write("A conflict occurred for "); //$NON-NLS-1$
+					buffer.write(trigger.toString());
+					buffer.write(':');
+					Iterator i = ((Collection) match).iterator();
+					while (i.hasNext()) {
+						buffer.newLine();
+						buffer.write(i.next().toString());
+					}
+					buffer.flush();
+				} catch (IOException e) {
+					// we should not get this
+				}
+				conflicts.add(new Status(IStatus.WARNING,
+						"org.eclipse.jface", //$NON-NLS-1$
+						sw.toString()));
+			}
+			if (DEBUG) {
+				Tracing.printTrace("BINDINGS", //$NON-NLS-1$
+						"A conflict occurred for " + trigger); //$NON-NLS-1$
+				Tracing.printTrace("BINDINGS", "    " + match); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return winner;
+	}
+
+	/**
+	 * <p>
+	 * Returns the value of a map for a key, which is a <code>Collection</code>
+	 * or a <code>Map</code>. The first time a key is requested, the value is
+	 * replaced by a copy, so that it can be modified without affecting other
+	 * maps that share it.
+	 * </p>
+	 * 
+	 * @param map
+	 *            The map to look in; must not be <code>null</code>.
+	 * @param key
+	 *            The key to look up; may be <code>null</code>.
+	 * @param copiedKeys
+	 *            The keys whose values have already been copied; must not be
+	 *            <code>null</code>.
+	 * @return The copied value; <code>null</code> if the map has no value for
+	 *         the key.
+	 */
+	private static final Object getCopy(final Map map, final Object key,
+			final Set copiedKeys) {
+		Object value = map.get(key);
+		if ((value == null) || (!copiedKeys.add(key))) {
+			return value;
+		}
+
+		if (value instanceof Map) {
+			value = new HashMap((Map) value);
+		} else {
+			value = new ArrayList((Collection) value);
+		}
+		map.put(key, value);
+		return value;
+	}
+
+	/**
+	 * <p>
+	 * Adds an active binding to a prefix table, in the same way as
+	 * <code>buildPrefixTable</code> does.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(p)</code>, where <code>p</code> is
+	 * the number of triggers in the trigger sequence.
+	 * </p>
+	 * 
+	 * @param prefixTable
+	 *            The prefix table to modify; must not be <code>null</code>.
+	 * @param trigger
+	 *            The trigger of the binding; must not be <code>null</code>.
+	 * @param binding
+	 *            The binding; must not be <code>null</code>.
+	 * @param copiedPrefixes
+	 *            The prefixes whose completions have already been copied; must
+	 *            not be <code>null</code>.
+	 */
+	private static final void addToPrefixTable(final Map prefixTable,
+			final TriggerSequence trigger, final Binding binding,
+			final Set copiedPrefixes) {
+		// Add the perfect match.
+		if (!prefixTable.containsKey(trigger)) {
+			prefixTable.put(trigger, null);
+		}
+
+		final TriggerSequence[] prefixes = trigger.getPrefixes();
+		for (int i = 0; i < prefixes.length; i++) {
+			final TriggerSequence prefix = prefixes[i];
+			Map completions = (Map) getCopy(prefixTable, prefix,
+					copiedPrefixes);
+			if (completions == null) {
+				completions = new HashMap();
+				prefixTable.put(prefix, completions);
+				copiedPrefixes.add(prefix);
+			}
+			completions.put(trigger, binding);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes a binding from a prefix table, which is left in the state that
+	 * <code>buildPrefixTable</code> would have produced without the binding.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(p)</code>, where <code>p</code> is
+	 * the number of triggers in the trigger sequence.
+	 * </p>
+	 * 
+	 * @param prefixTable
+	 *            The prefix table to modify; must not be <code>null</code>.
+	 * @param trigger
+	 *            The trigger of the removed binding; must not be
+	 *            <code>null</code>.
+	 * @param activeBindings
+	 *            The active bindings without the removed binding; must not be
+	 *            <code>null</code>.
+	 * @param copiedPrefixes
+	 *            The prefixes whose completions have already been copied; must
+	 *            not be <code>null</code>.
+	 */
+	private static final void removeFromPrefixTable(final Map prefixTable,
+			final TriggerSequence trigger, final Map activeBindings,
+			final Set copiedPrefixes) {
+		// Remove the perfect match, unless the trigger is still a prefix.
+		if (prefixTable.get(trigger) == null) {
+			prefixTable.remove(trigger);
+		}
+
+		final TriggerSequence[] prefixes = trigger.getPrefixes();
+		for (int i = 0; i < prefixes.length; i++) {
+			final TriggerSequence prefix = prefixes[i];
+			final Map completions = (Map) getCopy(prefixTable, prefix,
+					copiedPrefixes);
+			if (completions == null) {
+				continue;
+			}
+			completions.remove(trigger);
+			if (completions.isEmpty()) {
+				if (activeBindings.containsKey(prefix)) {
+					prefixTable.put(prefix, null);
+				} else {
+					prefixTable.remove(prefix);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the status that collects the conflicts found while computing
+	 * bindings.
+	 * 
+	 * @return A new status; never <code>null</code>.
+	 */
+	private static final MultiStatus createConflictStatus() {
+		return new MultiStatus("org.eclipse.jface", 0, //$NON-NLS-1$
+				"Keybinding conflicts occurred.  They may interfere with normal accelerator operation.", //$NON-NLS-1$
+				null);
 	}
 
 	/**
@@ -1626,6 +2119,44 @@ public final class BindingManager extends HandleObjectManager implements
 		return getActiveBindings().containsKey(trigger);
 	}
 
+	/**
+	 * <p>
+	 * Tests whether the binding matches the active locales, platforms and
+	 * schemes.
+	 * </p>
+	 * <p>
+	 * This method completes in <code>O(n)</code>, where <code>n</code> is
+	 * the number of active locales, platforms and schemes.
+	 * </p>
+	 * 
+	 * @param binding
+	 *            The binding with which to test; must not be <code>null</code>.
+	 * @return <code>true</code> if the binding matches; <code>false</code>
+	 *         otherwise.
+	 */
+	private final boolean matchesState(final Binding binding) {
+		// Check the locale.
+		if (!localeMatches(binding)) {
+			return false;
+		}
+
+		// Check the platform.
+		if (!platformMatches(binding)) {
+			return false;
+		}
+
+		// Check the scheme ids.
+		final String schemeId = binding.getSchemeId();
+		if (activeSchemeIds != null) {
+			for (int j = 0; j < activeSchemeIds.length; j++) {
+				if (Util.equals(schemeId, activeSchemeIds[j])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * <p>
 	 * Tests whether the locale for the binding matches one of the active
@@ -1697,7 +2228,9 @@ public final class BindingManager extends HandleObjectManager implements
 	 * This recomputes the bindings based on changes to the state of the world.
 	 * This computation can be triggered by changes to contexts, the active
 	 * scheme, the locale, or the platform. This method tries to use the cache
-	 * of pre-computed bindings, if possible. When this method completes,
+	 * of pre-computed bindings, if possible. Otherwise, if only the contexts
+	 * have changed, the previous bindings are updated for the triggers bound
+	 * in the activated or deactivated contexts. When this method completes,
 	 * <code>activeBindings</code> will be set to the current set of bindings
 	 * and <code>cachedBindings</code> will contain an instance of
 	 * <code>CachedBindingSet</code> representing these bindings.
@@ -1721,6 +2254,16 @@ public final class BindingManager extends HandleObjectManager implements
 				.getActiveContextIds());
 		final Map activeContextTree = createFilteredContextTreeFor(activeContextIds);
 
+		// Discard the binding layers if the locale, platform or scheme changed.
+		final CachedBindingSet state = new CachedBindingSet(null, locales,
+				platforms, activeSchemeIds);
+		if ((bindingLayersState != null) && (!bindingLayersState.equals(state))) {
+			bindingLayersByTrigger = null;
+			bindingLayersByContextId = null;
+			bindingLayersState = null;
+			lastBindingSet = null;
+		}
+
 		// Build a cached binding set for that state.
 		final CachedBindingSet bindingCache = new CachedBindingSet(
 				activeContextTree, locales, platforms, activeSchemeIds);
@@ -1740,6 +2283,9 @@ public final class BindingManager extends HandleObjectManager implements
 			if (DEBUG) {
 				Tracing.printTrace("BINDINGS", "Cache hit"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
+			if (bindingLayersState != null) {
+				lastBindingSet = existingCache;
+			}
 			setActiveBindings(commandIdsByTrigger, existingCache
 					.getTriggersByCommandId(), existingCache.getPrefixTable(),
 					existingCache.getConflictsByTrigger());
@@ -1752,18 +2298,11 @@ public final class BindingManager extends HandleObjectManager implements
 		}
 
 		// Compute the active bindings.
-		commandIdsByTrigger = new HashMap();
-		final Map triggersByParameterizedCommand = new HashMap();
-		final Map conflictsByTrigger = new HashMap();
-		computeBindings(activeContextTree, commandIdsByTrigger,
-				triggersByParameterizedCommand, conflictsByTrigger);
-		existingCache.setBindingsByTrigger(commandIdsByTrigger);
-		existingCache.setTriggersByCommandId(triggersByParameterizedCommand);
-		existingCache.setConflictsByTrigger(conflictsByTrigger);
-		setActiveBindings(commandIdsByTrigger, triggersByParameterizedCommand,
-				buildPrefixTable(commandIdsByTrigger),
-				conflictsByTrigger);
-		existingCache.setPrefixTable(prefixTable);
+		computeBindingsFromLayers(activeContextTree, existingCache);
+		lastBindingSet = existingCache;
+		setActiveBindings(existingCache.getBindingsByTrigger(), existingCache
+				.getTriggersByCommandId(), existingCache.getPrefixTable(),
+				existingCache.getConflictsByTrigger());
 	}
 
 	/**
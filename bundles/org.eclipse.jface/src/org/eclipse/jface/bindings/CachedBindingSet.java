@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2013 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -230,6 +230,18 @@ final class CachedBindingSet {
 		return Util.equals(schemeIds, other.schemeIds);
 	}
 
+	/**
+	 * Returns the tree of contexts for which the bindings were computed.
+	 * 
+	 * @return A map of context identifiers (<code>String</code>) to the
+	 *         identifiers of their parents (<code>String</code>). This value
+	 *         is <code>null</code> if the contexts were disregarded.
+	 * @since 3.11
+	 */
+	final Map getActiveContextTree() {
+		return activeContextTree;
+	}
+
 	/**
 	 * Returns the map of command identifiers indexed by trigger sequence.
 	 * 
@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.viewers;
+
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * Maps the elements of a {@link StructuredViewer} to their widgets. The value
+ * of an element is a <code>Widget</code>, or a <code>Widget[]</code> if the
+ * element appears more than once in the viewer.
+ * <p>
+ * The map uses open addressing with linear probing: keys, values and hash
+ * codes are stored in arrays, so no object is allocated per entry. When the
+ * map grows, the entries of the old arrays are moved to the new arrays a few
+ * at a time by subsequent updates, so that no single update has to rehash the
+ * whole map. Until then, lookups search both arrays.
+ * </p>
+ * <p>
+ * Keys are compared with the element comparer of the viewer, or with
+ * <code>equals</code> and <code>hashCode</code> if there is none.
+ * </p>
+ *
+ * @since 3.11
+ */
+final class ElementWidgetMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * The number of slots of the old arrays that are moved per update while
+	 * the map grows.
+	 */
+	private static final int MIGRATION_STEP = 16;
+
+	/**
+	 * Marks a slot of the old arrays whose entry was moved or removed. The old
+	 * arrays only lose entries, so a marker is cheaper there than shifting the
+	 * following entries back.
+	 */
+	private static final Object MOVED = new Object();
+
+	private final IElementComparer comparer;
+
+	/**
+	 * The keys at even and the values at odd indexes.
+	 */
+	private Object[] table;
+
+	private int[] hashes;
+
+	private int size;
+
+	private int threshold;
+
+	private Object[] oldTable;
+
+	private int[] oldHashes;
+
+	private int oldSize;
+
+	private int migrated;
+
+	/**
+	 * Creates an empty map.
+	 *
+	 * @param comparer
+	 *            the element comparer to use, or <code>null</code>
+	 */
+	ElementWidgetMap(IElementComparer comparer) {
+		this.comparer = comparer;
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Creates a map with the entries of the given map, using the given element
+	 * comparer.
+	 *
+	 * @param map
+	 *            the map to copy
+	 * @param comparer
+	 *            the element comparer to use, or <code>null</code>
+	 */
+	ElementWidgetMap(ElementWidgetMap map, IElementComparer comparer) {
+		this.comparer = comparer;
+		int capacity = MIN_CAPACITY;
+		while (capacity * 2 / 3 < map.size()) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+		map.copyTo(map.table, this);
+		if (map.oldTable != null) {
+			map.copyTo(map.oldTable, this);
+		}
+	}
+
+	private void copyTo(Object[] data, ElementWidgetMap map) {
+		for (int i = 0; i < data.length; i += 2) {
+			Object key = data[i];
+			if (key != null && key != MOVED) {
+				map.put(key, data[i + 1]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		table = new Object[capacity * 2];
+		hashes = new int[capacity];
+		threshold = capacity * 2 / 3;
+	}
+
+	/**
+	 * Returns the number of elements in this map.
+	 *
+	 * @return the number of elements
+	 */
+	int size() {
+		return size + oldSize;
+	}
+
+	/**
+	 * Returns the <code>Widget</code> or <code>Widget[]</code> of the given
+	 * element, or <code>null</code> if the element is not mapped.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the widget or widgets of the element, or <code>null</code>
+	 */
+	Object get(Object element) {
+		int hash = hash(element);
+		int index = indexOf(table, hashes, element, hash);
+		if (index >= 0) {
+			return table[index + 1];
+		}
+		if (oldTable != null) {
+			index = indexOf(oldTable, oldHashes, element, hash);
+			if (index >= 0) {
+				return oldTable[index + 1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the widget to the widgets of the given element, unless it is
+	 * already one of them.
+	 *
+	 * @param element
+	 *            the element
+	 * @param widget
+	 *            the widget of the element
+	 */
+	void add(Object element, Widget widget) {
+		Object widgetOrWidgets = get(element);
+		if (widgetOrWidgets == null) {
+			put(element, widget);
+		} else if (widgetOrWidgets instanceof Widget) {
+			if (widgetOrWidgets != widget) {
+				put(element, new Widget[] { (Widget) widgetOrWidgets, widget });
+			}
+		} else {
+			Widget[] widgets = (Widget[]) widgetOrWidgets;
+			if (indexOf(widgets, widget) == -1) {
+				int length = widgets.length;
+				System.arraycopy(widgets, 0, widgets = new Widget[length + 1],
+						0, length);
+				widgets[length] = widget;
+				put(element, widgets);
+			}
+		}
+	}
+
+	/**
+	 * Removes the widget from the widgets of the given element, and removes
+	 * the element if it has no widgets left. Does nothing if the element does
+	 * not map to the widget.
+	 *
+	 * @param element
+	 *            the element
+	 * @param widget
+	 *            the widget to remove
+	 */
+	void remove(Object element, Widget widget) {
+		Object widgetOrWidgets = get(element);
+		if (widgetOrWidgets == null) {
+			return;
+		} else if (widgetOrWidgets instanceof Widget) {
+			if (widget == widgetOrWidgets) {
+				remove(element);
+			}
+		} else {
+			Widget[] widgets = (Widget[]) widgetOrWidgets;
+			int index = indexOf(widgets, widget);
+			if (index == -1) {
+				return;
+			}
+			int length = widgets.length;
+			if (length == 1) {
+				remove(element);
+			} else {
+				Widget[] updatedWidgets = new Widget[length - 1];
+				System.arraycopy(widgets, 0, updatedWidgets, 0, index);
+				System.arraycopy(widgets, index + 1, updatedWidgets, index,
+						length - index - 1);
+				put(element, updatedWidgets);
+			}
+		}
+	}
+
+	private static int indexOf(Widget[] widgets, Widget widget) {
+		for (int i = 0; i < widgets.length; i++) {
+			if (widgets[i] == widget) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Maps the element to the given <code>Widget</code> or
+	 * <code>Widget[]</code>. If the element is already mapped, its key is
+	 * replaced as well, so that the map does not hang onto keys that are equal
+	 * but "old" (see bug 30607).
+	 *
+	 * @param element
+	 *            the element
+	 * @param widgetOrWidgets
+	 *            the widget or widgets of the element
+	 */
+	void put(Object element, Object widgetOrWidgets) {
+		migrate();
+		int hash = hash(element);
+		int index = indexOf(table, hashes, element, hash);
+		if (index >= 0) {
+			table[index] = element;
+			table[index + 1] = widgetOrWidgets;
+			return;
+		}
+		if (oldTable != null) {
+			removeOld(indexOf(oldTable, oldHashes, element, hash));
+		}
+		if (size >= threshold) {
+			grow();
+		}
+		insert(element, widgetOrWidgets, hash);
+		size++;
+	}
+
+	/**
+	 * Removes the element from this map.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the widget or widgets of the element, or <code>null</code> if
+	 *         the element was not mapped
+	 */
+	Object remove(Object element) {
+		migrate();
+		int hash = hash(element);
+		int index = indexOf(table, hashes, element, hash);
+		if (index >= 0) {
+			Object result = table[index + 1];
+			delete(index);
+			size--;
+			return result;
+		}
+		if (oldTable != null) {
+			index = indexOf(oldTable, oldHashes, element, hash);
+			if (index >= 0) {
+				Object result = oldTable[index + 1];
+				removeOld(index);
+				return result;
+			}
+		}
+		return null;
+	}
+
+	private int hash(Object key) {
+		int h = comparer == null ? key.hashCode() : comparer.hashCode(key);
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private boolean keyEquals(Object a, Object b) {
+		return comparer == null ? a.equals(b) : comparer.equals(a, b);
+	}
+
+	/**
+	 * Returns the index of the key of the element in the given arrays, or -1.
+	 */
+	private int indexOf(Object[] data, int[] dataHashes, Object element,
+			int hash) {
+		int mask = dataHashes.length - 1;
+		int slot = hash & mask;
+		Object key;
+		while ((key = data[slot << 1]) != null) {
+			if (dataHashes[slot] == hash && key != MOVED
+					&& (key == element || keyEquals(element, key))) {
+				return slot << 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insert(Object element, Object widgetOrWidgets, int hash) {
+		int mask = hashes.length - 1;
+		int slot = hash & mask;
+		while (table[slot << 1] != null) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot << 1] = element;
+		table[(slot << 1) + 1] = widgetOrWidgets;
+		hashes[slot] = hash;
+	}
+
+	/**
+	 * Empties the slot at the given index of the current arrays and moves
+	 * back the following entries that would no longer be found.
+	 */
+	private void delete(int index) {
+		int mask = hashes.length - 1;
+		int slot = index >> 1;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			Object key = table[next << 1];
+			if (key == null) {
+				break;
+			}
+			int home = hashes[next] & mask;
+			// the entry can move to the empty slot if its home slot is not
+			// cyclically between the empty slot and its current slot
+			if (slot <= next ? (home <= slot || home > next)
+					: (home <= slot && home > next)) {
+				table[slot << 1] = key;
+				table[(slot << 1) + 1] = table[(next << 1) + 1];
+				hashes[slot] = hashes[next];
+				slot = next;
+			}
+		}
+		table[slot << 1] = null;
+		table[(slot << 1) + 1] = null;
+		hashes[slot] = 0;
+	}
+
+	private void removeOld(int index) {
+		if (index < 0) {
+			return;
+		}
+		oldTable[index] = MOVED;
+		oldTable[index + 1] = null;
+		if (--oldSize == 0) {
+			oldTable = null;
+			oldHashes = null;
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the current arrays. Their entries are moved to
+	 * the new arrays by {@link #migrate()}.
+	 */
+	private void grow() {
+		while (oldTable != null) {
+			migrate();
+		}
+		if (size < threshold) {
+			return;
+		}
+		oldTable = table;
+		oldHashes = hashes;
+		oldSize = size;
+		migrated = 0;
+		size = 0;
+		allocate(hashes.length << 1);
+		migrate();
+	}
+
+	/**
+	 * Moves the entries of the next slots of the old arrays to the current
+	 * arrays.
+	 */
+	private void migrate() {
+		if (oldTable == null) {
+			return;
+		}
+		int end = Math.min(migrated + MIGRATION_STEP, oldHashes.length);
+		for (; migrated < end; migrated++) {
+			Object key = oldTable[migrated << 1];
+			if (key != null && key != MOVED) {
+				insert(key, oldTable[(migrated << 1) + 1], oldHashes[migrated]);
+				size++;
+				removeOld(migrated << 1);
+				if (oldTable == null) {
+					return;
+				}
+			}
+		}
+		if (migrated == oldHashes.length) {
+			oldTable = null;
+			oldHashes = null;
+			oldSize = 0;
+		}
+	}
+}
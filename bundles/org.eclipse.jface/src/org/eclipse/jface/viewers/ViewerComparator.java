@@ -12,6 +12,8 @@
 
 package org.eclipse.jface.viewers;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
 
@@ -37,6 +39,11 @@ import org.eclipse.jface.util.Policy;
  * categorization; and they may override the <code>compare</code> methods
  * to provide a totally different way of sorting elements.
  * </p>
+ * <p>
+ * Clients sorting large numbers of elements may call
+ * {@link #setUseSortKeys(boolean)} to compute the category and label of each
+ * element only once per sort instead of once per comparison.
+ * </p>
  * @see IStructuredContentProvider
  * @see StructuredViewer
  * 
@@ -48,6 +55,32 @@ public class ViewerComparator {
 	 */
 	private Comparator comparator;
 
+	private boolean useSortKeys;
+
+	/**
+	 * Whether <code>compare(Viewer, Object, Object)</code> is not overridden,
+	 * or <code>null</code> if not yet known.
+	 */
+	private Boolean defaultCompare;
+
+	/**
+	 * The category, label and collation key of an element, computed once per
+	 * sort.
+	 */
+	private static final class SortKey {
+		final Object element;
+		final int category;
+		final String label;
+		final CollationKey collationKey;
+
+		SortKey(Object element, int category, String label, CollationKey collationKey) {
+			this.element = element;
+			this.category = category;
+			this.label = label;
+			this.collationKey = collationKey;
+		}
+	}
+
 	/**
      * Creates a new {@link ViewerComparator}, which uses the default comparator
      * to sort strings.
@@ -133,6 +166,77 @@ public class ViewerComparator {
         return getComparator().compare(name1, name2);
     }
     
+	private int compare(SortKey key1, SortKey key2) {
+		if (key1.category != key2.category) {
+			return key1.category - key2.category;
+		}
+		if (key1.collationKey != null && key2.collationKey != null) {
+			return key1.collationKey.compareTo(key2.collationKey);
+		}
+		return getComparator().compare(key1.label, key2.label);
+	}
+
+	private SortKey createSortKey(Viewer viewer, Object element) {
+		String label = getLabel(viewer, element);
+		Comparator labelComparator = getComparator();
+		CollationKey collationKey = null;
+		if (labelComparator instanceof Collator) {
+			collationKey = ((Collator) labelComparator).getCollationKey(label);
+		}
+		return new SortKey(element, category(element), label, collationKey);
+	}
+
+	private boolean isDefaultCompare() {
+		if (defaultCompare == null) {
+			boolean result;
+			try {
+				result = getClass().getMethod("compare", //$NON-NLS-1$
+						new Class[] { Viewer.class, Object.class, Object.class })
+						.getDeclaringClass() == ViewerComparator.class;
+			} catch (NoSuchMethodException e) {
+				result = false;
+			}
+			defaultCompare = Boolean.valueOf(result);
+		}
+		return defaultCompare.booleanValue();
+	}
+
+	/**
+	 * Sets whether this comparator computes a sort key for each element once
+	 * per sort, consisting of its category, its label and, if the string
+	 * comparator is a {@link Collator}, the {@link CollationKey} of the label.
+	 * The elements are then sorted by their keys instead of calling
+	 * <code>category</code> and the label provider for both elements of every
+	 * comparison. The keys are only kept while <code>sort</code> runs; single
+	 * elements inserted later by the viewer are compared directly.
+	 * <p>
+	 * Sort keys replace <code>compare(Viewer, Object, Object)</code> and are
+	 * therefore only used if a subclass does not override it. If it is
+	 * overridden, this setting has no effect and {@link #isUseSortKeys()}
+	 * returns <code>false</code>; subclasses with their own comparison should
+	 * override <code>sort</code> instead. The default is <code>false</code>.
+	 * </p>
+	 *
+	 * @param useSortKeys
+	 *            <code>true</code> to sort by keys computed once per element,
+	 *            <code>false</code> to compare the elements directly
+	 * @since 3.11
+	 */
+	public void setUseSortKeys(boolean useSortKeys) {
+		this.useSortKeys = useSortKeys;
+	}
+
+	/**
+	 * Returns whether this comparator sorts by keys computed once per element.
+	 *
+	 * @return <code>true</code> if sort keys are used
+	 * @see #setUseSortKeys(boolean)
+	 * @since 3.11
+	 */
+	public boolean isUseSortKeys() {
+		return useSortKeys && isDefaultCompare();
+	}
+
 	private String getLabel(Viewer viewer, Object e1) {
 		String name1;
 		if (viewer == null || !(viewer instanceof ContentViewer)) {
@@ -186,6 +290,10 @@ public class ViewerComparator {
      */
 	public void sort(final Viewer viewer, Object[] elements) {
 		try {
+			if (isUseSortKeys()) {
+				sortByKeys(viewer, elements);
+				return;
+			}
 			Arrays.sort(elements, new Comparator() {
 				@Override
 				public int compare(Object a, Object b) {
@@ -205,4 +313,20 @@ public class ViewerComparator {
 			throw e;
 		}
 	}
+
+	private void sortByKeys(Viewer viewer, Object[] elements) {
+		SortKey[] sorted = new SortKey[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			sorted[i] = createSortKey(viewer, elements[i]);
+		}
+		Arrays.sort(sorted, new Comparator() {
+			@Override
+			public int compare(Object a, Object b) {
+				return ViewerComparator.this.compare((SortKey) a, (SortKey) b);
+			}
+		});
+		for (int i = 0; i < sorted.length; i++) {
+			elements[i] = sorted[i].element;
+		}
+	}
 }
@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers.deferred;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.viewers.AcceptAllFilter;
+import org.eclipse.jface.viewers.IFilter;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Tree content provider that performs sorting and filtering in a background
+ * thread. Requires a <code>TreeViewer</code> created with the
+ * <code>SWT.VIRTUAL</code> flag and an <code>IConcurrentTreeModel</code> as
+ * input.
+ * <p>
+ * The sorter and filter must be set directly on the content provider. Any
+ * sorter or filter on the TreeViewer will be ignored. They apply to the
+ * children of every element.
+ * </p>
+ * <p>
+ * The children of the input and of every expanded element are sorted and
+ * filtered by their own <code>BackgroundContentProvider</code>, and only the
+ * visible children are sent to the <code>Tree</code>. The provider of an
+ * element is disposed when the element is collapsed. An element must not
+ * appear more than once in the tree.
+ * </p>
+ *
+ * @see DeferredContentProvider
+ * @since 3.11
+ */
+public class DeferredTreeContentProvider implements ILazyTreeContentProvider {
+
+	private int limit = -1;
+	private Comparator sortOrder;
+	private IFilter filter = AcceptAllFilter.getInstance();
+	private TreeViewer viewer;
+	private IConcurrentTreeModel model;
+	private Object input;
+
+	/**
+	 * Maps the input and every expanded element onto its <code>TreeNode</code>.
+	 */
+	private Map nodes = new HashMap();
+
+	/**
+	 * Maps the elements sent to the tree onto their parent element. The
+	 * entries of the children of an element are removed when the element is
+	 * collapsed.
+	 */
+	private Map parents = new HashMap();
+
+	private Listener treeListener = new Listener() {
+		@Override
+		public void handleEvent(Event event) {
+			if (!(event.item instanceof TreeItem)) {
+				return;
+			}
+			TreeItem item = (TreeItem) event.item;
+			Object element = item.getData();
+			if (element == null) {
+				return;
+			}
+			if (event.type == SWT.Expand) {
+				if (!nodes.containsKey(element)) {
+					createNode(element, item);
+				}
+			} else if (event.type == SWT.Collapse) {
+				disposeNodes(item);
+			}
+		}
+	};
+
+	/**
+	 * Adapts the algorithm to the children of one element of the tree.
+	 */
+	private final class TreeNode extends AbstractVirtualTable {
+
+		private Object element;
+		private TreeItem item;
+		private BackgroundContentProvider provider;
+		private int itemCount = -1;
+
+		/**
+		 * @param element
+		 *            the element whose children are shown by this node
+		 * @param item
+		 *            the item of the element or <code>null</code> if the
+		 *            element is the input
+		 */
+		public TreeNode(Object element, TreeItem item) {
+			this.element = element;
+			this.item = item;
+		}
+
+		private void start() {
+			IConcurrentModel children = model.getChildren(element);
+			provider = new BackgroundContentProvider(this, children, sortOrder);
+			if (limit != -1) {
+				provider.setLimit(limit);
+			}
+			if (filter != AcceptAllFilter.getInstance()) {
+				provider.setFilter(filter);
+			}
+		}
+
+		private boolean isDisposed() {
+			return provider == null || (item != null && item.isDisposed());
+		}
+
+		@Override
+		public void clear(int index) {
+			if (isDisposed() || index >= getItemCount()) {
+				return;
+			}
+			if (item == null) {
+				getTree().clear(index, false);
+			} else {
+				item.clear(index, false);
+			}
+		}
+
+		@Override
+		public void replace(Object child, int itemIndex) {
+			if (isDisposed()) {
+				return;
+			}
+			parents.put(child, element);
+			viewer.replace(element, itemIndex, child);
+			if (!nodes.containsKey(child)) {
+				viewer.setChildCount(child, model.hasChildren(child) ? 1 : 0);
+			}
+		}
+
+		@Override
+		public void setItemCount(int total) {
+			if (isDisposed()) {
+				return;
+			}
+			itemCount = total;
+			viewer.setChildCount(element, total);
+		}
+
+		@Override
+		public int getItemCount() {
+			if (isDisposed()) {
+				return 0;
+			}
+			return item == null ? getTree().getItemCount() : item
+					.getItemCount();
+		}
+
+		@Override
+		public int getTopIndex() {
+			if (isDisposed()) {
+				return 0;
+			}
+			TreeItem top = getTree().getTopItem();
+			while (top != null) {
+				TreeItem parentItem = top.getParentItem();
+				if (parentItem == item) {
+					int index = item == null ? getTree().indexOf(top) : item
+							.indexOf(top);
+					return Math.max(index - 1, 0);
+				}
+				top = parentItem;
+			}
+			return 0;
+		}
+
+		@Override
+		public int getVisibleItemCount() {
+			Tree tree = getTree();
+			Rectangle rect = tree.getClientArea();
+			int itemHeight = tree.getItemHeight();
+			int headerHeight = tree.getHeaderHeight();
+			return (rect.height - headerHeight + itemHeight - 1)
+					/ (itemHeight + tree.getGridLineWidth());
+		}
+
+		@Override
+		public Control getControl() {
+			return viewer.getControl();
+		}
+
+		private void dispose() {
+			if (provider != null) {
+				provider.dispose();
+				provider = null;
+			}
+		}
+	}
+
+	/**
+	 * Create a DeferredTreeContentProvider with the given sort order.
+	 *
+	 * @param sortOrder
+	 *            a comparator that sorts the children of every element.
+	 */
+	public DeferredTreeContentProvider(Comparator sortOrder) {
+		this.sortOrder = sortOrder;
+	}
+
+	@Override
+	public void dispose() {
+		disposeAll();
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		disposeAll();
+		if (this.viewer != null && !this.viewer.getTree().isDisposed()) {
+			this.viewer.getTree().removeListener(SWT.Expand, treeListener);
+			this.viewer.getTree().removeListener(SWT.Collapse, treeListener);
+		}
+		this.viewer = null;
+		this.model = null;
+		this.input = null;
+
+		if (newInput == null) {
+			return;
+		}
+
+		Assert.isTrue(newInput instanceof IConcurrentTreeModel);
+		Assert.isTrue(viewer instanceof TreeViewer);
+
+		this.viewer = (TreeViewer) viewer;
+		this.model = (IConcurrentTreeModel) newInput;
+		this.input = newInput;
+		this.viewer.getTree().addListener(SWT.Expand, treeListener);
+		this.viewer.getTree().addListener(SWT.Collapse, treeListener);
+		createNode(newInput, null);
+	}
+
+	/**
+	 * Sets the sort order for this content provider. This sort order takes
+	 * priority over anything that was supplied to the <code>TreeViewer</code>.
+	 *
+	 * @param sortOrder
+	 *            new sort order. The comparator must be able to support being
+	 *            used in a background thread.
+	 */
+	public void setSortOrder(Comparator sortOrder) {
+		Assert.isNotNull(sortOrder);
+		this.sortOrder = sortOrder;
+		for (Iterator iter = nodes.values().iterator(); iter.hasNext();) {
+			((TreeNode) iter.next()).provider.setSortOrder(sortOrder);
+		}
+	}
+
+	/**
+	 * Sets the filter for this content provider. This filter takes priority
+	 * over anything that was supplied to the <code>TreeViewer</code>. The
+	 * filter must be capable of being used in a background thread.
+	 *
+	 * @param toSet
+	 *            filter to set
+	 */
+	public void setFilter(IFilter toSet) {
+		this.filter = toSet;
+		for (Iterator iter = nodes.values().iterator(); iter.hasNext();) {
+			((TreeNode) iter.next()).provider.setFilter(toSet);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of children of every element. If an element has
+	 * more than this number of children, only the top children will be shown
+	 * based on the current sort order.
+	 *
+	 * @param limit
+	 *            maximum number of children to show or -1 if unbounded
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+		for (Iterator iter = nodes.values().iterator(); iter.hasNext();) {
+			((TreeNode) iter.next()).provider.setLimit(limit);
+		}
+	}
+
+	/**
+	 * Returns the current maximum number of children or -1 if unbounded
+	 *
+	 * @return the current maximum number of children or -1 if unbounded
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public void updateElement(Object parent, int index) {
+		TreeNode node = getNode(parent, true);
+		if (node != null) {
+			node.provider.checkVisibleRange(index);
+		}
+	}
+
+	@Override
+	public void updateChildCount(Object element, int currentChildCount) {
+		if (model == null) {
+			return;
+		}
+		TreeNode node = getNode(element, viewer.getExpandedState(element));
+		if (node != null) {
+			if (node.itemCount >= 0 && node.itemCount != currentChildCount) {
+				viewer.setChildCount(element, node.itemCount);
+			}
+			return;
+		}
+		// the children are counted when the element is expanded
+		int childCount = model.hasChildren(element) ? 1 : 0;
+		if (childCount != currentChildCount) {
+			viewer.setChildCount(element, childCount);
+		}
+	}
+
+	@Override
+	public Object getParent(Object element) {
+		return parents.get(element);
+	}
+
+	/**
+	 * Returns the node of the given element. If there is none and
+	 * <code>create</code> is true, a node is created for the children of the
+	 * element, which is the case when the element was expanded without an
+	 * <code>SWT.Expand</code> event.
+	 */
+	private TreeNode getNode(Object element, boolean create) {
+		if (model == null) {
+			return null;
+		}
+		TreeNode node = (TreeNode) nodes.get(element);
+		if (node != null && node.isDisposed()) {
+			nodes.remove(element);
+			node.dispose();
+			node = null;
+		}
+		if (node == null && create && element != input) {
+			TreeItem item = findItem(element);
+			if (item != null) {
+				node = createNode(element, item);
+			}
+		}
+		return node;
+	}
+
+	private TreeItem findItem(Object element) {
+		Object parent = parents.get(element);
+		TreeNode parentNode = parent == null ? null : (TreeNode) nodes
+				.get(parent);
+		if (parentNode == null || parentNode.isDisposed()) {
+			return null;
+		}
+		TreeItem[] items = parentNode.item == null ? viewer.getTree()
+				.getItems() : parentNode.item.getItems();
+		for (int i = 0; i < items.length; i++) {
+			if (items[i].getData() == element) {
+				return items[i];
+			}
+		}
+		return null;
+	}
+
+	private TreeNode createNode(Object element, TreeItem item) {
+		TreeNode node = new TreeNode(element, item);
+		nodes.put(element, node);
+		node.start();
+		return node;
+	}
+
+	/**
+	 * Disposes the nodes of the given item and of all its descendants and
+	 * forgets the parents of their children.
+	 */
+	private void disposeNodes(TreeItem collapsed) {
+		List toRemove = new ArrayList();
+		for (Iterator iter = nodes.values().iterator(); iter.hasNext();) {
+			TreeNode node = (TreeNode) iter.next();
+			for (TreeItem current = node.item; current != null; current = current
+					.getParentItem()) {
+				if (current.isDisposed() || current == collapsed) {
+					toRemove.add(node);
+					break;
+				}
+			}
+		}
+		if (toRemove.isEmpty()) {
+			return;
+		}
+		Set removedElements = new HashSet();
+		for (Iterator iter = toRemove.iterator(); iter.hasNext();) {
+			TreeNode node = (TreeNode) iter.next();
+			nodes.remove(node.element);
+			node.dispose();
+			removedElements.add(node.element);
+		}
+		for (Iterator iter = parents.values().iterator(); iter.hasNext();) {
+			if (removedElements.contains(iter.next())) {
+				iter.remove();
+			}
+		}
+	}
+
+	private void disposeAll() {
+		for (Iterator iter = nodes.values().iterator(); iter.hasNext();) {
+			((TreeNode) iter.next()).dispose();
+		}
+		nodes.clear();
+		parents.clear();
+	}
+
+	private Tree getTree() {
+		return viewer.getTree();
+	}
+}
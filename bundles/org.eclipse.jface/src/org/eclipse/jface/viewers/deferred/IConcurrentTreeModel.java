@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.viewers.deferred;
+
+/**
+ * Interface for a tree of elements whose children are unordered and are
+ * provided asynchronously. The children of each element are an
+ * <code>IConcurrentModel</code>, so that they can be sorted and filtered in a
+ * background thread by a <code>DeferredTreeContentProvider</code>.
+ *
+ * @see DeferredTreeContentProvider
+ * @since 3.11
+ */
+public interface IConcurrentTreeModel {
+
+	/**
+	 * Returns the model of the children of the given element. The model is
+	 * requested when the element is expanded, and its listeners are removed
+	 * when the element is collapsed. This method is called in the UI thread
+	 * and should not compute the children; the returned model can send them
+	 * at its earliest convenience.
+	 *
+	 * @param parent
+	 *            the element whose children are requested, or this tree model
+	 *            for the root elements
+	 * @return the model of the children of the given element; never
+	 *         <code>null</code>
+	 */
+	public IConcurrentModel getChildren(Object parent);
+
+	/**
+	 * Returns whether the given element has or may have children. This method
+	 * is called in the UI thread for every element that becomes visible, so it
+	 * must be fast.
+	 *
+	 * @param element
+	 *            the element to test
+	 * @return <code>true</code> if the element may have children, and
+	 *         <code>false</code> if it certainly has none
+	 */
+	public boolean hasChildren(Object element);
+}
@@ -494,6 +494,15 @@ public class FilteredResourcesSelectionDialog extends
 		return Integer.MAX_VALUE / 4 + containerSegmentCount - matching;
 	}
 	
+	/**
+	 * Resources are matched by their names, so the resources found by the
+	 * last search are indexed by name and filtered in parallel.
+	 */
+	@Override
+	protected boolean isIndexedSearchEnabled() {
+		return true;
+	}
+
 	@Override
 	protected void fillContentProvider(AbstractContentProvider contentProvider,
 			ItemsFilter itemsFilter, IProgressMonitor progressMonitor)
@@ -967,6 +976,30 @@ public class FilteredResourcesSelectionDialog extends
 			return matches(name);
 		}
 
+		@Override
+		public String getNamePrefix() {
+			String prefix = super.getNamePrefix();
+			if (namePattern != null) {
+				// the name and extension patterns only require the first
+				// character of the name, if any
+				if (namePattern.getPattern().length() == 0)
+					return ""; //$NON-NLS-1$
+				if (prefix.length() > 1)
+					return prefix.substring(0, 1);
+			}
+			return prefix;
+		}
+
+		@Override
+		public String[] getNameSegments() {
+			if (namePattern != null) {
+				// names that match the name and extension patterns need not
+				// contain the segments of the whole pattern
+				return new String[0];
+			}
+			return super.getNameSegments();
+		}
+
 		@Override
 		public boolean isSubFilter(ItemsFilter filter) {
 			if (!super.isSubFilter(filter))
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.ui.internal.views.markers;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -46,6 +47,8 @@ public class CachedMarkerBuilder {
 	private MarkerContentGenerator generator; 
 	private MarkerUpdateJob updateJob;
 	private MarkersChangeListener markerListener;
+	private final MarkerCache markerCache = new MarkerCache();
+	private ExecutorService gathererExecutor;
 	private MarkerUpdateScheduler scheduler;
 	
 	private Markers markers;
@@ -126,6 +129,13 @@ public class CachedMarkerBuilder {
 	 */
 	void dispose() {
 		markerListener.stop();
+		markerCache.clear();
+		synchronized (this) {
+			if (gathererExecutor != null) {
+				gathererExecutor.shutdown();
+				gathererExecutor = null;
+			}
+		}
 		active=false;
 		Job.getJobManager().cancel(MARKERSVIEW_UPDATE_JOB_FAMILY);
 		
@@ -526,6 +536,24 @@ public class CachedMarkerBuilder {
 		return true;
 	}
 	
+	/**
+	 * @return Returns the cache of found markers.
+	 */
+	MarkerCache getMarkerCache() {
+		return markerCache;
+	}
+
+	/**
+	 * @return Returns the executor that gathers markers for the updates of
+	 *         the receiver.
+	 */
+	synchronized ExecutorService getGathererExecutor() {
+		if (gathererExecutor == null) {
+			gathererExecutor = MarkerGatherer.createExecutor();
+		}
+		return gathererExecutor;
+	}
+
 	/**
 	 * Lets reset the types for listen at every update, fetching them during
 	 * every delta is wasteful.
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.internal.views.markers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * The MarkerCache keeps the markers found for each scope, a resource searched
+ * for markers of one type, between updates of a view. The markers of a scope
+ * are keyed by marker id and are kept in sync with the workspace by applying
+ * the marker deltas of resource change events, so an update only has to
+ * search the scopes that were not searched before.
+ * <p>
+ * Only the marker handles are cached. Each update creates its own
+ * {@link MarkerEntry}(s), since the entries are modified by the view that
+ * shows them.
+ * </p>
+ * <p>
+ * The cache is only valid while the {@link MarkersChangeListener} of the view
+ * receives changes; it is cleared when the view stops listening.
+ * </p>
+ *
+ * @since 3.10
+ *
+ */
+class MarkerCache {
+
+	/**
+	 * A resource, the depth to search it to and the marker type to search
+	 * for.
+	 */
+	static final class Scope {
+		final IResource resource;
+		final int depth;
+		final String typeId;
+		final boolean includeSubTypes;
+
+		Scope(IResource resource, int depth, String typeId,
+				boolean includeSubTypes) {
+			this.resource = resource;
+			this.depth = depth;
+			this.typeId = typeId;
+			this.includeSubTypes = includeSubTypes;
+		}
+
+		/**
+		 * Return whether the delta affects the markers of the receiver.
+		 *
+		 * @param delta
+		 * @param path
+		 *            the full path of the resource of the delta
+		 * @return boolean
+		 */
+		boolean affectedBy(IMarkerDelta delta, IPath path) {
+			IPath scopePath = resource.getFullPath();
+			if (depth == IResource.DEPTH_ZERO ? !scopePath.equals(path)
+					: !scopePath.isPrefixOf(path)) {
+				return false;
+			}
+			return includeSubTypes ? delta.isSubtypeOf(typeId) : typeId
+					.equals(delta.getType());
+		}
+
+		@Override
+		public int hashCode() {
+			return (resource.hashCode() * 31 + typeId.hashCode()) * 31 + depth
+					+ (includeSubTypes ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Scope)) {
+				return false;
+			}
+			Scope other = (Scope) obj;
+			return depth == other.depth
+					&& includeSubTypes == other.includeSubTypes
+					&& typeId.equals(other.typeId)
+					&& resource.equals(other.resource);
+		}
+	}
+
+	/**
+	 * Maps each searched {@link Scope} onto a map of marker ids (Long) to
+	 * IMarker(s).
+	 */
+	private final Map scopes = new HashMap();
+
+	/**
+	 * Incremented whenever markers change, so that a scope searched while its
+	 * markers changed is not cached.
+	 */
+	private int modificationCount;
+
+	/**
+	 * Return the cached markers of the scope.
+	 *
+	 * @param scope
+	 * @return IMarker[] or <code>null</code> if the scope has not been
+	 *         searched
+	 */
+	synchronized IMarker[] getMarkers(Scope scope) {
+		Map markers = (Map) scopes.get(scope);
+		if (markers == null) {
+			return null;
+		}
+		IMarker[] result = new IMarker[markers.size()];
+		markers.values().toArray(result);
+		return result;
+	}
+
+	/**
+	 * @return the count to pass to
+	 *         {@link #putMarkers(Scope, IMarker[], int)} for markers
+	 *         searched from now on
+	 */
+	synchronized int getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Cache the markers found for the scope, unless markers have changed
+	 * since the search started.
+	 *
+	 * @param scope
+	 * @param markers
+	 * @param count
+	 *            the modification count before the markers were searched
+	 */
+	synchronized void putMarkers(Scope scope, IMarker[] markers, int count) {
+		if (count != modificationCount) {
+			return;
+		}
+		Map map = new LinkedHashMap(markers.length * 4 / 3 + 1);
+		for (int i = 0; i < markers.length; i++) {
+			map.put(new Long(markers[i].getId()), markers[i]);
+		}
+		scopes.put(scope, map);
+	}
+
+	/**
+	 * Forget the scopes that are not in the collection.
+	 *
+	 * @param retained
+	 *            the scopes to keep
+	 */
+	synchronized void retainScopes(Collection retained) {
+		scopes.keySet().retainAll(retained);
+	}
+
+	/**
+	 * Apply the marker changes of the event to the cached scopes.
+	 *
+	 * @param event
+	 */
+	synchronized void markersChanged(IResourceChangeEvent event) {
+		modificationCount++;
+		if (scopes.isEmpty()) {
+			return;
+		}
+		if (projectsChanged(event.getDelta())) {
+			// the markers of opened, closed or moved projects are not reported
+			scopes.clear();
+			return;
+		}
+		IMarkerDelta[] markerDeltas = event.findMarkerDeltas(null, true);
+		for (int i = 0; i < markerDeltas.length; i++) {
+			IMarkerDelta delta = markerDeltas[i];
+			IPath path = delta.getResource().getFullPath();
+			Long id = new Long(delta.getId());
+			Iterator iterator = scopes.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry next = (Map.Entry) iterator.next();
+				if (!((Scope) next.getKey()).affectedBy(delta, path)) {
+					continue;
+				}
+				Map markers = (Map) next.getValue();
+				if (delta.getKind() == IResourceDelta.REMOVED) {
+					markers.remove(id);
+				} else if (delta.getKind() == IResourceDelta.ADDED) {
+					markers.put(id, delta.getMarker());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param delta
+	 * @return true if a project was added, removed, opened or closed
+	 */
+	private boolean projectsChanged(IResourceDelta delta) {
+		if (delta == null) {
+			return false;
+		}
+		IResourceDelta[] children = delta.getAffectedChildren(
+				IResourceDelta.ADDED | IResourceDelta.REMOVED
+						| IResourceDelta.CHANGED);
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].getKind() != IResourceDelta.CHANGED
+					|| (children[i].getFlags() & IResourceDelta.OPEN) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Forget all cached markers.
+	 */
+	synchronized void clear() {
+		modificationCount++;
+		scopes.clear();
+	}
+}
@@ -24,10 +24,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.mapping.ResourceMapping;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -1066,7 +1064,10 @@ public class MarkerContentGenerator {
 	}
 
 	/**
-	 * Gather markers into result.
+	 * Gather markers into result. The markers are found in parallel and
+	 * filtered on the calling thread; the markers of resources that have not
+	 * changed since the last update are taken from the {@link MarkerCache} of
+	 * the builder.
 	 * @param typeIds
 	 * @param includeSubTypes
 	 * @param result
@@ -1078,87 +1079,23 @@ public class MarkerContentGenerator {
 			Collection resources = getResourcesForBuild();
 			if (includeSubTypes) {
 				// Optimize and calculate super types
-				String[] superTypes = MarkerResourceUtil
+				typeIds = MarkerResourceUtil
 						.getMutuallyExclusiveSupersIds(typeIds);
-				if (monitor.isCanceled()) {
-					return false;
-				}
-				for (int i = 0; i < superTypes.length; i++) {
-					boolean success = internalGatherMarkers(resources,superTypes[i],
-							includeSubTypes, result, monitor);
-					if (!success || monitor.isCanceled()) {
-						return false;
-					}
-				}
-			} else {
-				for (int i = 0; i < typeIds.length; i++) {
-					boolean success = internalGatherMarkers(resources,typeIds[i],
-							includeSubTypes, result, monitor);
-					if (!success || monitor.isCanceled()) {
-						return false;
-					}
-				}
-			}
-		} catch (Exception e) {
-			//do not propagate but do show the error
-			MarkerSupportInternalUtilities.showViewError(e);
-			return false;
-		} finally {
-		}
-		return true;
-	}
-
-	/**
-	 * A helper to the
-	 * {@link #gatherMarkers(String[], boolean, Collection, IProgressMonitor)}
-	 * 
-	 * @param resources
-	 * @param typeId
-	 * @param includeSubTypes
-	 * @param result
-	 * @param monitor
-	 */
-	private boolean internalGatherMarkers(Collection resources, String typeId,
-			boolean includeSubTypes, Collection result, IProgressMonitor monitor) {
-		if (monitor.isCanceled()) {
-			return false;
-		}
-		IResource[] selected = getSelectedResources();
-		Collection filters = getEnabledFilters();
-		boolean andFilters = andFilters();
-		Iterator iterator = resources.iterator();
-		while (iterator.hasNext()) {
-			IMarker[] markers = null;
-			try {
-				IResource resource = (IResource) iterator.next();
-				if (!resource.isAccessible()) {
-					continue;
-				}
-				markers = resource.findMarkers(typeId, includeSubTypes,
-						IResource.DEPTH_INFINITE);
-			} catch (CoreException e) {
-				MarkerSupportInternalUtilities.logViewError(e);
-			}
-			if (markers == null) {
-				continue;
 			}
 			if (monitor.isCanceled()) {
 				return false;
 			}
-			MarkerEntry entry = null;
-			int lenght =  markers.length;
-			for (int i = 0; i < lenght; i++) {
-				entry = new MarkerEntry(markers[i]);
-				if (select(entry, selected, filters, andFilters)) {
-					result.add(entry);
-				}
-				entry.clearCache();
-				if (i % 500 == 0) {
-					if (monitor.isCanceled()) {
-						return false;
-					}
-				}
+			MarkerGatherer gatherer = new MarkerGatherer(this,
+					builder.getMarkerCache(), builder.getGathererExecutor(),
+					monitor);
+			if (!gatherer.gather(resources, typeIds, includeSubTypes, result)
+					|| monitor.isCanceled()) {
+				return false;
 			}
+		} catch (Exception e) {
+			//do not propagate but do show the error
+			MarkerSupportInternalUtilities.showViewError(e);
+			return false;
 		}
 		return true;
 	}
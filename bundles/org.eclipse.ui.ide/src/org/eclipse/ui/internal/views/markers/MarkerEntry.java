@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,10 @@
 
 package org.eclipse.ui.internal.views.markers;
 
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
@@ -77,6 +79,39 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 * @since 3.6
 	 */
 	private boolean stale;
+
+	/**
+	 * The attributes that are read from the marker in one access to the
+	 * workspace, as they are read by the fields, filters and comparators of
+	 * the view. They are kept by {@link #clearCache()}, so an entry is
+	 * filtered and sorted on the values read once, and read again after
+	 * {@link #clearSnapshot()}.
+	 */
+	private static final String[] SNAPSHOT_ATTRIBUTES = { IMarker.SEVERITY,
+			IMarker.PRIORITY, IMarker.LINE_NUMBER, IMarker.DONE,
+			IMarker.MESSAGE, IMarker.LOCATION, MarkerViewUtil.PATH_ATTRIBUTE,
+			MarkerViewUtil.NAME_ATTRIBUTE };
+
+	// The int value of an attribute that is not set or not an Integer
+	private static final int NOT_SET = Integer.MIN_VALUE;
+
+	// Returned for attributes that are not int attributes of the snapshot
+	private static final int NOT_IN_SNAPSHOT = Integer.MIN_VALUE + 1;
+
+	/**
+	 * Maps strings shared by many entries, such as folder paths and marker
+	 * types, onto a weak reference to their shared instance.
+	 */
+	private static final Map INTERNED_STRINGS = new WeakHashMap();
+
+	private volatile boolean snapshotLoaded;
+	private int severity;
+	private int priority;
+	private int lineNumber;
+	private Object[] snapshotValues;
+	private String typeId;
+	private String folderPath;
+
 	/**
 	 * Important:
 	 * access to these fields must be via methods, they must be in sync and their
@@ -128,6 +163,11 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 */
 	@Override
 	public int getAttributeValue(String attribute, int defaultValue) {
+		int intValue = getSnapshotInt(attribute);
+		if (intValue == NOT_SET)
+			return defaultValue;
+		if (intValue != NOT_IN_SNAPSHOT)
+			return intValue;
 
 		Object value = getAttributeValue(attribute);
 		if (value == null)
@@ -144,6 +184,11 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 * @return Object or <code>null</code>
 	 */
 	Object getAttributeValue(String attribute) {
+		int index = getSnapshotIndex(attribute);
+		if (index >= 0) {
+			loadSnapshot();
+			return snapshotValues[index];
+		}
 		Object value = getCache().get(attribute);
 		if(value == null) {
 			if(stale){
@@ -164,7 +209,114 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		return value;
 	}
 
-	
+
+	/**
+	 * Return the index of the attribute in {@link #SNAPSHOT_ATTRIBUTES} or -1.
+	 * 
+	 * @param attribute
+	 * @return int
+	 */
+	private static int getSnapshotIndex(String attribute) {
+		for (int i = 0; i < SNAPSHOT_ATTRIBUTES.length; i++) {
+			if (SNAPSHOT_ATTRIBUTES[i] == attribute) {
+				return i;
+			}
+		}
+		for (int i = 0; i < SNAPSHOT_ATTRIBUTES.length; i++) {
+			if (SNAPSHOT_ATTRIBUTES[i].equals(attribute)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the value of an int attribute of the snapshot without boxing it.
+	 * 
+	 * @param attribute
+	 * @return the value, {@link #NOT_SET} if the attribute is not set or not
+	 *         an Integer, or {@link #NOT_IN_SNAPSHOT} if it is not an int
+	 *         attribute of the snapshot
+	 */
+	private int getSnapshotInt(String attribute) {
+		if (attribute == IMarker.SEVERITY || IMarker.SEVERITY.equals(attribute)) {
+			loadSnapshot();
+			return severity;
+		}
+		if (attribute == IMarker.PRIORITY || IMarker.PRIORITY.equals(attribute)) {
+			loadSnapshot();
+			return priority;
+		}
+		if (attribute == IMarker.LINE_NUMBER
+				|| IMarker.LINE_NUMBER.equals(attribute)) {
+			loadSnapshot();
+			return lineNumber;
+		}
+		return NOT_IN_SNAPSHOT;
+	}
+
+	/**
+	 * Read the attributes of the snapshot and the type of the marker if they
+	 * have not been read yet.
+	 */
+	private void loadSnapshot() {
+		if (snapshotLoaded) {
+			return;
+		}
+		Object[] values = null;
+		String type = null;
+		if (!stale && marker != null) {
+			try {
+				values = marker.getAttributes(SNAPSHOT_ATTRIBUTES);
+				type = intern(marker.getType());
+			} catch (CoreException e) {
+				checkIfMarkerStale();
+			}
+		}
+		if (values == null) {
+			values = new Object[SNAPSHOT_ATTRIBUTES.length];
+		}
+		severity = toInt(values[0]);
+		priority = toInt(values[1]);
+		lineNumber = toInt(values[2]);
+		typeId = type;
+		snapshotValues = values;
+		// written last so that other threads see the values
+		snapshotLoaded = true;
+	}
+
+	private static int toInt(Object value) {
+		if (value instanceof Integer) {
+			int intValue = ((Integer) value).intValue();
+			if (intValue != NOT_IN_SNAPSHOT)
+				return intValue;
+		}
+		return NOT_SET;
+	}
+
+	/**
+	 * Return the shared instance of the string.
+	 * 
+	 * @param string
+	 * @return String
+	 */
+	private static String intern(String string) {
+		if (string == null) {
+			return null;
+		}
+		synchronized (INTERNED_STRINGS) {
+			WeakReference reference = (WeakReference) INTERNED_STRINGS
+					.get(string);
+			String interned = reference == null ? null : (String) reference
+					.get();
+			if (interned == null) {
+				INTERNED_STRINGS.put(string, new WeakReference(string));
+				interned = string;
+			}
+			return interned;
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.ui.internal.views.markers.MarkerSupportItem#getAttributeValue(java.lang.String, java.lang.String)
 	 */
@@ -327,33 +479,25 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 */
 	@Override
 	String getMarkerTypeName() {
-		if(stale){
-			return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
-					.toString());
-		}
-		try {
-			return MarkerTypesModel.getInstance().getType(marker.getType())
-					.getLabel();
-		} catch (CoreException e) {
-			checkIfMarkerStale() ;
-			Policy.handle(e);
-			return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
-					.toString());
+		if (!stale) {
+			loadSnapshot();
+			if (typeId != null) {
+				return MarkerTypesModel.getInstance().getType(typeId)
+						.getLabel();
+			}
 		}
+		return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
+				.toString());
 	}
 	String getMarkerTypeId() {
-		if(stale){
-			return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
-					.toString());
-		}
-		try {
-			return marker.getType();
-		} catch (CoreException e) {
-			checkIfMarkerStale();
-			Policy.handle(e);
-			return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
-					.toString());
+		if (!stale) {
+			loadSnapshot();
+			if (typeId != null) {
+				return typeId;
+			}
 		}
+		return NLS.bind(MarkerMessages.FieldMessage_WrongType, marker
+				.toString());
 	}
 
 	/*
@@ -380,15 +524,18 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		if (stale||checkIfMarkerStale()) {
 			return MarkerSupportInternalUtilities.UNKNOWN_ATRRIBTE_VALUE_STRING;
 		}
+		if (folderPath != null) {
+			return folderPath;
+		}
 		IPath path = marker.getResource().getFullPath();
 		int n = path.segmentCount() - 1; // n is the number of segments
 		// in container, not path
 		if (n <= 0) {
 			return super.getPath();
 		}
-		folder = path.removeLastSegments(1).removeTrailingSeparator()
-				.toString();
-		getCache().put(MarkerViewUtil.PATH_ATTRIBUTE, folder);
+		folder = intern(path.removeLastSegments(1).removeTrailingSeparator()
+				.toString());
+		folderPath = folder;
 		return folder;
 	}
 
@@ -422,7 +569,7 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		this.marker = marker;
 		// reset stale
 		stale = false;
-		clearCache();
+		clearSnapshot();
 	}
 
 	/**
@@ -437,11 +584,23 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	}
 
 	/**
-	 * Clear the cached values for performance reasons.
+	 * Clear the cached values for performance reasons. The snapshot of the
+	 * marker attributes is kept.
 	 */
 	@Override
 	void clearCache() {
-		cache = null;		
+		cache = null;
+	}
+
+	/**
+	 * Clear the cached values and the snapshot of the marker attributes once
+	 * the label of the receiver has been updated, so that the next update
+	 * shows changed attributes.
+	 */
+	void clearSnapshot() {
+		clearCache();
+		snapshotLoaded = false;
+		folderPath = null;
 	}
 
 	/**
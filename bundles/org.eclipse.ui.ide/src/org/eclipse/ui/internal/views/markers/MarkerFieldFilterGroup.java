@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -160,7 +160,7 @@ class MarkerFieldFilterGroup {
 	 * 
 	 * @return MarkerFieldFilter[]
 	 */
-	private MarkerFieldFilter[] getFieldFilters() {
+	private synchronized MarkerFieldFilter[] getFieldFilters() {
 		if (fieldFilters == null) {
 			calculateFilters();
 		}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.internal.views.markers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * The MarkerGatherer collects the markers of a {@link MarkerContentGenerator}
+ * that pass its filters. The resources to search are split into scopes, one
+ * per resource and marker type, and the workspace root is split into its
+ * projects. The scopes are searched by the worker threads of an executor that
+ * the {@link CachedMarkerBuilder} keeps for its updates. The markers of a scope
+ * are taken from the {@link MarkerCache} if it has been searched before.
+ * <p>
+ * Only the marker handles are found in parallel. The entries are created and
+ * filtered on the calling thread, since the filters may be contributed and
+ * are not required to be thread safe.
+ * </p>
+ *
+ * @since 3.10
+ *
+ */
+class MarkerGatherer {
+
+	/**
+	 * The maximum number of threads that gather markers.
+	 */
+	private static final int MAX_WORKERS = 4;
+
+	/**
+	 * The time an idle worker thread is kept, in milliseconds.
+	 */
+	private static final long KEEP_ALIVE = 60000;
+
+	private final MarkerContentGenerator generator;
+	private final MarkerCache cache;
+	private final ExecutorService executor;
+	private final IResource[] selected;
+	private final Collection filters;
+	private final boolean andFilters;
+	private final IProgressMonitor monitor;
+
+	private List scopes;
+	private IMarker[][] markers;
+	private volatile boolean canceled;
+	private volatile RuntimeException failure;
+
+	/**
+	 * Create the executor that a builder shares between its updates. Its
+	 * daemon threads end when they have been idle for a while.
+	 *
+	 * @return ExecutorService
+	 */
+	static ExecutorService createExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_WORKERS,
+				MAX_WORKERS, KEEP_ALIVE, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Marker Gatherer-" //$NON-NLS-1$
+								+ count.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * @param generator
+	 *            the generator whose filters are applied
+	 * @param cache
+	 *            the cache of previously found markers
+	 * @param executor
+	 *            the executor that runs the workers
+	 * @param monitor
+	 */
+	MarkerGatherer(MarkerContentGenerator generator, MarkerCache cache,
+			ExecutorService executor, IProgressMonitor monitor) {
+		this.generator = generator;
+		this.cache = cache;
+		this.executor = executor;
+		this.monitor = monitor;
+		selected = generator.getSelectedResources();
+		filters = generator.getEnabledFilters();
+		andFilters = generator.andFilters();
+	}
+
+	/**
+	 * Gather the markers of the types on the resources into result.
+	 *
+	 * @param resources
+	 * @param typeIds
+	 * @param includeSubTypes
+	 * @param result
+	 * @return <code>false</code> if gathering was canceled
+	 */
+	boolean gather(Collection resources, String[] typeIds,
+			boolean includeSubTypes, Collection result) {
+		scopes = new ArrayList();
+		for (int i = 0; i < typeIds.length; i++) {
+			Iterator iterator = resources.iterator();
+			while (iterator.hasNext()) {
+				addScopes((IResource) iterator.next(), typeIds[i],
+						includeSubTypes);
+			}
+		}
+		markers = new IMarker[scopes.size()][];
+
+		final AtomicInteger next = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int index;
+				while (!canceled && failure == null
+						&& (index = next.getAndIncrement()) < markers.length) {
+					try {
+						markers[index] = findMarkers((MarkerCache.Scope) scopes
+								.get(index));
+					} catch (RuntimeException e) {
+						failure = e;
+					}
+					if (monitor.isCanceled()) {
+						canceled = true;
+					}
+				}
+			}
+		};
+		int workers = Math.min(Math.min(Runtime.getRuntime()
+				.availableProcessors(), MAX_WORKERS), markers.length);
+		if (workers <= 1) {
+			worker.run();
+		} else {
+			runWorkers(worker, workers);
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		if (canceled || monitor.isCanceled()) {
+			return false;
+		}
+		for (int i = 0; i < markers.length; i++) {
+			if (!select(markers[i], result)) {
+				return false;
+			}
+		}
+		cache.retainScopes(scopes);
+		return true;
+	}
+
+	/**
+	 * Run the worker on the calling thread and on workers - 1 threads of the
+	 * executor, and wait until all of them are done. The calling thread does
+	 * all the work if the executor has been shut down.
+	 */
+	private void runWorkers(Runnable worker, int workers) {
+		List futures = new ArrayList(workers - 1);
+		try {
+			for (int i = 1; i < workers; i++) {
+				futures.add(executor.submit(worker));
+			}
+		} catch (RejectedExecutionException e) {
+			// the view has been disposed
+		}
+		worker.run();
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				((Future) futures.get(i)).get();
+			}
+		} catch (InterruptedException e) {
+			canceled = true;
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// the worker catches its failures
+			MarkerSupportInternalUtilities.logViewError(e);
+			canceled = true;
+		}
+	}
+
+	/**
+	 * Add the scopes that cover the resource to the receiver. The workspace
+	 * root is split into its own markers and those of each project.
+	 */
+	private void addScopes(IResource resource, String typeId,
+			boolean includeSubTypes) {
+		if (resource.getType() == IResource.ROOT) {
+			scopes.add(new MarkerCache.Scope(resource,
+					IResource.DEPTH_ZERO, typeId, includeSubTypes));
+			IProject[] projects = ((IWorkspaceRoot) resource).getProjects();
+			for (int i = 0; i < projects.length; i++) {
+				scopes.add(new MarkerCache.Scope(projects[i],
+						IResource.DEPTH_INFINITE, typeId, includeSubTypes));
+			}
+		} else {
+			scopes.add(new MarkerCache.Scope(resource,
+					IResource.DEPTH_INFINITE, typeId, includeSubTypes));
+		}
+	}
+
+	/**
+	 * Return the markers of the scope.
+	 */
+	private IMarker[] findMarkers(MarkerCache.Scope scope) {
+		if (!scope.resource.isAccessible()) {
+			return MarkerSupportInternalUtilities.EMPTY_MARKER_ARRAY;
+		}
+		IMarker[] found = cache.getMarkers(scope);
+		if (found == null) {
+			int count = cache.getModificationCount();
+			try {
+				found = scope.resource.findMarkers(scope.typeId,
+						scope.includeSubTypes, scope.depth);
+			} catch (CoreException e) {
+				MarkerSupportInternalUtilities.logViewError(e);
+				return MarkerSupportInternalUtilities.EMPTY_MARKER_ARRAY;
+			}
+			cache.putMarkers(scope, found, count);
+		}
+		return found;
+	}
+
+	/**
+	 * Add the entries of the markers that pass the filters to result.
+	 *
+	 * @return <code>false</code> if gathering was canceled
+	 */
+	private boolean select(IMarker[] found, Collection result) {
+		for (int i = 0; i < found.length; i++) {
+			MarkerEntry entry = new MarkerEntry(found[i]);
+			if (generator.select(entry, selected, filters, andFilters)) {
+				result.add(entry);
+			}
+			entry.clearCache();
+			if (i % 500 == 0 && monitor.isCanceled()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -309,14 +309,8 @@ class Markers {
 	static Integer[] getMarkerCounts(MarkerEntry[] entries) {
 		int[] ints = new int[] { 0, 0, 0, 0 };
 		for (int idx = 0; idx < entries.length; idx++) {
-			IMarker marker = entries[idx].getMarker();
 			int severity = -1;
-			Object value = null;
-			try {
-				value = marker.getAttribute(IMarker.SEVERITY);
-			} catch (CoreException e) {
-				entries[idx].checkIfMarkerStale();
-			}
+			Object value = entries[idx].getAttributeValue(IMarker.SEVERITY);
 			if (value instanceof Integer) {
 				severity = ((Integer) value).intValue();
 			}
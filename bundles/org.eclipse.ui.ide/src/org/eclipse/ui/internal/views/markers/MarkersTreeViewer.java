@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,10 +74,11 @@ public class MarkersTreeViewer extends TreeViewer {
 		super.doUpdateItem(item, element);
 		/*
 		 * For performance reasons clear cache of the item used in updating UI.
+		 * The attributes are read again when the item is next updated.
 		 */
 		MarkerSupportItem cellItem = (MarkerSupportItem) element;
 		if (cellItem.isConcrete())
-			cellItem.clearCache();
+			((MarkerEntry) cellItem).clearSnapshot();
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +9,12 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 package org.eclipse.ui.internal.views.markers;
+
+import org.eclipse.core.resources.IMarker;
+
 /**
  * @since 3.4
- *	Mock Class needed for testing Sort
+ *	Mock Class needed for testing Sort and the attributes of entries
  */
 public class MockMarkerEntry extends MarkerEntry{
 	/**
@@ -25,6 +28,30 @@ public class MockMarkerEntry extends MarkerEntry{
 		super(null);
 		this.name=name;
 	}
+
+	/**
+	 * @param marker
+	 */
+	public MockMarkerEntry(IMarker marker) {
+		super(marker);
+		this.name=String.valueOf(marker.getId());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ui.internal.views.markers.MarkerEntry#clearCache()
+	 */
+	@Override
+	public void clearCache() {
+		super.clearCache();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ui.internal.views.markers.MarkerEntry#clearSnapshot()
+	 */
+	@Override
+	public void clearSnapshot() {
+		super.clearSnapshot();
+	}
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -17,13 +17,21 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -66,6 +74,18 @@ public class RenderMojo extends AbstractMojo {
     /** Used to specify the number of render threads when rasterizing icons. */
     public static final String RENDERTHREADS = "eclipse.svg.renderthreads";
 
+    /** Used to disable skipping icons that have not changed since the last render. */
+    public static final String INCREMENTAL = "eclipse.svg.incremental";
+
+    /** The file in the build output that stores the content hash of each rendered icon. */
+    public static final String RENDER_CACHE = "target/svg-render-cache.properties";
+
+    /**
+     * Part of every content hash. Increment when a change to the renderer
+     * changes its output, so that all icons are rendered again.
+     */
+    private static final int RENDER_VERSION = 1;
+
     /**
      * <p>IconEntry is used to define an icon to rasterize,
      * where to put it and the dimensions to render it at.</p>
@@ -86,6 +106,9 @@ public class RenderMojo extends AbstractMojo {
         /** The path to a disabled version of the icon (gets desaturated). */
         private File disabledPath;
 
+        /** The key of the icon in the render cache, its path relative to the icon root. */
+        String cacheKey;
+
         /**
          * Creates an IconEntry used for record keeping when
          * rendering a set of SVG icons.
@@ -123,8 +146,23 @@ public class RenderMojo extends AbstractMojo {
     List<IconEntry> failedIcons = Collections
             .synchronizedList(new ArrayList<IconEntry>(5));
 
-    /** The amount of scaling to apply to rasterized images. */
-    private int outputScale;
+    /**
+     * The amounts of scaling to apply to rasterized images. The first scale is
+     * written to the icon's name, the others get an @&lt;scale&gt;x suffix.
+     */
+    private int[] outputScales;
+
+    /** Whether icons whose content hash did not change are skipped. */
+    private boolean incremental;
+
+    /** The content hashes of the icons as of the last render. */
+    private Properties renderCache;
+
+    /** The content hashes of the icons that are up to date after this render. */
+    private Map<String, String> renderedHashes;
+
+    /** The number of icons skipped because they did not change. */
+    private AtomicInteger skippedIcons;
 
     /** Used for creating desaturated icons */
     private GrayscaleFilter grayFilter;
@@ -149,6 +187,13 @@ public class RenderMojo extends AbstractMojo {
         return failedIcons.size();
     }
 
+    /**
+     * @return the number of icons that were skipped because they did not change
+     */
+    public int getSkippedIcons() {
+        return skippedIcons.get();
+    }
+
     /**
      * <p>Creates an IconEntry during the icon gather operation.</p>
      * 
@@ -194,6 +239,23 @@ public class RenderMojo extends AbstractMojo {
             return;
         }
 
+        // Read the source once, for the content hash and for parsing
+        byte[] svgBytes;
+        try {
+            svgBytes = readFile(icon.inputPath);
+        } catch (IOException e) {
+            log.error("Error reading SVG icon document: " + icon.nameBase + " - " + e.getMessage());
+            failedIcons.add(icon);
+            return;
+        }
+
+        String hash = computeHash(icon, svgBytes);
+        if (incremental && hash != null && isUpToDate(icon, hash)) {
+            skippedIcons.incrementAndGet();
+            renderedHashes.put(icon.cacheKey, hash);
+            return;
+        }
+
         if (icon.outputPath != null && !icon.outputPath.exists()) {
             icon.outputPath.mkdirs();
         }
@@ -202,8 +264,8 @@ public class RenderMojo extends AbstractMojo {
             icon.disabledPath.mkdirs();
         }
 
-        // Create the document to rasterize
-        SVGDocument svgDocument = generateSVGDocument(icon);
+        // Create the document to rasterize, it is reused for every scale
+        SVGDocument svgDocument = generateSVGDocument(icon, svgBytes);
 
         if(svgDocument == null) {
             return;
@@ -218,11 +280,36 @@ public class RenderMojo extends AbstractMojo {
         int nativeWidth = Integer.parseInt(nativeWidthStr);
         int nativeHeight = Integer.parseInt(nativeHeightStr);
 
-        int outputWidth = nativeWidth * outputScale;
-        int outputHeight = nativeHeight * outputScale;
+        for (int i = 0; i < outputScales.length; i++) {
+            if (!rasterize(icon, svgDocument, nativeWidth, nativeHeight, i)) {
+                return;
+            }
+        }
+
+        if (hash != null && icon.cacheKey != null) {
+            renderedHashes.put(icon.cacheKey, hash);
+        }
+    }
+
+    /**
+     * <p>Renders the icon at one of the output scales and writes it, and its
+     * disabled variant, to the output directories.</p>
+     * 
+     * @param icon the icon to render
+     * @param svgDocument the parsed SVG document of the icon
+     * @param nativeWidth the width the SVG document declares
+     * @param nativeHeight the height the SVG document declares
+     * @param scaleIndex the index of the scale in the output scales
+     * 
+     * @return true if the icon was written, false if it failed
+     */
+    private boolean rasterize(IconEntry icon, SVGDocument svgDocument,
+            int nativeWidth, int nativeHeight, int scaleIndex) {
+        int outputWidth = nativeWidth * outputScales[scaleIndex];
+        int outputHeight = nativeHeight * outputScales[scaleIndex];
 
         // Guesstimate the PNG size in memory, BAOS will enlarge if necessary.
-        int outputInitSize = nativeWidth * nativeHeight * 4 + 1024;
+        int outputInitSize = outputWidth * outputHeight * 4 + 1024;
         ByteArrayOutputStream iconOutput = new ByteArrayOutputStream(
                 outputInitSize);
 
@@ -239,12 +326,12 @@ public class RenderMojo extends AbstractMojo {
             if (!success) {
                 log.error("Failed to render icon: " + icon.nameBase + ".png, skipping.");
                 failedIcons.add(icon);
-                return;
+                return false;
             }
         } catch (Exception e) {
             log.error("Failed to render icon: " + e.getMessage());
             failedIcons.add(icon);
-            return;
+            return false;
         }
 
         // Generate a buffered image from Batik's png output
@@ -258,15 +345,151 @@ public class RenderMojo extends AbstractMojo {
             if(inputImage == null) {
                 log.error("Failed to generate BufferedImage from rendered icon, ImageIO returned null: " + icon.nameBase);
                 failedIcons.add(icon);
-                return;
+                return false;
             }
         } catch (IOException e2) {
             log.error("Failed to generate BufferedImage from rendered icon: "  + icon.nameBase + " - " + e2.getMessage());
             failedIcons.add(icon);
-            return;
+            return false;
         }
         
-        writeIcon(icon, outputWidth, outputHeight, inputImage);
+        return writeIcon(icon, getOutputName(icon, scaleIndex), inputImage);
+    }
+
+    /**
+     * @param icon the icon to name
+     * @param scaleIndex the index of the scale in the output scales
+     * 
+     * @return the file name of the icon rendered at the given scale
+     */
+    private String getOutputName(IconEntry icon, int scaleIndex) {
+        if (scaleIndex == 0) {
+            return icon.nameBase + ".png";
+        }
+        return icon.nameBase + "@" + outputScales[scaleIndex] + "x.png";
+    }
+
+    /**
+     * <p>Computes the content hash of an icon, covering its SVG source and
+     * the parameters it is rendered with.</p>
+     * 
+     * @param icon the icon to compute the hash for
+     * @param svgBytes the contents of the icon's SVG file
+     * 
+     * @return the hash as a hex string, or null if it could not be computed
+     */
+    private String computeHash(IconEntry icon, byte[] svgBytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(svgBytes);
+            String parameters = "|" + RENDER_VERSION + "|" + Arrays.toString(outputScales)
+                    + "|" + (icon.disabledPath != null);
+            digest.update(parameters.getBytes("UTF-8"));
+
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hash.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param icon the icon to check
+     * @param hash the current content hash of the icon
+     * 
+     * @return true if the icon was rendered with the same content hash and
+     *         its output files still exist
+     */
+    private boolean isUpToDate(IconEntry icon, String hash) {
+        if (icon.cacheKey == null || !hash.equals(renderCache.getProperty(icon.cacheKey))) {
+            return false;
+        }
+
+        for (int i = 0; i < outputScales.length; i++) {
+            String name = getOutputName(icon, i);
+            if (!new File(icon.outputPath, name).exists()) {
+                return false;
+            }
+            if (icon.disabledPath != null && !new File(icon.disabledPath, name).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param file the file to read
+     * 
+     * @return the contents of the file
+     * 
+     * @throws IOException if the file could not be read
+     */
+    private static byte[] readFile(File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * <p>Loads the content hashes of the last render from the build output.</p>
+     * 
+     * @param cacheFile the file the hashes are stored in
+     */
+    private void loadRenderCache(File cacheFile) {
+        renderCache = new Properties();
+        if (!incremental || !cacheFile.exists()) {
+            return;
+        }
+
+        try {
+            InputStream input = new FileInputStream(cacheFile);
+            try {
+                renderCache.load(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not read the render cache, rendering all icons: " + e.getMessage());
+            renderCache.clear();
+        }
+    }
+
+    /**
+     * <p>Stores the content hashes of the icons that are up to date in the
+     * build output, for the next incremental render.</p>
+     * 
+     * @param cacheFile the file to store the hashes in
+     */
+    private void saveRenderCache(File cacheFile) {
+        Properties hashes = new Properties();
+        hashes.putAll(renderedHashes);
+
+        try {
+            cacheFile.getParentFile().mkdirs();
+            OutputStream output = new FileOutputStream(cacheFile);
+            try {
+                hashes.store(output, "Content hashes of the rendered SVG icons");
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write the render cache: " + e.getMessage());
+        }
     }
 
     /**
@@ -274,15 +497,16 @@ public class RenderMojo extends AbstractMojo {
      * file.</p>
      * 
      * @param icon the icon entry to generate an SVG document for
+     * @param svgBytes the contents of the icon's SVG file
      * 
      * @return a batik SVGDocument instance or null if one could not be generated
      */
-    private SVGDocument generateSVGDocument(IconEntry icon) {
+    private SVGDocument generateSVGDocument(IconEntry icon, byte[] svgBytes) {
         // Load the document and find out the native height/width
         // We reuse the document later for rasterization
         SVGDocument svgDocument = null;
         try {
-            FileInputStream iconDocumentStream = new FileInputStream(icon.inputPath);
+            InputStream iconDocumentStream = new ByteArrayInputStream(svgBytes);
 
             String parser = XMLResourceDescriptor.getXMLParserClassName();
             SAXSVGDocumentFactory f = new SAXSVGDocumentFactory(parser);
@@ -298,17 +522,18 @@ public class RenderMojo extends AbstractMojo {
     }
 
     /**
-     * <p>Resizes the supplied inputImage to the specified width and height, using
-     * lanczos resampling techniques.</p>
+     * <p>Writes the rendered image and, if the icon has one, its disabled
+     * variant.</p>
      *  
-     * @param icon the icon that's being resized
-     * @param width the desired output width after rescaling operations
-     * @param height the desired output height after rescaling operations
-     * @param sourceImage the source image to resource
+     * @param icon the icon that's being written
+     * @param fileName the file name to write the images to
+     * @param sourceImage the rendered image
+     * 
+     * @return true if the images were written, false if it failed
      */
-    private void writeIcon(IconEntry icon, int width, int height, BufferedImage sourceImage) {
+    private boolean writeIcon(IconEntry icon, String fileName, BufferedImage sourceImage) {
         try {
-            ImageIO.write(sourceImage, "PNG", new File(icon.outputPath, icon.nameBase + ".png"));
+            ImageIO.write(sourceImage, "PNG", new File(icon.outputPath, fileName));
             
             if (icon.disabledPath != null) {
                 BufferedImage desaturated16 = desaturator.filter(
@@ -316,12 +541,14 @@ public class RenderMojo extends AbstractMojo {
 
                 BufferedImage deconstrast = decontrast.filter(desaturated16, null);
 
-                ImageIO.write(deconstrast, "PNG", new File(icon.disabledPath, icon.nameBase + ".png"));
+                ImageIO.write(deconstrast, "PNG", new File(icon.disabledPath, fileName));
             }
+            return true;
         } catch (Exception e1) {
             log.error("Failed to resize rendered icon to output size: "  + 
                                icon.nameBase + " - " + e1.getMessage());
             failedIcons.add(icon);
+            return false;
         }
     }
 
@@ -330,67 +557,22 @@ public class RenderMojo extends AbstractMojo {
      * reduce the duration on multicore systems.</p>
      */
     public void rasterizeAll() {
-        // The number of icons that haven't been distributed to
-        // callables
-        int remainingIcons = icons.size();
-
-        // The number of icons to distribute to a rendering callable
-        final int threadExecSize = icons.size() / this.threads;
-
-        // The current offset to start a batch, as they're distributed
-        // between rendering callables
-        int batchOffset = 0;
-
-        // A list of callables used to render icons on multiple threads
-        // Each callable gets a set of icons to render
+        // One task per icon, the fixed size pool bounds the number of
+        // icons rendered at the same time and balances uneven icons
         List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(
-                this.threads);
-
-        // Distribute the rasterization operations between multiple threads
-        while (remainingIcons > 0) {
-            // The current start index for the current batch
-            final int batchStart = batchOffset;
-            
-            // Increment the offset to reflect this batch (used for the next batch)
-            batchOffset += threadExecSize;
-
-            // Determine this batch size, used for batches that have less than
-            // threadExecSize at the end of the distribution operation
-            int batchSize = 0;
-
-            // Determine if we can fit a full batch in this callable
-            // or if we are at the end of gathered icons
-            if (remainingIcons > threadExecSize) {
-                batchSize = threadExecSize;
-            } else {
-                // We have less than a full batch worth of remaining icons
-                // just add them all
-                batchSize = remainingIcons;
-            }
-
-            // Deincrement the remaining Icons
-            remainingIcons -= threadExecSize;
-
-            // Used for access in the callable's scope
-            final int execCount = batchSize;
+                icons.size());
 
-            // Create the callable and add it to the task pool
-            Callable<Object> runnable = new Callable<Object>() {
+        for (final IconEntry icon : icons) {
+            tasks.add(new Callable<Object>() {
                 public Object call() throws Exception {
-                    // Rasterize this batch
-                    for (int count = 0; count < execCount; count++) {
-                        rasterize(icons.get(batchStart + count));
-                    }
+                    rasterize(icon);
 
                     // Update the render counter
-                    counter.getAndAdd(execCount);
-                    log.info("Finished rendering batch, index: " + batchStart);
+                    counter.getAndIncrement();
 
                     return null;
                 }
-            };
-
-            tasks.add(runnable);
+            });
         }
 
         // Execute the rasterization operations that
@@ -400,6 +582,8 @@ public class RenderMojo extends AbstractMojo {
         } catch (InterruptedException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
+        } finally {
+            execPool.shutdown();
         }
 
         // Print info about failed render operations, so they can be fixed
@@ -565,6 +749,7 @@ public class RenderMojo extends AbstractMojo {
             }
 
             IconEntry icon = createIcon(child, outputDir, disabledOutputDir);
+            icon.cacheKey = outputName + "/" + rootUri.relativize(child.toURI()).getPath();
 
             icons.add(icon);
         }
@@ -574,14 +759,21 @@ public class RenderMojo extends AbstractMojo {
      * <p>Initializes rasterizer defaults</p>
      * 
      * @param threads the number of threads to render with
-     * @param scale multiplier to use with icon output dimensions
+     * @param scales multipliers to use with icon output dimensions
+     * @param incremental whether to skip icons that did not change
      */
-    private void init(int threads, int scale) {
+    private void init(int threads, int[] scales, boolean incremental) {
         this.threads = threads;
-        this.outputScale = Math.max(1, scale);
+        this.outputScales = new int[scales.length];
+        for (int i = 0; i < scales.length; i++) {
+            this.outputScales[i] = Math.max(1, scales[i]);
+        }
+        this.incremental = incremental;
         icons = new ArrayList<IconEntry>();
         execPool = Executors.newFixedThreadPool(threads);
         counter = new AtomicInteger();
+        skippedIcons = new AtomicInteger();
+        renderedHashes = new ConcurrentHashMap<String, String>();
 
         grayFilter = new GrayscaleFilter();
 
@@ -613,20 +805,31 @@ public class RenderMojo extends AbstractMojo {
         }
         
         // if high res is enabled, the icons output size will be scaled by iconScale
-        // Defaults to 1, meaning native size
-        int iconScale = 1;
+        // Defaults to 1, meaning native size. A comma separated list renders
+        // every scale from the same parsed document, e.g. 1,2 adds @2x icons
+        int[] iconScales = { 1 };
         String iconScaleStr = System.getProperty(ECLIPSE_SVG_SCALE);
         if(iconScaleStr != null) {
-            iconScale = Integer.parseInt(iconScaleStr);
+            String[] scales = iconScaleStr.split(",");
+            iconScales = new int[scales.length];
+            for (int i = 0; i < scales.length; i++) {
+                iconScales[i] = Integer.parseInt(scales[i].trim());
+            }
         }
+
+        // Unchanged icons are skipped unless disabled via jvm arg
+        boolean incremental = !"false".equals(System.getProperty(INCREMENTAL));
         
         // Track the time it takes to render the entire set
         long totalStartTime = System.currentTimeMillis();
         
         // initialize defaults (the old renderer was instantiated via constructor)
-        init(threads, iconScale);
+        init(threads, iconScales, incremental);
 
         String workingDirectory = System.getProperty("user.dir");
+
+        File renderCacheFile = new File(workingDirectory, RENDER_CACHE);
+        loadRenderCache(renderCacheFile);
         
         File outputDir = new File(workingDirectory+"/eclipse-png/");
         File iconDirectoryRoot = new File("eclipse-svg/");
@@ -647,18 +850,22 @@ public class RenderMojo extends AbstractMojo {
         
         log.info("Working directory: " + outputDir.getAbsolutePath());
         log.info("SVG Icon Directory: " + iconDirectoryRoot.getAbsolutePath());
-        log.info("Rendering icons with " + threads + " threads, scaling output to " + iconScale + "x");
+        log.info("Rendering icons with " + threads + " threads, scaling output to "
+                + Arrays.toString(iconScales) + "x" + (incremental ? ", skipping unchanged icons" : ""));
         long startTime = System.currentTimeMillis();
         
         // Render the icons
         rasterizeAll();
+        saveRenderCache(renderCacheFile);
 
         // Print summary of operations
         int iconRendered = getIconsRendered();
         int failedIcons = getFailedIcons();
-        int fullIconCount = iconRendered - failedIcons;
+        int skippedIcons = getSkippedIcons();
+        int fullIconCount = iconRendered - failedIcons - skippedIcons;
         
         log.info(fullIconCount + " Icons Rendered");
+        log.info(skippedIcons + " Icons Up To Date");
         log.info(failedIcons + " Icons Failed");
         log.info("Took: "    + (System.currentTimeMillis() - startTime) + " ms.");
 
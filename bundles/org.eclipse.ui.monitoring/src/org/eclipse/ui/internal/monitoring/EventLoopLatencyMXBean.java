@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.util.Map;
+
+import org.eclipse.ui.monitoring.EventLoopLatency;
+
+/**
+ * The JMX view of {@link EventLoopLatency}. All latencies are in microseconds.
+ */
+public interface EventLoopLatencyMXBean {
+	/** Returns the number of dispatched events. */
+	long getEventCount();
+
+	/** Returns the mean latency. */
+	double getMeanMicros();
+
+	/** Returns the median latency. */
+	long getP50Micros();
+
+	/** Returns the 99th percentile of the latencies. */
+	long getP99Micros();
+
+	/** Returns the 99.9th percentile of the latencies. */
+	long getP999Micros();
+
+	/** Returns the largest latency. */
+	long getMaxMicros();
+
+	/** Returns the 99th percentile of the latencies by the name of the event type. */
+	Map<String, Long> getP99MicrosByEventType();
+
+	/**
+	 * Returns the latency at the given percentile for the event type with the given name, or for
+	 * all events if the name is empty.
+	 */
+	long getPercentileMicros(String eventType, double percentile);
+
+	/** Clears the statistics. */
+	void reset();
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.ui.monitoring.EventLoopLatency;
+import org.eclipse.ui.monitoring.LatencyHistogram;
+
+/**
+ * Keeps the latency histograms behind {@link EventLoopLatency}, one for all events and one for
+ * each SWT event type. Latencies are recorded by the {@link EventLoopMonitorThread} on the
+ * display thread.
+ */
+public class EventLoopLatencyStatistics implements EventLoopLatencyMXBean {
+	// SWT event types are small numbers; larger ones are only counted in the overall histogram.
+	private static final int MAX_EVENT_TYPES = 64;
+	private static final EventLoopLatencyStatistics instance = new EventLoopLatencyStatistics();
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final AtomicReferenceArray<LatencyHistogram> histogramsByType =
+			new AtomicReferenceArray<LatencyHistogram>(MAX_EVENT_TYPES);
+	private ObjectName objectName;
+
+	/**
+	 * Returns the shared instance.
+	 */
+	public static EventLoopLatencyStatistics getDefault() {
+		return instance;
+	}
+
+	/**
+	 * Records the latency of the dispatch of an event.
+	 *
+	 * @param eventType the SWT event type
+	 * @param micros the latency in microseconds
+	 */
+	void recordLatency(int eventType, long micros) {
+		histogram.recordValue(micros);
+		if (eventType >= 0 && eventType < MAX_EVENT_TYPES) {
+			LatencyHistogram typeHistogram = histogramsByType.get(eventType);
+			if (typeHistogram == null) {
+				typeHistogram = new LatencyHistogram();
+				if (!histogramsByType.compareAndSet(eventType, null, typeHistogram)) {
+					typeHistogram = histogramsByType.get(eventType);
+				}
+			}
+			typeHistogram.recordValue(micros);
+		}
+	}
+
+	/**
+	 * Registers the statistics with the platform MBean server. Does nothing if they are already
+	 * registered. They stay registered until the plug-in stops.
+	 */
+	synchronized void registerMBean() {
+		if (objectName != null) {
+			return;
+		}
+		try {
+			ObjectName name = new ObjectName(EventLoopLatency.OBJECT_NAME);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(name)) {
+				server.registerMBean(this, name);
+				objectName = name;
+			}
+		} catch (JMException e) {
+			MonitoringPlugin.logError(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Removes the statistics from the platform MBean server.
+	 */
+	synchronized void unregisterMBean() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			MonitoringPlugin.logError(e.getMessage(), e);
+		}
+		objectName = null;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	public LatencyHistogram getHistogram(int eventType) {
+		if (eventType < 0 || eventType >= MAX_EVENT_TYPES) {
+			return null;
+		}
+		return histogramsByType.get(eventType);
+	}
+
+	public int[] getEventTypes() {
+		int[] types = new int[MAX_EVENT_TYPES];
+		int count = 0;
+		for (int i = 0; i < MAX_EVENT_TYPES; i++) {
+			if (histogramsByType.get(i) != null) {
+				types[count++] = i;
+			}
+		}
+		return Arrays.copyOf(types, count);
+	}
+
+	@Override
+	public long getEventCount() {
+		return histogram.getTotalCount();
+	}
+
+	@Override
+	public double getMeanMicros() {
+		return histogram.getMean();
+	}
+
+	@Override
+	public long getP50Micros() {
+		return histogram.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getP99Micros() {
+		return histogram.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getP999Micros() {
+		return histogram.getValueAtPercentile(99.9);
+	}
+
+	@Override
+	public long getMaxMicros() {
+		return histogram.getMaxValue();
+	}
+
+	@Override
+	public Map<String, Long> getP99MicrosByEventType() {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (int eventType : getEventTypes()) {
+			result.put(getEventTypeName(eventType),
+					histogramsByType.get(eventType).getValueAtPercentile(99));
+		}
+		return result;
+	}
+
+	@Override
+	public long getPercentileMicros(String eventType, double percentile) {
+		if (eventType == null || eventType.isEmpty()) {
+			return histogram.getValueAtPercentile(percentile);
+		}
+		for (int type : getEventTypes()) {
+			if (getEventTypeName(type).equals(eventType)) {
+				return histogramsByType.get(type).getValueAtPercentile(percentile);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void reset() {
+		histogram.reset();
+		for (int i = 0; i < MAX_EVENT_TYPES; i++) {
+			LatencyHistogram typeHistogram = histogramsByType.get(i);
+			if (typeHistogram != null) {
+				typeHistogram.reset();
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of the SWT constant of the given event type.
+	 */
+	static String getEventTypeName(int eventType) {
+		switch (eventType) {
+		case SWT.None: return "Runnable"; //$NON-NLS-1$
+		case SWT.KeyDown: return "KeyDown"; //$NON-NLS-1$
+		case SWT.KeyUp: return "KeyUp"; //$NON-NLS-1$
+		case SWT.MouseDown: return "MouseDown"; //$NON-NLS-1$
+		case SWT.MouseUp: return "MouseUp"; //$NON-NLS-1$
+		case SWT.MouseMove: return "MouseMove"; //$NON-NLS-1$
+		case SWT.MouseEnter: return "MouseEnter"; //$NON-NLS-1$
+		case SWT.MouseExit: return "MouseExit"; //$NON-NLS-1$
+		case SWT.MouseDoubleClick: return "MouseDoubleClick"; //$NON-NLS-1$
+		case SWT.Paint: return "Paint"; //$NON-NLS-1$
+		case SWT.Move: return "Move"; //$NON-NLS-1$
+		case SWT.Resize: return "Resize"; //$NON-NLS-1$
+		case SWT.Dispose: return "Dispose"; //$NON-NLS-1$
+		case SWT.Selection: return "Selection"; //$NON-NLS-1$
+		case SWT.DefaultSelection: return "DefaultSelection"; //$NON-NLS-1$
+		case SWT.FocusIn: return "FocusIn"; //$NON-NLS-1$
+		case SWT.FocusOut: return "FocusOut"; //$NON-NLS-1$
+		case SWT.Expand: return "Expand"; //$NON-NLS-1$
+		case SWT.Collapse: return "Collapse"; //$NON-NLS-1$
+		case SWT.Iconify: return "Iconify"; //$NON-NLS-1$
+		case SWT.Deiconify: return "Deiconify"; //$NON-NLS-1$
+		case SWT.Close: return "Close"; //$NON-NLS-1$
+		case SWT.Show: return "Show"; //$NON-NLS-1$
+		case SWT.Hide: return "Hide"; //$NON-NLS-1$
+		case SWT.Modify: return "Modify"; //$NON-NLS-1$
+		case SWT.Verify: return "Verify"; //$NON-NLS-1$
+		case SWT.Activate: return "Activate"; //$NON-NLS-1$
+		case SWT.Deactivate: return "Deactivate"; //$NON-NLS-1$
+		case SWT.Help: return "Help"; //$NON-NLS-1$
+		case SWT.DragDetect: return "DragDetect"; //$NON-NLS-1$
+		case SWT.Arm: return "Arm"; //$NON-NLS-1$
+		case SWT.Traverse: return "Traverse"; //$NON-NLS-1$
+		case SWT.MouseHover: return "MouseHover"; //$NON-NLS-1$
+		case SWT.HardKeyDown: return "HardKeyDown"; //$NON-NLS-1$
+		case SWT.HardKeyUp: return "HardKeyUp"; //$NON-NLS-1$
+		case SWT.MenuDetect: return "MenuDetect"; //$NON-NLS-1$
+		case SWT.SetData: return "SetData"; //$NON-NLS-1$
+		case SWT.MouseWheel: return "MouseWheel"; //$NON-NLS-1$
+		case SWT.Settings: return "Settings"; //$NON-NLS-1$
+		case SWT.EraseItem: return "EraseItem"; //$NON-NLS-1$
+		case SWT.MeasureItem: return "MeasureItem"; //$NON-NLS-1$
+		case SWT.PaintItem: return "PaintItem"; //$NON-NLS-1$
+		case SWT.ImeComposition: return "ImeComposition"; //$NON-NLS-1$
+		case SWT.OrientationChange: return "OrientationChange"; //$NON-NLS-1$
+		case SWT.Skin: return "Skin"; //$NON-NLS-1$
+		case SWT.OpenDocument: return "OpenDocument"; //$NON-NLS-1$
+		case SWT.Touch: return "Touch"; //$NON-NLS-1$
+		case SWT.Gesture: return "Gesture"; //$NON-NLS-1$
+		case SWT.Segments: return "Segments"; //$NON-NLS-1$
+		default: return "Event " + eventType; //$NON-NLS-1$
+		}
+	}
+}
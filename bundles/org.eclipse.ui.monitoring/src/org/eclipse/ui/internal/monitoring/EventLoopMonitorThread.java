@@ -73,6 +73,8 @@ public class EventLoopMonitorThread extends Thread {
 		public int maxStackSamples;
 		/** If true, log freeze events to the Eclipse error log on the local machine. */
 		public boolean logToErrorLog;
+		/** If true, aggregate freeze events into a profile for flame graphs. */
+		public boolean logToFreezeProfile;
 		/** Contains the list of fully qualified methods to filter out. */
 		public String filterTraces;
 
@@ -130,6 +132,15 @@ public class EventLoopMonitorThread extends Thread {
 		private int[] nestingLevelStack = new int[64];
 		private int nestingLevelStackSize;
 
+		/**
+		 * The start times in nanoseconds and the types of the events being dispatched, indexed
+		 * by the number of enclosing dispatches. A start time of zero means that the latency of
+		 * the dispatch is not recorded because it ran a nested event loop.
+		 */
+		private final long[] dispatchStartTimes = new long[64];
+		private final int[] dispatchTypes = new int[64];
+		private int dispatchDepth;
+
 		@Override
 		public void handleEvent(Event event) {
 			/*
@@ -164,11 +175,13 @@ public class EventLoopMonitorThread extends Thread {
 				nestingLevel++;
 				// Log a long interval, start the timer.
 				handleEventTransition(true, true);
+				startDispatch(event.detail);
 				break;
 			case SWT.PostEvent:
 				if (eventHistory != null) {
 					eventHistory.recordEvent(event.type);
 				}
+				endDispatch();
 				nestingLevel--;
 				 // Log a long interval, start the timer if inside another event.
 				handleEventTransition(true, nestingLevel > 0);
@@ -178,6 +191,9 @@ public class EventLoopMonitorThread extends Thread {
 					eventHistory.recordEvent(event.type);
 				}
 				saveAndResetNestingLevel();
+				// The enclosing dispatches wait for the nested event loop.
+				Arrays.fill(dispatchStartTimes, 0, Math.min(dispatchDepth,
+						dispatchStartTimes.length), 0);
 				// Log a long interval, stop the timer.
 				handleEventTransition(true, false);
 				break;
@@ -193,6 +209,29 @@ public class EventLoopMonitorThread extends Thread {
 			}
 		}
 
+		private void startDispatch(int eventType) {
+			if (dispatchDepth < dispatchStartTimes.length) {
+				dispatchStartTimes[dispatchDepth] = System.nanoTime();
+				dispatchTypes[dispatchDepth] = eventType;
+			}
+			dispatchDepth++;
+		}
+
+		private void endDispatch() {
+			if (dispatchDepth == 0) {
+				// Monitoring started during the dispatch.
+				return;
+			}
+			dispatchDepth--;
+			if (dispatchDepth < dispatchStartTimes.length) {
+				long startTime = dispatchStartTimes[dispatchDepth];
+				if (startTime != 0) {
+					EventLoopLatencyStatistics.getDefault().recordLatency(
+							dispatchTypes[dispatchDepth], (System.nanoTime() - startTime) / 1000);
+				}
+			}
+		}
+
 		private void saveAndResetNestingLevel() {
 			if (nestingLevelStackSize < nestingLevelStack.length) {
 				nestingLevelStack[nestingLevelStackSize++] = nestingLevel;
@@ -347,6 +386,7 @@ public class EventLoopMonitorThread extends Thread {
 	private final List<IUiFreezeEventLogger> externalLoggers =
 			new ArrayList<IUiFreezeEventLogger>();
 	private DefaultUiFreezeEventLogger defaultLogger;
+	private FreezeProfileLogger freezeProfileLogger;
 	private final Display display;
 	private final FilterHandler filterHandler;
 	private final int longEventErrorThreshold;
@@ -358,6 +398,7 @@ public class EventLoopMonitorThread extends Thread {
 	private final long uiThreadId;
 	private final Object sleepMonitor;
 	private final boolean logToErrorLog;
+	private final boolean logToFreezeProfile;
 	private EventHistory eventHistory;
 	private ThreadMXBean threadMXBean;
 	private boolean dumpLockedMonitors;
@@ -393,6 +434,7 @@ public class EventLoopMonitorThread extends Thread {
 		allThreadsSampleInterval = longEventErrorThreshold * 2 / 3;
 		deadlockThreshold = args.deadlockThreshold;
 		logToErrorLog = args.logToErrorLog;
+		logToFreezeProfile = args.logToFreezeProfile;
 		filterHandler = new FilterHandler(args.filterTraces);
 		sleepMonitor = new Object();
 	}
@@ -451,12 +493,20 @@ public class EventLoopMonitorThread extends Thread {
 			defaultLogger = new DefaultUiFreezeEventLogger(longEventErrorThreshold);
 		}
 
+		if (logToFreezeProfile) {
+			MonitoringPlugin plugin = MonitoringPlugin.getDefault();
+			freezeProfileLogger = new FreezeProfileLogger(
+					plugin == null ? null : plugin.getStateLocation().toFile());
+		}
+
 		loadLoggerExtensions();
 
-		if (!logToErrorLog && externalLoggers.isEmpty()) {
+		if (!logToErrorLog && !logToFreezeProfile && externalLoggers.isEmpty()) {
 			MonitoringPlugin.logWarning(Messages.EventLoopMonitorThread_logging_disabled_error);
 		}
 
+		EventLoopLatencyStatistics.getDefault().registerMBean();
+
 		monitoringThreadId = Thread.currentThread().getId();
 		threadMXBean = ManagementFactory.getThreadMXBean();
 		dumpLockedMonitors = threadMXBean.isObjectMonitorUsageSupported();
@@ -615,6 +665,10 @@ public class EventLoopMonitorThread extends Thread {
 
 			lastEventStartOrResumeTime = currEventStartOrResumeTime;
 		}
+
+		if (freezeProfileLogger != null) {
+			freezeProfileLogger.flush();
+		}
 	}
 
 	private ThreadInfo[] captureThreadStacks(boolean dumpAllThreads) {
@@ -743,6 +797,10 @@ public class EventLoopMonitorThread extends Thread {
 			defaultLogger.log(event);
 		}
 
+		if (logToFreezeProfile) {
+			freezeProfileLogger.log(event);
+		}
+
 		for (int i = 0; i < externalLoggers.size(); i++) {
 			IUiFreezeEventLogger currentLogger = externalLoggers.get(i);
 			try {
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.monitoring.IUiFreezeEventLogger;
+import org.eclipse.ui.monitoring.PreferenceConstants;
+import org.eclipse.ui.monitoring.StackSample;
+import org.eclipse.ui.monitoring.UiFreezeEvent;
+
+/**
+ * Aggregates the stack samples of {@link UiFreezeEvent}s into a profile of where the UI thread
+ * spends the time it is frozen.
+ * <p>
+ * Each sample of the display thread is folded into a single line of frames, root first and
+ * separated by semicolons, and weighted by its share of the duration of the freeze in
+ * milliseconds. This is the input format of flame graph tools such as {@code flamegraph.pl}.
+ * The profile is also written in the file format of <a href="https://www.speedscope.app">
+ * speedscope</a>, which can be opened directly.
+ * </p>
+ * <p>
+ * The profile is kept across sessions in the state location of the plug-in. The weights of
+ * the earlier sessions decay whenever a session adds to the profile, so that freezes that have
+ * been fixed fade out, and only the heaviest stacks are kept.
+ * </p>
+ */
+public class FreezeProfileLogger implements IUiFreezeEventLogger {
+	/** The name of the file with the folded stacks. */
+	public static final String FOLDED_FILE = "freeze_profile.folded"; //$NON-NLS-1$
+	/** The name of the file with the speedscope profile. */
+	public static final String SPEEDSCOPE_FILE = "freeze_profile.speedscope.json"; //$NON-NLS-1$
+
+	private static final int MAX_STACKS = 5000;
+	// Percentage of the weight of a stack that is kept from one session to the next.
+	private static final int SESSION_DECAY_PERCENT = 80;
+	private static final long SAVE_DELAY_MILLIS = 10000;
+	private static final String SPEEDSCOPE_SCHEMA =
+			"https://www.speedscope.app/file-format-schema.json"; //$NON-NLS-1$
+
+	private final File directory;
+	// Accessed by the monitoring thread and the save job.
+	private final Map<String, long[]> stacks = new HashMap<String, long[]>();
+	private final Job saveJob;
+	private volatile boolean modified;
+
+	/**
+	 * Creates a logger that keeps its profile in the given directory.
+	 *
+	 * @param directory the directory to load the profile from and to save it to, or
+	 *     {@code null} to keep the profile in memory only
+	 */
+	public FreezeProfileLogger(File directory) {
+		this.directory = directory;
+		if (directory != null) {
+			load();
+		}
+		saveJob = new Job("Saving UI freeze profile") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				save();
+				return Status.OK_STATUS;
+			}
+		};
+		saveJob.setSystem(true);
+	}
+
+	/**
+	 * Adds the samples of the given event to the profile and schedules the profile to be saved.
+	 *
+	 * @param event the event that caused the UI thread to freeze
+	 */
+	@Override
+	public void log(UiFreezeEvent event) {
+		StackSample[] samples = event.getStackTraceSamples();
+		if (samples.length == 0) {
+			return;
+		}
+		long weight = Math.max(event.getTotalDuration() / samples.length, 1);
+		synchronized (stacks) {
+			for (StackSample sample : samples) {
+				// The first thread is guaranteed to be the display thread.
+				ThreadInfo[] threads = sample.getStackTraces();
+				if (threads.length != 0) {
+					addStack(fold(threads[0].getStackTrace()), weight);
+				}
+			}
+			if (stacks.size() > 2 * MAX_STACKS) {
+				trim();
+			}
+		}
+		modified = true;
+		if (directory != null) {
+			saveJob.schedule(SAVE_DELAY_MILLIS);
+		}
+	}
+
+	/**
+	 * Saves the profile if it has pending changes. Called when monitoring stops.
+	 */
+	public void flush() {
+		if (directory != null && saveJob.cancel() && modified) {
+			save();
+		}
+	}
+
+	/**
+	 * Writes the profile as folded stacks, one stack per line followed by its weight in
+	 * milliseconds.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeFolded(Writer writer) throws IOException {
+		for (Map.Entry<String, Long> entry : snapshot().entrySet()) {
+			writer.write(entry.getKey());
+			writer.write(' ');
+			writer.write(Long.toString(entry.getValue()));
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Writes the profile as a sampled speedscope profile with weights in milliseconds.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeSpeedscope(Writer writer) throws IOException {
+		Map<String, Long> profile = snapshot();
+		Map<String, Integer> frameIndices = new LinkedHashMap<String, Integer>();
+		StringBuilder samples = new StringBuilder();
+		StringBuilder weights = new StringBuilder();
+		long total = 0;
+		for (Map.Entry<String, Long> entry : profile.entrySet()) {
+			if (samples.length() != 0) {
+				samples.append(',');
+				weights.append(',');
+			}
+			samples.append('[');
+			String[] frames = entry.getKey().split(";"); //$NON-NLS-1$
+			for (int i = 0; i < frames.length; i++) {
+				Integer index = frameIndices.get(frames[i]);
+				if (index == null) {
+					index = frameIndices.size();
+					frameIndices.put(frames[i], index);
+				}
+				if (i != 0) {
+					samples.append(',');
+				}
+				samples.append(index);
+			}
+			samples.append(']');
+			weights.append(entry.getValue());
+			total += entry.getValue();
+		}
+
+		writer.write("{\"$schema\":\""); //$NON-NLS-1$
+		writer.write(SPEEDSCOPE_SCHEMA);
+		writer.write("\",\"shared\":{\"frames\":["); //$NON-NLS-1$
+		boolean first = true;
+		for (String frame : frameIndices.keySet()) {
+			if (!first) {
+				writer.write(',');
+			}
+			first = false;
+			writer.write("{\"name\":"); //$NON-NLS-1$
+			writeJsonString(writer, frame);
+			writer.write('}');
+		}
+		writer.write("]},\"profiles\":[{\"type\":\"sampled\",\"name\":\"UI freezes\","); //$NON-NLS-1$
+		writer.write("\"unit\":\"milliseconds\",\"startValue\":0,\"endValue\":"); //$NON-NLS-1$
+		writer.write(Long.toString(total));
+		writer.write(",\"samples\":["); //$NON-NLS-1$
+		writer.write(samples.toString());
+		writer.write("],\"weights\":["); //$NON-NLS-1$
+		writer.write(weights.toString());
+		writer.write("]}],\"name\":\"UI freezes\",\"exporter\":\""); //$NON-NLS-1$
+		writer.write(PreferenceConstants.PLUGIN_ID);
+		writer.write("\"}\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Folds a stack trace, which starts with the innermost frame, into a line of frames
+	 * starting with the outermost one. Line numbers are left out so that samples in the same
+	 * method aggregate.
+	 */
+	static String fold(StackTraceElement[] stackTrace) {
+		StringBuilder buf = new StringBuilder();
+		for (int i = stackTrace.length; --i >= 0;) {
+			if (buf.length() != 0) {
+				buf.append(';');
+			}
+			StackTraceElement frame = stackTrace[i];
+			buf.append(frame.getClassName()).append('.').append(frame.getMethodName());
+		}
+		return buf.toString();
+	}
+
+	private void addStack(String stack, long weight) {
+		if (stack.isEmpty()) {
+			return;
+		}
+		long[] total = stacks.get(stack);
+		if (total == null) {
+			stacks.put(stack, new long[] { weight });
+		} else {
+			total[0] += weight;
+		}
+	}
+
+	/**
+	 * Drops all but the {@link #MAX_STACKS} heaviest stacks. Must be called while holding the
+	 * lock on {@link #stacks}.
+	 */
+	private void trim() {
+		if (stacks.size() <= MAX_STACKS) {
+			return;
+		}
+		List<Map.Entry<String, long[]>> entries =
+				new ArrayList<Map.Entry<String, long[]>>(stacks.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>() {
+			@Override
+			public int compare(Map.Entry<String, long[]> e1, Map.Entry<String, long[]> e2) {
+				long w1 = e1.getValue()[0];
+				long w2 = e2.getValue()[0];
+				return w1 < w2 ? 1 : w1 > w2 ? -1 : 0;
+			}
+		});
+		for (Map.Entry<String, long[]> entry : entries.subList(MAX_STACKS, entries.size())) {
+			stacks.remove(entry.getKey());
+		}
+	}
+
+	/**
+	 * Returns the stacks and their weights ordered by stack, which keeps stacks with common
+	 * prefixes together.
+	 */
+	private Map<String, Long> snapshot() {
+		Map<String, Long> copy = new TreeMap<String, Long>();
+		synchronized (stacks) {
+			trim();
+			for (Map.Entry<String, long[]> entry : stacks.entrySet()) {
+				copy.put(entry.getKey(), entry.getValue()[0]);
+			}
+		}
+		return copy;
+	}
+
+	private void load() {
+		File file = new File(directory, FOLDED_FILE);
+		if (!file.isFile()) {
+			return;
+		}
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8")); //$NON-NLS-1$
+			synchronized (stacks) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					int separator = line.lastIndexOf(' ');
+					if (separator <= 0) {
+						continue;
+					}
+					try {
+						long weight = Long.parseLong(line.substring(separator + 1))
+								* SESSION_DECAY_PERCENT / 100;
+						if (weight > 0) {
+							addStack(line.substring(0, separator), weight);
+						}
+					} catch (NumberFormatException e) {
+						// Skip the malformed line.
+					}
+				}
+				trim();
+			}
+		} catch (IOException e) {
+			MonitoringPlugin.logWarning(e.toString());
+		} finally {
+			close(reader);
+		}
+	}
+
+	private void save() {
+		modified = false;
+		try {
+			write(FOLDED_FILE, false);
+			write(SPEEDSCOPE_FILE, true);
+		} catch (IOException e) {
+			MonitoringPlugin.logWarning(e.toString());
+		}
+	}
+
+	private void write(String fileName, boolean speedscope) throws IOException {
+		File file = new File(directory, fileName);
+		File tempFile = new File(directory, fileName + ".tmp"); //$NON-NLS-1$
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(tempFile), "UTF-8")); //$NON-NLS-1$
+		try {
+			if (speedscope) {
+				writeSpeedscope(writer);
+			} else {
+				writeFolded(writer);
+			}
+		} finally {
+			writer.close();
+		}
+		file.delete();
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete();
+			throw new IOException("Unable to write " + file); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeJsonString(Writer writer, String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	private static void close(BufferedReader reader) {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// Ignore.
+			}
+		}
+	}
+}
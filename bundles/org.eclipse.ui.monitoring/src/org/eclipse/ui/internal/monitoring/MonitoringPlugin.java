@@ -32,6 +32,7 @@ public class MonitoringPlugin extends AbstractUIPlugin {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		EventLoopLatencyStatistics.getDefault().unregisterMBean();
 		plugin = null;
 		super.stop(context);
 	}
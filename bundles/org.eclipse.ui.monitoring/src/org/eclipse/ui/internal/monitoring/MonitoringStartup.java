@@ -85,6 +85,8 @@ public class MonitoringStartup implements IStartup {
 		args.maxStackSamples = preferences.getInt(PreferenceConstants.MAX_STACK_SAMPLES);
 		args.filterTraces = preferences.getString(PreferenceConstants.FILTER_TRACES);
 		args.logToErrorLog = preferences.getBoolean(PreferenceConstants.LOG_TO_ERROR_LOG);
+		args.logToFreezeProfile =
+				preferences.getBoolean(PreferenceConstants.LOG_TO_FREEZE_PROFILE);
 
 		return args;
 	}
@@ -27,6 +27,7 @@ public final class Messages extends NLS {
 	public static String MonitoringPreferencePage_enable_monitoring_label;
 	public static String MonitoringPreferencePage_filter_label;
 	public static String MonitoringPreferencePage_log_freeze_events_label;
+	public static String MonitoringPreferencePage_log_freeze_profile_label;
 	public static String MonitoringPreferencePage_warning_threshold_label;
 	public static String MonitoringPreferencePage_error_threshold_label;
 	public static String MonitoringPreferencePage_error_threshold_too_low_error;
@@ -34,6 +34,7 @@ public class MonitoringPreferenceInitializer extends AbstractPreferenceInitializ
 		store.setDefault(PreferenceConstants.DEADLOCK_REPORTING_THRESHOLD_MILLIS,
 				DEFAULT_FORCE_DEADLOCK_LOG_TIME_MILLIS);
 		store.setDefault(PreferenceConstants.LOG_TO_ERROR_LOG, true);
+		store.setDefault(PreferenceConstants.LOG_TO_FREEZE_PROFILE, false);
 		store.setDefault(PreferenceConstants.FILTER_TRACES, ""); //$NON-NLS-1$
 	}
 }
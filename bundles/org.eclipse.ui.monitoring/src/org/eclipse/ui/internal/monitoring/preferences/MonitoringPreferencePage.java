@@ -144,6 +144,8 @@ public class MonitoringPreferencePage extends FieldEditorPreferencePage
 
 		createBooleanEditor(PreferenceConstants.LOG_TO_ERROR_LOG,
 				Messages.MonitoringPreferencePage_log_freeze_events_label, topGroup);
+		createBooleanEditor(PreferenceConstants.LOG_TO_FREEZE_PROFILE,
+				Messages.MonitoringPreferencePage_log_freeze_profile_label, topGroup);
 		topGroup.setLayout(layout);
 
 		final Composite bottomGroup = new Composite(container, SWT.NONE);
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+import org.eclipse.ui.internal.monitoring.EventLoopLatencyStatistics;
+
+/**
+ * Provides the latencies of the UI events dispatched since monitoring started or since the last
+ * {@link #reset()}.
+ * <p>
+ * The latency of an event is the time between the start and the end of its dispatch on the
+ * display thread. Events whose dispatch runs a nested event loop, e.g. to show a modal dialog,
+ * are not counted, since they mostly wait for the user. Latencies are only recorded while
+ * {@link PreferenceConstants#MONITORING_ENABLED} is set. The same statistics are available
+ * through JMX as the MXBean {@value #OBJECT_NAME}.
+ * </p>
+ *
+ * @noinstantiate This class is not intended to be instantiated by clients.
+ * @since 1.0
+ */
+public final class EventLoopLatency {
+	/** The JMX object name of the latency statistics. */
+	public static final String OBJECT_NAME = "org.eclipse.ui.monitoring:type=EventLoopLatency"; //$NON-NLS-1$
+
+	private EventLoopLatency() {
+		// Do not instantiate.
+	}
+
+	/**
+	 * Returns the histogram of the latencies of all dispatched events.
+	 */
+	public static LatencyHistogram getHistogram() {
+		return EventLoopLatencyStatistics.getDefault().getHistogram();
+	}
+
+	/**
+	 * Returns the histogram of the latencies of the events of the given type.
+	 *
+	 * @param eventType an SWT event type such as {@code SWT.Paint}, or {@code SWT.None} for
+	 *     runnables and timers executed by the display
+	 * @return the histogram, or {@code null} if no event of the type has been dispatched
+	 */
+	public static LatencyHistogram getHistogram(int eventType) {
+		return EventLoopLatencyStatistics.getDefault().getHistogram(eventType);
+	}
+
+	/**
+	 * Returns the types of the events with latencies, in ascending order.
+	 */
+	public static int[] getEventTypes() {
+		return EventLoopLatencyStatistics.getDefault().getEventTypes();
+	}
+
+	/**
+	 * Clears all histograms.
+	 */
+	public static void reset() {
+		EventLoopLatencyStatistics.getDefault().reset();
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in microseconds that uses a constant amount of memory.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with the magnitude of
+ * the value, so that every value is represented with a relative error of at most 1/16.
+ * Values larger than about twelve days are counted as twelve days. Recording a value does not
+ * allocate and is safe to do concurrently with reading the histogram.
+ * </p>
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 1.0
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+	private static final int BUCKETS = SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalValue = new AtomicLong();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param micros the latency in microseconds, negative values are counted as zero
+	 */
+	public void recordValue(long micros) {
+		long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+		counts.incrementAndGet(getBucket(value));
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(value);
+		long max;
+		while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+			// Retry.
+		}
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 */
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Returns the largest recorded latency in microseconds, or zero if nothing was recorded.
+	 */
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Returns the mean of the recorded latencies in microseconds, or zero if nothing was
+	 * recorded.
+	 */
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : (double) totalValue.get() / count;
+	}
+
+	/**
+	 * Returns the latency in microseconds that the given percentage of the recorded latencies
+	 * do not exceed, within the precision of the histogram.
+	 *
+	 * @param percentile the percentage between 0 and 100, e.g. 99.9
+	 * @return the latency at the percentile, or zero if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		double fraction = Math.min(Math.max(percentile, 0), 100) / 100;
+		long target = Math.max((long) Math.ceil(fraction * count), 1);
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += snapshot[i];
+			if (cumulative >= target) {
+				return Math.min(getHighestValue(i), maxValue.get());
+			}
+		}
+		return maxValue.get();
+	}
+
+	/**
+	 * Clears the histogram. Latencies recorded concurrently with the reset may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		totalValue.set(0);
+		maxValue.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.1fus, p50=%dus, p99=%dus, p99.9=%dus, max=%dus", //$NON-NLS-1$
+				getTotalCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(99),
+				getValueAtPercentile(99.9), getMaxValue());
+	}
+
+	private static int getBucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		// The top SUB_BUCKET_BITS + 1 bits of the value, the leading one included.
+		int mantissa = (int) (value >>> shift);
+		return SUB_BUCKETS * (shift + 1) + mantissa - SUB_BUCKETS;
+	}
+
+	private static long getHighestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
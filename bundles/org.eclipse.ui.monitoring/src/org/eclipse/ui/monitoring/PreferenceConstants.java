@@ -43,6 +43,11 @@ public class PreferenceConstants {
 	 * If true, log freeze events to the Eclipse error log.
 	 */
 	public static final String LOG_TO_ERROR_LOG = "log_to_error_log"; //$NON-NLS-1$
+	/**
+	 * If true, aggregate the stack samples of freeze events into a profile in the state location
+	 * of the plug-in that can be viewed as a flame graph.
+	 */
+	public static final String LOG_TO_FREEZE_PROFILE = "log_to_freeze_profile"; //$NON-NLS-1$
 	/**
 	 * Comma separated fully qualified method names of stack frames to filter out.
 	 * Long events containing this method in a stack trace of the UI thread are ignored.
@@ -21,6 +21,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -29,6 +30,14 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.IHandler;
@@ -216,6 +225,27 @@ public abstract class FilteredItemsSelectionDialog extends
 
 	private ItemsFilter lastCompletedFilter;
 
+	/**
+	 * Index of the names of <code>lastCompletedResult</code>, created when
+	 * the result is first searched with indexed search.
+	 */
+	private SearchPatternIndex lastCompletedIndex;
+
+	private Object[] lastNarrowedResult;
+
+	private ItemsFilter lastNarrowedFilter;
+
+	/**
+	 * The threads of indexed search, created on first use and shut down when
+	 * the dialog is closed. Idle threads end after a while. Guarded by
+	 * {@link #filterExecutorLock}.
+	 */
+	private ThreadPoolExecutor filterExecutor;
+
+	private boolean filterExecutorClosed;
+
+	private final Object filterExecutorLock = new Object();
+
 	private String initialPatternText;
 
 	private int selectionMode;
@@ -351,6 +381,10 @@ public abstract class FilteredItemsSelectionDialog extends
 
 	@Override
 	public void create() {
+		synchronized (filterExecutorLock) {
+			// the dialog may be opened again after it was closed
+			filterExecutorClosed = false;
+		}
 		super.create();
 		pattern.setFocus();
 	}
@@ -399,6 +433,13 @@ public abstract class FilteredItemsSelectionDialog extends
 		this.filterJob.cancel();
 		this.refreshCacheJob.cancel();
 		this.refreshProgressMessageJob.cancel();
+		synchronized (filterExecutorLock) {
+			filterExecutorClosed = true;
+			if (filterExecutor != null) {
+				filterExecutor.shutdown();
+				filterExecutor = null;
+			}
+		}
 		if (showViewHandler != null) {
 			IHandlerService service = PlatformUI
 					.getWorkbench().getService(IHandlerService.class);
@@ -1180,6 +1221,33 @@ public abstract class FilteredItemsSelectionDialog extends
 		}
 	}
 
+	/**
+	 * Returns whether the items found by the last search are indexed by name
+	 * and filtered in parallel when the pattern is narrowed. With indexed
+	 * search, only the items whose names start with
+	 * {@link FilteredItemsSelectionDialog.ItemsFilter#getNamePrefix()} and
+	 * contain {@link FilteredItemsSelectionDialog.ItemsFilter#getNameSegments()}
+	 * are matched, the result of the previous narrowed search is reused when the
+	 * pattern narrows it further, and the first matches are shown before all
+	 * items have been matched.
+	 * <p>
+	 * Subclasses that return <code>true</code> must make sure that
+	 * {@link FilteredItemsSelectionDialog.ItemsFilter#matchItem(Object)} may be
+	 * called by several threads at once, and that it only matches items whose
+	 * names, as returned by {@link #getElementName(Object)}, start with the
+	 * name prefix and contain the name segments of the filter.
+	 * </p>
+	 * <p>
+	 * The default implementation returns <code>false</code>.
+	 * </p>
+	 * 
+	 * @return <code>true</code> if indexed search is enabled
+	 * @since 3.107
+	 */
+	protected boolean isIndexedSearchEnabled() {
+		return false;
+	}
+
 	/**
 	 * Returns comparator to sort items inside content provider. Returned object
 	 * will be probably created as an anonymous class. Parameters passed to the
@@ -1982,7 +2050,9 @@ public abstract class FilteredItemsSelectionDialog extends
 	 * filter is a sub-filter ({@link FilteredItemsSelectionDialog.ItemsFilter#isSubFilter(FilteredItemsSelectionDialog.ItemsFilter)})
 	 * of the last, then <code>FilterJob</code> only filters in the cache. If
 	 * it is the first filtering or the new filter isn't a sub-filter of the
-	 * last one, a full search is run.
+	 * last one, a full search is run. If indexed search is enabled
+	 * ({@link FilteredItemsSelectionDialog#isIndexedSearchEnabled()}), the
+	 * cache is searched with an index of item names and filtered in parallel.
 	 */
 	private class FilterJob extends Job {
 
@@ -2066,6 +2136,12 @@ public abstract class FilteredItemsSelectionDialog extends
 				throws CoreException {
 
 			if (lastCompletedFilter != null
+					&& lastCompletedFilter.isSubFilter(this.itemsFilter)
+					&& isIndexedSearchEnabled()) {
+
+				filterIndexed(monitor);
+
+			} else if (lastCompletedFilter != null
 					&& lastCompletedFilter.isSubFilter(this.itemsFilter)) {
 
 				int length = lastCompletedResult.size() / 500;
@@ -2090,6 +2166,9 @@ public abstract class FilteredItemsSelectionDialog extends
 
 				lastCompletedFilter = null;
 				lastCompletedResult = null;
+				lastCompletedIndex = null;
+				lastNarrowedFilter = null;
+				lastNarrowedResult = null;
 
 				SubProgressMonitor subMonitor = null;
 				if (monitor != null) {
@@ -2112,6 +2191,251 @@ public abstract class FilteredItemsSelectionDialog extends
 
 		}
 
+		/**
+		 * Filters the items of the last completed search whose names start
+		 * with the name prefix and contain the name segments of the filter, or
+		 * the items of the last narrowed search if there are fewer of them.
+		 * 
+		 * @param monitor
+		 *            for monitoring progress
+		 */
+		private void filterIndexed(GranualProgressMonitor monitor) {
+			if (lastCompletedIndex == null) {
+				Object[] items = lastCompletedResult.toArray();
+				String[] names = new String[items.length];
+				for (int i = 0; i < items.length; i++) {
+					names[i] = getElementName(items[i]);
+				}
+				lastCompletedIndex = new SearchPatternIndex(items, names);
+			}
+			Object[] candidates = lastCompletedIndex.getItems(
+					itemsFilter.getNamePrefix(), itemsFilter.getNameSegments());
+			if (lastNarrowedFilter != null
+					&& lastNarrowedFilter.isSubFilter(itemsFilter)
+					&& lastNarrowedResult.length < candidates.length) {
+				candidates = lastNarrowedResult;
+			}
+
+			Object[] result = new ParallelFilter(candidates, itemsFilter,
+					monitor).filter();
+
+			if (result != null) {
+				lastNarrowedFilter = itemsFilter;
+				lastNarrowedResult = result;
+			}
+		}
+
+	}
+
+	/**
+	 * Matches items in chunks on a pool of threads and adds the matches to the
+	 * content provider. The list is refreshed as soon as the first chunks have
+	 * enough matches to fill it, before the remaining chunks are done. As the
+	 * items of the index are sorted by name, these are usually the first
+	 * matches of the sorted list.
+	 */
+	private class ParallelFilter {
+
+		/**
+		 * The number of items matched at once by a thread.
+		 */
+		private static final int CHUNK_SIZE = 2048;
+
+		/**
+		 * The maximum number of threads that match items.
+		 */
+		private static final int MAX_THREADS = 4;
+
+		/**
+		 * The number of matches that are shown before all items have been
+		 * matched.
+		 */
+		private static final int FIRST_MATCHES = 100;
+
+		private final Object[] candidates;
+
+		private final ItemsFilter itemsFilter;
+
+		private final IProgressMonitor monitor;
+
+		/**
+		 * The matches of each chunk, <code>null</code> until it is done.
+		 */
+		private final List[] matches;
+
+		private final AtomicInteger nextChunk = new AtomicInteger();
+
+		private int firstPendingChunk;
+
+		private int firstMatchesCount;
+
+		private boolean firstMatchesShown;
+
+		private volatile boolean canceled;
+
+		private volatile RuntimeException failure;
+
+		/**
+		 * Creates new instance of ParallelFilter.
+		 * 
+		 * @param candidates
+		 *            the items to match
+		 * @param itemsFilter
+		 *            the filter to match them with
+		 * @param monitor
+		 *            for monitoring progress
+		 */
+		ParallelFilter(Object[] candidates, ItemsFilter itemsFilter,
+				IProgressMonitor monitor) {
+			this.candidates = candidates;
+			this.itemsFilter = itemsFilter;
+			this.monitor = monitor;
+			this.matches = new List[(candidates.length + CHUNK_SIZE - 1)
+					/ CHUNK_SIZE];
+		}
+
+		/**
+		 * Matches the items and adds the matches to the content provider.
+		 * 
+		 * @return the matches in the order of the items, or <code>null</code>
+		 *         if filtering was canceled
+		 */
+		Object[] filter() {
+			monitor.beginTask(
+					WorkbenchMessages.FilteredItemsSelectionDialog_cacheSearchJob_taskName,
+					matches.length);
+
+			Runnable worker = new Runnable() {
+				@Override
+				public void run() {
+					int chunk;
+					while (!canceled && failure == null
+							&& (chunk = nextChunk.getAndIncrement()) < matches.length) {
+						try {
+							filterChunk(chunk);
+						} catch (RuntimeException e) {
+							failure = e;
+						}
+					}
+				}
+			};
+			int threads = Math.min(Math.min(Runtime.getRuntime()
+					.availableProcessors(), MAX_THREADS), matches.length);
+			if (threads <= 1) {
+				worker.run();
+			} else {
+				runThreads(worker, threads);
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			if (canceled || monitor.isCanceled()) {
+				return null;
+			}
+
+			List result = new ArrayList();
+			for (int i = 0; i < matches.length; i++) {
+				result.addAll(matches[i]);
+			}
+			contentProvider.addMatchedItems(result, itemsFilter);
+			return result.toArray();
+		}
+
+		private void runThreads(Runnable worker, int threads) {
+			List futures = new ArrayList(threads);
+			ThreadPoolExecutor executor = getFilterExecutor();
+			try {
+				// the current thread is one of the workers
+				for (int i = 1; executor != null && i < threads; i++) {
+					futures.add(executor.submit(worker));
+				}
+			} catch (RejectedExecutionException e) {
+				// the dialog is being closed, match the remaining chunks here
+			}
+			worker.run();
+			try {
+				for (Iterator it = futures.iterator(); it.hasNext();) {
+					((Future) it.next()).get();
+				}
+			} catch (InterruptedException e) {
+				canceled = true;
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+
+		private void filterChunk(int chunk) {
+			int end = Math.min((chunk + 1) * CHUNK_SIZE, candidates.length);
+			List chunkMatches = new ArrayList();
+			for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+				if (itemsFilter.matchItem(candidates[i])) {
+					chunkMatches.add(candidates[i]);
+				}
+			}
+			if (monitor.isCanceled()) {
+				canceled = true;
+				return;
+			}
+			chunkDone(chunk, chunkMatches);
+		}
+
+		/**
+		 * Records the matches of the chunk and shows the first matches once
+		 * the chunks before it are done and have enough of them.
+		 */
+		private synchronized void chunkDone(int chunk, List chunkMatches) {
+			matches[chunk] = chunkMatches;
+			monitor.worked(1);
+			if (firstMatchesShown) {
+				return;
+			}
+			while (firstPendingChunk < matches.length
+					&& matches[firstPendingChunk] != null) {
+				firstMatchesCount += matches[firstPendingChunk++].size();
+			}
+			if (firstMatchesCount >= FIRST_MATCHES
+					&& firstPendingChunk < matches.length) {
+				firstMatchesShown = true;
+				List firstMatches = new ArrayList(firstMatchesCount);
+				for (int i = 0; i < firstPendingChunk; i++) {
+					firstMatches.addAll(matches[i]);
+				}
+				contentProvider.addMatchedItems(firstMatches, itemsFilter);
+				contentProvider.refresh();
+			}
+		}
+	}
+
+	/**
+	 * Returns the threads of indexed search, or <code>null</code> if the
+	 * dialog was closed, in which case the caller matches the items itself.
+	 */
+	private ThreadPoolExecutor getFilterExecutor() {
+		synchronized (filterExecutorLock) {
+			if (filterExecutor != null || filterExecutorClosed) {
+				return filterExecutor;
+			}
+			filterExecutor = new ThreadPoolExecutor(ParallelFilter.MAX_THREADS,
+					ParallelFilter.MAX_THREADS, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue(), new ThreadFactory() {
+						private int count;
+
+						@Override
+						public synchronized Thread newThread(Runnable r) {
+							Thread thread = new Thread(r,
+									"Filtered Items Filter-" + count++); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			filterExecutor.allowCoreThreadTimeOut(true);
+			return filterExecutor;
+		}
 	}
 
 	/**
@@ -2438,6 +2762,36 @@ public abstract class FilteredItemsSelectionDialog extends
 			return true;
 		}
 
+		/**
+		 * Returns the prefix that the names of all items matched by this
+		 * filter start with, ignoring case. It is used to look up the items to
+		 * match in the index of item names when
+		 * {@link FilteredItemsSelectionDialog#isIndexedSearchEnabled()} returns
+		 * <code>true</code>. The default implementation returns the prefix
+		 * that texts matched by the <code>SearchPattern</code> start with.
+		 * 
+		 * @return the prefix, or an empty string if the names of matched items
+		 *         may start with any character
+		 * @since 3.107
+		 */
+		public String getNamePrefix() {
+			return patternMatcher.getLiteralPrefix();
+		}
+
+		/**
+		 * Returns strings that the names of all items matched by this filter
+		 * contain, ignoring case. Like {@link #getNamePrefix()}, they are used
+		 * to look up the items to match in the index of item names. The
+		 * default implementation returns the strings that texts matched by
+		 * the <code>SearchPattern</code> contain.
+		 * 
+		 * @return the strings, may be empty
+		 * @since 3.107
+		 */
+		public String[] getNameSegments() {
+			return patternMatcher.getLiteralSegments();
+		}
+
 		/**
 		 * Matches an item against filter conditions.
 		 * 
@@ -2608,6 +2962,19 @@ public abstract class FilteredItemsSelectionDialog extends
 			}
 		}
 
+		/**
+		 * Adds items that have already been matched by the filter.
+		 * 
+		 * @param matchedItems
+		 * @param itemsFilter
+		 */
+		public void addMatchedItems(Collection matchedItems,
+				ItemsFilter itemsFilter) {
+			if (itemsFilter == filter) {
+				this.items.addAll(matchedItems);
+			}
+		}
+
 		/**
 		 * Add all history items to <code>contentProvider</code>.
 		 * 
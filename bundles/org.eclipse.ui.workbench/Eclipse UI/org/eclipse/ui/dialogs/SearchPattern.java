@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.jface.util.Util;
 import org.eclipse.ui.internal.misc.StringMatcher;
 
@@ -95,6 +97,23 @@ public class SearchPattern {
 
 	private StringMatcher stringMatcher;
 
+	/**
+	 * The characters of the pattern converted to lower case, for prefix
+	 * matching.
+	 */
+	private char[] lowerCasePattern;
+
+	/**
+	 * The parts of a camel case pattern that start with an uppercase
+	 * character or digit, or <code>null</code>.
+	 */
+	private String[] camelCaseSegments;
+
+	/**
+	 * The minimum length of texts matched by a camel case pattern.
+	 */
+	private int camelCaseLength;
+
 	private static final char END_SYMBOL = '<';
 
 	private static final char ANY_STRING = '*';
@@ -158,6 +177,39 @@ public class SearchPattern {
 		if (matchRule == RULE_PATTERN_MATCH) {
 			stringMatcher = new StringMatcher(this.stringPattern, true, false);
 		}
+		compilePattern();
+	}
+
+	/**
+	 * Computes what matching needs to know about the pattern once, instead of
+	 * for every matched text.
+	 */
+	private void compilePattern() {
+		int length = stringPattern.length();
+		lowerCasePattern = new char[length];
+		for (int i = 0; i < length; i++) {
+			lowerCasePattern[i] = Character.toLowerCase(stringPattern.charAt(i));
+		}
+		camelCaseSegments = null;
+		if (matchRule != RULE_CAMELCASE_MATCH) {
+			return;
+		}
+		camelCaseLength = length;
+		char last = stringPattern.charAt(length - 1);
+		if (last == END_SYMBOL || last == BLANK) {
+			camelCaseLength--;
+		}
+		List segments = new ArrayList();
+		int start = 0;
+		for (int i = 1; i <= camelCaseLength; i++) {
+			if (i == camelCaseLength
+					|| isPatternCharAllowed(stringPattern.charAt(i))) {
+				segments.add(stringPattern.substring(start, i));
+				start = i;
+			}
+		}
+		camelCaseSegments = (String[]) segments.toArray(new String[segments
+				.size()]);
 	}
 
 	/**
@@ -175,12 +227,78 @@ public class SearchPattern {
 		case RULE_EXACT_MATCH:
 			return stringPattern.equalsIgnoreCase(text);
 		case RULE_CAMELCASE_MATCH:
+			// every character of the pattern matches a character of the text
+			if (text.length() < camelCaseLength) {
+				return false;
+			}
 			if (camelCaseMatch(stringPattern, text)) {
 				return true;
 			}
 			//$FALL-THROUGH$
 			default:
-			return startsWithIgnoreCase(text, stringPattern);
+			return startsWithIgnoreCase(text);
+		}
+	}
+
+	/**
+	 * Returns the prefix that all texts matched by this pattern start with,
+	 * ignoring case. The prefix of a camel case pattern is its first character
+	 * and the prefix of a pattern with wildcards ends before the first
+	 * wildcard.
+	 * 
+	 * @return the prefix, or an empty string if texts may start with any
+	 *         character
+	 */
+	String getLiteralPrefix() {
+		switch (matchRule) {
+		case RULE_BLANK_MATCH:
+			return ""; //$NON-NLS-1$
+		case RULE_PATTERN_MATCH:
+			int length = 0;
+			while (length < stringPattern.length()) {
+				char c = stringPattern.charAt(length);
+				if (c == '*' || c == '?' || c == '\\')
+					break;
+				length++;
+			}
+			return stringPattern.substring(0, length);
+		case RULE_CAMELCASE_MATCH:
+			return stringPattern.substring(0, 1);
+		default:
+			return stringPattern;
+		}
+	}
+
+	/**
+	 * Returns strings that all texts matched by this pattern contain, ignoring
+	 * case. These are the parts between the wildcards of a pattern with
+	 * wildcards, the segments of a camel case pattern and the whole pattern
+	 * otherwise.
+	 * 
+	 * @return the strings, may be empty
+	 */
+	String[] getLiteralSegments() {
+		switch (matchRule) {
+		case RULE_BLANK_MATCH:
+			return new String[0];
+		case RULE_PATTERN_MATCH:
+			List segments = new ArrayList();
+			int start = 0;
+			for (int i = 0; i <= stringPattern.length(); i++) {
+				char c = i == stringPattern.length() ? '*' : stringPattern
+						.charAt(i);
+				if (c == '*' || c == '?' || c == '\\') {
+					if (i > start) {
+						segments.add(stringPattern.substring(start, i));
+					}
+					start = i + 1;
+				}
+			}
+			return (String[]) segments.toArray(new String[segments.size()]);
+		case RULE_CAMELCASE_MATCH:
+			return camelCaseSegments;
+		default:
+			return new String[] { stringPattern };
 		}
 	}
 
@@ -228,18 +346,16 @@ public class SearchPattern {
 
 	/**
 	 * @param text
-	 * @param prefix
-	 * @return true if text starts with given prefix, ignoring case false in
+	 * @return true if text starts with the pattern, ignoring case false in
 	 *         other way
 	 */
-	private boolean startsWithIgnoreCase(String text, String prefix) {
+	private boolean startsWithIgnoreCase(String text) {
 		int textLength = text.length();
-		int prefixLength = prefix.length();
+		int prefixLength = lowerCasePattern.length;
 		if (textLength < prefixLength)
 			return false;
 		for (int i = prefixLength - 1; i >= 0; i--) {
-			if (Character.toLowerCase(prefix.charAt(i)) != Character
-					.toLowerCase(text.charAt(i)))
+			if (lowerCasePattern[i] != Character.toLowerCase(text.charAt(i)))
 				return false;
 		}
 		return true;
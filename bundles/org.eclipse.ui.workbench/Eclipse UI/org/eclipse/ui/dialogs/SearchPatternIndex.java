@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.dialogs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of items by name that finds the items whose names match a
+ * {@link SearchPattern} without matching the pattern against every name.
+ * <p>
+ * The items are sorted by name, ignoring case, so the items whose names start
+ * with the prefix that a pattern requires form a contiguous range found by a
+ * binary search. Within that range, items are skipped by the trigrams
+ * (sequences of three characters) of their names: each name has a 64 bit
+ * signature with one bit set per trigram, and a name is only matched if its
+ * signature has the bits of all trigrams that the pattern requires. The
+ * signatures are computed the first time a pattern requires trigrams.
+ * </p>
+ * <p>
+ * Characters are compared after converting them to upper case and then to
+ * lower case, as <code>String.equalsIgnoreCase</code> and the wildcard
+ * matching of <code>SearchPattern</code> do, so characters such as the dotless
+ * i that only match others by their upper case are found. The index assumes that the names of matched items start with the
+ * prefix and contain the parts of the pattern that the default
+ * implementation of {@link SearchPattern#matches(String)} requires.
+ * </p>
+ * <p>
+ * This class is not intended to be subclassed by clients.
+ * </p>
+ *
+ * @since 3.107
+ */
+public final class SearchPatternIndex {
+
+	private static final class Entry implements Comparable {
+		final String name;
+		final Object item;
+
+		Entry(String name, Object item) {
+			this.name = name;
+			this.item = item;
+		}
+
+		@Override
+		public int compareTo(Object o) {
+			String other = ((Entry) o).name;
+			int length = Math.min(name.length(), other.length());
+			for (int i = 0; i < length; i++) {
+				int diff = fold(name.charAt(i)) - fold(other.charAt(i));
+				if (diff != 0) {
+					return diff;
+				}
+			}
+			return name.length() - other.length();
+		}
+	}
+
+	private final String[] names;
+
+	private final Object[] items;
+
+	private long[] signatures;
+
+	/**
+	 * Creates an index of the given items.
+	 *
+	 * @param items
+	 *            the items to index
+	 * @param names
+	 *            the names of the items, in the same order. A
+	 *            <code>null</code> name is indexed as an empty string.
+	 */
+	public SearchPatternIndex(Object[] items, String[] names) {
+		Entry[] entries = new Entry[items.length];
+		for (int i = 0; i < items.length; i++) {
+			entries[i] = new Entry(names[i] == null ? "" : names[i], items[i]); //$NON-NLS-1$
+		}
+		Arrays.sort(entries);
+		this.names = new String[entries.length];
+		this.items = new Object[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			this.names[i] = entries[i].name;
+			this.items[i] = entries[i].item;
+		}
+	}
+
+	/**
+	 * Returns the number of indexed items.
+	 *
+	 * @return the number of items
+	 */
+	public int size() {
+		return items.length;
+	}
+
+	/**
+	 * Returns the items whose names match the pattern, sorted by name.
+	 *
+	 * @param pattern
+	 *            the pattern
+	 * @return the matching items
+	 */
+	public Object[] getMatches(SearchPattern pattern) {
+		return collect(pattern.getLiteralPrefix(),
+				pattern.getLiteralSegments(), pattern);
+	}
+
+	/**
+	 * Returns the items whose names start with the prefix and may contain the
+	 * segments, ignoring case, sorted by name. All items whose names contain
+	 * the segments are returned, but some of the others may be returned as
+	 * well.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param segments
+	 *            the segments
+	 * @return the items
+	 */
+	Object[] getItems(String prefix, String[] segments) {
+		return collect(prefix, segments, null);
+	}
+
+	private Object[] collect(String prefix, String[] segments,
+			SearchPattern pattern) {
+		int start = 0;
+		int end = names.length;
+		if (prefix.length() > 0) {
+			start = search(prefix, false);
+			end = search(prefix, true);
+		}
+		long mask = 0;
+		for (int i = 0; i < segments.length; i++) {
+			mask |= signature(segments[i]);
+		}
+		if (mask == 0 && pattern == null) {
+			Object[] result = new Object[end - start];
+			System.arraycopy(items, start, result, 0, result.length);
+			return result;
+		}
+		long[] nameSignatures = mask == 0 ? null : getSignatures();
+		List result = new ArrayList();
+		for (int i = start; i < end; i++) {
+			if (nameSignatures != null && (nameSignatures[i] & mask) != mask) {
+				continue;
+			}
+			if (pattern != null && !pattern.matches(names[i])) {
+				continue;
+			}
+			result.add(items[i]);
+		}
+		return result.toArray();
+	}
+
+	private synchronized long[] getSignatures() {
+		if (signatures == null) {
+			long[] result = new long[names.length];
+			for (int i = 0; i < names.length; i++) {
+				result[i] = signature(names[i]);
+			}
+			signatures = result;
+		}
+		return signatures;
+	}
+
+	/**
+	 * Returns a signature with the bits of the trigrams of the text set.
+	 */
+	private static long signature(String text) {
+		long signature = 0;
+		int length = text.length();
+		if (length < 3) {
+			return signature;
+		}
+		int c1 = fold(text.charAt(0));
+		int c2 = fold(text.charAt(1));
+		for (int i = 2; i < length; i++) {
+			int c3 = fold(text.charAt(i));
+			int hash = ((c1 * 31 + c2) * 31 + c3) * 0x9E3779B9;
+			signature |= 1L << (hash >>> 26);
+			c1 = c2;
+			c2 = c3;
+		}
+		return signature;
+	}
+
+	/**
+	 * Returns the index of the first name that starts with the prefix, or, if
+	 * <code>after</code> is <code>true</code>, of the first name after them.
+	 */
+	private int search(String prefix, boolean after) {
+		int low = 0;
+		int high = names.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int result = comparePrefix(names[mid], prefix);
+			if (result < 0 || (after && result == 0)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares the start of the name with the prefix. Returns 0 if the name
+	 * starts with the prefix.
+	 */
+	private static int comparePrefix(String name, String prefix) {
+		int length = Math.min(name.length(), prefix.length());
+		for (int i = 0; i < length; i++) {
+			int diff = fold(name.charAt(i)) - fold(prefix.charAt(i));
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return name.length() < prefix.length() ? -1 : 0;
+	}
+
+	/**
+	 * Returns the character that the index compares instead of the given one.
+	 */
+	private static char fold(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+}
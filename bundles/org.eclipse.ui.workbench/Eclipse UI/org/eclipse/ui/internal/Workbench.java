@@ -1257,10 +1257,21 @@ public final class Workbench extends EventManager implements IWorkbench,
 	 * part of persist(false) during auto-save.
 	 */
 	private void persistWorkbenchModel() {
+		// skip the snapshot if the model has not changed since the last one
+		final Resource resource = ((EObject) application).eResource();
+		final boolean tracking = resource != null && resource.isTrackingModification();
+		if (tracking && !resource.isModified()) {
+			return;
+		}
+
 		final MApplication appCopy = (MApplication) EcoreUtil.copy((EObject) application);
 		if (detectWorkbenchCorruption(appCopy)) {
 			return;
 		}
+		// changes made from now on are not part of the snapshot
+		if (tracking) {
+			resource.setModified(false);
+		}
 		final IModelResourceHandler handler = e4Context.get(IModelResourceHandler.class);
 
 		Job cleanAndSaveJob = new Job("Workbench Auto-Save Background Job") { //$NON-NLS-1$
@@ -1268,13 +1279,19 @@ public final class Workbench extends EventManager implements IWorkbench,
 			protected IStatus run(IProgressMonitor monitor) {
 				final Resource res = handler.createResourceWithApp(appCopy);
 				cleanUpCopy(appCopy, e4Context);
+				boolean saved = false;
 				try {
 					if (!detectWorkbenchCorruption((MApplication) res.getContents().get(0))) {
 						res.save(null);
+						saved = true;
 					}
 				} catch (IOException e) {
 					// Just auto-save, we don't really care
 				} finally {
+					if (tracking && !saved) {
+						// the snapshot was not written, so the next one must not be skipped
+						markModified(resource);
+					}
 					res.unload();
 					res.getResourceSet().getResources().remove(res);
 				}
@@ -1287,6 +1304,18 @@ public final class Workbench extends EventManager implements IWorkbench,
 		cleanAndSaveJob.schedule();
 	}
 
+	private void markModified(final Resource resource) {
+		if (display == null || display.isDisposed()) {
+			return;
+		}
+		display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				resource.setModified(true);
+			}
+		});
+	}
+
 	private static void cleanUpCopy(MApplication appCopy, IEclipseContext context) {
 		// clean up all trim bars that come from trim bar contributions
 		// the trim elements that need to be removed are stored in the trimBar.
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.IDecorationContext;
+
+/**
+ * The DecorationResultCache holds the computed {@link DecorationResult}s of
+ * the {@link DecorationScheduler}, keyed by element and decoration context.
+ * The cache is bounded both by the number of entries it holds and by the age
+ * of those entries: the least recently used entry is dropped once the size
+ * limit is reached and entries older than the maximum age are treated as
+ * missing. All methods are thread safe.
+ *
+ * @since 3.107
+ */
+public class DecorationResultCache {
+
+	/**
+	 * The key of an entry: the element and the context it was decorated in.
+	 */
+	private static class Key {
+		final Object element;
+
+		final IDecorationContext context;
+
+		private final int hash;
+
+		Key(Object element, IDecorationContext context) {
+			this.element = element;
+			this.context = context;
+			this.hash = element.hashCode() * 31 + context.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return element.equals(other.element)
+					&& context.equals(other.context);
+		}
+	}
+
+	/**
+	 * A cached result and the time it was computed.
+	 */
+	private static class Entry {
+		final DecorationResult result;
+
+		final long timestamp;
+
+		Entry(DecorationResult result, long timestamp) {
+			this.result = result;
+			this.timestamp = timestamp;
+		}
+	}
+
+	private final int maxSize;
+
+	private final long maxAge;
+
+	private final Map entries;
+
+	/**
+	 * Create a new cache.
+	 *
+	 * @param maxSize
+	 *            the maximum number of results kept
+	 * @param maxAge
+	 *            the time in milliseconds after which a result is no longer
+	 *            returned
+	 */
+	public DecorationResultCache(final int maxSize, long maxAge) {
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+		this.entries = new LinkedHashMap(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Return the result for element in context or <code>null</code> if there
+	 * is none or it has expired.
+	 *
+	 * @param element
+	 * @param context
+	 * @return DecorationResult or <code>null</code>
+	 */
+	public synchronized DecorationResult get(Object element,
+			IDecorationContext context) {
+		Key key = new Key(element, context);
+		Entry entry = (Entry) entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (System.currentTimeMillis() - entry.timestamp > maxAge) {
+			entries.remove(key);
+			return null;
+		}
+		return entry.result;
+	}
+
+	/**
+	 * Cache the result for element in context.
+	 *
+	 * @param element
+	 * @param context
+	 * @param result
+	 */
+	public synchronized void put(Object element, IDecorationContext context,
+			DecorationResult result) {
+		entries.put(new Key(element, context), new Entry(result, System
+				.currentTimeMillis()));
+	}
+
+	/**
+	 * Remove all of the entries that are older than the maximum age.
+	 */
+	public synchronized void removeExpired() {
+		long oldest = System.currentTimeMillis() - maxAge;
+		// Iteration is in access order so stale entries are not necessarily
+		// at the front; check them all.
+		Iterator iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (((Entry) iterator.next()).timestamp < oldest) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all of the cached results.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the number of cached results.
+	 *
+	 * @return int
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return the maximum number of results kept.
+	 *
+	 * @return int
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+}
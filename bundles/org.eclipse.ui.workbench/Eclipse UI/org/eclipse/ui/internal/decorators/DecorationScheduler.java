@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,11 @@
  *******************************************************************************/
 package org.eclipse.ui.internal.decorators;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,7 +41,9 @@ import org.eclipse.ui.progress.WorkbenchJob;
 
 /**
  * The DecorationScheduler is the class that handles the decoration of elements
- * using a background thread.
+ * using a bounded pool of background jobs. Elements are queued at most once,
+ * results are kept in a cache that is bounded in size and age and label
+ * updates are sent to the listeners in batches.
  */
 public class DecorationScheduler {
 
@@ -49,10 +51,11 @@ public class DecorationScheduler {
 
 	// When decorations are computed they are added to this cache via
 	// decorated() method
-	Map resultCache = new HashMap();
+	DecorationResultCache resultCache = new DecorationResultCache(
+			MAX_CACHE_SIZE, MAX_CACHE_AGE);
 
 	// Objects that need an icon and text computed for display to the user
-	List awaitingDecoration = new ArrayList();
+	List awaitingDecoration = new LinkedList();
 
 	// Objects that are awaiting a label update.
 	Set pendingUpdate = new HashSet();
@@ -62,11 +65,17 @@ public class DecorationScheduler {
 
 	Map awaitingDecorationValues = new HashMap();
 
+	// Objects taken from awaitingDecoration whose decorations are being
+	// computed
+	Set decorating = new HashSet();
+
 	DecoratorManager decoratorManager;
 
 	boolean shutdown = false;
 
-	Job decorationJob;
+	// The jobs computing the decorations. All of them take their work from
+	// awaitingDecoration
+	Job[] decorationJobs;
 
 	UIJob updateJob;
 
@@ -81,6 +90,29 @@ public class DecorationScheduler {
 	/** Amount of time to delay the update notification when max reached. */
 	static final int UPDATE_DELAY = 100;
 
+	/**
+	 * The number of jobs computing decorations concurrently. Defaults to one,
+	 * as contributed lightweight decorators may not expect to be called from
+	 * several threads at once. Set the system property
+	 * <code>org.eclipse.ui.decorators.jobs</code> to use more.
+	 */
+	static final int DECORATION_JOB_COUNT = Math.max(1, Integer.getInteger(
+			"org.eclipse.ui.decorators.jobs", 1).intValue()); //$NON-NLS-1$
+
+	/** The maximum number of decoration results that are cached. */
+	static final int MAX_CACHE_SIZE = 20000;
+
+	/** Time in milliseconds after which a cached result is discarded. */
+	static final long MAX_CACHE_AGE = 60000;
+
+	/**
+	 * Number of computed decorations after which listeners are updated even
+	 * if there are more elements awaiting decoration. Must be well below
+	 * {@link #MAX_CACHE_SIZE} so that results are not discarded before the
+	 * labels are updated.
+	 */
+	static final int UPDATE_BATCH_SIZE = 1000;
+
 	/**
 	 * Return a new instance of the receiver configured for the supplied
 	 * DecoratorManager.
@@ -89,7 +121,7 @@ public class DecorationScheduler {
 	 */
 	DecorationScheduler(DecoratorManager manager) {
 		decoratorManager = manager;
-		createDecorationJob();
+		createDecorationJobs();
 	}
 
 	/**
@@ -156,7 +188,7 @@ public class DecorationScheduler {
 			if (shutdown) {
 				return;
 			}
-			decorationJob.schedule();
+			scheduleDecorationJobs();
 		}
 
 	}
@@ -219,21 +251,12 @@ public class DecorationScheduler {
 
 	private DecorationResult internalGetResult(Object element,
 			IDecorationContext context) {
-		Map results = (Map) resultCache.get(context);
-		if (results != null) {
-			return (DecorationResult) results.get(element);
-		}
-		return null;
+		return resultCache.get(element, context);
 	}
 
 	protected void internalPutResult(Object element,
 			IDecorationContext context, DecorationResult result) {
-		Map results = (Map) resultCache.get(context);
-		if (results == null) {
-			results = new HashMap();
-			resultCache.put(context, results);
-		}
-		results.put(element, result);
+		resultCache.put(element, context, result);
 	}
 
 	/**
@@ -273,157 +296,193 @@ public class DecorationScheduler {
 			return null;
 		}
 		Object element = awaitingDecoration.remove(0);
+		decorating.add(element);
 
 		return (DecorationReference) awaitingDecorationValues.remove(element);
 	}
 
 	/**
-	 * Create the Thread used for running decoration.
+	 * Discard the cached results after the labels have been updated. All of
+	 * them are only discarded if no element is awaiting decoration or being
+	 * decorated and no label update is pending, as the results of those have
+	 * not reached the labels yet. Otherwise only the expired results are.
 	 */
-	private void createDecorationJob() {
-		decorationJob = new Job(
-				WorkbenchMessages.DecorationScheduler_CalculationJobName) {
-			/*
-			 * (non-Javadoc)
-			 * 
-			 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
-			 */
-			@Override
-			public IStatus run(IProgressMonitor monitor) {
-
-				synchronized (DecorationScheduler.this) {
-					if (shutdown) {
-						return Status.CANCEL_STATUS;
-					}
-				}
+	synchronized void discardResults() {
+		if (awaitingDecoration.isEmpty() && decorating.isEmpty()
+				&& hasPendingUpdates()) {
+			resultCache.clear();
+		} else {
+			resultCache.removeExpired();
+		}
+	}
 
-				while (updatesPending()) {
+	/**
+	 * Schedule as many decoration jobs as there is work for.
+	 */
+	private void scheduleDecorationJobs() {
+		int count = Math.min(awaitingDecoration.size(), decorationJobs.length);
+		for (int i = 0; i < count; i++) {
+			decorationJobs[i].schedule();
+		}
+	}
 
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-						// Cancel and try again if there was an error
-						schedule();
-						return Status.CANCEL_STATUS;
-					}
-				}
+	/**
+	 * Create the jobs used for running decoration.
+	 */
+	private void createDecorationJobs() {
+		decorationJobs = new Job[DECORATION_JOB_COUNT];
+		for (int i = 0; i < decorationJobs.length; i++) {
+			decorationJobs[i] = new DecorationJob();
+			decorationJobs[i].setSystem(true);
+			decorationJobs[i].setPriority(Job.DECORATE);
+		}
+		decorationJobs[0].schedule();
+	}
 
-				monitor.beginTask(
-						WorkbenchMessages.DecorationScheduler_CalculatingTask,
-						100);
-				// will block if there are no resources to be decorated
-				DecorationReference reference;
-				monitor.worked(5);
-				int workCount = 5;
-				while ((reference = nextElement()) != null) {
-
-					// Count up to 90 to give the appearance of updating
-					if (workCount < 90) {
-						monitor.worked(1);
-						workCount++;
-					}
+	/**
+	 * A DecorationJob computes the decorations of the elements awaiting
+	 * decoration until there are none left. Several of them may run at the
+	 * same time; {@link DecorationScheduler#nextElement()} hands each element
+	 * to only one of them.
+	 */
+	private class DecorationJob extends Job {
 
-					monitor.subTask(reference.getSubTask());
-					Object element = reference.getElement();
-					boolean force = reference.shouldForceUpdate();
-					IDecorationContext[] contexts = reference.getContexts();
-					for (int i = 0; i < contexts.length; i++) {
-						IDecorationContext context = contexts[i];
-						ensureResultCached(element, force, context);
-					}
+		DecorationJob() {
+			super(WorkbenchMessages.DecorationScheduler_CalculationJobName);
+		}
 
-					// Only notify listeners when we have exhausted the
-					// queue of decoration requests.
-					synchronized (DecorationScheduler.this) {
-						if (awaitingDecoration.isEmpty()) {
-							decorated();
-						}
-					}
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		@Override
+		public IStatus run(IProgressMonitor monitor) {
+
+			synchronized (DecorationScheduler.this) {
+				if (shutdown) {
+					return Status.CANCEL_STATUS;
 				}
-				monitor.worked(100 - workCount);
-				monitor.done();
-				return Status.OK_STATUS;
 			}
 
-			/**
-			 * Ensure that a result is cached for the given element and context
-			 * 
-			 * @param element
-			 *            the elements
-			 * @param force
-			 *            whether an update should be forced
-			 * @param context
-			 *            the decoration context
-			 */
-			private void ensureResultCached(Object element, boolean force,
-					IDecorationContext context) {
-				boolean elementIsCached = internalGetResult(element, context) != null;
-				if (elementIsCached) {
-					synchronized (pendingKey) {
-						pendingUpdate.add(element);
-					}
+			while (updatesPending()) {
+
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					// Cancel and try again if there was an error
+					schedule();
+					return Status.CANCEL_STATUS;
+				}
+			}
 
+			monitor.beginTask(
+					WorkbenchMessages.DecorationScheduler_CalculatingTask, 100);
+			// will block if there are no resources to be decorated
+			DecorationReference reference;
+			monitor.worked(5);
+			int workCount = 5;
+			while ((reference = nextElement()) != null) {
+
+				// Count up to 90 to give the appearance of updating
+				if (workCount < 90) {
+					monitor.worked(1);
+					workCount++;
 				}
 
-				if (!elementIsCached) {
-					DecorationBuilder cacheResult = new DecorationBuilder(
-							context);
-					// Calculate the decoration
-					decoratorManager.getLightweightManager().getDecorations(
-							element, cacheResult);
-
-					// If we should update regardless then put a result
-					// anyways
-					if (cacheResult.hasValue() || force) {
-
-						// Synchronize on the result lock as we want to
-						// be sure that we do not try and decorate during
-						// label update servicing.
-						// Note: resultCache and pendingUpdate modifications
-						// must be done atomically.
-
-						// Add the decoration even if it's empty in
-						// order to indicate that the decoration is
-						// ready
-						internalPutResult(element, context, cacheResult
-								.createResult());
-
-						// Add an update for only the original element
-						// to
-						// prevent multiple updates and clear the cache.
-						synchronized (pendingKey) {
-							pendingUpdate.add(element);
-						}
-						
+				monitor.subTask(reference.getSubTask());
+				Object element = reference.getElement();
+				boolean force = reference.shouldForceUpdate();
+				IDecorationContext[] contexts = reference.getContexts();
+				for (int i = 0; i < contexts.length; i++) {
+					IDecorationContext context = contexts[i];
+					ensureResultCached(element, force, context);
+				}
 
+				// Notify listeners when we have exhausted the queue of
+				// decoration requests or when enough results have piled up
+				// that the labels should be updated in between.
+				synchronized (DecorationScheduler.this) {
+					decorating.remove(element);
+					if (awaitingDecoration.isEmpty()) {
+						decorated();
+					} else if (pendingUpdateCount() >= UPDATE_BATCH_SIZE
+							&& (updateJob == null || updateJob.getState() == Job.NONE)) {
+						decorated();
 					}
 				}
 			}
+			monitor.worked(100 - workCount);
+			monitor.done();
+			return Status.OK_STATUS;
+		}
+
+		/**
+		 * Ensure that a result is cached for the given element and context
+		 * 
+		 * @param element
+		 *            the elements
+		 * @param force
+		 *            whether an update should be forced
+		 * @param context
+		 *            the decoration context
+		 */
+		private void ensureResultCached(Object element, boolean force,
+				IDecorationContext context) {
+			boolean elementIsCached = internalGetResult(element, context) != null;
+			if (elementIsCached) {
+				synchronized (pendingKey) {
+					pendingUpdate.add(element);
+				}
 
-			/*
-			 * (non-Javadoc)
-			 * 
-			 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
-			 */
-			@Override
-			public boolean belongsTo(Object family) {
-				return DecoratorManager.FAMILY_DECORATE == family;
 			}
 
-			/*
-			 * (non-Javadoc)
-			 * 
-			 * @see org.eclipse.core.runtime.jobs.Job#shouldRun()
-			 */
-			@Override
-			public boolean shouldRun() {
-				return PlatformUI.isWorkbenchRunning();
+			if (!elementIsCached) {
+				DecorationBuilder cacheResult = new DecorationBuilder(context);
+				// Calculate the decoration
+				decoratorManager.getLightweightManager().getDecorations(
+						element, cacheResult);
+
+				// If we should update regardless then put a result
+				// anyways
+				if (cacheResult.hasValue() || force) {
+
+					// Add the decoration even if it's empty in
+					// order to indicate that the decoration is
+					// ready
+					internalPutResult(element, context, cacheResult
+							.createResult());
+
+					// Add an update for only the original element
+					// to
+					// prevent multiple updates and clear the cache.
+					synchronized (pendingKey) {
+						pendingUpdate.add(element);
+					}
+
+				}
 			}
-		};
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+		 */
+		@Override
+		public boolean belongsTo(Object family) {
+			return DecoratorManager.FAMILY_DECORATE == family;
+		}
 
-		decorationJob.setSystem(true);
-		decorationJob.setPriority(Job.DECORATE);
-		decorationJob.schedule();
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.eclipse.core.runtime.jobs.Job#shouldRun()
+		 */
+		@Override
+		public boolean shouldRun() {
+			return PlatformUI.isWorkbenchRunning();
+		}
 	}
 
 	/**
@@ -568,10 +627,7 @@ public class DecorationScheduler {
                 removedListeners.clear();
                 // Other decoration requests may have occurred due to
                 // updates or we may have timed out updating listeners.
-                // Only clear the results if there are none pending.
-                if (awaitingDecoration.isEmpty()) {
-                    resultCache.clear();
-                }
+                discardResults();
             }
             
 			private void setUpUpdates() {
@@ -722,4 +778,15 @@ public class DecorationScheduler {
 		}
 
 	}
+
+	/**
+	 * Return the number of elements awaiting a label update.
+	 * 
+	 * @return int
+	 */
+	int pendingUpdateCount() {
+		synchronized (pendingKey) {
+			return pendingUpdate.size();
+		}
+	}
 }
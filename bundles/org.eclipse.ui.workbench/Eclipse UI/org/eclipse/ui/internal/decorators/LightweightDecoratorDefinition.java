@@ -82,7 +82,7 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * The DeclarativeDecorator is the internal decorator supplied by the
 	 * decorator definition.
 	 */
-	private ILightweightLabelDecorator decorator;
+	private volatile ILightweightLabelDecorator decorator;
 
 	private int quadrant;
 
@@ -102,7 +102,7 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * 
 	 * @return Returns a ILabelDecorator
 	 */
-	protected ILightweightLabelDecorator internalGetDecorator()
+	protected synchronized ILightweightLabelDecorator internalGetDecorator()
 			throws CoreException {
 		if (labelProviderCreationFailed) {
 			return null;
@@ -251,8 +251,13 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 */
 	public void decorate(Object element, IDecoration decoration) {
 		try {
-			// Internal decorator might be null so be prepared
-			ILightweightLabelDecorator currentDecorator = internalGetDecorator();
+			// Internal decorator might be null so be prepared. Avoid the
+			// lock once it has been created as several decoration jobs
+			// call this concurrently.
+			ILightweightLabelDecorator currentDecorator = decorator;
+			if (currentDecorator == null) {
+				currentDecorator = internalGetDecorator();
+			}
 			if(currentDecorator == null) {
 				return;
 			}
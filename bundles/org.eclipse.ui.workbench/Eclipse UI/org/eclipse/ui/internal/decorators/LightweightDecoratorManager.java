@@ -36,7 +36,8 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * The runnable is the object used to run the decorations so that an error
 	 * in someones decorator will not kill the thread. It is implemented here to
 	 * prevent aborting of decoration i.e. successful decorations will still be
-	 * applied.
+	 * applied. Decorations are computed by several jobs at once so every
+	 * decoration uses its own runnable.
 	 */
 
 	private class LightweightRunnable implements ISafeRunnable {
@@ -96,8 +97,6 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		}
 	}
 
-	private LightweightRunnable runnable = new LightweightRunnable();
-
 	// The lightweight definitions read from the registry
 	private LightweightDecoratorDefinition[] lightweightDefinitions;
 
@@ -140,7 +139,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * @return whether the definition was added
 	 * @since 3.0
 	 */
-	public boolean addDecorator(LightweightDecoratorDefinition decorator) {
+	public synchronized boolean addDecorator(LightweightDecoratorDefinition decorator) {
 		if (getLightweightDecoratorDefinition(decorator.getId()) == null) {
 			LightweightDecoratorDefinition[] oldDefs = lightweightDefinitions;
 			lightweightDefinitions = new LightweightDecoratorDefinition[lightweightDefinitions.length + 1];
@@ -175,7 +174,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * @return whether the definition was removed
 	 * @since 3.1
 	 */
-	public boolean removeDecorator(LightweightDecoratorDefinition decorator) {
+	public synchronized boolean removeDecorator(LightweightDecoratorDefinition decorator) {
 		int idx = getLightweightDecoratorDefinitionIdx(decorator.getId());
 		if (idx != -1) {
 			LightweightDecoratorDefinition[] oldDefs = lightweightDefinitions;
@@ -266,7 +265,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * Reset any cached values.
 	 */
 	void reset() {
-		runnable.clearReferences();
+		// Nothing is cached between decorations
 	}
 
 	/**
@@ -301,9 +300,10 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	}
 
 	/**
-	 * Get the lightweight registered for elements of this type.
+	 * Get the lightweight registered for elements of this type. Synchronized
+	 * as the contributor lookup caches are shared by the decoration jobs.
 	 */
-	LightweightDecoratorDefinition[] getDecoratorsFor(Object element) {
+	synchronized LightweightDecoratorDefinition[] getDecoratorsFor(Object element) {
 
 		if (element == null) {
 			return EMPTY_LIGHTWEIGHT_DEF;
@@ -363,6 +363,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	private void decorate(Object element, DecorationBuilder decoration,
 			LightweightDecoratorDefinition decorator) {
 
+		LightweightRunnable runnable = new LightweightRunnable();
 		runnable.setValues(element, decoration, decorator);
 		SafeRunner.run(runnable);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2012 IBM Corporation and others.
+ * Copyright (c) 2003, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ package org.eclipse.ui.internal.progress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.Job;
@@ -42,6 +43,12 @@ public class JobInfo extends JobTreeElement {
     //Default to no progress
     private int ticks = -1;
 
+    /**
+     * Whether a refresh of the receiver is queued in the
+     * {@link ProgressPublisher}.
+     */
+    final AtomicBoolean refreshPending = new AtomicBoolean();
+
     /**
      * Create a top level JobInfo.
      * 
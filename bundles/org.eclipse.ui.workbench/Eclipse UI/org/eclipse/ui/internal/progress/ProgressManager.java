@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2013 IBM Corporation and others.
+ * Copyright (c) 2003, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,11 +23,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IProgressMonitorWithBlocking;
 import org.eclipse.core.runtime.IStatus;
@@ -92,10 +94,25 @@ public class ProgressManager extends ProgressProvider implements
 
 	private static ProgressManager singleton;
 
-	final private Map jobs = Collections.synchronizedMap(new HashMap());
+	/*
+	 * Maps jobs to their JobInfos. A null job is never kept since the map
+	 * does not allow null keys.
+	 */
+	final private ConcurrentMap jobs = new ConcurrentHashMap();
+
+	/*
+	 * Maps families to their IJobBusyListeners. Updates synchronize on the
+	 * map; the listener sets are copied on write so that they can be read
+	 * without locking. The null family is kept as NULL_FAMILY.
+	 */
+	final private Map familyListeners = new ConcurrentHashMap();
 
-	final private Map familyListeners = Collections
-			.synchronizedMap(new HashMap());
+	private static final Object NULL_FAMILY = new Object();
+
+	/*
+	 * Coalesces the progress reported by the monitors of running jobs.
+	 */
+	private final ProgressPublisher publisher = new ProgressPublisher(this);
 
 	//	list of IJobProgressManagerListener
 	private ListenerList listeners = new ListenerList();
@@ -127,7 +144,7 @@ public class ProgressManager extends ProgressProvider implements
 	 */
 	public static final String BLOCKED_JOB_KEY = "LOCKED_JOB"; //$NON-NLS-1$
 
-	final Map runnableMonitors = Collections.synchronizedMap(new HashMap());
+	final ConcurrentMap runnableMonitors = new ConcurrentHashMap();
 
 	// A table that maps families to keys in the Jface image
 	// table
@@ -227,7 +244,9 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			info.clearTaskInfo();
 			info.clearChildren();
-			runnableMonitors.remove(job);
+			if (job != null) {
+				runnableMonitors.remove(job);
+			}
 			if (listener != null) {
 				listener.done();
 			}
@@ -243,7 +262,7 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			if (info.hasTaskInfo()) {
 				info.addWork(work);
-				refreshJobInfo(info);
+				publisher.refreshLater(info);
 			}
 			if (listener != null) {
 				listener.internalWorked(work);
@@ -298,7 +317,7 @@ public class ProgressManager extends ProgressProvider implements
 				return;
 			}
 			info.clearChildren();
-			refreshJobInfo(info);
+			publisher.refreshLater(info);
 			currentTaskName = taskName;
 			if (listener != null) {
 				listener.setTaskName(taskName);
@@ -318,7 +337,7 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			info.clearChildren();
 			info.addSubTask(name);
-			refreshJobInfo(info);
+			publisher.refreshLater(info);
 			if (listener != null) {
 				listener.subTask(name);
 			}
@@ -657,17 +676,19 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return IProgressMonitor
 	 */
 	public JobMonitor progressFor(Job job) {
-
-		synchronized (runnableMonitors) {
-			JobMonitor monitor = (JobMonitor) runnableMonitors.get(job);
-			if (monitor == null) {
-				monitor = new JobMonitor(job);
-				runnableMonitors.put(job, monitor);
+		if (job == null) {
+			return new JobMonitor(job);
+		}
+		JobMonitor monitor = (JobMonitor) runnableMonitors.get(job);
+		if (monitor == null) {
+			monitor = new JobMonitor(job);
+			JobMonitor existing = (JobMonitor) runnableMonitors.putIfAbsent(
+					job, monitor);
+			if (existing != null) {
+				monitor = existing;
 			}
-			
-			return monitor;
 		}
-
+		return monitor;
 	}
 
 	/**
@@ -699,7 +720,13 @@ public class ProgressManager extends ProgressProvider implements
 		JobInfo info = internalGetJobInfo(job);
 		if (info == null) {
 			info = new JobInfo(job);
-			jobs.put(job, info);
+			if (job == null) {
+				return info;
+			}
+			JobInfo existing = (JobInfo) jobs.putIfAbsent(job, info);
+			if (existing != null) {
+				info = existing;
+			}
 		}
 		return info;
 	}
@@ -712,6 +739,9 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return JobInfo
 	 */
 	JobInfo internalGetJobInfo(Job job) {
+		if (job == null) {
+			return null;
+		}
 		return (JobInfo) jobs.get(job);
 	}
 
@@ -771,8 +801,10 @@ public class ProgressManager extends ProgressProvider implements
 	public void removeJobInfo(JobInfo info) {
 
 		Job job = info.getJob();
-		jobs.remove(job);
-		runnableMonitors.remove(job);
+		if (job != null) {
+			jobs.remove(job);
+			runnableMonitors.remove(job);
+		}
 
 		Object[] listenersArray = listeners.getListeners();
 		for (int i = 0; i < listenersArray.length; i++) {
@@ -808,7 +840,9 @@ public class ProgressManager extends ProgressProvider implements
 			refreshGroup(group);
 		}
 
-		jobs.put(info.getJob(), info);
+		if (info.getJob() != null) {
+			jobs.put(info.getJob(), info);
+		}
 		Object[] listenersArray = listeners.getListeners();
 		for (int i = 0; i < listenersArray.length; i++) {
 			IJobProgressManagerListener listener = (IJobProgressManagerListener) listenersArray[i];
@@ -867,19 +901,17 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return JobInfo[]
 	 */
 	public JobInfo[] getJobInfos(boolean debug) {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			Collection result = new ArrayList();
-			while (iterator.hasNext()) {
-				Job next = (Job) iterator.next();
-				if (!isCurrentDisplaying(next, debug)) {
-					result.add(jobs.get(next));
-				}
+		Iterator iterator = jobs.values().iterator();
+		Collection result = new ArrayList();
+		while (iterator.hasNext()) {
+			JobInfo next = (JobInfo) iterator.next();
+			if (!isCurrentDisplaying(next.getJob(), debug)) {
+				result.add(next);
 			}
-			JobInfo[] infos = new JobInfo[result.size()];
-			result.toArray(infos);
-			return infos;
 		}
+		JobInfo[] infos = new JobInfo[result.size()];
+		result.toArray(infos);
+		return infos;
 	}
 
 	/**
@@ -889,25 +921,22 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return JobTreeElement[]
 	 */
 	public JobTreeElement[] getRootElements(boolean debug) {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			Collection result = new HashSet();
-			while (iterator.hasNext()) {
-				Job next = (Job) iterator.next();
-				if (!isCurrentDisplaying(next, debug)) {
-					JobInfo jobInfo = (JobInfo) jobs.get(next);
-					GroupInfo group = jobInfo.getGroupInfo();
-					if (group == null) {
-						result.add(jobInfo);
-					} else {
-						result.add(group);
-					}
+		Iterator iterator = jobs.values().iterator();
+		Collection result = new HashSet();
+		while (iterator.hasNext()) {
+			JobInfo jobInfo = (JobInfo) iterator.next();
+			if (!isCurrentDisplaying(jobInfo.getJob(), debug)) {
+				GroupInfo group = jobInfo.getGroupInfo();
+				if (group == null) {
+					result.add(jobInfo);
+				} else {
+					result.add(group);
 				}
 			}
-			JobTreeElement[] infos = new JobTreeElement[result.size()];
-			result.toArray(infos);
-			return infos;
 		}
+		JobTreeElement[] infos = new JobTreeElement[result.size()];
+		result.toArray(infos);
+		return infos;
 	}
 
 	/**
@@ -916,13 +945,7 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return boolean
 	 */
 	public boolean hasJobInfos() {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			while (iterator.hasNext()) {
-				return true;
-			}
-			return false;
-		}
+		return !jobs.isEmpty();
 	}
 
 	/**
@@ -1053,6 +1076,7 @@ public class ProgressManager extends ProgressProvider implements
 	 */
 	private void shutdown() {
 		listeners.clear();
+		publisher.shutdown();
 		Job.getJobManager().setProgressProvider(null);
 		Job.getJobManager().removeJobChangeListener(this.changeListener);
 	}
@@ -1094,11 +1118,12 @@ public class ProgressManager extends ProgressProvider implements
 	 * @param listener
 	 */
 	void addListenerToFamily(Object family, IJobBusyListener listener) {
+		Object key = family == null ? NULL_FAMILY : family;
 		synchronized (familyListeners) {
-			Collection currentListeners = (Collection) familyListeners.get(family);
+			Collection currentListeners = (Collection) familyListeners.get(key);
 			if (currentListeners == null) {
-				currentListeners = new HashSet();
-				familyListeners.put(family, currentListeners);
+				currentListeners = new CopyOnWriteArraySet();
+				familyListeners.put(key, currentListeners);
 			}
 			currentListeners.add(listener);
 		}
@@ -1136,24 +1161,20 @@ public class ProgressManager extends ProgressProvider implements
 		if (job.isSystem()) {
 			return Collections.EMPTY_LIST;
 		}
-		synchronized (familyListeners) {
-
-			if (familyListeners.isEmpty()) {
-				return Collections.EMPTY_LIST;
-			}
+		if (familyListeners.isEmpty()) {
+			return Collections.EMPTY_LIST;
+		}
 
-			Iterator families = familyListeners.keySet().iterator();
-			Collection returnValue = new HashSet();
-			while (families.hasNext()) {
-				Object next = families.next();
-				if (job.belongsTo(next)) {
-					Collection currentListeners = (Collection) familyListeners
-							.get(next);
-					returnValue.addAll(currentListeners);
-				}
+		Iterator families = familyListeners.entrySet().iterator();
+		Collection returnValue = new HashSet();
+		while (families.hasNext()) {
+			Map.Entry next = (Map.Entry) families.next();
+			Object family = next.getKey();
+			if (job.belongsTo(family == NULL_FAMILY ? null : family)) {
+				returnValue.addAll((Collection) next.getValue());
 			}
-			return returnValue;
 		}
+		return returnValue;
 	}
 
 	/*
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.progress;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * The ProgressPublisher coalesces the progress reported by the monitors of
+ * running jobs. A job that reports progress is queued once, no matter how
+ * often it reports, and the queued jobs are refreshed in the
+ * {@link ProgressManager} listeners at most once per publish interval. The
+ * latest progress of a job is kept in its {@link JobInfo}, so a refresh always
+ * shows the current state.
+ * <p>
+ * Reporting progress does not take any locks.
+ * </p>
+ */
+class ProgressPublisher {
+
+	/**
+	 * The minimum number of milliseconds between two publications.
+	 */
+	static final int PUBLISH_INTERVAL = 100;
+
+	private final ProgressManager manager;
+
+	private final ConcurrentLinkedQueue pending = new ConcurrentLinkedQueue();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private final Job publishJob;
+
+	/**
+	 * Create a new instance of the receiver.
+	 *
+	 * @param manager
+	 *            the manager whose listeners are refreshed
+	 */
+	ProgressPublisher(ProgressManager manager) {
+		this.manager = manager;
+		publishJob = new Job(
+				ProgressMessages.ProgressContentProvider_UpdateProgressJob) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				publish();
+				return Status.OK_STATUS;
+			}
+		};
+		publishJob.setSystem(true);
+		publishJob.setPriority(Job.DECORATE);
+		publishJob.setProperty(ProgressManagerUtil.INFRASTRUCTURE_PROPERTY,
+				new Object());
+	}
+
+	/**
+	 * Queue a refresh of the info if it is not queued yet.
+	 *
+	 * @param info
+	 */
+	void refreshLater(JobInfo info) {
+		if (!info.refreshPending.compareAndSet(false, true)) {
+			return;
+		}
+		pending.add(info);
+		if (scheduled.compareAndSet(false, true)) {
+			publishJob.schedule(PUBLISH_INTERVAL);
+		}
+	}
+
+	/**
+	 * Refresh the queued infos of the jobs that are still being tracked.
+	 */
+	void publish() {
+		// progress reported from now on schedules the next publication
+		scheduled.set(false);
+		JobInfo info;
+		while ((info = (JobInfo) pending.poll()) != null) {
+			info.refreshPending.set(false);
+			if (manager.internalGetJobInfo(info.getJob()) == info) {
+				manager.refreshJobInfo(info);
+			}
+		}
+	}
+
+	/**
+	 * Drop the queued refreshes and stop publishing.
+	 */
+	void shutdown() {
+		publishJob.cancel();
+		pending.clear();
+	}
+}
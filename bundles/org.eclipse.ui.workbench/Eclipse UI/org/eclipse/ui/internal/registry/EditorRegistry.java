@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,10 +27,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.StringTokenizer;
 import org.eclipse.core.commands.common.EventManager;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -78,41 +80,83 @@ import org.eclipse.ui.internal.util.Util;
 public class EditorRegistry extends EventManager implements IEditorRegistry,
 		IExtensionChangeHandler {
 	
-	private final static IEditorDescriptor [] EMPTY = new IEditorDescriptor[0];
-	
-	class RelatedRegistry {
+	/**
+	 * Key of {@link RelatedEditors#editors}. The file name is reduced to the
+	 * mapping that applies to it, so all files with the same extension share
+	 * an entry.
+	 */
+	private static final class RelatedEditorsKey {
+		private final String mappingKey;
 
-		/**
-         * Return the objects related to the type.
-         * 
-         * @param type
-         * @return the objects related to the type
-		 */
-		public IEditorDescriptor[] getRelatedObjects(IContentType type) {			
-			IEditorDescriptor[] relatedObjects = (IEditorDescriptor[]) contentTypeToEditorMappings.get(type);
-			if (relatedObjects == null) {
-				return EMPTY;
+		private final IContentType contentType;
+
+		RelatedEditorsKey(String mappingKey, IContentType contentType) {
+			this.mappingKey = mappingKey;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RelatedEditorsKey)) {
+				return false;
 			}
-			return (IEditorDescriptor[]) WorkbenchActivityHelper.restrictArray(relatedObjects);
+			RelatedEditorsKey other = (RelatedEditorsKey) obj;
+			return Util.equals(mappingKey, other.mappingKey)
+					&& Util.equals(contentType, other.contentType);
+		}
+
+		@Override
+		public int hashCode() {
+			return Util.hashCode(mappingKey) * 31 + Util.hashCode(contentType);
 		}
+	}
+
+	/**
+	 * An immutable snapshot of the editors related to file names and content
+	 * types. It is never changed once published in
+	 * {@link EditorRegistry#relatedEditors}; adding an entry publishes a copy.
+	 */
+	private static final class RelatedEditors {
+		/**
+		 * The keys of all file editor mappings when the snapshot was taken.
+		 */
+		final Set mappingKeys;
 
 		/**
-         * Return the objects related to the filename
-         * @param fileName
-         * @return the objects related to the filename
+		 * The editors related to a file name and content type, in order and
+		 * before activity filtering, keyed by {@link RelatedEditorsKey}.
 		 */
-		public IEditorDescriptor[] getRelatedObjects(String fileName) {
-			IFileEditorMapping mapping = getMappingFor(fileName);
-			if (mapping == null) {
-				return EMPTY;
-			}
-			
-			return (IEditorDescriptor[]) WorkbenchActivityHelper.restrictArray(mapping.getEditors());
+		final Map editors;
+
+		RelatedEditors(Set mappingKeys, Map editors) {
+			this.mappingKeys = mappingKeys;
+			this.editors = editors;
 		}
-		
 	}
-	
+
 	private Map contentTypeToEditorMappings = new HashMap();
+
+	/**
+	 * The related editors computed so far, or <code>null</code> if none have
+	 * been computed since the mappings last changed. Lookups read the snapshot
+	 * without locking. Entries are computed on the first lookup from the user
+	 * and plug-in mappings and the content type bindings, while synchronized
+	 * on the registry like every change to these, and the snapshot is
+	 * discarded whenever they change.
+	 */
+	private volatile RelatedEditors relatedEditors;
+
+	/**
+	 * Whether the editors and associations have been read, see
+	 * {@link #ensureLoaded()}.
+	 */
+	private volatile boolean loaded;
+
+	/**
+	 * Whether the editors and associations are being read by the thread that
+	 * holds the lock of the registry.
+	 */
+	private boolean loading;
 	
     /*
      * Cached images - these include images from registered editors (via
@@ -136,7 +180,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
     private Map mapIDtoEditor = initialIdToEditorMap(10);
 
     // Map of FileEditorMapping (extension to FileEditorMapping)
-    private EditorMap typeEditorMappings;
+    private EditorMap typeEditorMappings = new EditorMap();
 
     /*
      * Compares the labels from two IEditorDescriptor objects
@@ -152,20 +196,42 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 		}
 	};
 
-	private RelatedRegistry relatedRegistry;
-
 	public static final String EMPTY_EDITOR_ID = "org.eclipse.ui.internal.emptyEditorTab"; //$NON-NLS-1$
 
     /**
-     * Return an instance of the receiver. Adds listeners into the extension
-     * registry for dynamic UI purposes.
+     * Return an instance of the receiver. The editors and associations are
+     * read when the registry is first used.
      */
     public EditorRegistry() {
         super();
-        initializeFromStorage();
-        IExtensionTracker tracker = PlatformUI.getWorkbench().getExtensionTracker();
-        tracker.registerHandler(this, ExtensionTracker.createExtensionPointFilter(getExtensionPointFilter()));
-		relatedRegistry = new RelatedRegistry();
+    }
+
+    /**
+     * Reads the editors from the plug-in declarations and the persisted
+     * associations and adds listeners into the extension registry for dynamic
+     * UI purposes, unless this has been done already. Every method that uses
+     * the editors or associations calls this first.
+     */
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        // reading the associations calls back into the registry
+        if (loaded || loading) {
+            return;
+        }
+        loading = true;
+        try {
+            initializeFromStorage();
+            IExtensionTracker tracker = PlatformUI.getWorkbench().getExtensionTracker();
+            tracker.registerHandler(this, ExtensionTracker.createExtensionPointFilter(getExtensionPointFilter()));
+        } finally {
+            loading = false;
+            loaded = true;
+        }
     }
 
     /**
@@ -193,6 +259,12 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
     	PlatformUI.getWorkbench().getExtensionTracker().registerObject(
 				editor.getConfigurationElement().getDeclaringExtension(),
 				editor, IExtensionTracker.REF_WEAK);
+    	addEditorMappings(editor, extensions, filenames, contentTypeVector, bDefault);
+    }
+
+    private synchronized void addEditorMappings(EditorDescriptor editor,
+            List extensions, List filenames, List contentTypeVector,
+            boolean bDefault) {
         // record it in our quick reference list
         sortedEditorsFromPlugins.add(editor);
 
@@ -274,6 +346,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 
         // Update editor map.
         mapIDtoEditor.put(editor.getId(), editor);
+        clearRelatedEditorsCache();
     }
 
     /**
@@ -307,6 +380,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      */
     @Override
 	public IEditorDescriptor findEditor(String id) {
+        ensureLoaded();
         Object desc = mapIDtoEditor.get(id);
         if (WorkbenchActivityHelper.restrictUseOf(desc)) {
         	return null;
@@ -400,6 +474,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      */
     @Override
 	public IFileEditorMapping[] getFileEditorMappings() {
+        ensureLoaded();
         FileEditorMapping[] array = typeEditorMappings.allMappings();
         final Collator collator = Collator.getInstance();
         Arrays.sort(array, new Comparator() {
@@ -519,6 +594,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * @see #comparer
      */
     public IEditorDescriptor[] getSortedEditorsFromPlugins() {
+        ensureLoaded();
 		Collection descs = WorkbenchActivityHelper
 				.restrictCollection(sortedEditorsFromPlugins, new ArrayList());
 		return (IEditorDescriptor[]) descs.toArray(new IEditorDescriptor[descs
@@ -754,8 +830,9 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * 
      * @throws WorkbenchException
      */
-    public void readResources(Map editorTable, Reader reader)
+    public synchronized void readResources(Map editorTable, Reader reader)
             throws WorkbenchException {
+        ensureLoaded();
         XMLMemento memento = XMLMemento.createReadRoot(reader);
         String versionString = memento.getString(IWorkbenchConstants.TAG_VERSION);
         boolean versionIs31 = "3.1".equals(versionString); //$NON-NLS-1$
@@ -858,6 +935,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
             mapping.setDefaultEditors(defaultEditors);
             typeEditorMappings.put(mappingKeyFor(mapping), mapping);
         }
+        clearRelatedEditorsCache();
     }
 
     /**
@@ -1012,6 +1090,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * associations.
      */
     public void saveAssociations() {
+        ensureLoaded();
         //Save the resource type descriptions
         List editors = new ArrayList();
         IPreferenceStore store = WorkbenchPlugin.getDefault()
@@ -1120,13 +1199,17 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      *            te new file editor mappings.
      */
     public void setFileEditorMappings(FileEditorMapping[] newResourceTypes) {
-        typeEditorMappings = new EditorMap();
-        for (int i = 0; i < newResourceTypes.length; i++) {
-            FileEditorMapping mapping = newResourceTypes[i];
-            typeEditorMappings.put(mappingKeyFor(mapping), mapping);
+        ensureLoaded();
+        synchronized (this) {
+            typeEditorMappings = new EditorMap();
+            for (int i = 0; i < newResourceTypes.length; i++) {
+                FileEditorMapping mapping = newResourceTypes[i];
+                typeEditorMappings.put(mappingKeyFor(mapping), mapping);
+            }
+            extensionImages = new HashMap();
+            clearRelatedEditorsCache();
+            rebuildEditorMap();
         }
-        extensionImages = new HashMap();
-        rebuildEditorMap();
         firePropertyChange(PROP_CONTENTS);
     }
 
@@ -1134,7 +1217,8 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * (non-Javadoc) Method declared on IEditorRegistry.
      */
     @Override
-	public void setDefaultEditor(String fileName, String editorId) {
+	public synchronized void setDefaultEditor(String fileName, String editorId) {
+        ensureLoaded();
         EditorDescriptor desc = (EditorDescriptor) findEditor(editorId);
         FileEditorMapping[] mapping = getMappingForFilename(fileName);
         if (mapping[0] != null) {
@@ -1143,6 +1227,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
         if (mapping[1] != null) {
 			mapping[1].setDefaultEditor(desc);
 		}
+        clearRelatedEditorsCache();
     }
 
     /**
@@ -1247,6 +1332,17 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
             FileEditorMapping result[] = new FileEditorMapping[values.size()];
             return (FileEditorMapping[]) values.toArray(result);
         }
+
+        /**
+         * Return the keys of all mappings.
+         * 
+         * @return the keys
+         */
+        public Set keys() {
+            Set keys = new HashSet(defaultMap.keySet());
+            keys.addAll(map.keySet());
+            return keys;
+        }
     }
 
     /*
@@ -1330,7 +1426,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * @see org.eclipse.core.runtime.dynamicHelpers.IExtensionChangeHandler#removeExtension(org.eclipse.core.runtime.IExtension, java.lang.Object[])
      */
     @Override
-	public void removeExtension(IExtension source, Object[] objects) {
+	public synchronized void removeExtension(IExtension source, Object[] objects) {
         for (int i = 0; i < objects.length; i++) {
             if (objects[i] instanceof EditorDescriptor) {
                 EditorDescriptor desc = (EditorDescriptor) objects[i];
@@ -1343,6 +1439,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
             }
 
         }
+        clearRelatedEditorsCache();
     }
 
     /**
@@ -1433,7 +1530,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 	private IEditorDescriptor getEditorForContentType(String filename,
 			IContentType contentType) {
 		IEditorDescriptor desc = null;
-		Object[] contentTypeResults = findRelatedObjects(contentType, filename, relatedRegistry);
+		Object[] contentTypeResults = findRelatedObjects(contentType, filename);
 		if (contentTypeResults != null && contentTypeResults.length > 0) {
 			desc = (IEditorDescriptor) contentTypeResults[0];
 		}
@@ -1445,7 +1542,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 	 */
 	@Override
 	public IEditorDescriptor[] getEditors(String fileName, IContentType contentType) {
-		return findRelatedObjects(contentType, fileName, relatedRegistry);
+		return findRelatedObjects(contentType, fileName);
 	}
 
 	/* (non-Javadoc)
@@ -1456,6 +1553,7 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
         if (filename == null) {
 			return getDefaultImage();
 		}
+        ensureLoaded();
 
 		if (contentType != null) {
 			IEditorDescriptor desc = getEditorForContentType(filename, contentType);
@@ -1516,34 +1614,107 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 	 * 
 	 * @param type
 	 * @param fileName
-	 * @param registry
 	 * @return the related objects
 	 */
-	private IEditorDescriptor [] findRelatedObjects(IContentType type, String fileName,
-			RelatedRegistry registry) {
+	private IEditorDescriptor [] findRelatedObjects(IContentType type, String fileName) {
+		ensureLoaded();
+		RelatedEditors snapshot = relatedEditors;
+		IEditorDescriptor[] related = null;
+		if (snapshot != null) {
+			related = (IEditorDescriptor[]) snapshot.editors.get(relatedEditorsKeyFor(
+					snapshot, fileName, type));
+		}
+		if (related == null) {
+			related = addRelatedEditors(fileName, type);
+		}
+
+		// activities may change at any time, so they are applied on each lookup
+		List allRelated = new ArrayList(related.length);
+		for (int i = 0; i < related.length; i++) {
+			if (!WorkbenchActivityHelper.restrictUseOf(related[i])
+					&& !WorkbenchActivityHelper.filterItem(related[i])) {
+				allRelated.add(related[i]);
+			}
+		}
+		return (IEditorDescriptor []) allRelated.toArray(new IEditorDescriptor [allRelated
+				.size()]);
+	}
+
+	/**
+	 * Computes the editors related to a file name and content type and
+	 * publishes a snapshot of the related editors that contains them, unless
+	 * another thread has done so already.
+	 * 
+	 * @param fileName the file name, may be <code>null</code>
+	 * @param type the content type, may be <code>null</code>
+	 * @return the related editors
+	 */
+	private synchronized IEditorDescriptor[] addRelatedEditors(String fileName,
+			IContentType type) {
+		RelatedEditors snapshot = relatedEditors;
+		if (snapshot == null) {
+			snapshot = new RelatedEditors(typeEditorMappings.keys(), Collections.EMPTY_MAP);
+		}
+		RelatedEditorsKey key = relatedEditorsKeyFor(snapshot, fileName, type);
+		IEditorDescriptor[] related = (IEditorDescriptor[]) snapshot.editors.get(key);
+		if (related == null) {
+			related = computeRelatedObjects(type, fileName);
+			Map editors = new HashMap(snapshot.editors);
+			editors.put(key, related);
+			relatedEditors = new RelatedEditors(snapshot.mappingKeys, editors);
+		}
+		return related;
+	}
+
+	/**
+	 * Returns the key of the editors related to the given file name and
+	 * content type in the snapshot.
+	 * 
+	 * @param snapshot the related editors
+	 * @param fileName the file name, may be <code>null</code>
+	 * @param type the content type, may be <code>null</code>
+	 * @return the key
+	 */
+	private RelatedEditorsKey relatedEditorsKeyFor(RelatedEditors snapshot,
+			String fileName, IContentType type) {
+		String mappingKey = null;
+		if (fileName != null) {
+			int index = fileName.lastIndexOf('.');
+			if (snapshot.mappingKeys.contains(mappingKeyFor(fileName))) {
+				mappingKey = '=' + mappingKeyFor(fileName);
+			} else if (index > -1
+					&& snapshot.mappingKeys.contains(mappingKeyFor("*" + fileName.substring(index)))) { //$NON-NLS-1$
+				mappingKey = '*' + mappingKeyFor(fileName.substring(index));
+			}
+		}
+		return new RelatedEditorsKey(mappingKey, type);
+	}
+
+	/**
+	 * Merges the editors related to a file name and content type, without
+	 * filtering them by activities. Editors declared as default for the file
+	 * name or extension come first, followed by the editors bound to the
+	 * content type and its base types, and the remaining editors of the file
+	 * name and extension.
+	 * 
+	 * @param type the content type, may be <code>null</code>
+	 * @param fileName the file name, may be <code>null</code>
+	 * @return the related editors
+	 */
+	private IEditorDescriptor [] computeRelatedObjects(IContentType type, String fileName) {
 		List allRelated = new ArrayList();
 		List nonDefaultFileEditors = new ArrayList();
-		IEditorDescriptor [] related;
 		
 		if (fileName != null) {
 			FileEditorMapping mapping = getMappingFor(fileName);
 			if (mapping != null) {
 				// backwards compatibility - add editors flagged as "default"
-				related = mapping.getDeclaredDefaultEditors();
-				for (int i = 0; i < related.length; i++) {
-					// we don't want to return duplicates
-					if (!allRelated.contains(related[i])) {
-						// if it's not filtered, add it to the list
-						if (!WorkbenchActivityHelper.filterItem(related[i])) {
-							allRelated.add(related[i]);
-						}
-					}
-				}
+				addRelated(allRelated, mapping.getUnfilteredDeclaredDefaultEditors());
 				
 				// add all filename editors to the nonDefaultList
 				// we'll later try to add them all after content types are resolved
 				// duplicates (ie: default editors) will be ignored
-				nonDefaultFileEditors.addAll(Arrays.asList(mapping.getEditors()));
+				nonDefaultFileEditors.addAll(Arrays.asList(mapping.getUnfilteredEditors()));
 			}
 			
 			int index = fileName.lastIndexOf('.');
@@ -1551,64 +1722,48 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
 				String extension = "*" + fileName.substring(index); //$NON-NLS-1$
 				mapping = getMappingFor(extension);
 				if (mapping != null) {
-					related = mapping.getDeclaredDefaultEditors();
-					for (int i = 0; i < related.length; i++) {
-						// we don't want to return duplicates
-						if (!allRelated.contains(related[i])) {
-							// if it's not filtered, add it to the list
-							if (!WorkbenchActivityHelper.filterItem(related[i])) {
-								allRelated.add(related[i]);
-							}
-						}
-					}
-					nonDefaultFileEditors.addAll(Arrays.asList(mapping.getEditors()));
+					addRelated(allRelated, mapping.getUnfilteredDeclaredDefaultEditors());
+					nonDefaultFileEditors.addAll(Arrays.asList(mapping.getUnfilteredEditors()));
 				}
 			}
 		}
 		
-		if (type != null) {
-			// now add any objects directly related to the content type
-			related = registry.getRelatedObjects(type);
-			for (int i = 0; i < related.length; i++) {
-				// we don't want to return duplicates
-				if (!allRelated.contains(related[i])) {
-					// if it's not filtered, add it to the list
-					if (!WorkbenchActivityHelper.filterItem(related[i])) {
-						allRelated.add(related[i]);
-					}
-				}
-			}
-
-		}
-
-		if (type != null) {
-			// now add any indirectly related objects, walking up the content type hierarchy 
-			while ((type = type.getBaseType()) != null) {
-				related = registry.getRelatedObjects(type);
-				for (int i = 0; i < related.length; i++) {
-					// we don't want to return duplicates
-					if (!allRelated.contains(related[i])) {
-						// if it's not filtered, add it to the list
-						if (!WorkbenchActivityHelper.filterItem(related[i])) {
-							allRelated.add(related[i]);
-						}
-					}
-				}
+		// now add any objects directly related to the content type and any
+		// indirectly related objects, walking up the content type hierarchy
+		for (; type != null; type = type.getBaseType()) {
+			IEditorDescriptor[] related = (IEditorDescriptor[]) contentTypeToEditorMappings.get(type);
+			if (related != null) {
+				addRelated(allRelated, related);
 			}
 		}
 			
 		// add all non-default editors to the list
-		for (Iterator i = nonDefaultFileEditors.iterator(); i.hasNext();) {
-			IEditorDescriptor editor = (IEditorDescriptor) i.next();
-			if (!allRelated.contains(editor) && !WorkbenchActivityHelper.filterItem(editor)) {
-				allRelated.add(editor);
-			}
-		}
+		addRelated(allRelated, (IEditorDescriptor[]) nonDefaultFileEditors
+				.toArray(new IEditorDescriptor[nonDefaultFileEditors.size()]));
 		
 		return (IEditorDescriptor []) allRelated.toArray(new IEditorDescriptor [allRelated
 				.size()]);
 	}
 
+	/**
+	 * Adds the editors that are not in the list yet.
+	 */
+	private static void addRelated(List allRelated, IEditorDescriptor[] related) {
+		for (int i = 0; i < related.length; i++) {
+			// we don't want to return duplicates
+			if (!allRelated.contains(related[i])) {
+				allRelated.add(related[i]);
+			}
+		}
+	}
+
+	/**
+	 * Discards the related editors after the mappings changed.
+	 */
+	private void clearRelatedEditorsCache() {
+		relatedEditors = null;
+	}
+
 	/**
 	 * Return the editors bound to this content type, either directly or indirectly.
 	 * 
@@ -1619,38 +1774,10 @@ public class EditorRegistry extends EventManager implements IEditorRegistry,
      * TODO: this should be rolled in with the above findRelatedObjects code
 	 */
 	public IEditorDescriptor [] getEditorsForContentType(IContentType type) {
-		ArrayList allRelated = new ArrayList();
 		if (type == null) {
 			return new IEditorDescriptor [0];
 		}
-		
-		Object [] related = relatedRegistry.getRelatedObjects(type);
-		for (int i = 0; i < related.length; i++) {	
-			// we don't want to return duplicates
-			if (!allRelated.contains(related[i])) {
-				// if it's not filtered, add it to the list
-				if (!WorkbenchActivityHelper.filterItem(related[i])) {
-					allRelated.add(related[i]);
-				}
-				
-			}
-		}
-		
-		// now add any indirectly related objects, walking up the content type hierarchy 
-		while ((type = type.getBaseType()) != null) {
-			related = relatedRegistry.getRelatedObjects(type);
-			for (int i = 0; i < related.length; i++) {
-				// we don't want to return duplicates
-				if (!allRelated.contains(related[i])) {
-					// if it's not filtered, add it to the list
-					if (!WorkbenchActivityHelper.filterItem(related[i])) {
-						allRelated.add(related[i]);
-					}
-				}
-			}
-		}
-		
-		return (IEditorDescriptor[]) allRelated.toArray(new IEditorDescriptor[allRelated.size()]);
+		return findRelatedObjects(type, null);
 	}
 	
 	/**
@@ -322,6 +322,15 @@ public class FileEditorMapping extends Object implements IFileEditorMapping,
 		return (IEditorDescriptor []) descs.toArray(new IEditorDescriptor[descs.size()]);
 	}
 	
+	/**
+	 * Returns the editors that have been declared as default, not filtered by
+	 * activities.
+	 */
+	IEditorDescriptor[] getUnfilteredDeclaredDefaultEditors() {
+		return (IEditorDescriptor[]) declaredDefaultEditors
+				.toArray(new IEditorDescriptor[declaredDefaultEditors.size()]);
+	}
+
 	/**
 	 * Return whether the editor is declared default.
 	 * If this is EditorDescriptor fails the ExpressionsCheck it will always
@@ -16,6 +16,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -383,6 +384,36 @@ public class BindingTableTests {
 		assertEquals(about, it.next());
 	}
 
+	@Test
+	public void testManagerLookupAfterBindingChanges() throws Exception {
+		BindingTableManager manager = createManager();
+		ContextSet javaSet = createJavaSet(manager);
+		KeySequence ctrl8 = KeySequence.getInstance("CTRL+8");
+		KeySequence ctrl8A = KeySequence.getInstance("CTRL+8 A");
+		assertNull(manager.getPerfectMatch(javaSet, ctrl8A));
+		assertFalse(manager.isPartialMatch(javaSet, ctrl8));
+
+		Binding about = getTestBinding(ABOUT_ID);
+		Binding aboutCtrl8 = new KeyBinding(ctrl8A,
+				about.getParameterizedCommand(),
+				"org.eclipse.ui.defaultAcceleratorConfiguration", ID_JAVA,
+				null, null, null, Binding.SYSTEM);
+		BindingTable javaTable = manager.getTable(ID_JAVA);
+		javaTable.addBinding(aboutCtrl8);
+		try {
+			assertEquals(aboutCtrl8, manager.getPerfectMatch(javaSet, ctrl8A));
+			assertTrue(manager.isPartialMatch(javaSet, ctrl8));
+			Collection<Binding> partialMatches = manager.getPartialMatches(
+					javaSet, ctrl8);
+			assertEquals(1, partialMatches.size());
+			assertEquals(aboutCtrl8, partialMatches.iterator().next());
+		} finally {
+			javaTable.removeBinding(aboutCtrl8);
+		}
+		assertNull(manager.getPerfectMatch(javaSet, ctrl8A));
+		assertEquals(0, manager.getPartialMatches(javaSet, ctrl8).size());
+	}
+
 	private BindingTable loadTable(String contextId) {
 		Context context = contextManager.getContext(contextId);
 		BindingTable table = new BindingTable(context);
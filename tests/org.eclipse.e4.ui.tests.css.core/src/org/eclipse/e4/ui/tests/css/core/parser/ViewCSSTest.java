@@ -14,8 +14,10 @@ package org.eclipse.e4.ui.tests.css.core.parser;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
@@ -108,6 +110,94 @@ public class ViewCSSTest {
 		assertEquals("color: blue;", buttonStyle.getCssText());
 	}
 
+	@Test
+	public void testClassIdAndDescendantSelectors() throws Exception {
+		String css = "Composite .warning { color: red; }\n"
+				+ ".error.warning { color: gray; }\n" + "#main { font-weight: bold; }\n"
+				+ ":selected { color: blue; }\n" + "* { background-color: white; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		final TestElement composite = new TestElement("Composite", engine);
+		final TestElement button = new TestElement("Button", composite, engine);
+		CSSStyleDeclaration buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(1, buttonStyle.getLength());
+
+		button.setClass("error  warning");
+		button.setId("main");
+		buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals(3, buttonStyle.getLength());
+		assertEquals("gray", buttonStyle.getPropertyCSSValue("color").getCssText());
+		assertEquals("bold", buttonStyle.getPropertyCSSValue("font-weight").getCssText());
+
+		button.setClass("warning");
+		buttonStyle = viewCSS.getComputedStyle(button, null);
+		assertEquals("red", buttonStyle.getPropertyCSSValue("color").getCssText());
+	}
+
+	@Test
+	public void testDeletedRule() throws Exception {
+		CSSStyleSheet styleSheet = ParserTestUtil.parseCss("Button { color: blue; }\n"
+				+ "Button { color: green; }\n");
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(styleSheet);
+		ViewCSS viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement button = new TestElement("Button", engine);
+		assertEquals("green", viewCSS.getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+		styleSheet.deleteRule(1);
+		assertEquals("blue", viewCSS.getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+	}
+
+	@Test
+	public void testRemovedStyleSheetIsReleased() throws Exception {
+		CSSStyleSheet styleSheet = ParserTestUtil.parseCss("Button { color: blue; }\n");
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(styleSheet);
+		ViewCSS viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement button = new TestElement("Button", engine);
+		assertEquals("blue", viewCSS.getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+
+		WeakReference<CSSStyleSheet> reference = new WeakReference<CSSStyleSheet>(styleSheet);
+		styleSheet = null;
+		docCss.removeAllStyleSheets();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: green; }\n"));
+		assertEquals("green", viewCSS.getComputedStyle(button, null).getPropertyCSSValue("color").getCssText());
+
+		for (int i = 0; i < 10 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+
+	@Test
+	public void testSharedStyle() throws Exception {
+		String css = "Composite > Button { color: blue; }\n" + "Button.warning { color: red; }\n"
+				+ "Button[flat] { font-weight: bold; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		final TestElement composite = new TestElement("Composite", engine);
+		final TestElement button1 = new TestElement("Button", composite, engine);
+		final TestElement button2 = new TestElement("Button", composite, engine);
+		CSSStyleDeclaration style1 = viewCSS.getComputedStyle(button1, null);
+		CSSStyleDeclaration style2 = viewCSS.getComputedStyle(button2, null);
+		assertSame(style1, style2);
+		assertEquals("blue", style2.getPropertyCSSValue("color").getCssText());
+
+		button2.setClass("warning");
+		style2 = viewCSS.getComputedStyle(button2, null);
+		assertEquals("red", style2.getPropertyCSSValue("color").getCssText());
+
+		button2.setAttribute("flat", "true");
+		style2 = viewCSS.getComputedStyle(button2, null);
+		assertEquals(2, style2.getLength());
+		assertEquals("bold", style2.getPropertyCSSValue("font-weight").getCssText());
+
+		final TestElement button3 = new TestElement("Button", engine);
+		assertNull(viewCSS.getComputedStyle(button3, null));
+	}
+
 	private static ViewCSS createViewCss(String css) throws IOException {
 		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(css);
 		DocumentCSSImpl docCss = new DocumentCSSImpl();
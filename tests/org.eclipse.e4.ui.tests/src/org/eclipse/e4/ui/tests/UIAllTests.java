@@ -16,6 +16,7 @@ import junit.framework.TestSuite;
 import org.eclipse.e4.ui.tests.application.Bug299755Test;
 import org.eclipse.e4.ui.tests.application.Bug308220Test;
 import org.eclipse.e4.ui.tests.application.Bug320857Test;
+import org.eclipse.e4.ui.tests.application.E4XMIResourceBinaryTest;
 import org.eclipse.e4.ui.tests.application.ModelElementTest;
 import org.eclipse.e4.ui.tests.application.ModelRobustnessTest;
 import org.eclipse.e4.ui.tests.application.ResourceHandlerTest;
@@ -75,6 +76,7 @@ public class UIAllTests extends TestSuite {
 		addTestSuite(Bug308317Test.class);
 		addTestSuite(ModelRobustnessTest.class);
 		addTestSuite(ResourceHandlerTest.class);
+		addTestSuite(E4XMIResourceBinaryTest.class);
 		addTestSuite(PartFocusTest.class);
 		addTestSuite(ModelElementTest.class);
 		addTestSuite(StackRendererTest.class);
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.tests.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import junit.framework.TestCase;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResourceFactory;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Tests saving and loading the model in the binary format of {@link E4XMIResource}.
+ */
+public class E4XMIResourceBinaryTest extends TestCase {
+
+	private E4XMIResource createResource() {
+		return (E4XMIResource) new E4XMIResourceFactory().createResource(URI
+				.createURI("workbench.xmi"));
+	}
+
+	private MApplication createApplication(E4XMIResource resource) {
+		MApplication application = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		application.setElementId("application");
+		MWindow window = BasicFactoryImpl.eINSTANCE.createWindow();
+		window.setElementId("window");
+		window.getPersistedState().put("key", "value");
+		application.getChildren().add(window);
+
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId("part");
+		part.getTags().add("tag");
+		window.getSharedElements().add(part);
+
+		MPlaceholder placeholder = AdvancedFactoryImpl.eINSTANCE.createPlaceholder();
+		placeholder.setRef(part);
+		window.getChildren().add(placeholder);
+
+		resource.getContents().add((EObject) application);
+		return application;
+	}
+
+	private byte[] save(E4XMIResource resource, boolean binary) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out,
+				Collections.singletonMap(E4XMIResource.OPTION_BINARY_FORMAT, Boolean.valueOf(binary)));
+		return out.toByteArray();
+	}
+
+	private MApplication load(byte[] bytes, E4XMIResource resource) throws IOException {
+		resource.load(new ByteArrayInputStream(bytes), null);
+		return (MApplication) resource.getContents().get(0);
+	}
+
+	public void testBinaryRoundTrip() throws IOException {
+		E4XMIResource resource = createResource();
+		MApplication application = createApplication(resource);
+
+		E4XMIResource loadedResource = createResource();
+		MApplication loaded = load(save(resource, true), loadedResource);
+
+		assertEquals("application", loaded.getElementId());
+		assertEquals(1, loaded.getChildren().size());
+		MWindow window = loaded.getChildren().get(0);
+		assertEquals("window", window.getElementId());
+		assertEquals("value", window.getPersistedState().get("key"));
+
+		MPart part = (MPart) window.getSharedElements().get(0);
+		assertEquals("part", part.getElementId());
+		assertEquals(Collections.singletonList("tag"), part.getTags());
+		assertSame(part, ((MPlaceholder) window.getChildren().get(0)).getRef());
+
+		// The ids are needed to merge the model fragments
+		assertEquals(resource.getID((EObject) application),
+				loadedResource.getID((EObject) loaded));
+		assertEquals(resource.getID((EObject) application.getChildren().get(0)),
+				loadedResource.getID((EObject) window));
+		assertSame(part, loadedResource.getEObject(resource.getID((EObject) application
+				.getChildren().get(0).getSharedElements().get(0))));
+	}
+
+	public void testBinaryIsSmaller() throws IOException {
+		E4XMIResource resource = createResource();
+		createApplication(resource);
+
+		assertTrue(save(resource, true).length < save(resource, false).length);
+	}
+
+	public void testXMIStillLoaded() throws IOException {
+		E4XMIResource resource = createResource();
+		MApplication application = createApplication(resource);
+
+		E4XMIResource loadedResource = createResource();
+		MApplication loaded = load(save(resource, false), loadedResource);
+
+		assertEquals("window", loaded.getChildren().get(0).getElementId());
+		assertEquals(resource.getID((EObject) application),
+				loadedResource.getID((EObject) loaded));
+	}
+
+	public void testDefaultSaveOption() throws IOException {
+		E4XMIResource resource = createResource();
+		createApplication(resource);
+		resource.getDefaultSaveOptions().put(E4XMIResource.OPTION_BINARY_FORMAT, Boolean.TRUE);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out, null);
+		assertFalse(out.toByteArray()[0] == '<');
+
+		MApplication loaded = load(out.toByteArray(), createResource());
+		assertEquals("application", loaded.getElementId());
+	}
+}
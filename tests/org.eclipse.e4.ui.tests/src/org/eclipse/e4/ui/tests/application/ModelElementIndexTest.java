@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.e4.ui.tests.application;
+
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.internal.workbench.ModelElementIndex;
+import org.eclipse.e4.ui.internal.workbench.ModelServiceImpl;
+import org.eclipse.e4.ui.internal.workbench.UIEventPublisher;
+import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.MApplicationElement;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspective;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPerspectiveStack;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.menu.MHandledToolItem;
+import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
+import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuFactoryImpl;
+import org.eclipse.e4.ui.workbench.modeling.EModelService;
+import org.eclipse.emf.common.notify.Notifier;
+
+/**
+ * Tests that the {@link ModelElementIndex} maintained by the {@link UIEventPublisher} follows the
+ * model and that {@link ModelServiceImpl} answers the same with and without it.
+ */
+public class ModelElementIndexTest extends TestCase {
+
+	private IEclipseContext applicationContext;
+
+	private EModelService modelService;
+
+	private UIEventPublisher publisher;
+
+	private MApplication application;
+
+	private MWindow window;
+
+	private MPerspectiveStack perspectiveStack;
+
+	private MPerspective perspective1;
+
+	private MPerspective perspective2;
+
+	private MPart sharedPart;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		applicationContext = E4Application.createDefaultContext();
+		modelService = new ModelServiceImpl(applicationContext);
+
+		application = ApplicationFactoryImpl.eINSTANCE.createApplication();
+		application.setContext(applicationContext);
+		window = BasicFactoryImpl.eINSTANCE.createWindow();
+		application.getChildren().add(window);
+
+		perspectiveStack = AdvancedFactoryImpl.eINSTANCE.createPerspectiveStack();
+		window.getChildren().add(perspectiveStack);
+
+		perspective1 = AdvancedFactoryImpl.eINSTANCE.createPerspective();
+		perspective1.setElementId("perspective1");
+		perspectiveStack.getChildren().add(perspective1);
+		perspective2 = AdvancedFactoryImpl.eINSTANCE.createPerspective();
+		perspective2.setElementId("perspective2");
+		perspectiveStack.getChildren().add(perspective2);
+		perspectiveStack.setSelectedElement(perspective1);
+
+		MPartStack stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		perspective2.getChildren().add(stack);
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId("part");
+		part.getTags().add("tag");
+		stack.getChildren().add(part);
+
+		sharedPart = BasicFactoryImpl.eINSTANCE.createPart();
+		sharedPart.setElementId("sharedPart");
+		window.getSharedElements().add(sharedPart);
+
+		publisher = new UIEventPublisher(applicationContext);
+		((Notifier) application).eAdapters().add(publisher);
+		applicationContext.set(UIEventPublisher.class, publisher);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		applicationContext.dispose();
+		super.tearDown();
+	}
+
+	private ModelElementIndex getIndex() {
+		return publisher.getModelElementIndex();
+	}
+
+	public void testExistingElementsIndexed() {
+		ModelElementIndex index = getIndex();
+		assertTrue(index.contains(application));
+		assertTrue(index.contains(window));
+		assertTrue(index.contains(sharedPart));
+
+		List<MApplicationElement> elements = index.getElements("part", null, null);
+		assertEquals(1, elements.size());
+		elements = index.getElements(null, null, Collections.singletonList("tag"));
+		assertEquals(1, elements.size());
+		elements = index.getElements(null, MPerspective.class, null);
+		assertEquals(2, elements.size());
+	}
+
+	public void testElementIdChange() {
+		MUIElement part = modelService.find("part", application);
+		assertNotNull(part);
+
+		part.setElementId("renamed");
+		assertNull(modelService.find("part", application));
+		assertSame(part, modelService.find("renamed", application));
+		assertEquals(0, getIndex().getElements("part", null, null).size());
+	}
+
+	public void testTagChange() {
+		MUIElement part = modelService.find("part", application);
+		part.getTags().add("added");
+
+		List<MPart> parts = modelService.findElements(application, null, MPart.class,
+				Collections.singletonList("added"));
+		assertEquals(1, parts.size());
+
+		part.getTags().remove("added");
+		parts = modelService.findElements(application, null, MPart.class,
+				Collections.singletonList("added"));
+		assertEquals(0, parts.size());
+	}
+
+	public void testRemoveAndAdd() {
+		MUIElement part = modelService.find("part", application);
+		MPartStack stack = (MPartStack) (MUIElement) part.getParent();
+		stack.getChildren().remove(part);
+		assertFalse(getIndex().contains(part));
+		assertNull(modelService.find("part", application));
+
+		stack.getChildren().add((MPart) part);
+		assertTrue(getIndex().contains(part));
+		assertSame(part, modelService.find("part", application));
+	}
+
+	public void testSearchFlags() {
+		assertEquals(1,
+				modelService.findElements(window, "part", null, null, EModelService.ANYWHERE)
+						.size());
+		assertEquals(0,
+				modelService.findElements(window, "part", null, null,
+						EModelService.PRESENTATION).size());
+
+		perspectiveStack.setSelectedElement(perspective2);
+		assertEquals(1,
+				modelService.findElements(window, "part", null, null,
+						EModelService.PRESENTATION).size());
+	}
+
+	public void testSeveralMatchesInWalkOrder() {
+		MPart part1 = BasicFactoryImpl.eINSTANCE.createPart();
+		part1.setElementId("duplicate");
+		perspective1.getChildren().add(part1);
+		MPart part2 = BasicFactoryImpl.eINSTANCE.createPart();
+		part2.setElementId("duplicate");
+		perspective2.getChildren().add(part2);
+
+		List<MPart> parts = modelService.findElements(window, "duplicate", MPart.class, null,
+				EModelService.ANYWHERE);
+		assertEquals(2, parts.size());
+		assertSame(part1, parts.get(0));
+		assertSame(part2, parts.get(1));
+
+		parts = modelService.findElements(window, "duplicate", MPart.class, null,
+				EModelService.PRESENTATION);
+		assertEquals(1, parts.size());
+		assertSame(part1, parts.get(0));
+	}
+
+	public void testPlaceholder() {
+		assertNull(modelService.find("sharedPart", application));
+
+		MPlaceholder placeholder = AdvancedFactoryImpl.eINSTANCE.createPlaceholder();
+		placeholder.setRef(sharedPart);
+		perspective1.getChildren().add(placeholder);
+		assertSame(sharedPart, modelService.find("sharedPart", application));
+		assertSame(placeholder, modelService.findPlaceholderFor(window, sharedPart));
+
+		placeholder.setRef(null);
+		assertNull(modelService.find("sharedPart", application));
+		assertNull(modelService.findPlaceholderFor(window, sharedPart));
+	}
+
+	public void testDetachedElementsNotIndexed() {
+		// menus and tool bars are given the publisher before they are added to the model
+		MToolBar toolBar = MenuFactoryImpl.eINSTANCE.createToolBar();
+		MHandledToolItem item = MenuFactoryImpl.eINSTANCE.createHandledToolItem();
+		toolBar.getChildren().add(item);
+		((Notifier) toolBar).eAdapters().add(publisher);
+		assertFalse(getIndex().contains(toolBar));
+		assertFalse(getIndex().contains(item));
+
+		MPart part = (MPart) modelService.find("part", application);
+		part.setToolbar(toolBar);
+		assertTrue(getIndex().contains(toolBar));
+		assertTrue(getIndex().contains(item));
+
+		part.setToolbar(null);
+		assertFalse(getIndex().contains(toolBar));
+		assertFalse(getIndex().contains(item));
+	}
+
+	public void testUnresolvedPlaceholder() {
+		ModelElementIndex index = getIndex();
+		assertTrue(index.isComplete(application));
+
+		MPart detachedPart = BasicFactoryImpl.eINSTANCE.createPart();
+		MPlaceholder placeholder = AdvancedFactoryImpl.eINSTANCE.createPlaceholder();
+		placeholder.setRef(detachedPart);
+		perspective1.getChildren().add(placeholder);
+		assertFalse(index.isComplete(application));
+
+		window.getSharedElements().add(detachedPart);
+		assertTrue(index.isComplete(application));
+
+		window.getSharedElements().remove(detachedPart);
+		assertFalse(index.isComplete(application));
+
+		perspective1.getChildren().remove(placeholder);
+		assertTrue(index.isComplete(application));
+	}
+
+	public void testDetachedRootIsWalked() {
+		MPartStack stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+		part.setElementId("detached");
+		stack.getChildren().add(part);
+
+		assertFalse(getIndex().contains(stack));
+		assertSame(part, modelService.find("detached", stack));
+	}
+}
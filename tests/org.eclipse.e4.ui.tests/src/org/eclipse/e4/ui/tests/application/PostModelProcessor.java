@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,12 +19,18 @@ import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
  *
  */
 public class PostModelProcessor extends AbstractModelProcessorImpl {
+	/**
+	 * The number of times the processor has run.
+	 */
+	static int runCount;
+
 	@Inject
 	@Named("fragment.contributedWindow")
 	private MWindow window;
 
 	@Override
 	protected void doRun() {
+		runCount++;
 		if (window != null) {
 			window.getVariables().add("postAddition");
 		}
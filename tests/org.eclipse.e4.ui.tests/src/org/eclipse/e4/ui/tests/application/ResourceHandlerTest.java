@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 IBM Corporation and others.
+ * Copyright (c) 2010, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,11 +48,24 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 	}
 
 	private ResourceHandler createHandler(URI uri) {
+		return createHandler(uri, null, true);
+	}
+
+	/**
+	 * @param option
+	 *            an option to enable, or <code>null</code>
+	 */
+	private ResourceHandler createHandler(URI uri, String option,
+			boolean clearPersistedState) {
 		IEclipseContext localContext = applicationContext.createChild();
 		localContext.set(E4Workbench.INSTANCE_LOCATION, getInstanceLocation());
 		localContext.set(E4Workbench.PERSIST_STATE, Boolean.TRUE);
-		localContext.set(E4Workbench.CLEAR_PERSISTED_STATE, Boolean.TRUE);
+		localContext.set(E4Workbench.CLEAR_PERSISTED_STATE,
+				Boolean.valueOf(clearPersistedState));
 		localContext.set(E4Workbench.DELTA_RESTORE, Boolean.TRUE);
+		if (option != null) {
+			localContext.set(option, Boolean.TRUE);
+		}
 
 		localContext.set(E4Workbench.INITIAL_WORKBENCH_MODEL_URI, uri);
 
@@ -102,7 +115,38 @@ public class ResourceHandlerTest extends HeadlessStartupTest {
 				"org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
 
 		ResourceHandler handler = createHandler(uri);
-		Resource resource = handler.loadMostRecentModel();
+		checkModelProcessor(handler.loadMostRecentModel());
+	}
+
+	public void testModelProcessorParallel() {
+		URI uri = URI.createPlatformPluginURI(
+				"org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+
+		ResourceHandler handler = createHandler(uri,
+				E4Workbench.PARALLEL_MODEL_ASSEMBLY, true);
+		checkModelProcessor(handler.loadMostRecentModel());
+	}
+
+	public void testModelAssemblyCache() {
+		URI uri = URI.createPlatformPluginURI(
+				"org.eclipse.e4.ui.tests/xmi/modelprocessor/base.e4xmi", true);
+
+		// assembles the model and fills the cache
+		int runCount = PostModelProcessor.runCount;
+		ResourceHandler handler = createHandler(uri,
+				E4Workbench.MODEL_ASSEMBLY_CACHE, true);
+		checkModelProcessor(handler.loadMostRecentModel());
+		assertEquals(runCount + 1, PostModelProcessor.runCount);
+
+		// nothing was saved, so the initial model is taken from the cache
+		// without running the processors again
+		handler = createHandler(uri, E4Workbench.MODEL_ASSEMBLY_CACHE, false);
+		checkModelProcessor(handler.loadMostRecentModel());
+		assertEquals("The model was not taken from the cache", runCount + 1,
+				PostModelProcessor.runCount);
+	}
+
+	private void checkModelProcessor(Resource resource) {
 		MApplication application = (MApplication) resource.getContents().get(0);
 		assertNotNull(application);
 		assertEquals(2, application.getChildren().size());
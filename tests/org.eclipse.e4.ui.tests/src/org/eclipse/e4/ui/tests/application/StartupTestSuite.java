@@ -22,6 +22,7 @@ public class StartupTestSuite extends TestSuite {
 		suite.addTestSuite(EModelServiceTest.class);
 		suite.addTestSuite(EModelServiceFindTest.class);
 		suite.addTestSuite(EModelServiceInsertTest.class);
+		suite.addTestSuite(ModelElementIndexTest.class);
 		suite.addTestSuite(EPartServiceTest.class);
 		suite.addTestSuite(ESelectionServiceTest.class);
 		suite.addTestSuite(EventBrokerTest.class);
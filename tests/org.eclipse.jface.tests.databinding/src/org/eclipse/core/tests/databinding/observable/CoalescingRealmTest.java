@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.databinding.observable.CoalescingRealm;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+
+/**
+ * @since 1.5
+ */
+public class CoalescingRealmTest extends TestCase {
+
+	/**
+	 * Realm that queues runnables, including timed ones, until they are run
+	 * explicitly.
+	 */
+	private static class QueueRealm extends Realm {
+		final LinkedList queue = new LinkedList();
+
+		@Override
+		public boolean isCurrent() {
+			return true;
+		}
+
+		@Override
+		public void asyncExec(Runnable runnable) {
+			queue.add(runnable);
+		}
+
+		@Override
+		public void timerExec(int milliseconds, Runnable runnable) {
+			queue.add(runnable);
+		}
+
+		void runNext() {
+			((Runnable) queue.removeFirst()).run();
+		}
+	}
+
+	private QueueRealm realm;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		realm = new QueueRealm();
+	}
+
+	public void testRunsInOrderInOneFrame() throws Exception {
+		CoalescingRealm coalescing = new CoalescingRealm(realm, 1000, 0);
+		final List ran = new ArrayList();
+		for (int i = 0; i < 5; i++) {
+			final Integer value = new Integer(i);
+			coalescing.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					ran.add(value);
+				}
+			});
+		}
+		assertEquals(1, realm.queue.size());
+		assertEquals(5, coalescing.getQueueSize());
+
+		realm.runNext();
+		assertEquals(5, ran.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(new Integer(i), ran.get(i));
+		}
+		assertEquals(0, coalescing.getQueueSize());
+		assertEquals(5, coalescing.getRunCount());
+		assertTrue(realm.queue.isEmpty());
+	}
+
+	public void testReplacesRunnablesWithSameKey() throws Exception {
+		CoalescingRealm coalescing = new CoalescingRealm(realm, 1000, 0);
+		final List ran = new ArrayList();
+		Object key = new Object();
+		for (int i = 0; i < 3; i++) {
+			final Integer value = new Integer(i);
+			coalescing.asyncExec(key, new Runnable() {
+				@Override
+				public void run() {
+					ran.add(value);
+				}
+			});
+		}
+		coalescing.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				ran.add("unkeyed");
+			}
+		});
+
+		assertEquals(2, coalescing.getQueueSize());
+		assertEquals(2, coalescing.getCoalescedCount());
+		realm.runNext();
+		assertEquals(2, ran.size());
+		assertEquals(new Integer(2), ran.get(0));
+		assertEquals("unkeyed", ran.get(1));
+	}
+
+	public void testAsyncSetValueFiresOneEvent() throws Exception {
+		CoalescingRealm coalescing = new CoalescingRealm(realm, 1000, 0);
+		IObservableValue value = new WritableValue(realm);
+		final List events = new ArrayList();
+		value.addValueChangeListener(new IValueChangeListener() {
+			@Override
+			public void handleValueChange(ValueChangeEvent event) {
+				events.add(event.diff.getNewValue());
+			}
+		});
+
+		for (int i = 0; i < 100; i++) {
+			coalescing.asyncSetValue(value, new Integer(i));
+		}
+		realm.runNext();
+
+		assertEquals(1, events.size());
+		assertEquals(new Integer(99), value.getValue());
+		assertEquals(99, coalescing.getCoalescedCount());
+	}
+
+	public void testFrameBudgetSplitsWork() throws Exception {
+		CoalescingRealm coalescing = new CoalescingRealm(realm, 0, 0);
+		final int[] count = new int[1];
+		for (int i = 0; i < 3; i++) {
+			coalescing.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					count[0]++;
+				}
+			});
+		}
+
+		realm.runNext();
+		assertEquals(1, count[0]);
+		assertEquals(2, coalescing.getQueueSize());
+		assertEquals(1, realm.queue.size());
+
+		realm.runNext();
+		realm.runNext();
+		assertEquals(3, count[0]);
+		assertTrue(realm.queue.isEmpty());
+		assertEquals(3, coalescing.getMaxQueueSize());
+
+		coalescing.resetStatistics();
+		assertEquals(0, coalescing.getRunCount());
+		assertEquals(0, coalescing.getMaxQueueSize());
+		assertEquals(0d, coalescing.getMaxLatency(), 0d);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,9 @@ package org.eclipse.core.tests.databinding.observable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -261,6 +263,36 @@ public class Diffs_ListDiffTests extends TestCase {
 				Arrays.asList(new Object[] { "c", "a", "b" }));
 	}
 
+	public void testComputeListDiff_MoveOneOfMany() {
+		List oldList = new ArrayList();
+		for (int i = 0; i < 1000; i++) {
+			oldList.add("element" + i);
+		}
+		List newList = new ArrayList(oldList);
+		newList.add(newList.remove(10));
+		ListDiff diff = Diffs.computeListDiff(oldList, newList);
+		assertEquals(2, diff.getDifferences().length);
+		assertEntry(diff.getDifferences()[0], false, 10, "element10");
+		assertEntry(diff.getDifferences()[1], true, 999, "element10");
+	}
+
+	public void testComputeListDiff_Duplicates() {
+		checkComputedListDiff(Arrays.asList(new Object[] { "a", "b", "a",
+				null, "b", "a" }), Arrays.asList(new Object[] { "b", "a", null,
+				"a", "c", "b", null }));
+	}
+
+	public void testComputeListDiff_Shuffle() {
+		List oldList = new ArrayList();
+		for (int i = 0; i < 5000; i++) {
+			oldList.add(new Integer(i % 1000));
+		}
+		List newList = new ArrayList(oldList.subList(100, 4900));
+		Collections.shuffle(newList, new Random(0));
+		newList.add(2000, "added");
+		checkComputedListDiff(oldList, newList);
+	}
+
 	private static void checkComputedListDiff(List oldList, List newList) {
 		ListDiff diff = Diffs.computeListDiff(oldList, newList);
 
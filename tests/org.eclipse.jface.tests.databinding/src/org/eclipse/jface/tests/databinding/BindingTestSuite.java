@@ -46,6 +46,7 @@ import org.eclipse.core.tests.databinding.conversion.NumberToStringConverterTest
 import org.eclipse.core.tests.databinding.conversion.StringToNumberConverterTest;
 import org.eclipse.core.tests.databinding.observable.AbstractObservableTest;
 import org.eclipse.core.tests.databinding.observable.ChangeSupportTest;
+import org.eclipse.core.tests.databinding.observable.CoalescingRealmTest;
 import org.eclipse.core.tests.databinding.observable.DecoratingObservableTest;
 import org.eclipse.core.tests.databinding.observable.DiffsTest;
 import org.eclipse.core.tests.databinding.observable.Diffs_ListDiffTests;
@@ -272,6 +273,7 @@ public class BindingTestSuite extends TestSuite {
 		// org.eclipse.core.tests.databinding.observable
 		addTest(AbstractObservableTest.suite());
 		addTestSuite(ChangeSupportTest.class);
+		addTestSuite(CoalescingRealmTest.class);
 		addTestSuite(DecoratingObservableTest.class);
 		addTestSuite(Diffs_ListDiffTests.class);
 		addTestSuite(DiffsTest.class);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Matthew Hall and others.
+ * Copyright (c) 2008, 2014 Matthew Hall and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,11 @@
  ******************************************************************************/
 package org.eclipse.jface.tests.databinding.viewers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.databinding.observable.Observables;
@@ -113,6 +115,46 @@ public class ObservableListContentProviderTest extends
 		assertEquals(Collections.EMPTY_SET, realizedElements);
 	}
 
+	public void testViewerUpdate_BatchedChanges() {
+		List elements = new ArrayList();
+		for (int i = 0; i < 10; i++) {
+			elements.add(new Integer(i));
+		}
+		input.addAll(elements);
+		assertItems(input);
+
+		input.addAll(2, Arrays.asList(new Object[] { "a", "b" }));
+		assertItems(input);
+
+		input.removeAll(elements.subList(3, 8));
+		assertItems(input);
+
+		input.add("c");
+		input.removeAll(Arrays.asList(new Object[] { "c", new Integer(9) }));
+		assertItems(input);
+	}
+
+	public void testViewerUpdate_LargeChange() {
+		input.add("first");
+		List elements = new ArrayList();
+		for (int i = 0; i < 2000; i++) {
+			elements.add(new Integer(i));
+		}
+		input.addAll(elements);
+		assertItems(input);
+
+		input.removeAll(elements.subList(0, 1500));
+		assertItems(input);
+		assertEquals(new HashSet(input), contentProvider.getKnownElements());
+	}
+
+	private void assertItems(List expected) {
+		assertEquals(expected.size(), viewer.getTable().getItemCount());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), viewer.getElementAt(i));
+		}
+	}
+
 	static class Mutable {
 		public int id;
 
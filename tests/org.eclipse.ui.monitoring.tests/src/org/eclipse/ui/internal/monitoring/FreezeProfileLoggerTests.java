@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+
+import org.eclipse.ui.monitoring.StackSample;
+import org.eclipse.ui.monitoring.UiFreezeEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test for the {@link FreezeProfileLogger}.
+ */
+public class FreezeProfileLoggerTests {
+	private static final long TIME = 120000000;
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("freezeProfile", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private static ThreadInfo currentThread() {
+		return ManagementFactory.getThreadMXBean().getThreadInfo(Thread.currentThread().getId(),
+				Integer.MAX_VALUE);
+	}
+
+	private static UiFreezeEvent createFreezeEvent(long duration, ThreadInfo... samples) {
+		StackSample[] stackSamples = new StackSample[samples.length];
+		for (int i = 0; i < samples.length; i++) {
+			stackSamples[i] = new StackSample(TIME + i, new ThreadInfo[] { samples[i] });
+		}
+		return new UiFreezeEvent(TIME, duration, stackSamples, false);
+	}
+
+	private static String folded(FreezeProfileLogger logger) throws IOException {
+		StringWriter writer = new StringWriter();
+		logger.writeFolded(writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void testFoldedStacks() throws IOException {
+		ThreadInfo thread = currentThread();
+		String stack = FreezeProfileLogger.fold(thread.getStackTrace());
+		StackTraceElement top = thread.getStackTrace()[0];
+		assertTrue(stack.endsWith(top.getClassName() + '.' + top.getMethodName()));
+
+		FreezeProfileLogger logger = new FreezeProfileLogger(null);
+		logger.log(createFreezeEvent(600, thread, thread));
+		logger.log(createFreezeEvent(500, thread));
+
+		assertEquals(stack + " 1100\n", folded(logger));
+	}
+
+	@Test
+	public void testSpeedscope() throws IOException {
+		FreezeProfileLogger logger = new FreezeProfileLogger(null);
+		logger.log(createFreezeEvent(500, currentThread()));
+
+		StringWriter writer = new StringWriter();
+		logger.writeSpeedscope(writer);
+		String json = writer.toString();
+		assertTrue(json.contains("\"type\":\"sampled\""));
+		assertTrue(json.contains("\"endValue\":500,"));
+		assertTrue(json.contains("\"weights\":[500]"));
+		assertTrue(json.contains("{\"name\":\"" + getClass().getName() + ".testSpeedscope\"}"));
+	}
+
+	@Test
+	public void testProfileKeptAcrossSessions() throws IOException {
+		ThreadInfo thread = currentThread();
+		FreezeProfileLogger logger = new FreezeProfileLogger(directory);
+		logger.log(createFreezeEvent(1000, thread));
+		logger.flush();
+		assertTrue(new File(directory, FreezeProfileLogger.FOLDED_FILE).isFile());
+		assertTrue(new File(directory, FreezeProfileLogger.SPEEDSCOPE_FILE).isFile());
+
+		// The previous session decays.
+		logger = new FreezeProfileLogger(directory);
+		String stack = FreezeProfileLogger.fold(thread.getStackTrace());
+		assertEquals(stack + " 800\n", folded(logger));
+
+		logger.log(createFreezeEvent(200, thread));
+		assertEquals(stack + " 1000\n", folded(logger));
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.ui.monitoring.EventLoopLatency;
+import org.eclipse.ui.monitoring.LatencyHistogram;
+import org.junit.Test;
+
+/**
+ * JUnit test for the {@link LatencyHistogram} and the {@link EventLoopLatencyStatistics}.
+ */
+public class LatencyHistogramTests {
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		assertTrue("Expected " + expected + " but was " + actual,
+				actual >= expected && actual <= expected + expected / 16);
+	}
+
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getTotalCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		assertEquals(0, histogram.getMaxValue());
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.recordValue(i);
+		}
+		assertEquals(10000, histogram.getTotalCount());
+		assertEquals(10000, histogram.getMaxValue());
+		assertEquals(5000.5, histogram.getMean(), 0.001);
+		assertWithinPrecision(5000, histogram.getValueAtPercentile(50));
+		assertWithinPrecision(9900, histogram.getValueAtPercentile(99));
+		assertWithinPrecision(9990, histogram.getValueAtPercentile(99.9));
+		assertEquals(10000, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 20; i++) {
+			histogram.recordValue(i);
+		}
+		assertEquals(9, histogram.getValueAtPercentile(50));
+	}
+
+	@Test
+	public void testLargeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordValue(Long.MAX_VALUE);
+		histogram.recordValue(-1);
+		assertEquals(2, histogram.getTotalCount());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertTrue(histogram.getValueAtPercentile(100) > 1000000L * 3600 * 24 * 12);
+	}
+
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordValue(100);
+		histogram.reset();
+		assertEquals(0, histogram.getTotalCount());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+
+	@Test
+	public void testStatisticsByEventType() {
+		EventLoopLatencyStatistics statistics = EventLoopLatencyStatistics.getDefault();
+		statistics.reset();
+		long count = statistics.getEventCount();
+		statistics.recordLatency(SWT.Paint, 1000);
+		statistics.recordLatency(SWT.None, 10);
+
+		assertEquals(count + 2, statistics.getEventCount());
+		LatencyHistogram paint = EventLoopLatency.getHistogram(SWT.Paint);
+		assertNotNull(paint);
+		assertEquals(1, paint.getTotalCount());
+		assertWithinPrecision(1000, statistics.getP99MicrosByEventType().get("Paint"));
+		assertEquals(10, statistics.getPercentileMicros("Runnable", 50));
+	}
+}
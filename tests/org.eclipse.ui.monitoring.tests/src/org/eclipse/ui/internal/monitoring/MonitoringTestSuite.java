@@ -23,6 +23,8 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	EventLoopMonitorThreadTests.class,
 	FilterHandlerTests.class,
-	DefaultLoggerTests.class})
+	DefaultLoggerTests.class,
+	FreezeProfileLoggerTests.class,
+	LatencyHistogramTests.class})
 public class MonitoringTestSuite {
 }
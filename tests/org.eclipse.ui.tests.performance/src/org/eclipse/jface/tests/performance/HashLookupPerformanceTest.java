@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.performance;
+
+import org.eclipse.swt.widgets.Widget;
+import org.eclipse.ui.tests.performance.TestRunnable;
+
+/**
+ * The HashLookupPerformanceTest measures the operations of a TableViewer that
+ * use its element map, which maps the elements to their items when hash
+ * lookup is enabled.
+ */
+public class HashLookupPerformanceTest extends TableViewerRefreshTest {
+
+	public HashLookupPerformanceTest(String testName, int tagging) {
+		super(testName, tagging);
+	}
+
+	public HashLookupPerformanceTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * Test the time for looking up the items of all elements.
+	 *
+	 * @throws Throwable
+	 */
+	public void testFindItems() throws Throwable {
+		openBrowser();
+		final Object[] elements = RefreshTestContentProvider.allElements;
+
+		exercise(new TestRunnable() {
+			public void run() {
+				startMeasuring();
+				for (int i = 0; i < 10; i++) {
+					for (int j = 0; j < elements.length; j++) {
+						Widget item = viewer.testFindItem(elements[j]);
+						assertNotNull(item);
+					}
+				}
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, ITERATIONS, JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test the time for updating all elements, which looks up their items.
+	 *
+	 * @throws Throwable
+	 */
+	public void testUpdateElements() throws Throwable {
+		openBrowser();
+		final Object[] elements = RefreshTestContentProvider.allElements;
+
+		exercise(new TestRunnable() {
+			public void run() {
+				startMeasuring();
+				viewer.update(elements, null);
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, slowGTKIterations(),
+				JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	/**
+	 * Test the time for a refresh that replaces all elements, which unmaps the
+	 * old elements and maps the new ones.
+	 *
+	 * @throws Throwable
+	 */
+	public void testRefreshNewElements() throws Throwable {
+		openBrowser();
+
+		exercise(new TestRunnable() {
+			public void run() {
+				contentProvider.refreshElements();
+				startMeasuring();
+				viewer.refresh();
+				processEvents();
+				stopMeasuring();
+			}
+		}, MIN_ITERATIONS, slowGTKIterations(),
+				JFacePerformanceSuite.MAX_TIME);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
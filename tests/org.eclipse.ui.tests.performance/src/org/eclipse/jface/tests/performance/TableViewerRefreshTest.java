@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2006 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,7 +47,7 @@ public class TableViewerRefreshTest extends ViewerTest {
 
 	TestTableViewer viewer;
 
-	private RefreshTestContentProvider contentProvider;
+	RefreshTestContentProvider contentProvider;
 
 	public TableViewerRefreshTest(String testName, int tagging) {
 		super(testName, tagging);
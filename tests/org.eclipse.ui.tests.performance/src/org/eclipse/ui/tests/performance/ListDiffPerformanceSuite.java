@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures the list diff of data binding for a few typical changes.
+ */
+public class ListDiffPerformanceSuite extends TestSuite {
+
+	public static final String[] CHANGES = { "append", "remove", "shuffle", "replace" };
+
+	private static final int SIZE = 10000;
+
+	public static Test suite() {
+		return new ListDiffPerformanceSuite();
+	}
+
+	public ListDiffPerformanceSuite() {
+		addChangeScenarios();
+		addTest(new ListDiffPerformanceTest("replace", SIZE * 5));
+	}
+
+	private void addChangeScenarios() {
+		for (int i = 0; i < CHANGES.length; i++) {
+			addTest(new ListDiffPerformanceTest(CHANGES[i], SIZE));
+		}
+	}
+}
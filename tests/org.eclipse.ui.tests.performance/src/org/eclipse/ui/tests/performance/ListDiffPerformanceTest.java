@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.databinding.observable.Diffs;
+
+/**
+ * Measures {@link Diffs#computeListDiff(List, List)} for a typical change of a
+ * large list.
+ */
+public class ListDiffPerformanceTest extends BasicPerformanceTest {
+
+	private final String change;
+
+	private final int size;
+
+	/**
+	 * @param change
+	 *            one of {@link ListDiffPerformanceSuite#CHANGES}
+	 * @param size
+	 *            the size of the old list
+	 */
+	public ListDiffPerformanceTest(String change, int size) {
+		super("List diff " + change + " " + size);
+		this.change = change;
+		this.size = size;
+	}
+
+	protected void runTest() throws Throwable {
+		final List oldList = new ArrayList(size);
+		for (int i = 0; i < size; i++) {
+			oldList.add("element" + i);
+		}
+		final List newList = createNewList(oldList);
+
+		exercise(new TestRunnable() {
+			public void run() throws Exception {
+				startMeasuring();
+				Diffs.computeListDiff(oldList, newList);
+				stopMeasuring();
+			}
+		});
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private List createNewList(List oldList) {
+		List newList = new ArrayList(oldList);
+		Random random = new Random(0);
+		if (change.equals("append")) {
+			for (int i = 0; i < size / 10; i++) {
+				newList.add("added" + i);
+			}
+		} else if (change.equals("remove")) {
+			for (int i = 0; i < size / 10; i++) {
+				newList.remove(random.nextInt(newList.size()));
+			}
+		} else if (change.equals("shuffle")) {
+			Collections.shuffle(newList, random);
+		} else if (change.equals("replace")) {
+			newList.clear();
+			for (int i = 0; i < size; i++) {
+				newList.add("replacement" + i);
+			}
+		} else {
+			fail("Unknown change " + change);
+		}
+		return newList;
+	}
+}
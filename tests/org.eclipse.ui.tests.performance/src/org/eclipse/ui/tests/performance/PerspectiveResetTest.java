@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.ui.internal.workbench.UIEventPublisher;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.ui.IPerspectiveDescriptor;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+
+/**
+ * Test resetting a perspective, which produces a large number of model
+ * events, with and without dropping the events nobody is subscribed to.
+ */
+public class PerspectiveResetTest extends BasicPerformanceTest {
+
+	private String id;
+
+	private boolean filterEvents;
+
+	/**
+	 * @param id
+	 *            the perspective to reset
+	 * @param filterEvents
+	 *            whether model events without subscribers are dropped
+	 * @param tagging
+	 */
+	public PerspectiveResetTest(String id, boolean filterEvents, int tagging) {
+		super("testPerspectiveReset:" + id + (filterEvents ? ",filtered" : ",unfiltered"), tagging);
+		this.id = id;
+		this.filterEvents = filterEvents;
+	}
+
+	protected void runTest() throws Throwable {
+		final IPerspectiveDescriptor perspective = WorkbenchPlugin.getDefault()
+				.getPerspectiveRegistry().findPerspectiveWithId(id);
+
+		// Don't fail if we reference an unknown perspective ID.
+		if (perspective == null) {
+			System.out.println("Unknown perspective ID: " + id);
+			return;
+		}
+
+		IWorkbenchWindow window = openTestWindow(id);
+		final IWorkbenchPage page = window.getActivePage();
+		assertNotNull(page);
+
+		UIEventPublisher publisher = fWorkbench.getService(
+				IEclipseContext.class).get(UIEventPublisher.class);
+		assertNotNull(publisher);
+		publisher.setFilterUnsubscribedTopics(filterEvents);
+
+		tagIfNecessary("UI - Perspective Reset", Dimension.ELAPSED_PROCESS);
+
+		try {
+			exercise(new TestRunnable() {
+				public void run() throws Exception {
+					processEvents();
+
+					startMeasuring();
+					page.resetPerspective();
+					processEvents();
+					stopMeasuring();
+				}
+			});
+		} finally {
+			publisher.setFilterUnsubscribedTopics(true);
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
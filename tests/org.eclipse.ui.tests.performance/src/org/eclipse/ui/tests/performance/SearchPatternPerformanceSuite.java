@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Compares matching a search pattern against every name with looking up the
+ * matches in a search pattern index, for each kind of pattern and a few
+ * numbers of names.
+ */
+public class SearchPatternPerformanceSuite extends TestSuite {
+
+	/**
+	 * A prefix, a camel case, a wildcard, a multiple wildcards and an exact
+	 * pattern.
+	 */
+	public static final String[] PATTERNS = { "contentpro", "FiSeDi", "*Dialog", "*tree*label",
+			"contentdialog.java<" };
+
+	public static final int[] SIZES = { 10000, 100000 };
+
+	public static Test suite() {
+		return new SearchPatternPerformanceSuite();
+	}
+
+	public SearchPatternPerformanceSuite() {
+		addMatchScenarios(false);
+		addMatchScenarios(true);
+	}
+
+	private void addMatchScenarios(boolean indexed) {
+		for (int i = 0; i < SIZES.length; i++) {
+			for (int j = 0; j < PATTERNS.length; j++) {
+				addTest(new SearchPatternPerformanceTest(PATTERNS[j], SIZES[i], indexed));
+			}
+		}
+	}
+}
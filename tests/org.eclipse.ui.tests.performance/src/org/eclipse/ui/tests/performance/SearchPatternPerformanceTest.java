@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.util.Random;
+
+import org.eclipse.ui.dialogs.SearchPattern;
+import org.eclipse.ui.dialogs.SearchPatternIndex;
+
+/**
+ * Measures finding the names that match a {@link SearchPattern}, either by
+ * matching every name or with a {@link SearchPatternIndex}. The names are
+ * made of words like Java type names.
+ */
+public class SearchPatternPerformanceTest extends BasicPerformanceTest {
+
+	private static final String[] WORDS = { "Abstract", "Action", "Content", "Dialog", "Editor", "Filter", "Handler",
+			"Item", "Job", "Label", "List", "Manager", "Model", "Part", "Provider", "Resource", "Selection", "Tree",
+			"View", "Workbench" };
+
+	private final String pattern;
+
+	private final int size;
+
+	private final boolean indexed;
+
+	/**
+	 * @param pattern
+	 *            the pattern to match
+	 * @param size
+	 *            the number of names
+	 * @param indexed
+	 *            whether to look up the matches in an index
+	 */
+	public SearchPatternPerformanceTest(String pattern, int size, boolean indexed) {
+		super("Search pattern " + (indexed ? "(index) " : "") + pattern + " " + size);
+		this.pattern = pattern;
+		this.size = size;
+		this.indexed = indexed;
+	}
+
+	protected void runTest() throws Throwable {
+		final String[] names = createNames();
+		final SearchPattern searchPattern = new SearchPattern();
+		searchPattern.setPattern(pattern);
+		final SearchPatternIndex index = new SearchPatternIndex(names, names);
+		final int matches = countMatches(names, searchPattern);
+		assertEquals(matches, index.getMatches(searchPattern).length);
+
+		exercise(new TestRunnable() {
+			public void run() throws Exception {
+				startMeasuring();
+				for (int i = 0; i < 10; i++) {
+					if (indexed) {
+						index.getMatches(searchPattern);
+					} else {
+						countMatches(names, searchPattern);
+					}
+				}
+				stopMeasuring();
+			}
+		});
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static int countMatches(String[] names, SearchPattern searchPattern) {
+		int count = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (searchPattern.matches(names[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private String[] createNames() {
+		String[] names = new String[size];
+		Random random = new Random(0);
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < size; i++) {
+			buffer.setLength(0);
+			int words = 2 + random.nextInt(3);
+			for (int j = 0; j < words; j++) {
+				buffer.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			buffer.append(".java");
+			names[i] = buffer.toString();
+		}
+		return names;
+	}
+}
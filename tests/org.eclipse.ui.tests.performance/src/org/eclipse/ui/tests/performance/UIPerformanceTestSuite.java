@@ -36,5 +36,7 @@ public class UIPerformanceTestSuite extends FilteredTestSuite {
         addTest(new EditorPerformanceSuite());
         addTest(new TestSuite(CommandsPerformanceTest.class));
 		addTest(new LabelProviderTestSuite());
+		addTest(new ListDiffPerformanceSuite());
+		addTest(new SearchPatternPerformanceSuite());
     }
 }
@@ -82,6 +82,7 @@ class WorkbenchPerformanceSuite extends TestSuite {
         addResizeScenarios();
         addPerspectiveSwitchScenarios();
         addPerspectiveOpenCloseScenarios();
+        addPerspectiveResetScenarios();
         addWindowOpenCloseScenarios();
         addContributionScenarios();
     }
@@ -121,6 +122,17 @@ class WorkbenchPerformanceSuite extends TestSuite {
         }
     }
     
+    /**
+     * Reset each perspective with and without the filtering of model events
+     * that have no subscribers.
+     */
+    private void addPerspectiveResetScenarios() {
+        for (int i = 0; i < PERSPECTIVE_IDS.length; i++) {
+            addTest(new PerspectiveResetTest(PERSPECTIVE_IDS[i], true, BasicPerformanceTest.NONE));
+            addTest(new PerspectiveResetTest(PERSPECTIVE_IDS[i], false, BasicPerformanceTest.NONE));
+        }
+    }
+
     /**
      * 
      */
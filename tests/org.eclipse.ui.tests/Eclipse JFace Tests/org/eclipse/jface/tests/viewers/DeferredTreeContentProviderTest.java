@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.IFilter;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.deferred.DeferredTreeContentProvider;
+import org.eclipse.jface.viewers.deferred.IConcurrentModel;
+import org.eclipse.jface.viewers.deferred.IConcurrentTreeModel;
+import org.eclipse.jface.viewers.deferred.SetModel;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Tests the DeferredTreeContentProvider with an IConcurrentTreeModel.
+ *
+ * @since 3.11
+ */
+public class DeferredTreeContentProviderTest extends ViewerTestCase {
+
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * A tree model whose children are SetModels that report their listeners.
+	 */
+	private static class TestTreeModel implements IConcurrentTreeModel {
+		Map children = new HashMap();
+		List requested = new ArrayList();
+
+		void add(Object parent, Object[] elements) {
+			TestSetModel model = new TestSetModel();
+			model.addAll(elements);
+			children.put(parent, model);
+		}
+
+		TestSetModel getModel(Object parent) {
+			return (TestSetModel) children.get(parent);
+		}
+
+		@Override
+		public IConcurrentModel getChildren(Object parent) {
+			requested.add(parent);
+			IConcurrentModel model = (IConcurrentModel) children.get(parent);
+			return model == null ? new SetModel() : model;
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return children.containsKey(element);
+		}
+	}
+
+	private static class TestSetModel extends SetModel {
+		int getListenerCount() {
+			return getListeners().length;
+		}
+	}
+
+	private abstract class Condition {
+		abstract boolean test();
+	}
+
+	private TestTreeModel treeModel;
+
+	private DeferredTreeContentProvider contentProvider;
+
+	public DeferredTreeContentProviderTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUpModel() {
+		treeModel = new TestTreeModel();
+		treeModel.add(treeModel, new Object[] { "c", "a", "b" });
+		treeModel.add("b", new Object[] { "b2", "b3", "b1" });
+		treeModel.add("b1", new Object[] { "b1a" });
+	}
+
+	@Override
+	protected StructuredViewer createViewer(Composite parent) {
+		TreeViewer viewer = new TreeViewer(parent, SWT.VIRTUAL);
+		contentProvider = new DeferredTreeContentProvider(new Comparator() {
+			@Override
+			public int compare(Object o1, Object o2) {
+				return ((String) o1).compareTo((String) o2);
+			}
+		});
+		viewer.setContentProvider(contentProvider);
+		return viewer;
+	}
+
+	@Override
+	protected void setInput() {
+		fViewer.setInput(treeModel);
+	}
+
+	private Tree getTree() {
+		return ((TreeViewer) fViewer).getTree();
+	}
+
+	private void waitFor(Condition condition, String message) {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!condition.test()) {
+			if (System.currentTimeMillis() > end) {
+				fail(message);
+			}
+			processEvents();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void waitForItems(final TreeItem parentItem,
+			final String[] expected) {
+		waitFor(new Condition() {
+			@Override
+			boolean test() {
+				TreeItem[] items = parentItem == null ? getTree().getItems()
+						: parentItem.getItems();
+				if (items.length != expected.length) {
+					return false;
+				}
+				for (int i = 0; i < items.length; i++) {
+					if (!expected[i].equals(items[i].getData())) {
+						return false;
+					}
+				}
+				return true;
+			}
+		}, "Items not shown");
+	}
+
+	private TreeItem findItem(TreeItem[] items, Object element) {
+		for (int i = 0; i < items.length; i++) {
+			if (element.equals(items[i].getData())) {
+				return items[i];
+			}
+		}
+		fail("No item for " + element);
+		return null;
+	}
+
+	/**
+	 * Expands or collapses the item the way the user does.
+	 */
+	private void setExpanded(TreeItem item, boolean expanded) {
+		Event event = new Event();
+		event.item = item;
+		getTree().notifyListeners(expanded ? SWT.Expand : SWT.Collapse,
+				event);
+		item.setExpanded(expanded);
+		processEvents();
+	}
+
+	public void testRootElementsSorted() {
+		waitForItems(null, new String[] { "a", "b", "c" });
+		assertSame(treeModel, contentProvider.getParent("a"));
+	}
+
+	public void testExpand() {
+		waitForItems(null, new String[] { "a", "b", "c" });
+		assertFalse(treeModel.requested.contains("b"));
+
+		TreeItem item = findItem(getTree().getItems(), "b");
+		setExpanded(item, true);
+		assertTrue(treeModel.requested.contains("b"));
+		waitForItems(item, new String[] { "b1", "b2", "b3" });
+		assertEquals("b", contentProvider.getParent("b1"));
+		assertEquals(1, treeModel.getModel("b").getListenerCount());
+	}
+
+	public void testCollapse() {
+		waitForItems(null, new String[] { "a", "b", "c" });
+		TreeItem item = findItem(getTree().getItems(), "b");
+		setExpanded(item, true);
+		waitForItems(item, new String[] { "b1", "b2", "b3" });
+		TreeItem child = findItem(item.getItems(), "b1");
+		setExpanded(child, true);
+		waitForItems(child, new String[] { "b1a" });
+
+		setExpanded(item, false);
+		assertEquals(0, treeModel.getModel("b").getListenerCount());
+		assertEquals(0, treeModel.getModel("b1").getListenerCount());
+		// the parents of the children of collapsed elements are forgotten
+		assertNull(contentProvider.getParent("b1"));
+		assertNull(contentProvider.getParent("b1a"));
+		assertSame(treeModel, contentProvider.getParent("b"));
+	}
+
+	public void testFilter() {
+		waitForItems(null, new String[] { "a", "b", "c" });
+		contentProvider.setFilter(new IFilter() {
+			@Override
+			public boolean select(Object toTest) {
+				return !"b".equals(toTest);
+			}
+		});
+		waitForItems(null, new String[] { "a", "c" });
+	}
+
+	public void testAddedChildren() {
+		waitForItems(null, new String[] { "a", "b", "c" });
+		treeModel.getModel(treeModel).addAll(new Object[] { "0" });
+		waitForItems(null, new String[] { "0", "a", "b", "c" });
+	}
+}
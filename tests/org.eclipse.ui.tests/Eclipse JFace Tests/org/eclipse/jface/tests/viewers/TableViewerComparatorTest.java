@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import org.eclipse.jface.viewers.ColumnWeightData;
 import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TableLayout;
 import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipse.swt.SWT;
@@ -86,6 +87,70 @@ public class TableViewerComparatorTest extends ViewerComparatorTest {
 		assertSortedResult(TEAM1_SORTED_WITH_INSERT);
 	}
 
+	public void testViewerSorterWithSortKeys(){
+		ViewerSorter sorter = new ViewerSorter();
+		sorter.setUseSortKeys(true);
+		fViewer.setSorter(sorter);
+		assertSortedResult(TEAM1_SORTED);
+	}
+
+	public void testViewerComparatorWithSortKeysInsertElement(){
+		ViewerComparator comparator = new ViewerComparator();
+		comparator.setUseSortKeys(true);
+		fViewer.setComparator(comparator);
+		team1.addMember("Duong");
+		assertSortedResult(TEAM1_SORTED_WITH_INSERT);
+	}
+
+	public void testSortKeysComputeLabelsOncePerElement(){
+		final int[] categoryCalls = new int[1];
+		ViewerComparator comparator = new ViewerComparator() {
+			@Override
+			public int category(Object element) {
+				categoryCalls[0]++;
+				return 0;
+			}
+		};
+		comparator.setUseSortKeys(true);
+		fViewer.setComparator(comparator);
+		assertEquals(TEAM1.length, categoryCalls[0]);
+		assertSortedResult(TEAM1_SORTED);
+	}
+
+	public void testSortKeysNotKeptAfterSort(){
+		final int[] categoryCalls = new int[1];
+		ViewerComparator comparator = new ViewerComparator() {
+			@Override
+			public int category(Object element) {
+				categoryCalls[0]++;
+				return 0;
+			}
+		};
+		comparator.setUseSortKeys(true);
+		fViewer.setComparator(comparator);
+		categoryCalls[0] = 0;
+		// the inserted element is compared directly against the sorted ones
+		team1.addMember("Duong");
+		assertTrue(categoryCalls[0] > 1);
+		assertSortedResult(TEAM1_SORTED_WITH_INSERT);
+	}
+
+	public void testSortKeysIgnoredWhenCompareOverridden(){
+		final int[] compareCalls = new int[1];
+		ViewerComparator comparator = new ViewerComparator() {
+			@Override
+			public int compare(Viewer viewer, Object e1, Object e2) {
+				compareCalls[0]++;
+				return super.compare(viewer, e1, e2);
+			}
+		};
+		comparator.setUseSortKeys(true);
+		assertFalse(comparator.isUseSortKeys());
+		fViewer.setComparator(comparator);
+		assertTrue(compareCalls[0] > 0);
+		assertSortedResult(TEAM1_SORTED);
+	}
+
 	private void assertSortedResult(String[] expected){
 		TableItem[] items = getTableViewer().getTable().getItems();
 		for (int i = 0; i < items.length; i++){
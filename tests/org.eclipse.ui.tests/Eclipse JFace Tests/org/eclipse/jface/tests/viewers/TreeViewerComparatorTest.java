@@ -133,6 +133,25 @@ public class TreeViewerComparatorTest extends ViewerComparatorTest{
 		assertSortedResult(expected);
 	}
 
+	public void testViewerSorterWithSortKeys(){
+		ViewerSorter sorter = new ViewerSorter();
+		sorter.setUseSortKeys(true);
+		fViewer.setSorter(sorter);
+		getTreeViewer().expandAll();
+		String[][] expected = {TEAM3_SORTED, TEAM2_SORTED, TEAM1_SORTED};
+		assertSortedResult(expected);
+	}
+
+	public void testViewerComparatorWithSortKeysInsertElement(){
+		ViewerComparator comparator = new ViewerComparator();
+		comparator.setUseSortKeys(true);
+		fViewer.setComparator(comparator);
+		getTreeViewer().expandAll();
+		team1.addMember("Duong");
+		String[][] expected = {TEAM3_SORTED, TEAM2_SORTED, TEAM1_SORTED_WITH_INSERT};
+		assertSortedResult(expected);
+	}
+
 	private void assertSortedResult(String[][] resultArrays){
 		TreeItem[] rootItems = getTreeViewer().getTree().getItems();
 		assertEquals("Number of root items in tree not correct (actual=" + rootItems.length + ")", 3, rootItems.length);
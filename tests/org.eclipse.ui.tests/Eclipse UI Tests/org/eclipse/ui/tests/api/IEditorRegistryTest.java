@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.ui.tests.api;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.resources.IFile;
@@ -411,6 +414,44 @@ public class IEditorRegistryTest extends TestCase {
 
 	}
 
+	/**
+	 * The related editors are resolved once per mapping. Files sharing an
+	 * extension get the same editors and changed mappings are picked up.
+	 */
+	public void testEditorsFollowMappingChanges() {
+		IEditorDescriptor[] editors = fReg.getEditors("a.mock1");
+		assertTrue(ArrayUtil.equals(editors, fReg.getEditors("b.mock1")));
+		assertTrue(containsEditor(editors, MockEditorPart.ID1));
+
+		IFileEditorMapping[] src = fReg.getFileEditorMappings();
+		List<FileEditorMapping> maps = new ArrayList<FileEditorMapping>();
+		for (IFileEditorMapping map : src) {
+			if (!"mock1".equals(map.getExtension())) {
+				maps.add((FileEditorMapping) map);
+			}
+		}
+
+		try {
+			((EditorRegistry) fReg).setFileEditorMappings(maps
+					.toArray(new FileEditorMapping[maps.size()]));
+			assertFalse(containsEditor(fReg.getEditors("c.mock1"), MockEditorPart.ID1));
+		} finally {
+			FileEditorMapping[] restored = new FileEditorMapping[src.length];
+			System.arraycopy(src, 0, restored, 0, src.length);
+			((EditorRegistry) fReg).setFileEditorMappings(restored);
+		}
+		assertTrue(containsEditor(fReg.getEditors("d.mock1"), MockEditorPart.ID1));
+	}
+
+	private static boolean containsEditor(IEditorDescriptor[] editors, String id) {
+		for (IEditorDescriptor editor : editors) {
+			if (editor.getId().equals(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public void testSwitchDefaultToExternalBug236104() {
 		IEditorDescriptor htmlDescriptor = fReg.getDefaultEditor("test.html");
 		assertNotNull("Default editor for html files should not be null",
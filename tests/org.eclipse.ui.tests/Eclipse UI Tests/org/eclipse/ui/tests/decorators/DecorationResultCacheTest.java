@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.viewers.DecorationContext;
+import org.eclipse.jface.viewers.IDecorationContext;
+import org.eclipse.ui.internal.decorators.DecorationBuilder;
+import org.eclipse.ui.internal.decorators.DecorationResult;
+import org.eclipse.ui.internal.decorators.DecorationResultCache;
+
+/**
+ * Tests that the {@link DecorationResultCache} drops results by size and by
+ * age.
+ *
+ * @since 3.10
+ */
+public class DecorationResultCacheTest extends TestCase {
+
+	private static final IDecorationContext CONTEXT = DecorationContext.DEFAULT_CONTEXT;
+
+	public DecorationResultCacheTest(String testName) {
+		super(testName);
+	}
+
+	public void testResultsAreKeptPerContext() throws Exception {
+		DecorationResultCache cache = new DecorationResultCache(10, 60000);
+		DecorationResult result = createResult();
+		Object element = "element";
+		cache.put(element, CONTEXT, result);
+
+		assertSame(result, cache.get(element, CONTEXT));
+		assertNull(cache.get(element, new DecorationContext()));
+		assertNull(cache.get("other", CONTEXT));
+	}
+
+	public void testLeastRecentlyUsedResultIsDropped() throws Exception {
+		DecorationResultCache cache = new DecorationResultCache(3, 60000);
+		cache.put("a", CONTEXT, createResult());
+		cache.put("b", CONTEXT, createResult());
+		cache.put("c", CONTEXT, createResult());
+		// using "a" makes "b" the least recently used result
+		assertNotNull(cache.get("a", CONTEXT));
+		cache.put("d", CONTEXT, createResult());
+
+		assertEquals(3, cache.size());
+		assertNotNull(cache.get("a", CONTEXT));
+		assertNull(cache.get("b", CONTEXT));
+		assertNotNull(cache.get("c", CONTEXT));
+		assertNotNull(cache.get("d", CONTEXT));
+	}
+
+	public void testExpiredResultIsNotReturned() throws Exception {
+		DecorationResultCache cache = new DecorationResultCache(10, 50);
+		cache.put("element", CONTEXT, createResult());
+		Thread.sleep(100);
+
+		assertNull(cache.get("element", CONTEXT));
+		assertEquals(0, cache.size());
+	}
+
+	public void testRemoveExpired() throws Exception {
+		DecorationResultCache cache = new DecorationResultCache(10, 200);
+		cache.put("old", CONTEXT, createResult());
+		Thread.sleep(300);
+		cache.put("new", CONTEXT, createResult());
+		cache.removeExpired();
+
+		assertEquals(1, cache.size());
+		assertNotNull(cache.get("new", CONTEXT));
+	}
+
+	public void testClear() throws Exception {
+		DecorationResultCache cache = new DecorationResultCache(10, 60000);
+		cache.put("a", CONTEXT, createResult());
+		cache.put("b", CONTEXT, createResult());
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertNull(cache.get("a", CONTEXT));
+	}
+
+	/**
+	 * Results can only be created by a builder within the workbench.
+	 */
+	static DecorationResult createResult() throws Exception {
+		Method createResult = DecorationBuilder.class
+				.getDeclaredMethod("createResult", new Class[0]);
+		createResult.setAccessible(true);
+		return (DecorationResult) createResult.invoke(new DecorationBuilder(
+				CONTEXT), new Object[0]);
+	}
+}
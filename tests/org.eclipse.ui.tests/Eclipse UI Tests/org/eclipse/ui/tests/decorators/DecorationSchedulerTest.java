@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.DecorationContext;
+import org.eclipse.jface.viewers.IDecorationContext;
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.decorators.DecorationResultCache;
+import org.eclipse.ui.internal.decorators.DecorationScheduler;
+import org.eclipse.ui.internal.decorators.DecoratorManager;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests the jobs and the queue of the {@link DecorationScheduler}. Each test
+ * uses a scheduler of its own.
+ *
+ * @since 3.10
+ */
+public class DecorationSchedulerTest extends UITestCase {
+
+	private DecoratorManager manager;
+
+	private DecorationScheduler scheduler;
+
+	public DecorationSchedulerTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		manager = WorkbenchPlugin.getDefault().getDecoratorManager();
+		Constructor constructor = DecorationScheduler.class
+				.getDeclaredConstructor(new Class[] { DecoratorManager.class });
+		constructor.setAccessible(true);
+		scheduler = (DecorationScheduler) constructor
+				.newInstance(new Object[] { manager });
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		invoke("shutdown", new Class[0], new Object[0]);
+		scheduler = null;
+		super.doTearDown();
+	}
+
+	public void testOneDecorationJobByDefault() throws Exception {
+		if (System.getProperty("org.eclipse.ui.decorators.jobs") != null) {
+			return;
+		}
+		assertEquals(1, ((Job[]) get("decorationJobs")).length);
+	}
+
+	public void testElementIsQueuedOnce() throws Exception {
+		// a shut down scheduler queues elements but does not decorate them
+		invoke("shutdown", new Class[0], new Object[0]);
+		Object element = new Object();
+		IDecorationContext otherContext = new DecorationContext();
+		queue(element, false, DecorationContext.DEFAULT_CONTEXT);
+		queue(element, true, otherContext);
+
+		assertEquals(1, ((List) get("awaitingDecoration")).size());
+		Object reference = ((Map) get("awaitingDecorationValues")).get(element);
+		assertEquals(Boolean.TRUE, invoke(reference, "shouldForceUpdate",
+				new Class[0], new Object[0]));
+		Object[] contexts = (Object[]) invoke(reference, "getContexts",
+				new Class[0], new Object[0]);
+		assertEquals(2, contexts.length);
+	}
+
+	public void testQueuedElementsAreDecorated() throws Exception {
+		final Object[] elements = new Object[100];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new Object();
+		}
+		final Set updated = Collections.synchronizedSet(new HashSet());
+		ILabelProviderListener listener = new ILabelProviderListener() {
+			@Override
+			public void labelProviderChanged(LabelProviderChangedEvent event) {
+				Object[] changed = event.getElements();
+				if (changed != null) {
+					updated.addAll(Arrays.asList(changed));
+				}
+			}
+		};
+		manager.addListener(listener);
+		try {
+			for (int i = 0; i < elements.length; i++) {
+				// forcing an update reports elements without decorations
+				queue(elements[i], true, DecorationContext.DEFAULT_CONTEXT);
+			}
+			assertTrue("Not all elements were updated", processEventsUntil(
+					new Condition() {
+						@Override
+						public boolean compute() {
+							return updated.containsAll(Arrays.asList(elements));
+						}
+					}, 10000));
+		} finally {
+			manager.removeListener(listener);
+		}
+	}
+
+	public void testResultsAreKeptWhileElementsAreDecorated() throws Exception {
+		invoke("shutdown", new Class[0], new Object[0]);
+		DecorationResultCache cache = (DecorationResultCache) get("resultCache");
+		Object element = new Object();
+		cache.put(element, DecorationContext.DEFAULT_CONTEXT,
+				DecorationResultCacheTest.createResult());
+		Set decorating = (Set) get("decorating");
+
+		// another job is still computing a decoration
+		decorating.add(new Object());
+		invoke("discardResults", new Class[0], new Object[0]);
+		assertEquals(1, cache.size());
+
+		decorating.clear();
+		invoke("discardResults", new Class[0], new Object[0]);
+		assertEquals(0, cache.size());
+	}
+
+	private void queue(Object element, boolean force, IDecorationContext context)
+			throws Exception {
+		invoke("queueForDecoration", new Class[] { Object.class, Object.class,
+				boolean.class, String.class, IDecorationContext.class },
+				new Object[] { element, null, Boolean.valueOf(force), null,
+						context });
+	}
+
+	private Object get(String fieldName) throws Exception {
+		Field field = DecorationScheduler.class.getDeclaredField(fieldName);
+		field.setAccessible(true);
+		return field.get(scheduler);
+	}
+
+	private Object invoke(String methodName, Class[] types, Object[] args)
+			throws Exception {
+		return invoke(scheduler, methodName, types, args);
+	}
+
+	private static Object invoke(Object target, String methodName,
+			Class[] types, Object[] args) throws Exception {
+		Method method = target.getClass().getDeclaredMethod(methodName, types);
+		method.setAccessible(true);
+		return method.invoke(target, args);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,8 @@ public class DecoratorsTestSuite extends TestSuite {
 //		addTest(new TestSuite(DecoratorTableTreeTest.class));
 		addTest(DecoratorAdaptableTests.suite());
 		addTest(new TestSuite(DecoratorCacheTest.class));
+		addTest(new TestSuite(DecorationResultCacheTest.class));
+		addTest(new TestSuite(DecorationSchedulerTest.class));
 	}
 
 }
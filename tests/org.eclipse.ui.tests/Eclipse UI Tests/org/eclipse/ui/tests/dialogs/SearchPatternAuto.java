@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,16 @@
 package org.eclipse.ui.tests.dialogs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import junit.framework.TestCase;
 
 import org.eclipse.ui.dialogs.SearchPattern;
+import org.eclipse.ui.dialogs.SearchPatternIndex;
 
 /**
  * Test case for tests SearchPattern match functionality
@@ -228,4 +232,34 @@ public class SearchPatternAuto extends TestCase {
 		}
 	}
 
+	/**
+	 * Tests search pattern index functionality.
+	 * For every kind of pattern, the index should find the same resources as matching every resource.
+	 */
+	public void testIndexMatches() {
+		String[] patternTexts = { "abcd ", "abcdefgh<", "ab", "**cDe", "**c*e*i", "a?c*", "CD", "AbCd ", "AbCdE<", "",
+				"I*", "i", "\u0131", "\u0130*", "*tI*", "FI?e" };
+		// dotless and dotted i only match other i's by their upper case
+		List texts = new ArrayList(resources);
+		texts.add("\u0131mage");
+		texts.add("\u0130con");
+		texts.add("f\u0131le");
+		texts.add("Ed\u0131tor");
+		String[] names = (String[]) texts.toArray(new String[texts.size()]);
+		SearchPatternIndex index = new SearchPatternIndex(names, names);
+		assertEquals(names.length, index.size());
+		for (int i = 0; i < patternTexts.length; i++) {
+			SearchPattern patternMatcher = new SearchPattern();
+			patternMatcher.setPattern(patternTexts[i]);
+			HashSet expected = new HashSet();
+			for (Iterator iter = texts.iterator(); iter.hasNext();) {
+				String res = (String) iter.next();
+				if (patternMatcher.matches(res)) {
+					expected.add(res);
+				}
+			}
+			assertEquals(patternTexts[i], expected, new HashSet(Arrays.asList(index.getMatches(patternMatcher))));
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,5 +44,6 @@ public class UIAutomatedSuite extends TestSuite {
 		addTest(new TestSuite(UIEditWorkingSetWizardAuto.class));
 		addTest(new TestSuite(SearchPatternAuto.class));
 		addTest(new TestSuite(UIFilteredResourcesSelectionDialogAuto.class));
+		addTest(new TestSuite(UIFilteredItemsIndexedSearchAuto.class));
 	}
 }
@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.dialogs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.dialogs.DialogSettings;
+import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.swt.events.ShellAdapter;
+import org.eclipse.swt.events.ShellEvent;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.dialogs.FilteredItemsSelectionDialog;
+import org.eclipse.ui.dialogs.FilteredResourcesSelectionDialog;
+import org.eclipse.ui.dialogs.SearchPattern;
+
+/**
+ * Tests the indexed search of FilteredItemsSelectionDialog, comparing it with
+ * the serial search of the cached items.
+ *
+ * @since 3.10
+ */
+public class UIFilteredItemsIndexedSearchAuto extends
+		UIAbstractFilteredResourcesSelectionDialog {
+
+	private static final long TIMEOUT = 10000;
+
+	private static final int ITEM_COUNT = 3000;
+
+	private abstract class Condition {
+		abstract boolean test();
+	}
+
+	private List dialogs = new ArrayList();
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (int i = 0; i < dialogs.size(); i++) {
+			FilteredItemsSelectionDialog dialog = (FilteredItemsSelectionDialog) dialogs
+					.get(i);
+			if (dialog.getShell() != null) {
+				dialog.getShell().dispose();
+				dialog.close();
+			}
+		}
+		dialogs.clear();
+		super.tearDown();
+	}
+
+	/**
+	 * Checks that the indexed search only matches the items whose names start
+	 * with the prefix of a narrowed pattern, and finds what the serial search
+	 * finds.
+	 *
+	 * @throws Exception
+	 */
+	public void testIndexedNarrowing() throws Exception {
+		StringItemsDialog indexed = openStringItemsDialog(true);
+		StringItemsDialog serial = openStringItemsDialog(false);
+
+		setPattern(indexed, "i");
+		setPattern(serial, "i");
+		waitForMatches(indexed, "i");
+		waitForMatches(serial, "i");
+
+		indexed.startRecording();
+		serial.startRecording();
+		setPattern(indexed, "it");
+		setPattern(serial, "it");
+		waitForMatches(indexed, "it");
+		waitForMatches(serial, "it");
+
+		Set indexedMatched = indexed.stopRecording();
+		assertEquals(ITEM_COUNT, indexedMatched.size());
+		assertFalse(indexedMatched.contains(getName("idea", 0)));
+		assertTrue(serial.stopRecording().contains(getName("idea", 0)));
+	}
+
+	/**
+	 * Checks that the result of the last narrowed search is matched instead
+	 * of the items of the index when the pattern narrows it further.
+	 *
+	 * @throws Exception
+	 */
+	public void testNarrowedResultReused() throws Exception {
+		StringItemsDialog dialog = openStringItemsDialog(true);
+
+		setPattern(dialog, "i");
+		waitForMatches(dialog, "i");
+		setPattern(dialog, "it*5");
+		waitForMatches(dialog, "it*5");
+
+		dialog.startRecording();
+		setPattern(dialog, "it*55");
+		waitForMatches(dialog, "it*55");
+
+		Set matched = dialog.stopRecording();
+		assertEquals(getMatches("it*5").size(), matched.size());
+		assertTrue(matched.containsAll(getMatches("it*5")));
+	}
+
+	/**
+	 * Checks that the first matches are shown before all items are matched.
+	 *
+	 * @throws Exception
+	 */
+	public void testFirstMatchesShown() throws Exception {
+		final StringItemsDialog dialog = openStringItemsDialog(true);
+
+		setPattern(dialog, "i");
+		waitForMatches(dialog, "i");
+
+		dialog.blocked = new CountDownLatch(1);
+		try {
+			setPattern(dialog, "it");
+			waitFor(new Condition() {
+				@Override
+				boolean test() {
+					int count = getTable(dialog).getItemCount();
+					return count > 0 && count < ITEM_COUNT;
+				}
+			}, "First matches not shown");
+		} finally {
+			dialog.blocked.countDown();
+		}
+		waitForMatches(dialog, "it");
+	}
+
+	/**
+	 * Checks that a name and extension pattern narrowing the last search
+	 * finds the resources whose names match the name and extension parts.
+	 *
+	 * @throws Exception
+	 */
+	public void testNameAndExtensionPattern() throws Exception {
+		IResource[] first = new IResource[] {
+				getFile(getFirstFolderName(), "file1H.txt"),
+				getFile(getFirstFolderName(), "file2H.avi"),
+				getFile(getFirstFolderName(), "file1.txt"),
+				getFile(getFirstFolderName(), "file2.avi"),
+				getFile(getSecondFolderName(), "file1.txt"),
+				getFile(getSecondFolderName(), "file2.avi") };
+		IResource[] narrowed = new IResource[] {
+				getFile(getFirstFolderName(), "file1H.txt"),
+				getFile(getFirstFolderName(), "file1.txt"),
+				getFile(getSecondFolderName(), "file1.txt") };
+
+		assertResourcePatterns(new String[] { "f", "fi.tx" }, new IResource[][] {
+				first, narrowed });
+	}
+
+	/**
+	 * Checks that a folder and name pattern only finds the resources of the
+	 * folder.
+	 *
+	 * @throws Exception
+	 */
+	public void testFolderAndNamePattern() throws Exception {
+		String folder = getFirstFolderName();
+		IResource[] first = new IResource[] {
+				getFile(folder, "file1H.txt"), getFile(folder, "file2H.avi"),
+				getFile(folder, "file1.txt"), getFile(folder, "file2.avi") };
+		IResource[] narrowed = new IResource[] {
+				getFile(folder, "file1H.txt"), getFile(folder, "file1.txt") };
+
+		String path = project.getFolder(folder).getFullPath().toString();
+		assertResourcePatterns(new String[] { path + "/f", path + "/file1" },
+				new IResource[][] { first, narrowed });
+	}
+
+	private void assertResourcePatterns(String[] patterns,
+			IResource[][] expected) {
+		ResourcesDialog indexed = openResourcesDialog(true);
+		ResourcesDialog serial = openResourcesDialog(false);
+		for (int i = 0; i < patterns.length; i++) {
+			setPattern(indexed, patterns[i]);
+			setPattern(serial, patterns[i]);
+			waitForResources(indexed, expected[i]);
+			waitForResources(serial, expected[i]);
+		}
+	}
+
+	private IResource getFile(String folder, String name) {
+		return project.getFolder(folder).getFile(name);
+	}
+
+	private static String getName(String prefix, int i) {
+		String number = String.valueOf(i);
+		while (number.length() < 4) {
+			number = "0" + number;
+		}
+		return prefix + number;
+	}
+
+	private static Set getMatches(String pattern) {
+		SearchPattern searchPattern = new SearchPattern();
+		searchPattern.setPattern(pattern);
+		Set matches = new HashSet();
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			String item = getName("item", i);
+			if (searchPattern.matches(item)) {
+				matches.add(item);
+			}
+			String idea = getName("idea", i);
+			if (searchPattern.matches(idea)) {
+				matches.add(idea);
+			}
+		}
+		return matches;
+	}
+
+	private StringItemsDialog openStringItemsDialog(boolean indexed) {
+		StringItemsDialog dialog = new StringItemsDialog(getParentShell(),
+				indexed);
+		open(dialog);
+		return dialog;
+	}
+
+	private ResourcesDialog openResourcesDialog(boolean indexed) {
+		ResourcesDialog dialog = new ResourcesDialog(getParentShell(),
+				ResourcesPlugin.getWorkspace().getRoot(), indexed);
+		open(dialog);
+		return dialog;
+	}
+
+	private static Shell getParentShell() {
+		return PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
+	}
+
+	private void open(FilteredItemsSelectionDialog dialog) {
+		dialogs.add(dialog);
+		dialog.create();
+		dialog.setBlockOnOpen(false);
+		dialog.getShell().addShellListener(new ShellAdapter() {
+			@Override
+			public void shellClosed(ShellEvent e) {
+				e.doit = false;
+			}
+		});
+		dialog.open();
+		processEvents();
+	}
+
+	private void setPattern(FilteredItemsSelectionDialog dialog, String pattern) {
+		((Text) findControl(dialog.getShell(), Text.class)).setText(pattern);
+	}
+
+	private static Table getTable(FilteredItemsSelectionDialog dialog) {
+		return (Table) findControl(dialog.getShell(), Table.class);
+	}
+
+	private static Control findControl(Composite parent, Class type) {
+		Control[] children = parent.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			if (type.isInstance(children[i])) {
+				return children[i];
+			}
+			if (children[i] instanceof Composite) {
+				Control control = findControl((Composite) children[i], type);
+				if (control != null) {
+					return control;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void waitForMatches(final StringItemsDialog dialog,
+			final String pattern) {
+		final int expected = getMatches(pattern).size();
+		waitFor(new Condition() {
+			@Override
+			boolean test() {
+				return getTable(dialog).getItemCount() == expected;
+			}
+		}, "Matches of " + pattern + " not shown");
+	}
+
+	private void waitForResources(final ResourcesDialog dialog,
+			IResource[] expected) {
+		final Set expectedSet = new HashSet();
+		Collections.addAll(expectedSet, expected);
+		waitFor(new Condition() {
+			@Override
+			boolean test() {
+				return expectedSet.equals(getShownResources(dialog));
+			}
+		}, "Resources not shown: " + expectedSet);
+	}
+
+	private static Set getShownResources(ResourcesDialog dialog) {
+		Set resources = new HashSet();
+		TableItem[] items = getTable(dialog).getItems();
+		for (int i = 0; i < items.length; i++) {
+			// materializes the virtual item
+			items[i].getText();
+			if (items[i].getData() instanceof IResource) {
+				resources.add(items[i].getData());
+			}
+		}
+		return resources;
+	}
+
+	private void waitFor(Condition condition, String message) {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!condition.test()) {
+			if (System.currentTimeMillis() > end) {
+				fail(message);
+			}
+			processEvents();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void processEvents() {
+		Display display = Display.getCurrent();
+		while (display.readAndDispatch()) {
+		}
+	}
+
+	private static class ResourcesDialog extends
+			FilteredResourcesSelectionDialog {
+
+		private final boolean indexed;
+
+		public ResourcesDialog(Shell shell, IContainer container,
+				boolean indexed) {
+			super(shell, true, container, IResource.FILE);
+			this.indexed = indexed;
+		}
+
+		@Override
+		protected boolean isIndexedSearchEnabled() {
+			return indexed;
+		}
+	}
+
+	/**
+	 * A dialog on "item" and "idea" names that records the items it matches.
+	 */
+	private static class StringItemsDialog extends
+			FilteredItemsSelectionDialog {
+
+		private final boolean indexed;
+
+		private final IDialogSettings settings = new DialogSettings(
+				"StringItemsDialog");
+
+		private Set matched;
+
+		volatile CountDownLatch blocked;
+
+		public StringItemsDialog(Shell shell, boolean indexed) {
+			super(shell);
+			this.indexed = indexed;
+		}
+
+		synchronized void startRecording() {
+			matched = new HashSet();
+		}
+
+		synchronized Set stopRecording() {
+			Set result = matched;
+			matched = null;
+			return result;
+		}
+
+		synchronized void record(Object item) {
+			if (matched != null) {
+				matched.add(item);
+			}
+		}
+
+		@Override
+		protected boolean isIndexedSearchEnabled() {
+			return indexed;
+		}
+
+		@Override
+		protected Control createExtendedContentArea(Composite parent) {
+			return null;
+		}
+
+		@Override
+		protected IDialogSettings getDialogSettings() {
+			return settings;
+		}
+
+		@Override
+		protected IStatus validateItem(Object item) {
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		protected ItemsFilter createFilter() {
+			return new ItemsFilter() {
+				@Override
+				public boolean matchItem(Object item) {
+					record(item);
+					CountDownLatch latch = blocked;
+					if (latch != null
+							&& getName("item", ITEM_COUNT - 1).equals(item)) {
+						try {
+							latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					return matches((String) item);
+				}
+
+				@Override
+				public boolean isConsistentItem(Object item) {
+					return true;
+				}
+			};
+		}
+
+		@Override
+		protected Comparator getItemsComparator() {
+			return new Comparator() {
+				@Override
+				public int compare(Object o1, Object o2) {
+					return ((String) o1).compareTo((String) o2);
+				}
+			};
+		}
+
+		@Override
+		protected void fillContentProvider(
+				AbstractContentProvider contentProvider,
+				ItemsFilter itemsFilter, IProgressMonitor progressMonitor)
+				throws CoreException {
+			for (int i = 0; i < ITEM_COUNT; i++) {
+				contentProvider.add(getName("item", i), itemsFilter);
+				contentProvider.add(getName("idea", i), itemsFilter);
+			}
+		}
+
+		@Override
+		public String getElementName(Object item) {
+			return (String) item;
+		}
+	}
+}
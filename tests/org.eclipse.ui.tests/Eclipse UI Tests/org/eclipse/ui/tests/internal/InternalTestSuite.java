@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,8 @@ import org.eclipse.ui.tests.api.TrimLayoutTest;
 import org.eclipse.ui.tests.markers.Bug75909Test;
 import org.eclipse.ui.tests.markers.DeclarativeFilterActivityTest;
 import org.eclipse.ui.tests.markers.DeclarativeFilterDeclarationTest;
+import org.eclipse.ui.tests.markers.MarkerCacheTest;
+import org.eclipse.ui.tests.markers.MarkerEntryTest;
 import org.eclipse.ui.tests.markers.MarkerSortUtilTest;
 import org.eclipse.ui.tests.markers.MarkerSupportRegistryTests;
 import org.eclipse.ui.tests.markers.MarkerTesterTest;
@@ -54,6 +56,8 @@ public class InternalTestSuite extends TestSuite {
         addTest(new TestSuite(MarkerSupportRegistryTests.class));
         addTest(new TestSuite(MarkerSortUtilTest.class));
         addTest(new TestSuite(MarkerViewTests.class));
+        addTest(new TestSuite(MarkerCacheTest.class));
+        addTest(new TestSuite(MarkerEntryTest.class));
         addTest(Bug99858Test.suite());
         addTest(new TestSuite(WorkbenchWindowSubordinateSourcesTests.class));
         addTest(new TestSuite(ReopenMenuTest.class));
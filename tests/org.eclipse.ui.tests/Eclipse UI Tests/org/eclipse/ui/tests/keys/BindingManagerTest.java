@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.ui.tests.keys;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -978,4 +979,107 @@ public final class BindingManagerTest extends UITestCase {
 				.getBestActiveBindingFor(console);
 		assertEquals(b3.getTriggerSequence(), bestBinding2);
 	}
+
+	/**
+	 * Tests that the bindings computed when the active contexts change, from
+	 * the previous bindings or from the cache, are the same as the bindings
+	 * computed by a new binding manager for the same contexts.
+	 *
+	 * @throws Exception
+	 *             If the bindings cannot be set up.
+	 */
+	public final void testContextChangesMatchFullComputation()
+			throws Exception {
+		final String[] contextIds = new String[] { "a", "b", "c", "d", "e" };
+		final String[] parentIds = new String[] { null, "a", null, "c", "b" };
+		defineContexts(contextManager, contextIds, parentIds);
+		final Scheme scheme = bindingManager.getScheme("na");
+		scheme.define("name", "description", null);
+		bindingManager.setActiveScheme(scheme);
+
+		final TriggerSequence[] triggers = new TriggerSequence[] {
+				KeySequence.getInstance("CTRL+1"),
+				KeySequence.getInstance("CTRL+2"),
+				KeySequence.getInstance("CTRL+X"),
+				KeySequence.getInstance("CTRL+X A"),
+				KeySequence.getInstance("CTRL+X B"),
+				KeySequence.getInstance("CTRL+X B C") };
+		final ParameterizedCommand[] commands = new ParameterizedCommand[8];
+		for (int i = 0; i < commands.length; i++) {
+			commands[i] = ParameterizedCommand.generateCommand(
+					commandManager.getCommand("command" + i), null);
+		}
+		final Binding[] bindings = new Binding[] {
+				new KeyBinding((KeySequence) triggers[0], commands[0], "na",
+						"a", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[0], commands[1], "na",
+						"b", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[1], commands[2], "na",
+						"a", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[1], commands[3], "na",
+						"c", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[2], commands[4], "na",
+						"c", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[3], commands[5], "na",
+						"d", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[4], commands[6], "na",
+						"e", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[5], commands[7], "na",
+						"b", null, null, null, Binding.SYSTEM),
+				new KeyBinding((KeySequence) triggers[3], commands[4], "na",
+						"e", null, null, null, Binding.USER) };
+		bindingManager.setBindings(bindings);
+
+		// Go through all combinations of contexts twice, in a shuffled order.
+		final int combinations = 1 << contextIds.length;
+		for (int i = 0; i < 2 * combinations; i++) {
+			final int combination = (i * 13) % combinations;
+			final Set activeContextIds = new HashSet();
+			for (int j = 0; j < contextIds.length; j++) {
+				if ((combination & (1 << j)) != 0) {
+					activeContextIds.add(contextIds[j]);
+				}
+			}
+			contextManager.setActiveContextIds(activeContextIds);
+
+			final ContextManager expectedContextManager = new ContextManager();
+			defineContexts(expectedContextManager, contextIds, parentIds);
+			final BindingManager expectedBindingManager = new BindingManager(
+					expectedContextManager, commandManager);
+			final Scheme expectedScheme = expectedBindingManager
+					.getScheme("na");
+			expectedScheme.define("name", "description", null);
+			expectedBindingManager.setActiveScheme(expectedScheme);
+			expectedBindingManager.setBindings(bindings);
+			expectedContextManager.setActiveContextIds(activeContextIds);
+
+			final String message = "Active contexts " + activeContextIds;
+			for (int j = 0; j < triggers.length; j++) {
+				assertEquals(message,
+						expectedBindingManager.getPerfectMatch(triggers[j]),
+						bindingManager.getPerfectMatch(triggers[j]));
+				assertEquals(message,
+						expectedBindingManager.getPartialMatches(triggers[j]),
+						bindingManager.getPartialMatches(triggers[j]));
+				assertEquals(message,
+						expectedBindingManager.getConflictsFor(triggers[j]),
+						bindingManager.getConflictsFor(triggers[j]));
+			}
+			for (int j = 0; j < commands.length; j++) {
+				assertEquals(message, new HashSet(Arrays
+						.asList(expectedBindingManager
+								.getActiveBindingsFor(commands[j]))),
+						new HashSet(Arrays.asList(bindingManager
+								.getActiveBindingsFor(commands[j]))));
+			}
+		}
+	}
+
+	private static void defineContexts(final ContextManager manager,
+			final String[] contextIds, final String[] parentIds) {
+		for (int i = 0; i < contextIds.length; i++) {
+			manager.getContext(contextIds[i]).define(contextIds[i],
+					contextIds[i], parentIds[i]);
+		}
+	}
 }
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * MarkerCacheTest tests that the markers a markers view keeps between
+ * updates follow the marker deltas of the workspace.
+ *
+ * @since 3.10
+ *
+ */
+public class MarkerCacheTest extends AbstractNavigatorTest {
+
+	private static final long TIMEOUT = 10000;
+
+	private MarkersTestMarkersView view;
+
+	/**
+	 * Create an instance of the receiver.
+	 *
+	 * @param testName
+	 */
+	public MarkerCacheTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+		IWorkbenchPage page = PlatformUI.getWorkbench()
+				.getActiveWorkbenchWindow().getActivePage();
+		view = (MarkersTestMarkersView) page
+				.showView("org.eclipse.ui.tests.markerTests");
+		waitForUpdate();
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		view.getSite().getPage().hideView(view);
+		view = null;
+		super.doTearDown();
+	}
+
+	public void testAddedMarkers() throws CoreException {
+		IMarker first = createProblem("first");
+		assertShown(first, true);
+
+		// the scope of the file is cached now
+		IMarker second = createProblem("second");
+		assertShown(first, true);
+		assertShown(second, true);
+	}
+
+	public void testRemovedMarkers() throws CoreException {
+		IMarker first = createProblem("first");
+		IMarker second = createProblem("second");
+		assertShown(second, true);
+
+		first.delete();
+		assertShown(first, false);
+		assertShown(second, true);
+	}
+
+	public void testChangedMarkers() throws CoreException {
+		IMarker marker = createProblem("first");
+		assertShown(marker, true);
+
+		marker.setAttribute(IMarker.MESSAGE, "changed");
+		assertShown(marker, true);
+		assertEquals(1, countShown(marker));
+	}
+
+	public void testClosedProject() throws CoreException {
+		IMarker marker = createProblem("first");
+		assertShown(marker, true);
+
+		testProject.close(null);
+		assertShown(marker, false);
+
+		// the markers of an opened project are not reported as deltas
+		testProject.open(null);
+		assertShown(marker, true);
+	}
+
+	private IMarker createProblem(String message) throws CoreException {
+		IMarker marker = testFile.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.MESSAGE, message);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		return marker;
+	}
+
+	/**
+	 * Wait until the view shows the marker, or until it no longer does.
+	 */
+	private void assertShown(IMarker marker, boolean shown) {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (countShown(marker) > 0 != shown) {
+			if (System.currentTimeMillis() > end) {
+				fail((shown ? "Marker not shown: " : "Marker still shown: ")
+						+ marker);
+			}
+			waitForUpdate();
+		}
+	}
+
+	private int countShown(IMarker marker) {
+		IMarker[] markers = view.getCurrentMarkers();
+		int count = 0;
+		for (int i = 0; i < markers.length; i++) {
+			if (markers[i].equals(marker)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void waitForUpdate() {
+		processEvents();
+		try {
+			Job.getJobManager().join(view.MARKERSVIEW_UPDATE_JOB_FAMILY,
+					new NullProgressMonitor());
+		} catch (OperationCanceledException e) {
+		} catch (InterruptedException e) {
+		}
+		processEvents();
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.ui.internal.views.markers.MockMarkerEntry;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * MarkerEntryTest tests the attributes that a marker entry reads from its
+ * marker.
+ *
+ * @since 3.10
+ *
+ */
+public class MarkerEntryTest extends AbstractNavigatorTest {
+
+	private IMarker marker;
+
+	/**
+	 * Create an instance of the receiver.
+	 *
+	 * @param testName
+	 */
+	public MarkerEntryTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+		marker = testFile.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		marker.setAttribute(IMarker.MESSAGE, "first");
+		marker.setAttribute(IMarker.LINE_NUMBER, 10);
+	}
+
+	public void testAttributes() {
+		MockMarkerEntry entry = new MockMarkerEntry(marker);
+		assertEquals(IMarker.SEVERITY_ERROR,
+				entry.getAttributeValue(IMarker.SEVERITY, -1));
+		assertEquals(10, entry.getAttributeValue(IMarker.LINE_NUMBER, -1));
+		assertEquals("first", entry.getAttributeValue(IMarker.MESSAGE, ""));
+		assertEquals(-1, entry.getAttributeValue(IMarker.PRIORITY, -1));
+		assertFalse(entry.getAttributeValue(IMarker.DONE, false));
+	}
+
+	public void testClearCacheKeepsAttributes() throws CoreException {
+		MockMarkerEntry entry = new MockMarkerEntry(marker);
+		assertEquals(IMarker.SEVERITY_ERROR,
+				entry.getAttributeValue(IMarker.SEVERITY, -1));
+
+		// filtering and sorting clear the cache but use the values read once
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		entry.clearCache();
+		assertEquals(IMarker.SEVERITY_ERROR,
+				entry.getAttributeValue(IMarker.SEVERITY, -1));
+	}
+
+	public void testClearSnapshotReadsChangedAttributes() throws CoreException {
+		MockMarkerEntry entry = new MockMarkerEntry(marker);
+		assertEquals(IMarker.SEVERITY_ERROR,
+				entry.getAttributeValue(IMarker.SEVERITY, -1));
+		assertEquals("first", entry.getAttributeValue(IMarker.MESSAGE, ""));
+		assertEquals(-1, entry.getAttributeValue(IMarker.PRIORITY, -1));
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		marker.setAttribute(IMarker.MESSAGE, "second");
+		marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+		entry.clearSnapshot();
+		assertEquals(IMarker.SEVERITY_WARNING,
+				entry.getAttributeValue(IMarker.SEVERITY, -1));
+		assertEquals("second", entry.getAttributeValue(IMarker.MESSAGE, ""));
+		assertEquals(IMarker.PRIORITY_HIGH,
+				entry.getAttributeValue(IMarker.PRIORITY, -1));
+	}
+
+	public void testClearSnapshotAfterDelete() throws CoreException {
+		MockMarkerEntry entry = new MockMarkerEntry(marker);
+		assertEquals("first", entry.getAttributeValue(IMarker.MESSAGE, ""));
+
+		marker.delete();
+		entry.clearSnapshot();
+		assertEquals("", entry.getAttributeValue(IMarker.MESSAGE, ""));
+		assertEquals(-1, entry.getAttributeValue(IMarker.SEVERITY, -1));
+	}
+}
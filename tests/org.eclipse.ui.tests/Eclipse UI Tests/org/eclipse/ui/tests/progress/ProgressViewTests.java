@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,13 +11,23 @@
 
 package org.eclipse.ui.tests.progress;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.ui.internal.progress.JobInfo;
 import org.eclipse.ui.internal.progress.JobTreeElement;
 import org.eclipse.ui.internal.progress.ProgressInfoItem;
+import org.eclipse.ui.internal.progress.ProgressManager;
 import org.eclipse.ui.internal.progress.TaskInfo;
 import org.eclipse.ui.progress.IProgressConstants;
+import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 
 /**
  * @since 3.6
@@ -26,6 +36,12 @@ import org.eclipse.ui.progress.IProgressConstants;
  */
 public class ProgressViewTests extends ProgressTestCase {
 
+	/**
+	 * The milliseconds between two publications of reported progress, see
+	 * ProgressPublisher.
+	 */
+	private static final int PUBLISH_INTERVAL = 100;
+
 	/**
 	 * @param testName
 	 */
@@ -81,6 +97,205 @@ public class ProgressViewTests extends ProgressTestCase {
 		return found;
 	}
 
+	public void testShowBusyForNullFamily() throws Exception {
+		openProgressView();
+		IWorkbenchSiteProgressService service = (IWorkbenchSiteProgressService) progressView
+				.getSite().getService(IWorkbenchSiteProgressService.class);
+		service.showBusyForFamily(null);
+
+		// the busy listeners of the family are looked up for the job
+		runDummyJob();
+	}
+
+	public void testProgressIsPublishedAtFixedRate() throws Exception {
+		ReportingJob job = new ReportingJob(10);
+		PublishedProgress published = new PublishedProgress(job);
+		Object listener = published.addTo(ProgressManager.getInstance());
+		try {
+			long start = System.currentTimeMillis();
+			job.schedule();
+			assertTrue("The final progress was not published",
+					published.awaitFinalState(job, 10000));
+			long elapsed = System.currentTimeMillis() - start;
+
+			// beginTask and the job state changes refresh at once, the
+			// reported progress is refreshed at most once per interval
+			int limit = (int) (elapsed / PUBLISH_INTERVAL) + 4;
+			assertTrue("Published " + published.refreshes.get()
+					+ " refreshes in " + elapsed + " ms",
+					published.refreshes.get() <= limit);
+			assertTrue(published.refreshes.get() < ReportingJob.STEPS);
+		} finally {
+			job.finish.countDown();
+			job.join();
+			removeListener(ProgressManager.getInstance(), listener);
+		}
+	}
+
+	public void testFinalProgressIsPublished() throws Exception {
+		ReportingJob job = new ReportingJob(0);
+		PublishedProgress published = new PublishedProgress(job);
+		Object listener = published.addTo(ProgressManager.getInstance());
+		try {
+			job.schedule();
+			// the job keeps running until the last report has been published
+			assertTrue("The final progress was not published",
+					published.awaitFinalState(job, 10000));
+		} finally {
+			job.finish.countDown();
+			job.join();
+			removeListener(ProgressManager.getInstance(), listener);
+		}
+	}
+
+	/**
+	 * A job that reports many steps of progress and keeps running until it is
+	 * told to finish.
+	 */
+	private static class ReportingJob extends Job {
+
+		static final int STEPS = 1000;
+
+		static final String LAST_STEP = "Step " + (STEPS - 1);
+
+		final CountDownLatch reported = new CountDownLatch(1);
+
+		final CountDownLatch finish = new CountDownLatch(1);
+
+		private final int pause;
+
+		/**
+		 * @param pause
+		 *            the milliseconds to wait every 100 steps
+		 */
+		ReportingJob(int pause) {
+			super("Reporting Job");
+			this.pause = pause;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			monitor.beginTask("Reporting", STEPS);
+			try {
+				for (int i = 0; i < STEPS; i++) {
+					monitor.subTask("Step " + i);
+					monitor.worked(1);
+					if (pause > 0 && i % 100 == 0) {
+						Thread.sleep(pause);
+					}
+				}
+				reported.countDown();
+				finish.await();
+			} catch (InterruptedException e) {
+				return Status.CANCEL_STATUS;
+			} finally {
+				monitor.done();
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Records the refreshes of a job that the {@link ProgressManager} sends to
+	 * its listeners. The listener interface is internal to the progress
+	 * package, so a proxy is registered through reflection.
+	 */
+	private static class PublishedProgress implements InvocationHandler {
+
+		final AtomicInteger refreshes = new AtomicInteger();
+
+		private final Job job;
+
+		private volatile int percentDone;
+
+		private volatile String subTask;
+
+		PublishedProgress(Job job) {
+			this.job = job;
+		}
+
+		Object addTo(ProgressManager manager) throws Exception {
+			Class listenerClass = listenerClass();
+			Object listener = Proxy.newProxyInstance(
+					listenerClass.getClassLoader(),
+					new Class[] { listenerClass }, this);
+			Method add = ProgressManager.class.getDeclaredMethod("addListener",
+					new Class[] { listenerClass });
+			add.setAccessible(true);
+			add.invoke(manager, new Object[] { listener });
+			return listener;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+				throws Throwable {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+			if (name.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+			if (name.equals("toString")) {
+				return "PublishedProgress";
+			}
+			if (name.equals("showsDebug")) {
+				return Boolean.TRUE;
+			}
+			if (name.equals("refreshJobInfo")
+					&& ((JobInfo) args[0]).getJob() == job) {
+				JobInfo info = (JobInfo) args[0];
+				refreshes.incrementAndGet();
+				percentDone = ((Integer) call(info, "getPercentDone"))
+						.intValue();
+				Object[] children = (Object[]) call(info, "getChildren");
+				subTask = children.length == 0 ? null
+						: children[children.length - 1].toString();
+			}
+			return null;
+		}
+
+		/**
+		 * Wait until the last step of the job has been reported and
+		 * published.
+		 */
+		boolean awaitFinalState(ReportingJob reportingJob, long timeout)
+				throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			reportingJob.reported.await();
+			while (System.currentTimeMillis() < end) {
+				if (percentDone == 100 && ReportingJob.LAST_STEP.equals(subTask)) {
+					return true;
+				}
+				Thread.sleep(10);
+			}
+			return false;
+		}
+
+		private static Object call(JobInfo info, String methodName)
+				throws Exception {
+			Method method = JobInfo.class.getDeclaredMethod(methodName,
+					new Class[0]);
+			method.setAccessible(true);
+			return method.invoke(info, new Object[0]);
+		}
+	}
+
+	private static Class listenerClass() throws ClassNotFoundException {
+		return Class.forName(
+				"org.eclipse.ui.internal.progress.IJobProgressManagerListener",
+				true, ProgressManager.class.getClassLoader());
+	}
+
+	private static void removeListener(ProgressManager manager, Object listener)
+			throws Exception {
+		Class listenerClass = listenerClass();
+		Method remove = ProgressManager.class.getDeclaredMethod(
+				"removeListener", new Class[] { listenerClass });
+		remove.setAccessible(true);
+		remove.invoke(manager, new Object[] { listener });
+	}
+
 	protected Job runDummyJob() throws InterruptedException {
 
 		DummyJob dummyJob = new DummyJob("Dummy Job", Status.OK_STATUS);